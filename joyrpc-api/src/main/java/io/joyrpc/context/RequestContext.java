@@ -26,6 +26,7 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Function;
 import java.util.function.Predicate;
 
@@ -110,6 +111,16 @@ public class RequestContext {
      */
     protected CompletableFuture<?> future;
 
+    /**
+     * 调用链的截止时间，本机时钟的毫秒数，0表示没有截止时间
+     */
+    protected long deadline;
+
+    /**
+     * 取消标识，服务端收到调用方的取消消息后设置，调用链中新建的上下文共享该标识
+     */
+    protected AtomicBoolean cancelled = new AtomicBoolean();
+
     /**
      * 所有参数的合计
      */
@@ -229,6 +240,44 @@ public class RequestContext {
         return this;
     }
 
+    /**
+     * 获取调用链的截止时间
+     *
+     * @return 截止时间，0表示没有截止时间
+     */
+    public long getDeadline() {
+        return deadline;
+    }
+
+    /**
+     * 设置调用链的截止时间
+     *
+     * @param deadline 截止时间
+     * @return 本对象
+     */
+    public RequestContext setDeadline(final long deadline) {
+        this.deadline = deadline;
+        return this;
+    }
+
+    /**
+     * 调用方是否已经取消了本次请求，业务代码可以据此提前结束执行
+     *
+     * @return 取消标识
+     */
+    public boolean isCancelled() {
+        return cancelled.get();
+    }
+
+    /**
+     * 取消本次请求
+     *
+     * @return 是否是首次取消
+     */
+    public boolean cancel() {
+        return cancelled.compareAndSet(false, true);
+    }
+
     /**
      * set local address.
      *
@@ -584,7 +633,7 @@ public class RequestContext {
     }
 
     /**
-     * 创建新的上下文，保留会话、调用者和跟踪的上下文
+     * 创建新的上下文，保留会话、调用者、跟踪的上下文、截止时间和取消标识
      *
      * @return 新上下文
      */
@@ -593,6 +642,8 @@ public class RequestContext {
         result.sessions = this.sessions;
         result.callers = this.callers;
         result.traces = this.traces;
+        result.deadline = this.deadline;
+        result.cancelled = this.cancelled;
         result.dirty = true;
         return result;
     }
@@ -624,6 +675,8 @@ public class RequestContext {
         traces = null;
         callers = null;
         attachments = null;
+        deadline = 0;
+        cancelled = new AtomicBoolean();
         dirty = false;
         return this;
     }
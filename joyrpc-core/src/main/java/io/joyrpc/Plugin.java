@@ -436,6 +436,11 @@ public interface Plugin {
      */
     ExtensionPoint<RateLimiter, String> LIMITER = new ExtensionPointLazy<>(RateLimiter.class);
 
+    /**
+     * 自适应并发限制器
+     */
+    ExtensionPoint<ConcurrencyLimiter, String> CONCURRENCY_LIMITER = new ExtensionPointLazy<>(ConcurrencyLimiter.class);
+
     /**
      * 路由策略
      */
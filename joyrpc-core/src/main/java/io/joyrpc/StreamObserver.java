@@ -0,0 +1,72 @@
+package io.joyrpc;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+
+/**
+ * 流式应答观察者，用于grpc服务端流式调用。
+ * <p>
+ * 接口方法的最后一个参数声明为StreamObserver，例如 void list(Request request, StreamObserver&lt;Item&gt; observer)，
+ * 服务端通过该对象逐条推送应答，消费者通过该对象逐条接收应答。
+ * <p>
+ * 服务端的onNext不会阻塞，超出流控窗口的应答先缓存，服务端可以通过{@link #isReady()}和{@link #setOnReadyHandler(Runnable)}
+ * 控制推送速度。客户端流式和双向流式调用（返回StreamObserver的方法）暂不支持，作为后续单独的需求实现。
+ *
+ * @param <T> 应答类型
+ */
+public interface StreamObserver<T> {
+
+    /**
+     * 收到一条应答
+     *
+     * @param value 应答
+     */
+    void onNext(T value);
+
+    /**
+     * 流异常结束
+     *
+     * @param throwable 异常
+     */
+    void onError(Throwable throwable);
+
+    /**
+     * 流正常结束
+     */
+    void onCompleted();
+
+    /**
+     * 是否可以继续推送而不需要缓存，服务端据此实现背压
+     *
+     * @return 可推送标识
+     */
+    default boolean isReady() {
+        return true;
+    }
+
+    /**
+     * 设置可以继续推送的通知，从不可推送变为可推送的时候触发
+     *
+     * @param handler 通知
+     */
+    default void setOnReadyHandler(final Runnable handler) {
+    }
+}
@@ -22,6 +22,8 @@ package io.joyrpc.apm.metric;
 
 import io.joyrpc.cluster.event.MetricEvent;
 import io.joyrpc.event.EventHandler;
+import io.joyrpc.extension.URL;
+import io.joyrpc.transport.message.Message;
 
 /**
  * 仪表盘，处理指标事件，返回当前指标
@@ -60,6 +62,28 @@ public interface Dashboard extends EventHandler<MetricEvent> {
         getMetric().setLastSnapshotTime(timeMillis);
     }
 
+    /**
+     * 直接记录一次调用，默认构造指标事件进行处理，实现类可以覆盖该方法避免创建事件对象
+     *
+     * @param source       来源
+     * @param clusterUrl   集群URL
+     * @param clusterName  集群名称
+     * @param url          节点URL
+     * @param request      请求
+     * @param response     应答
+     * @param throwable    异常
+     * @param concurrency  并发数
+     * @param startTime    开始时间
+     * @param endTime      结束时间
+     * @param elapsedNanos 耗时，单位纳秒
+     */
+    default void record(final Object source, final URL clusterUrl, final String clusterName, final URL url,
+                        final Message request, final Message response, final Throwable throwable,
+                        final int concurrency, final long startTime, final long endTime, final long elapsedNanos) {
+        handle(new MetricEvent(source, null, clusterUrl, clusterName, url, request, response, throwable,
+                concurrency, startTime, endTime, elapsedNanos));
+    }
+
     /**
      * 获取方法的性能指标
      *
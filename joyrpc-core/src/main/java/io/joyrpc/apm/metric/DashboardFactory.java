@@ -31,6 +31,15 @@ import io.joyrpc.apm.metric.Dashboard.DashboardType;
 @Extensible("dashboardFactory")
 public interface DashboardFactory {
 
+    /**
+     * 毫秒精度面板的顺序
+     */
+    int MC_ORDER = 100;
+    /**
+     * 高精度面板的顺序
+     */
+    int HDR_ORDER = MC_ORDER + 100;
+
     /**
      * 创建面板
      *
@@ -132,4 +132,76 @@ public interface TPSnapshot extends Metric {
      */
     int getTp999();
 
+    /**
+     * 最大时间，单位微秒
+     *
+     * @return 最大时间
+     */
+    default long getMaxMicros() {
+        return getMax() * 1000L;
+    }
+
+    /**
+     * 最小时间，单位微秒
+     *
+     * @return 最小时间
+     */
+    default long getMinMicros() {
+        return getMin() * 1000L;
+    }
+
+    /**
+     * 平均时间，单位微秒
+     *
+     * @return 平均时间
+     */
+    default long getAvgMicros() {
+        return getAvg() * 1000L;
+    }
+
+    /**
+     * TP30，单位微秒
+     *
+     * @return TP30
+     */
+    default long getTp30Micros() {
+        return getTp30() * 1000L;
+    }
+
+    /**
+     * TP50，单位微秒
+     *
+     * @return TP50
+     */
+    default long getTp50Micros() {
+        return getTp50() * 1000L;
+    }
+
+    /**
+     * TP90，单位微秒
+     *
+     * @return TP90
+     */
+    default long getTp90Micros() {
+        return getTp90() * 1000L;
+    }
+
+    /**
+     * TP99，单位微秒
+     *
+     * @return TP99
+     */
+    default long getTp99Micros() {
+        return getTp99() * 1000L;
+    }
+
+    /**
+     * TP999，单位微秒
+     *
+     * @return TP999
+     */
+    default long getTp999Micros() {
+        return getTp999() * 1000L;
+    }
+
 }
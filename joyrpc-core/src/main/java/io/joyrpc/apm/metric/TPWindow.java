@@ -22,6 +22,7 @@ package io.joyrpc.apm.metric;
 
 import io.joyrpc.util.MilliPeriod;
 
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 
 /**
@@ -38,6 +39,16 @@ public interface TPWindow extends Metric, Snapshot<TPMetric> {
      */
     void success(int timeMillis);
 
+    /**
+     * 请求成功，支持高精度的实现可以使用纳秒耗时
+     *
+     * @param timeMillis 耗费的时间，单位毫秒
+     * @param timeNanos  耗费的时间，单位纳秒，小于等于0表示没有采集
+     */
+    default void success(final int timeMillis, final long timeNanos) {
+        success(timeMillis);
+    }
+
     /**
      * 成功请求一次
      *
@@ -0,0 +1,47 @@
+package io.joyrpc.apm.metric.hdr;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import io.joyrpc.apm.metric.Clock;
+import io.joyrpc.apm.metric.TPWindow;
+import io.joyrpc.apm.metric.mc.McDashboard;
+import io.joyrpc.extension.URL;
+
+/**
+ * 基于高精度直方图的指标面板
+ */
+public class HdrDashboard extends McDashboard {
+
+    /**
+     * 构造函数
+     *
+     * @param url  URL
+     * @param type 类型
+     */
+    public HdrDashboard(final URL url, final DashboardType type) {
+        super(url, type);
+    }
+
+    @Override
+    protected TPWindow createWindow() {
+        return new HdrTPWindow(interval, Clock.MILLI);
+    }
+}
@@ -0,0 +1,39 @@
+package io.joyrpc.apm.metric.hdr;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import io.joyrpc.apm.metric.Dashboard;
+import io.joyrpc.apm.metric.Dashboard.DashboardType;
+import io.joyrpc.apm.metric.DashboardFactory;
+import io.joyrpc.extension.Extension;
+import io.joyrpc.extension.URL;
+
+/**
+ * 高精度面板工程类
+ */
+@Extension(value = "hdr", order = DashboardFactory.HDR_ORDER)
+public class HdrDashboardFactory implements DashboardFactory {
+
+    @Override
+    public Dashboard create(final URL url, final DashboardType type) {
+        return new HdrDashboard(url, type);
+    }
+}
@@ -0,0 +1,294 @@
+package io.joyrpc.apm.metric.hdr;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 对数线性分桶的高精度直方图，单位微秒。<br/>
+ * 小于64微秒按1微秒线性分桶，之后每个2的幂区间再均分为32个桶，相对误差不超过1/32。
+ * 桶数组固定大小，可以重置后循环使用，多个直方图可以合并。
+ */
+public class HdrHistogram {
+
+    /**
+     * 每个2的幂区间的子桶位数
+     */
+    protected static final int SUB_BUCKET_BITS = 5;
+    /**
+     * 每个2的幂区间的子桶数
+     */
+    protected static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    /**
+     * 线性区间的上限
+     */
+    protected static final long LINEAR_LIMIT = SUB_BUCKET_COUNT << 1;
+    /**
+     * 可以区分的最大值（微秒），约17.9分钟，超过的值记录在最后一个桶
+     */
+    public static final long MAX_VALUE = (1L << 30) - 1;
+    /**
+     * 桶数量
+     */
+    protected static final int LENGTH = index(MAX_VALUE) + 1;
+
+    /**
+     * 各个桶的计数
+     */
+    protected final AtomicIntegerArray counts = new AtomicIntegerArray(LENGTH);
+    /**
+     * 总调用次数
+     */
+    protected final LongAdder requests = new LongAdder();
+    /**
+     * 成功调用次数
+     */
+    protected final LongAdder successes = new LongAdder();
+    /**
+     * 失败调用次数
+     */
+    protected final LongAdder failures = new LongAdder();
+    /**
+     * 成功处理的记录条数
+     */
+    protected final LongAdder records = new LongAdder();
+    /**
+     * 数据大小
+     */
+    protected final LongAdder dataSize = new LongAdder();
+    /**
+     * 总时间（纳秒）
+     */
+    protected final LongAdder elapsedNanos = new LongAdder();
+    /**
+     * 最大时间（纳秒）
+     */
+    protected final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+    /**
+     * 最小时间（纳秒）
+     */
+    protected final LongAccumulator minNanos = new LongAccumulator(Math::min, Long.MAX_VALUE);
+
+    /**
+     * 计算桶的位置
+     *
+     * @param micros 时间，单位微秒
+     * @return 桶的位置
+     */
+    protected static int index(final long micros) {
+        long value = micros <= 0 ? 0 : (micros > MAX_VALUE ? MAX_VALUE : micros);
+        if (value < LINEAR_LIMIT) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return (shift << SUB_BUCKET_BITS) + (int) (value >>> shift);
+    }
+
+    /**
+     * 获取桶能表示的最大值
+     *
+     * @param index 桶的位置
+     * @return 时间，单位微秒
+     */
+    protected static long value(final int index) {
+        if (index < LINEAR_LIMIT) {
+            return index;
+        }
+        int shift = (index >>> SUB_BUCKET_BITS) - 1;
+        long sub = index - (shift << SUB_BUCKET_BITS);
+        return ((sub + 1) << shift) - 1;
+    }
+
+    /**
+     * 成功调用
+     *
+     * @param nanos   单次调用时间，单位纳秒
+     * @param records 总共记录条数
+     * @param size    总共数据包大小
+     */
+    public void success(final long nanos, final int records, final long size) {
+        if (nanos < 0) {
+            // 做性能统计时间不可能为负数
+            return;
+        }
+        counts.incrementAndGet(index(nanos / 1000));
+        elapsedNanos.add(nanos);
+        maxNanos.accumulate(nanos);
+        minNanos.accumulate(nanos);
+        requests.increment();
+        successes.increment();
+        if (records > 0) {
+            this.records.add(records);
+        }
+        if (size > 0) {
+            dataSize.add(size);
+        }
+    }
+
+    /**
+     * 出错
+     */
+    public void failure() {
+        failures.increment();
+        requests.increment();
+    }
+
+    /**
+     * 是否有请求
+     *
+     * @return 有请求标识
+     */
+    public boolean hasRequest() {
+        return requests.sum() > 0;
+    }
+
+    /**
+     * 合并另外一个直方图的数据
+     *
+     * @param other 直方图
+     * @return 当前直方图
+     */
+    public HdrHistogram add(final HdrHistogram other) {
+        if (other != null && other != this) {
+            int count;
+            for (int i = 0; i < LENGTH; i++) {
+                count = other.counts.get(i);
+                if (count > 0) {
+                    counts.addAndGet(i, count);
+                }
+            }
+            requests.add(other.requests.sum());
+            successes.add(other.successes.sum());
+            failures.add(other.failures.sum());
+            records.add(other.records.sum());
+            dataSize.add(other.dataSize.sum());
+            elapsedNanos.add(other.elapsedNanos.sum());
+            maxNanos.accumulate(other.maxNanos.get());
+            minNanos.accumulate(other.minNanos.get());
+        }
+        return this;
+    }
+
+    /**
+     * 重置数据，便于循环使用
+     */
+    public void reset() {
+        for (int i = 0; i < LENGTH; i++) {
+            counts.set(i, 0);
+        }
+        requests.reset();
+        successes.reset();
+        failures.reset();
+        records.reset();
+        dataSize.reset();
+        elapsedNanos.reset();
+        maxNanos.reset();
+        minNanos.reset();
+    }
+
+    /**
+     * 获取百分位的值
+     *
+     * @param percentile 百分位，例如99.9
+     * @return 时间，单位微秒
+     */
+    public long getValueAtPercentile(final double percentile) {
+        long total = 0;
+        for (int i = 0; i < LENGTH; i++) {
+            total += counts.get(i);
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long position = Math.max((long) Math.floor(total * percentile / 100), 1);
+        long sum = 0;
+        for (int i = 0; i < LENGTH; i++) {
+            sum += counts.get(i);
+            if (sum >= position) {
+                return value(i);
+            }
+        }
+        return value(LENGTH - 1);
+    }
+
+    /**
+     * 获取性能统计
+     *
+     * @return 性能统计
+     */
+    public HdrTPSnapshot snapshot() {
+        long m_requests = requests.sum();
+        long m_successes = successes.sum();
+        long m_failures = failures.sum();
+        long m_records = records.sum();
+        long m_dataSize = dataSize.sum();
+        long m_elapsedNanos = elapsedNanos.sum();
+        if (m_successes <= 0) {
+            return new HdrTPSnapshot(m_requests, m_successes, m_failures, m_records, m_dataSize, m_elapsedNanos,
+                    0, 0, 0, 0, 0, 0, 0);
+        }
+        // 计算排序位置，和毫秒直方图保持一致
+        long tp30 = (long) Math.floor(m_successes * 30.0 / 100);
+        long tp50 = (long) Math.floor(m_successes * 50.0 / 100);
+        long tp90 = (long) Math.floor(m_successes * 90.0 / 100);
+        long tp99 = (long) Math.floor(m_successes * 99.0 / 100);
+        long tp999 = (long) Math.floor(m_successes * 99.9 / 100);
+        long m_tp30 = 0;
+        long m_tp50 = 0;
+        long m_tp90 = 0;
+        long m_tp99 = 0;
+        long m_tp999 = 0;
+        long prev = 0;
+        long pos;
+        long count;
+        long time;
+        // 递增遍历数组
+        for (int i = 0; i < LENGTH && prev < m_successes; i++) {
+            count = counts.get(i);
+            if (count > 0) {
+                time = value(i);
+                pos = prev + count;
+                if (prev < tp30 && pos >= tp30) {
+                    m_tp30 = time;
+                }
+                if (prev < tp50 && pos >= tp50) {
+                    m_tp50 = time;
+                }
+                if (prev < tp90 && pos >= tp90) {
+                    m_tp90 = time;
+                }
+                if (prev < tp99 && pos >= tp99) {
+                    m_tp99 = time;
+                }
+                if (prev < tp999 && pos >= tp999) {
+                    m_tp999 = time;
+                }
+                prev = pos;
+            }
+        }
+        long m_min = minNanos.get();
+        return new HdrTPSnapshot(m_requests, m_successes, m_failures, m_records, m_dataSize, m_elapsedNanos,
+                maxNanos.get() / 1000, m_min == Long.MAX_VALUE ? 0 : m_min / 1000,
+                m_tp30, m_tp50, m_tp90, m_tp99, m_tp999);
+    }
+}
@@ -0,0 +1,113 @@
+package io.joyrpc.apm.metric.hdr;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import io.joyrpc.apm.metric.mc.McTPSnapshot;
+
+/**
+ * 微秒精度的性能快照，毫秒的指标由微秒截断得到，保持和原有的毫秒指标兼容
+ */
+public class HdrTPSnapshot extends McTPSnapshot {
+
+    //最大时间（微秒）
+    protected long maxMicros;
+    //最小时间（微秒）
+    protected long minMicros;
+    //平均时间（微秒）
+    protected long avgMicros;
+    //TP30（微秒）
+    protected long tp30Micros;
+    //TP50（微秒）
+    protected long tp50Micros;
+    //TP90（微秒）
+    protected long tp90Micros;
+    //TP99（微秒）
+    protected long tp99Micros;
+    //TP999（微秒）
+    protected long tp999Micros;
+
+    public HdrTPSnapshot() {
+    }
+
+    public HdrTPSnapshot(long requests, long successes,
+                         long failures, long records,
+                         long dataSize, long elapsedNanos,
+                         long max, long min, long tp30, long tp50, long tp90, long tp99, long tp999) {
+        super(requests, successes, failures, records, dataSize, (int) (elapsedNanos / 1000000),
+                (int) (max / 1000), (int) (min / 1000), (int) (tp30 / 1000), (int) (tp50 / 1000),
+                (int) (tp90 / 1000), (int) (tp99 / 1000), (int) (tp999 / 1000));
+        this.maxMicros = max;
+        this.minMicros = min;
+        this.avgMicros = successes <= 0 ? 0 : elapsedNanos / 1000 / successes;
+        this.tp30Micros = tp30;
+        this.tp50Micros = tp50;
+        this.tp90Micros = tp90;
+        this.tp99Micros = tp99;
+        this.tp999Micros = tp999;
+    }
+
+    @Override
+    public long getMaxMicros() {
+        return maxMicros;
+    }
+
+    @Override
+    public long getMinMicros() {
+        return minMicros;
+    }
+
+    @Override
+    public long getAvgMicros() {
+        return avgMicros;
+    }
+
+    @Override
+    public long getTp30Micros() {
+        return tp30Micros;
+    }
+
+    @Override
+    public long getTp50Micros() {
+        return tp50Micros;
+    }
+
+    @Override
+    public long getTp90Micros() {
+        return tp90Micros;
+    }
+
+    @Override
+    public long getTp99Micros() {
+        return tp99Micros;
+    }
+
+    @Override
+    public long getTp999Micros() {
+        return tp999Micros;
+    }
+
+    @Override
+    public String toString() {
+        return super.toString() + "_avgMicros::" + avgMicros + "_maxMicros::" + maxMicros
+                + "_minMicros::" + minMicros + "_tp50Micros::" + tp50Micros + "_tp90Micros::" + tp90Micros
+                + "_tp99Micros::" + tp99Micros + "_tp999Micros::" + tp999Micros;
+    }
+}
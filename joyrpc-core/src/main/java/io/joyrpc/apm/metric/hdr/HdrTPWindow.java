@@ -0,0 +1,117 @@
+package io.joyrpc.apm.metric.hdr;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import io.joyrpc.apm.metric.Clock;
+import io.joyrpc.apm.metric.mc.McTPMetric;
+import io.joyrpc.apm.metric.mc.McTPWindow;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 基于高精度直方图的TPWindow实现。<br/>
+ * 采用双缓冲，一个直方图接收当前窗口的数据，另一个保存上一个窗口的数据，快照的时候交换并重置复用，不再创建新的直方图。
+ * 交换的瞬间仍在写入旧直方图的少量数据会计入上一个窗口。
+ */
+public class HdrTPWindow extends McTPWindow {
+
+    /**
+     * 当前窗口的直方图
+     */
+    protected volatile HdrHistogram active = new HdrHistogram();
+    /**
+     * 上一个窗口的直方图
+     */
+    protected volatile HdrHistogram last = new HdrHistogram();
+
+    /**
+     * 构造函数
+     */
+    public HdrTPWindow() {
+        this(1000, Clock.MILLI);
+    }
+
+    /**
+     * 构造函数
+     *
+     * @param windowTimeMillis 时间窗口，单位毫秒
+     * @param clock            时钟
+     */
+    public HdrTPWindow(final long windowTimeMillis, final Clock clock) {
+        super(windowTimeMillis, clock);
+    }
+
+    @Override
+    protected Histogram createHistogram() {
+        //不使用毫秒直方图
+        return null;
+    }
+
+    @Override
+    public synchronized void snapshot() {
+        if (isExpired()) {
+            lastSnapshotTime = clock.getTime();
+            HdrHistogram recycle = last;
+            recycle.reset();
+            last = active;
+            active = recycle;
+            snapshot = new McTPMetric(successiveFailures, actives, distribution,
+                    brokenPeriod != null && brokenPeriod.between(), last.snapshot());
+        }
+    }
+
+    @Override
+    public void success(final int timeMillis) {
+        success(timeMillis, 1, 0);
+    }
+
+    @Override
+    public void success(final int timeMillis, final long timeNanos) {
+        active.success(timeNanos > 0 ? timeNanos : TimeUnit.MILLISECONDS.toNanos(timeMillis), 1, 0);
+        successiveFailures.set(0);
+    }
+
+    @Override
+    public void success(final int timeMillis, final int records, final long dataSize) {
+        active.success(TimeUnit.MILLISECONDS.toNanos(timeMillis), records, dataSize);
+        successiveFailures.set(0);
+    }
+
+    @Override
+    public void failure() {
+        active.failure();
+        successiveFailures.incrementAndGet();
+    }
+
+    @Override
+    public boolean hasRequest() {
+        return active.hasRequest();
+    }
+
+    /**
+     * 获取上一个窗口的直方图，可以用于合并多个节点或方法的数据
+     *
+     * @return 直方图
+     */
+    public HdrHistogram getHistogram() {
+        return last;
+    }
+}
@@ -75,7 +75,16 @@ public class McDashboard implements Dashboard {
         this.url = url;
         this.type = type;
         this.interval = url.getPositiveLong(METRIC_WINDOWS_TIME_OPTION);
-        this.window = new McTPWindow(interval, Clock.MILLI);
+        this.window = createWindow();
+    }
+
+    /**
+     * 创建指标窗口
+     *
+     * @return 指标窗口
+     */
+    protected TPWindow createWindow() {
+        return new McTPWindow(interval, Clock.MILLI);
     }
 
     @Override
@@ -100,17 +109,42 @@ public class McDashboard implements Dashboard {
      * @return
      */
     public TPWindow getMethod(final String methodName) {
-        return methodName == null ? null : methods.computeIfAbsent(methodName, o -> new McTPWindow(interval, Clock.MILLI));
+        return methodName == null ? null : methods.computeIfAbsent(methodName, o -> createWindow());
     }
 
     @Override
     public void handle(final MetricEvent event) {
-        Message message = event.getRequest();
+        onRequest(event.getRequest(), event.getResponse(), event.getThrowable(), event.getConcurrency(),
+                event.getStartTime(), event.getEndTime(), event.getElapsedNanos());
+    }
+
+    @Override
+    public void record(final Object source, final URL clusterUrl, final String clusterName, final URL url,
+                      final Message request, final Message response, final Throwable throwable,
+                      final int concurrency, final long startTime, final long endTime, final long elapsedNanos) {
+        //直接更新指标窗口，不创建事件对象
+        onRequest(request, response, throwable, concurrency, startTime, endTime, elapsedNanos);
+    }
+
+    /**
+     * 请求完成
+     *
+     * @param message      请求
+     * @param response     应答
+     * @param throwable    异常
+     * @param concurrency  并发数
+     * @param startTime    开始时间
+     * @param endTime      结束时间
+     * @param elapsedNanos 耗时，单位纳秒
+     */
+    protected void onRequest(final Message message, final Message response, final Throwable throwable,
+                             final int concurrency, final long startTime, final long endTime,
+                             final long elapsedNanos) {
         if (message instanceof RequestMessage) {
             RequestMessage request = (RequestMessage) message;
             Object payload = request.getPayLoad();
             if (payload instanceof Invocation) {
-                onInvocation(event, request);
+                onInvocation(request, getThrowable(throwable, response), concurrency, startTime, endTime, elapsedNanos);
             }
         }
     }
@@ -118,15 +152,20 @@ public class McDashboard implements Dashboard {
     /**
      * 方法调用
      *
-     * @param event   事件
-     * @param request 请求
+     * @param request      请求
+     * @param throwable    异常
+     * @param concurrency  并发数
+     * @param startTime    开始时间
+     * @param endTime      结束时间
+     * @param elapsedNanos 耗时，单位纳秒
      */
-    protected void onInvocation(final MetricEvent event, final RequestMessage<Invocation> request) {
+    protected void onInvocation(final RequestMessage<Invocation> request, final Throwable throwable,
+                                final int concurrency, final long startTime, final long endTime,
+                                final long elapsedNanos) {
         Invocation invocation = request.getPayLoad();
         ConsumerMethodOption option = (ConsumerMethodOption) request.getOption();
         //方法的指标
         TPWindow method = getMethod(invocation.getMethodName());
-        Throwable throwable = getThrowable(event);
         if (throwable != null) {
             //如果有异常，进行异常统计
             if (type == DashboardType.Node) {
@@ -140,27 +179,27 @@ public class McDashboard implements Dashboard {
                     breaker.apply(throwable, method);
                 }
             }
-        } else if (event.getStartTime() > 0 && event.getEndTime() > 0) {
+        } else if (startTime > 0 && endTime > 0) {
             //如果正常执行，统计成功
-            int elapse = (int) (event.getEndTime() - event.getStartTime());
-            method.success(elapse);
-            method.actives().set(event.getConcurrency());
-            window.success(elapse);
-            window.actives().set(event.getConcurrency());
+            int elapse = (int) (endTime - startTime);
+            method.success(elapse, elapsedNanos);
+            method.actives().set(concurrency);
+            window.success(elapse, elapsedNanos);
+            window.actives().set(concurrency);
         }
     }
 
     /**
      * 获取异常
      *
-     * @param event
-     * @return
+     * @param throwable 调用异常
+     * @param message   应答
+     * @return 异常
      */
-    protected Throwable getThrowable(final MetricEvent event) {
-        if (event.getThrowable() != null) {
-            return event.getThrowable();
+    protected Throwable getThrowable(final Throwable throwable, final Message message) {
+        if (throwable != null) {
+            return throwable;
         }
-        Message message = event.getResponse();
         if (message instanceof ResponseMessage) {
             ResponseMessage responseMessage = ((ResponseMessage) message);
             Object payLoad = responseMessage.getPayLoad();
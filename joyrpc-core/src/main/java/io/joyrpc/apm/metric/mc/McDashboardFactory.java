@@ -29,7 +29,7 @@ import io.joyrpc.apm.metric.DashboardFactory;
 /**
  * 面板工程类
  */
-@Extension("mc")
+@Extension(value = "mc", order = DashboardFactory.MC_ORDER)
 public class McDashboardFactory implements DashboardFactory {
 
     @Override
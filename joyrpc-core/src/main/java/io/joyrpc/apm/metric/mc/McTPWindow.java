@@ -39,7 +39,7 @@ public class McTPWindow implements TPWindow {
 
     public static final Function<String, TPWindow> MILLI_WINDOW_FUNCTION = t -> new McTPWindow();
 
-    protected volatile Histogram histogram = new Histogram();
+    protected volatile Histogram histogram;
     //当前并发数
     protected AtomicLong actives = new AtomicLong();
     //待分发数量
@@ -78,6 +78,16 @@ public class McTPWindow implements TPWindow {
         this.windowTime = this.clock.getTimeUnit().convert(windowTimeMillis <= 0 ? 1000 : windowTimeMillis, TimeUnit.MILLISECONDS);
         this.lastSnapshotTime = this.clock.getTime();
         this.snapshot = new McTPMetric(successiveFailures, actives, distribution, false, new McTPSnapshot());
+        this.histogram = createHistogram();
+    }
+
+    /**
+     * 创建统计缓冲器
+     *
+     * @return 统计缓冲器
+     */
+    protected Histogram createHistogram() {
+        return new Histogram();
     }
 
     @Override
@@ -86,7 +96,7 @@ public class McTPWindow implements TPWindow {
         if (isExpired()) {
             lastSnapshotTime = clock.getTime();
             Histogram old = histogram;
-            histogram = new Histogram();
+            histogram = createHistogram();
             snapshot = new McTPMetric(successiveFailures, actives, distribution,
                     brokenPeriod != null && brokenPeriod.between(), old.snapshot());
         }
@@ -20,6 +20,8 @@ package io.joyrpc.cache;
  * #L%
  */
 
+import io.joyrpc.util.SystemClock;
+
 import java.io.Serializable;
 
 /**
@@ -32,12 +34,21 @@ public class CacheObject<V> implements Serializable {
      * 结果值
      */
     protected V result;
+    /**
+     * 写入时间
+     */
+    protected long createTime;
 
     public CacheObject(V result) {
         this.result = result;
+        this.createTime = SystemClock.now();
     }
 
     public V getResult() {
         return result;
     }
+
+    public long getCreateTime() {
+        return createTime;
+    }
 }
@@ -81,6 +81,16 @@ public class Candidate implements Region {
         return nodes;
     }
 
+    /**
+     * 获取集群的全量节点，负载均衡据此构建索引，候选节点是全量节点的子集时复用索引
+     *
+     * @return 全量节点，没有集群则返回候选节点
+     */
+    public List<Node> getMembers() {
+        List<Node> result = cluster == null ? null : cluster.getNodes();
+        return result == null || result.isEmpty() ? nodes : result;
+    }
+
     public int getSize() {
         return size;
     }
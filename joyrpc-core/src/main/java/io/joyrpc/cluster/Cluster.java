@@ -25,6 +25,7 @@ import io.joyrpc.cluster.Shard.ShardState;
 import io.joyrpc.cluster.candidate.Candidature;
 import io.joyrpc.cluster.discovery.naming.ClusterHandler;
 import io.joyrpc.cluster.discovery.naming.Registar;
+import io.joyrpc.cluster.distribution.router.failover.RetryBudget;
 import io.joyrpc.cluster.event.ClusterEvent;
 import io.joyrpc.cluster.event.ClusterEvent.ShardEvent;
 import io.joyrpc.cluster.event.MetricEvent;
@@ -65,6 +66,8 @@ import java.util.function.Supplier;
 
 import static io.joyrpc.Plugin.*;
 import static io.joyrpc.constants.Constants.CANDIDATURE_OPTION;
+import static io.joyrpc.constants.Constants.METRIC_MODE_DIRECT;
+import static io.joyrpc.constants.Constants.METRIC_MODE_OPTION;
 import static io.joyrpc.util.StringUtils.toSimpleString;
 import static io.joyrpc.util.Timer.timer;
 
@@ -117,6 +120,10 @@ public class Cluster {
      * 集群指标通知器
      */
     protected Publisher<MetricEvent> metricPublisher;
+    /**
+     * 直接记录模式下的指标处理器，接收聚合后的指标快照
+     */
+    protected List<MetricHandler> metricHandlers;
     /**
      * 集群节点事件通知器
      */
@@ -125,6 +132,10 @@ public class Cluster {
      * 当前集群的指标
      */
     protected final Dashboard dashboard;
+    /**
+     * 重试预算
+     */
+    protected final RetryBudget retryBudget;
     /**
      * 重连时间间隔
      */
@@ -203,17 +214,42 @@ public class Cluster {
         //创建仪表盘
         this.dashboardFactory = dashboardFactory;
         this.dashboard = dashboardFactory != null ? dashboardFactory.create(url, DashboardType.Cluster) : null;
+        this.retryBudget = new RetryBudget(url);
         //构建事件发布器
         this.clusterPublisher = clusterPublisher != null ? clusterPublisher : EVENT_BUS.get().getPublisher(EVENT_PUBLISHER_CLUSTER, this.name, EVENT_PUBLISHER_CLUSTER_CONF);
         //额外的指标监听器
-        if (dashboard != null || metricHandlers != null) {
-            Iterator<? extends MetricHandler> it = metricHandlers.iterator();
-            if (it.hasNext() || dashboard != null) {
-                this.metricPublisher = EVENT_BUS.get().getPublisher(EVENT_PUBLISHER_METRIC, String.valueOf(idCounter.incrementAndGet()), EVENT_PUBLISHER_METRIC_CONF);
-                this.metricPublisher.addHandler(dashboard);
-                this.metricPublisher.addHandler(metricHandlers);
+        List<MetricHandler> handlers = new ArrayList<>();
+        if (metricHandlers != null) {
+            metricHandlers.forEach(handlers::add);
+        }
+        if (dashboard != null && isDirect(handlers)) {
+            //直接在调用完成的线程上更新仪表盘，指标处理器在快照的时候收到聚合后的指标
+            this.metricHandlers = handlers;
+        } else if (dashboard != null || !handlers.isEmpty()) {
+            this.metricPublisher = EVENT_BUS.get().getPublisher(EVENT_PUBLISHER_METRIC, String.valueOf(idCounter.incrementAndGet()), EVENT_PUBLISHER_METRIC_CONF);
+            this.metricPublisher.addHandler(dashboard);
+            this.metricPublisher.addHandler(handlers);
+        }
+    }
+
+    /**
+     * 判断是否启用直接记录指标模式，存在不支持快照的指标处理器则退回到事件模式
+     *
+     * @param handlers 指标处理器
+     * @return 直接记录模式标识
+     */
+    protected boolean isDirect(final List<MetricHandler> handlers) {
+        if (!METRIC_MODE_DIRECT.equals(url.getString(METRIC_MODE_OPTION))) {
+            return false;
+        }
+        for (MetricHandler handler : handlers) {
+            if (!handler.isSnapshot()) {
+                logger.warn(String.format("Metric mode %s is disabled for cluster %s, metric handler %s does not support snapshot.",
+                        METRIC_MODE_DIRECT, name, handler.getClass().getName()));
+                return false;
             }
         }
+        return true;
     }
 
     /**
@@ -242,6 +278,18 @@ public class Cluster {
                 build());
     }
 
+    /**
+     * 是否需要重新选举
+     *
+     * @param candidates 候选人
+     * @return 需要重新选举标识
+     */
+    protected boolean isChanged(final List<Node> candidates) {
+        return candidature.isChanged(url, Candidate.builder().cluster(this).
+                region(registar).nodes(candidates).size(minSize).
+                build());
+    }
+
     /**
      * 是否发生变更
      *
@@ -323,7 +371,8 @@ public class Cluster {
                 authentication,
                 handler,
                 dashboardFactory == null ? null : dashboardFactory.create(url, DashboardType.Node),
-                metricPublisher);
+                metricPublisher,
+                metricHandlers == null ? null : dashboard);
     }
 
     /**
@@ -382,6 +431,10 @@ public class Cluster {
         return url;
     }
 
+    public RetryBudget getRetryBudget() {
+        return retryBudget;
+    }
+
     public String getName() {
         return name;
     }
@@ -510,6 +563,7 @@ public class Cluster {
             trigger = null;
             //关闭节点
             closeNodes();
+            Node.removeWeightVersion(cluster.name);
             return CompletableFuture.completedFuture(null);
         }
 
@@ -722,6 +776,15 @@ public class Cluster {
             readys = new ArrayList<>(connects.values());
         }
 
+        /**
+         * 集群指标快照后，根据候选算法判断是否重新选举
+         */
+        protected void onSnapshot() {
+            if (isOpen() && cluster.isChanged(new LinkedList<>(nodes.values()))) {
+                candidate();
+            }
+        }
+
         /**
          * 处理选择的分片
          *
@@ -1302,6 +1365,17 @@ public class Cluster {
             if (stateMachine.isOpen(controller)) {
                 if (stateMachine.isOpened(controller)) {
                     dashboard.snapshot();
+                    if (cluster.metricHandlers != null) {
+                        for (MetricHandler handler : cluster.metricHandlers) {
+                            try {
+                                handler.onSnapshot(cluster, dashboard);
+                            } catch (Throwable e) {
+                                logger.error("Error occurs while notifying metric snapshot of cluster " + cluster.name, e);
+                            }
+                        }
+                    }
+                    //候选算法可以根据负载调整连接数
+                    controller.tasks.offer(controller::onSnapshot);
                 }
                 time = SystemClock.now() + windowTime;
                 timer().add(this);
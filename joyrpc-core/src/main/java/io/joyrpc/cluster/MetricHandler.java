@@ -20,6 +20,7 @@ package io.joyrpc.cluster;
  * #L%
  */
 
+import io.joyrpc.apm.metric.Dashboard;
 import io.joyrpc.cluster.event.MetricEvent;
 import io.joyrpc.event.EventHandler;
 import io.joyrpc.extension.Extensible;
@@ -31,4 +32,27 @@ import io.joyrpc.extension.Extensible;
 @Extensible("metricHandler")
 public interface MetricHandler extends EventHandler<MetricEvent> {
 
+    /**
+     * 集群指标快照完成，在直接记录模式下不再收到每次调用的指标事件，通过该方法获取聚合后的指标
+     *
+     * @param cluster   集群
+     * @param dashboard 集群仪表盘，节点的仪表盘通过集群节点获取
+     */
+    default void onSnapshot(final Cluster cluster, final Dashboard dashboard) {
+
+    }
+
+    /**
+     * 是否支持聚合指标快照，默认根据是否覆盖了onSnapshot方法进行判断。<br/>
+     * 存在不支持的处理器时，集群不会启用直接记录模式，保证处理器能收到每次调用的指标事件
+     *
+     * @return 支持快照标识
+     */
+    default boolean isSnapshot() {
+        try {
+            return getClass().getMethod("onSnapshot", Cluster.class, Dashboard.class).getDeclaringClass() != MetricHandler.class;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
 }
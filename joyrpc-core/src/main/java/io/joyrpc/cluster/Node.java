@@ -58,9 +58,11 @@ import io.joyrpc.util.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.BiConsumer;
@@ -80,6 +82,10 @@ public class Node implements Shard {
     protected static final String VERSION = "version";
     protected static final String DISCONNECT_WHEN_HEARTBEAT_FAILS = "disconnectWhenHeartbeatFails";
     public static final String START_TIMESTAMP = "startTime";
+    /**
+     * 集群的权重版本，同一集群的节点共享
+     */
+    protected static final Map<String, AtomicLong> WEIGHT_VERSIONS = new ConcurrentHashMap<>();
 
     /**
      * 集群URL
@@ -89,6 +95,10 @@ public class Node implements Shard {
      * 集群名称
      */
     protected final String clusterName;
+    /**
+     * 所在集群的权重版本
+     */
+    protected final AtomicLong weightVersion;
     /**
      * 分片
      */
@@ -121,6 +131,10 @@ public class Node implements Shard {
      * 仪表盘
      */
     protected final Dashboard dashboard;
+    /**
+     * 集群仪表盘，直接记录模式下由节点直接更新
+     */
+    protected final Dashboard clusterDashboard;
     /**
      * 会话心跳间隔
      */
@@ -222,6 +236,32 @@ public class Node implements Shard {
                 final NodeHandler nodeHandler,
                 final Dashboard dashboard,
                 final Publisher<MetricEvent> publisher) {
+        this(clusterName, clusterUrl, shard, factory, workerPool, authentication, nodeHandler, dashboard, publisher, null);
+    }
+
+    /**
+     * 构造函数
+     *
+     * @param clusterName      集群名称
+     * @param clusterUrl       集群URL
+     * @param shard            分片
+     * @param factory          连接工程
+     * @param authentication   授权
+     * @param nodeHandler      节点事件处理器
+     * @param dashboard        当前节点指标面板
+     * @param publisher        额外的指标事件监听器
+     * @param clusterDashboard 集群指标面板，不为空则直接记录指标，不发布指标事件
+     */
+    public Node(final String clusterName,
+                final URL clusterUrl,
+                final Shard shard,
+                final EndpointFactory factory,
+                final ThreadPool workerPool,
+                final Function<URL, Message> authentication,
+                final NodeHandler nodeHandler,
+                final Dashboard dashboard,
+                final Publisher<MetricEvent> publisher,
+                final Dashboard clusterDashboard) {
         Objects.requireNonNull(clusterUrl, "clusterUrl can not be null.");
         Objects.requireNonNull(shard, "shard can not be null.");
         Objects.requireNonNull(factory, "factory can not be null.");
@@ -235,6 +275,7 @@ public class Node implements Shard {
             this.clusterUrl = clusterUrl;
         }
         this.clusterName = clusterName;
+        this.weightVersion = clusterName == null ? new AtomicLong() : WEIGHT_VERSIONS.computeIfAbsent(clusterName, k -> new AtomicLong());
         this.shard = shard;
         this.factory = factory;
         this.workerPool = workerPool;
@@ -242,8 +283,9 @@ public class Node implements Shard {
         this.nodeHandler = nodeHandler;
         //仪表盘
         this.dashboard = dashboard;
-        this.publisher = publisher;
-        if (publisher != null && dashboard != null) {
+        this.clusterDashboard = clusterDashboard;
+        this.publisher = clusterDashboard != null ? null : publisher;
+        if (this.publisher != null && dashboard != null) {
             //节点的Dashboard应该只能收到本节点的指标事件
             this.handler = dashboard.wrap(o -> o.getSource() == this);
             this.publisher.addHandler(handler);
@@ -364,7 +406,30 @@ public class Node implements Shard {
     }
 
     protected void setWeight(int weight) {
-        this.weight = weight;
+        if (this.weight != weight) {
+            this.weight = weight;
+            weightVersion.incrementAndGet();
+        }
+    }
+
+    /**
+     * 获取所在集群的权重版本，同一集群任意节点的权重变化后递增，负载均衡据此判断缓存的权重表是否失效
+     *
+     * @return 权重版本
+     */
+    public long getWeightVersion() {
+        return weightVersion.get();
+    }
+
+    /**
+     * 集群关闭后删除权重版本
+     *
+     * @param clusterName 集群名称
+     */
+    protected static void removeWeightVersion(final String clusterName) {
+        if (clusterName != null) {
+            WEIGHT_VERSIONS.remove(clusterName);
+        }
     }
 
     @Override
@@ -434,7 +499,7 @@ public class Node implements Shard {
      * @return 客户端
      */
     protected Client newClient(final EventHandler<TransportEvent> handler) {
-        Client client = factory.createClient(url, workerPool, t -> publisher == null ?
+        Client client = factory.createClient(url, workerPool, t -> publisher == null && clusterDashboard == null ?
                 new NodeClient(url, t, handler) :
                 new MetricClient(url, t, handler, this));
         if (client != null) {
@@ -460,7 +525,7 @@ public class Node implements Shard {
                 int duration = (int) (SystemClock.now() - startTime);
                 if (duration > 0 && duration < warmupDuration) {
                     int w = warmupWeight + Math.round(((float) duration / warmupDuration) * originWeight);
-                    weight = w < 1 ? 1 : Math.min(w, originWeight);
+                    setWeight(w < 1 ? 1 : Math.min(w, originWeight));
                     return true;
                 }
             }
@@ -503,6 +568,37 @@ public class Node implements Shard {
         return message;
     }
 
+    /**
+     * 在连接池新建的物理连接上重放协商和认证，服务端按照物理连接维护会话
+     *
+     * @param client  客户端
+     * @param channel 物理连接
+     * @return CompletableFuture
+     */
+    protected CompletableFuture<Void> handshake(final Client client, final Channel channel) {
+        Message negotiation = createNegotiateMessage(client);
+        if (negotiation == null || !negotiation.isRequest()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return client.async(channel, negotiation, 3000).thenCompose(response -> {
+            Object result = response == null ? null : response.getPayLoad();
+            if (!(result instanceof NegotiationResponse) || !((NegotiationResponse) result).isSuccess()) {
+                throw new ProtocolException(String.format("Failed negotiating with node(%s) of shard(%s)",
+                        client.getUrl().getAddress(), getName()));
+            }
+            Message authentication = createAuthenticationMessage(client);
+            if (authentication == null || !authentication.isRequest()) {
+                return CompletableFuture.completedFuture(null);
+            }
+            return client.async(channel, authentication, 3000).thenAccept(message -> {
+                SuccessResponse success = message == null ? null : (SuccessResponse) message.getPayLoad();
+                if (success != null && !success.isSuccess()) {
+                    throw new AuthenticationException(success.getMessage());
+                }
+            });
+        });
+    }
+
     /**
      * 节点控制器
      */
@@ -560,6 +656,8 @@ public class Node implements Shard {
                                 //每次连接后，获取目标节点的启动的时间戳，并初始化计算一次权重
                                 node.warmup();
                                 client = cl;
+                                //连接池新建物理连接的时候，重放协商和认证
+                                cl.getChannel().addHandshake(cl.getTransportId(), c -> node.handshake(cl, c));
                                 //心跳定时任务
                                 timer().add(new SessionbeatTask(node, this));
                                 //预热定时任务
@@ -949,6 +1047,14 @@ public class Node implements Shard {
          * 统计指标事件发布器
          */
         protected final Publisher<MetricEvent> publisher;
+        /**
+         * 节点仪表盘
+         */
+        protected final Dashboard dashboard;
+        /**
+         * 集群仪表盘
+         */
+        protected final Dashboard clusterDashboard;
 
         /**
          * 构造函数
@@ -966,17 +1072,36 @@ public class Node implements Shard {
             this.clusterUrl = node.clusterUrl;
             this.clusterName = node.clusterName;
             this.publisher = node.publisher;
+            this.dashboard = node.dashboard;
+            this.clusterDashboard = node.clusterDashboard;
         }
 
         @Override
         public CompletableFuture<Message> async(final Message message, final int timeoutMillis) {
+            return async(message, () -> transport.async(message, timeoutMillis));
+        }
+
+        @Override
+        public CompletableFuture<Message> async(final Channel channel, final Message message, final int timeoutMillis) {
+            return async(message, () -> transport.async(channel, message, timeoutMillis));
+        }
+
+        /**
+         * 异步调用并进行统计
+         *
+         * @param message  请求
+         * @param function 调用函数
+         * @return CompletableFuture
+         */
+        protected CompletableFuture<Message> async(final Message message, final Supplier<CompletableFuture<Message>> function) {
             //判空,验证是否需要统计
             final long startTime = SystemClock.now();
+            final long startNanos = System.nanoTime();
             try {
-                return transport.async(message, timeoutMillis).whenComplete((r, t) ->
-                        publish(message, r, startTime, SystemClock.now(), t));
+                return function.get().whenComplete((r, t) ->
+                        publish(message, r, startTime, SystemClock.now(), System.nanoTime() - startNanos, t));
             } catch (Exception e) {
-                publish(message, null, startTime, SystemClock.now(), e);
+                publish(message, null, startTime, SystemClock.now(), System.nanoTime() - startNanos, e);
                 throw e;
             }
         }
@@ -984,17 +1109,30 @@ public class Node implements Shard {
         /**
          * 根据请求,返回值,异常,开始时间,结束时间,发送统计事件
          *
-         * @param request   请求
-         * @param response  应答
-         * @param startTime 起始时间
-         * @param endTime   终止时间
-         * @param throwable 异常
+         * @param request      请求
+         * @param response     应答
+         * @param startTime    起始时间
+         * @param endTime      终止时间
+         * @param elapsedNanos 耗时，单位纳秒
+         * @param throwable    异常
          */
         protected void publish(final Message request, final Message response,
-                               final long startTime, final long endTime, Throwable throwable) {
-            publisher.offer(new MetricEvent(node, null, clusterUrl, clusterName, url,
-                    request, response, throwable, getRequests(),
-                    startTime, endTime));
+                               final long startTime, final long endTime, final long elapsedNanos,
+                               final Throwable throwable) {
+            if (publisher != null) {
+                publisher.offer(new MetricEvent(node, null, clusterUrl, clusterName, url,
+                        request, response, throwable, getRequests(),
+                        startTime, endTime, elapsedNanos));
+            } else {
+                //直接记录模式，在当前线程更新节点和集群的指标窗口
+                int concurrency = getRequests();
+                if (dashboard != null) {
+                    dashboard.record(node, clusterUrl, clusterName, url, request, response, throwable,
+                            concurrency, startTime, endTime, elapsedNanos);
+                }
+                clusterDashboard.record(node, clusterUrl, clusterName, url, request, response, throwable,
+                        concurrency, startTime, endTime, elapsedNanos);
+            }
         }
     }
 
@@ -1307,14 +1445,23 @@ public class Node implements Shard {
             Client client = controller.client;
             ClientProtocol protocol = client.getProtocol();
             Session session = client.session();
-            Message message = protocol.sessionbeat(node.clusterUrl, client);
-            if (message != null) {
+            Message message;
+            boolean sent = false;
+            //服务端按照物理连接维护会话，连接池的每个物理连接都要发送会话心跳
+            for (Channel channel : client.getChannel().getChannels()) {
+                message = protocol.sessionbeat(node.clusterUrl, client);
+                if (message == null) {
+                    break;
+                }
                 Header header = message.getHeader();
                 header.setSerialization(session.getSerialization().getTypeId());
                 header.setCompression(Compression.NONE);
                 header.setChecksum(Checksum.NONE);
                 //TODO 会话心跳最好不要增加请求数
-                client.oneway(message);
+                client.oneway(channel, message);
+                sent = true;
+            }
+            if (sent) {
                 //定时送心跳
                 time = SystemClock.now() + node.sessionbeatInterval;
                 timer().add(this);
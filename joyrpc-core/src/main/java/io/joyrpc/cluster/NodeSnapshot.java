@@ -0,0 +1,200 @@
+package io.joyrpc.cluster;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 节点列表快照，节点选择器和负载均衡据此判断按节点列表预先计算的索引是否失效。
+ * <p>
+ * 集群的节点列表是写时复制的，同一个列表对象并且大小不变认为成员没有变化；
+ * 路由过滤等场景每次都会构造新的列表对象，则按顺序逐个比较成员，成员相同的列表可以复用索引。
+ * <p>
+ * 依赖权重的索引同时记录节点所在集群的权重版本，只有这些集群的节点权重变化才会失效。
+ * <p>
+ * 负载均衡按集群全量节点构建索引，重试、对冲等场景的候选节点是全量节点的子集，通过{@link #mark(List)}在全量索引上跳过非候选节点。
+ */
+public class NodeSnapshot {
+    /**
+     * 节点列表
+     */
+    protected final List<Node> nodes;
+    /**
+     * 节点成员
+     */
+    protected final Node[] members;
+    /**
+     * 节点所在集群的权重版本，不依赖权重为null
+     */
+    protected final AtomicLong[] counters;
+    /**
+     * 构建时的权重版本
+     */
+    protected final long[] versions;
+    /**
+     * 节点成员的位置，延迟构建
+     */
+    protected volatile Map<Node, Integer> positions;
+
+    /**
+     * 构造函数
+     *
+     * @param nodes 节点列表
+     */
+    public NodeSnapshot(final List<Node> nodes) {
+        this(nodes, false);
+    }
+
+    /**
+     * 构造函数，依赖权重的需要在读取权重之前创建快照，构建期间的权重变化会在下次判断时失效
+     *
+     * @param nodes  节点列表
+     * @param weight 是否依赖权重
+     */
+    public NodeSnapshot(final List<Node> nodes, final boolean weight) {
+        this.nodes = nodes;
+        this.members = nodes.toArray(new Node[0]);
+        if (!weight) {
+            this.counters = null;
+            this.versions = null;
+        } else {
+            //通常只有一个集群
+            AtomicLong[] values = new AtomicLong[1];
+            int size = 0;
+            boolean exists;
+            for (Node node : members) {
+                exists = false;
+                for (int i = 0; i < size; i++) {
+                    if (values[i] == node.weightVersion) {
+                        exists = true;
+                        break;
+                    }
+                }
+                if (!exists) {
+                    if (size == values.length) {
+                        values = Arrays.copyOf(values, size << 1);
+                    }
+                    values[size++] = node.weightVersion;
+                }
+            }
+            this.counters = Arrays.copyOf(values, size);
+            this.versions = new long[size];
+            for (int i = 0; i < size; i++) {
+                versions[i] = counters[i].get();
+            }
+        }
+    }
+
+    public List<Node> getNodes() {
+        return nodes;
+    }
+
+    /**
+     * 获取节点成员，调用方不能修改
+     *
+     * @return 节点成员
+     */
+    public Node[] getMembers() {
+        return members;
+    }
+
+    public int size() {
+        return members.length;
+    }
+
+    /**
+     * 判断快照是否还适用于指定的节点列表
+     *
+     * @param nodes 节点列表
+     * @return 适用标识
+     */
+    public boolean matches(final List<Node> nodes) {
+        return isMember(nodes) && isWeight();
+    }
+
+    /**
+     * 标记候选节点在节点成员中的位置
+     *
+     * @param nodes 候选节点
+     * @return 位置标记，存在不属于节点成员的候选节点返回null
+     */
+    public boolean[] mark(final List<Node> nodes) {
+        Map<Node, Integer> map = positions;
+        if (map == null) {
+            map = new IdentityHashMap<>(members.length);
+            for (int i = 0; i < members.length; i++) {
+                map.put(members[i], i);
+            }
+            positions = map;
+        }
+        boolean[] result = new boolean[members.length];
+        Integer pos;
+        for (Node node : nodes) {
+            pos = map.get(node);
+            if (pos == null) {
+                return null;
+            }
+            result[pos] = true;
+        }
+        return result;
+    }
+
+    /**
+     * 判断节点成员是否相同
+     *
+     * @param nodes 节点列表
+     * @return 成员相同标识
+     */
+    protected boolean isMember(final List<Node> nodes) {
+        if (nodes == null || nodes.size() != members.length) {
+            return false;
+        } else if (nodes == this.nodes) {
+            return true;
+        }
+        int i = 0;
+        for (Node node : nodes) {
+            if (node != members[i++]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 判断权重是否没有变化
+     *
+     * @return 权重没有变化标识
+     */
+    protected boolean isWeight() {
+        if (counters != null) {
+            for (int i = 0; i < counters.length; i++) {
+                if (counters[i].get() != versions[i]) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+}
@@ -43,6 +43,17 @@ public interface Candidature {
      */
     Result candidate(URL url, Candidate candidate);
 
+    /**
+     * 集群指标快照后判断是否需要重新选举，用于根据负载动态调整连接数
+     *
+     * @param url       URL
+     * @param candidate 候选者
+     * @return 需要重新选举标识
+     */
+    default boolean isChanged(final URL url, final Candidate candidate) {
+        return false;
+    }
+
     /**
      * 选择结果
      */
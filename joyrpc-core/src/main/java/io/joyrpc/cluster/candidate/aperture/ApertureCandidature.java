@@ -0,0 +1,214 @@
+package io.joyrpc.cluster.candidate.aperture;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import io.joyrpc.apm.metric.Dashboard;
+import io.joyrpc.apm.metric.TPMetric;
+import io.joyrpc.apm.metric.TPSnapshot;
+import io.joyrpc.apm.metric.TPWindow;
+import io.joyrpc.cluster.Candidate;
+import io.joyrpc.cluster.Cluster;
+import io.joyrpc.cluster.Node;
+import io.joyrpc.cluster.candidate.Candidature;
+import io.joyrpc.context.GlobalContext;
+import io.joyrpc.extension.Extension;
+import io.joyrpc.extension.URL;
+import io.joyrpc.util.network.Ipv4;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedList;
+import java.util.List;
+
+import static io.joyrpc.constants.Constants.*;
+
+/**
+ * 确定性孔径选举，适用于消费者和服务提供者都很多的大集群。
+ * <p>
+ * 服务节点按名称排列在环上，消费者根据自身坐标在环上截取连续的窗口（孔径）建立连接，其余节点作为冷备。
+ * 配置了消费者实例数和序号时，坐标均匀分布，每个服务节点的连接数相差不超过1；否则按本机地址和进程号哈希得到坐标。
+ * 孔径大小根据集群的平均并发动态调整，单节点负载超出高低水位时重新选举，连接数始终在最小值和最大值之间。
+ * <p>
+ * 需要记录上次选举的孔径，每个集群使用单独的实例。
+ */
+@Extension(value = "aperture", singleton = false)
+public class ApertureCandidature implements Candidature {
+
+    /**
+     * 本机坐标
+     */
+    protected volatile Double coordinate;
+    /**
+     * 上次选举的结果
+     */
+    protected volatile Election election;
+
+    @Override
+    public Result candidate(final URL url, final Candidate candidate) {
+        if (candidate == null) {
+            return null;
+        }
+        List<Node> nodes = candidate.getNodes();
+        int size = nodes == null ? 0 : nodes.size();
+        int aperture = size == 0 ? 0 : getAperture(url, candidate, size);
+        if (aperture >= size) {
+            election = new Election(size, size);
+            return new Result(nodes);
+        }
+        //按名称排序，保证各个消费者看到的环一致
+        List<Node> ring = new ArrayList<>(nodes);
+        ring.sort(Comparator.comparing(Node::getName));
+        int start = (int) (getCoordinate(url) * size) % size;
+        List<Node> candidates = new LinkedList<>();
+        List<Node> backups = new LinkedList<>();
+        for (int i = 0; i < size; i++) {
+            (i < aperture ? candidates : backups).add(ring.get((start + i) % size));
+        }
+        election = new Election(size, aperture);
+        return new Result(candidates, null, backups, null);
+    }
+
+    @Override
+    public boolean isChanged(final URL url, final Candidate candidate) {
+        Election last = election;
+        List<Node> nodes = candidate == null ? null : candidate.getNodes();
+        int size = nodes == null ? 0 : nodes.size();
+        if (last == null || size == 0 || last.aperture == 0) {
+            //还没有选举过，节点变化由集群事件触发选举
+            return false;
+        }
+        double concurrency = getConcurrency(candidate.getCluster());
+        if (concurrency < 0 || size == last.size && isBalanced(url, concurrency, last.aperture)) {
+            return false;
+        }
+        return getAperture(url, candidate, size) != last.aperture;
+    }
+
+    /**
+     * 计算孔径大小
+     *
+     * @param url       URL
+     * @param candidate 候选者
+     * @param size      节点数量
+     * @return 孔径大小
+     */
+    protected int getAperture(final URL url, final Candidate candidate, final int size) {
+        int min = Math.max(1, Math.max(candidate.getSize(), url.getInteger(APERTURE_MIN_OPTION)));
+        int max = Math.max(min, url.getInteger(APERTURE_MAX_OPTION));
+        //和上次选举的孔径比较，已就绪的节点数会受连接失败等因素影响
+        Election last = election;
+        int current = last == null ? 0 : last.aperture;
+        double concurrency = getConcurrency(candidate.getCluster());
+        int aperture;
+        if (concurrency < 0) {
+            //还没有指标数据
+            aperture = current > 0 ? current : min;
+        } else if (current > 0 && isBalanced(url, concurrency, current)) {
+            //负载在水位之内，保持不变
+            aperture = current;
+        } else {
+            //按照高低水位的中间值计算
+            double target = (url.getDouble(APERTURE_LOW_LOAD_OPTION) + url.getDouble(APERTURE_HIGH_LOAD_OPTION)) / 2;
+            aperture = target <= 0 ? max : (int) Math.ceil(concurrency / target);
+        }
+        aperture = Math.min(Math.max(aperture, min), max);
+        int peers = url.getInteger(APERTURE_PEERS_OPTION);
+        if (peers > 0) {
+            //保证每个服务节点至少被一个消费者覆盖
+            aperture = Math.max(aperture, (size + peers - 1) / peers);
+        }
+        return Math.min(aperture, size);
+    }
+
+    /**
+     * 单节点负载是否在高低水位之间
+     *
+     * @param url         URL
+     * @param concurrency 集群平均并发
+     * @param current     当前连接数
+     * @return 负载均衡标识
+     */
+    protected boolean isBalanced(final URL url, final double concurrency, final int current) {
+        double load = concurrency / current;
+        return load >= url.getDouble(APERTURE_LOW_LOAD_OPTION) && load <= url.getDouble(APERTURE_HIGH_LOAD_OPTION);
+    }
+
+    /**
+     * 根据集群指标快照计算平均并发（利特尔法则：请求速率*平均耗时）
+     *
+     * @param cluster 集群
+     * @return 平均并发，没有指标返回-1
+     */
+    protected double getConcurrency(final Cluster cluster) {
+        Dashboard dashboard = cluster == null ? null : cluster.getDashboard();
+        TPWindow window = dashboard == null ? null : dashboard.getMetric();
+        TPMetric metric = window == null ? null : window.getSnapshot();
+        TPSnapshot snapshot = metric == null ? null : metric.getSnapshot();
+        long windowTime = window == null ? 0 : window.getWindowTime();
+        if (snapshot == null || windowTime <= 0) {
+            return -1;
+        }
+        return (double) snapshot.getRequests() * snapshot.getAvg() / windowTime;
+    }
+
+    /**
+     * 获取本机在环上的坐标，取值[0,1)
+     *
+     * @param url URL
+     * @return 坐标
+     */
+    protected double getCoordinate(final URL url) {
+        int peers = url.getInteger(APERTURE_PEERS_OPTION);
+        int index = url.getInteger(APERTURE_PEER_INDEX_OPTION);
+        if (peers > 0 && index >= 0 && index < peers) {
+            return (double) index / peers;
+        }
+        if (coordinate == null) {
+            long h = (Ipv4.getLocalIp() + ":" + GlobalContext.getPid()).hashCode();
+            h ^= h >>> 33;
+            h *= 0xff51afd7ed558ccdL;
+            h ^= h >>> 33;
+            h *= 0xc4ceb9fe1a85ec53L;
+            h ^= h >>> 33;
+            coordinate = (h >>> 11) * 0x1.0p-53;
+        }
+        return coordinate;
+    }
+
+    /**
+     * 选举结果
+     */
+    protected static class Election {
+        /**
+         * 参与选举的节点数
+         */
+        protected final int size;
+        /**
+         * 孔径大小
+         */
+        protected final int aperture;
+
+        public Election(final int size, final int aperture) {
+            this.size = size;
+            this.aperture = aperture;
+        }
+    }
+}
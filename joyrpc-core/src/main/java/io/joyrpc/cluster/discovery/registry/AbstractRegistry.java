@@ -1525,9 +1525,13 @@ public abstract class AbstractRegistry implements Registry, Configure {
      */
     protected static class ClusterBooking extends Booking<ClusterEvent> implements ClusterHandler {
         /**
-         * 分片信息
+         * 分片信息，持久化Map，增量更新只复制修改路径
          */
-        protected volatile Map<String, Shard> datum;
+        protected volatile PersistentMap<String, Shard> datum;
+        /**
+         * 全量事件缓存，和分片信息快照对应，避免每个新订阅者都重新构造
+         */
+        protected volatile Pair<PersistentMap<String, Shard>, List<ClusterEvent.ShardEvent>> fullEvents;
         /**
          * 没有全量数据的时候，合并的增量信息
          */
@@ -1577,8 +1581,15 @@ public abstract class AbstractRegistry implements Registry, Configure {
          * @return 全量数据
          */
         protected List<ClusterEvent.ShardEvent> full() {
-            List<ClusterEvent.ShardEvent> result = new ArrayList<>(datum.size());
-            datum.forEach((k, v) -> result.add(new ClusterEvent.ShardEvent(v, ADD)));
+            PersistentMap<String, Shard> shards = datum;
+            Pair<PersistentMap<String, Shard>, List<ClusterEvent.ShardEvent>> cache = fullEvents;
+            if (cache != null && cache.getKey() == shards) {
+                return cache.getValue();
+            }
+            List<ClusterEvent.ShardEvent> events = new ArrayList<>(shards.size());
+            shards.forEach((k, v) -> events.add(new ClusterEvent.ShardEvent(v, ADD)));
+            List<ClusterEvent.ShardEvent> result = Collections.unmodifiableList(events);
+            fullEvents = new Pair<>(shards, result);
             return result;
         }
 
@@ -1588,9 +1599,12 @@ public abstract class AbstractRegistry implements Registry, Configure {
          * @param cluster          集群
          * @param events           事件
          * @param protectNullDatum 是否保护空数据
+         * @return 更新后的集群
          */
-        protected void update(final Map<String, Shard> cluster, final Collection<ClusterEvent.ShardEvent> events,
-                              final boolean protectNullDatum) {
+        protected PersistentMap<String, Shard> update(final PersistentMap<String, Shard> cluster,
+                                                      final Collection<ClusterEvent.ShardEvent> events,
+                                                      final boolean protectNullDatum) {
+            PersistentMap<String, Shard> result = cluster;
             if (events != null) {
                 Shard shard;
                 for (ClusterEvent.ShardEvent e : events) {
@@ -1598,16 +1612,17 @@ public abstract class AbstractRegistry implements Registry, Configure {
                     switch (e.getType()) {
                         case UPDATE:
                         case ADD:
-                            cluster.put(shard.getName(), shard);
+                            result = result.put(shard.getName(), shard);
                             break;
                         case DELETE:
-                            if (cluster.size() > 1 || !protectNullDatum) {
-                                cluster.remove(shard.getName(), shard);
+                            if (result.size() > 1 || !protectNullDatum) {
+                                result = result.remove(shard.getName(), shard);
                             }
                             break;
                     }
                 }
             }
+            return result;
         }
 
         /**
@@ -1647,10 +1662,10 @@ public abstract class AbstractRegistry implements Registry, Configure {
                     //有全量数据了，丢弃过期数据
                     return;
                 }
-                //如果是增量数据，则复制一份原来的数据
-                Map<String, Shard> cluster = !fullDatum && datum != null ? new HashMap<>(datum) : new HashMap<>();
+                //如果是增量数据，则在原来的数据上修改，持久化Map结构共享，不影响正在读取的快照
+                PersistentMap<String, Shard> cluster = !fullDatum && datum != null ? datum : PersistentMap.empty();
                 //更新，设置最新集群数据
-                update(cluster, event.getDatum(), protectNullDatum);
+                cluster = update(cluster, event.getDatum(), protectNullDatum);
                 if (full && cluster.isEmpty() && protectNullDatum) {
                     //有全量数据了，最新集群数据为空，且空保护，不更新
                     logger.warn("the datum of cluster event can not be null, version is " + event.getVersion());
@@ -1661,7 +1676,7 @@ public abstract class AbstractRegistry implements Registry, Configure {
                         //当前数据是全量数据，以前有增量数据
                         if (version > event.getVersion()) {
                             //全量数据版本更老，则合并
-                            update(cluster, events.values(), protectNullDatum);
+                            cluster = update(cluster, events.values(), protectNullDatum);
                         }
                         events = null;
                     }
@@ -0,0 +1,60 @@
+package io.joyrpc.cluster.distribution;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import io.joyrpc.extension.Extensible;
+import io.joyrpc.extension.Prototype;
+
+/**
+ * 自适应并发限制器，根据请求的响应时间动态估算最佳的并发数
+ */
+@Extensible("concurrencyLimiter")
+public interface ConcurrencyLimiter extends Prototype {
+
+    /**
+     * 默认的初始并发数
+     */
+    int INITIAL_LIMIT = 20;
+
+    /**
+     * 初始化
+     *
+     * @param initialLimit 初始并发数
+     * @param maxLimit     最大并发数
+     */
+    void setup(int initialLimit, int maxLimit);
+
+    /**
+     * 获取当前的并发数上限
+     *
+     * @return 并发数上限
+     */
+    int getLimit();
+
+    /**
+     * 请求完成后的采样
+     *
+     * @param rttNanos 请求耗时，单位纳秒
+     * @param inflight 请求开始时的并发数
+     * @param dropped  是否被丢弃，例如超时或过载
+     */
+    void onSample(long rttNanos, long inflight, boolean dropped);
+}
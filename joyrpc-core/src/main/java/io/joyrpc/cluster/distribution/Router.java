@@ -31,6 +31,7 @@ import io.joyrpc.protocol.message.RequestMessage;
 import io.joyrpc.util.TriFunction;
 
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 /**
  * 路由策略
@@ -57,6 +58,10 @@ public interface Router extends Prototype {
      * 并行模式
      */
     String FORKING = "forking";
+    /**
+     * 对冲模式
+     */
+    String HEDGING = "hedging";
 
     /**
      * 快速失败插件顺序
@@ -82,6 +87,11 @@ public interface Router extends Prototype {
      */
     int ORDER_FORKING = 140;
 
+    /**
+     * 对冲调用模式插件顺序
+     */
+    int ORDER_HEDGING = 150;
+
     /**
      * 进行路由操作，不能修改候选者节点列表
      *
@@ -112,6 +122,15 @@ public interface Router extends Prototype {
      */
     void setOperation(TriFunction<Node, Node, RequestMessage<Invocation>, CompletableFuture<Result>> operation);
 
+    /**
+     * 设置异步发起调用的线程池，例如定时触发的对冲请求
+     *
+     * @param executor 线程池
+     */
+    default void setExecutor(Executor executor) {
+
+    }
+
     /**
      * 设置
      */
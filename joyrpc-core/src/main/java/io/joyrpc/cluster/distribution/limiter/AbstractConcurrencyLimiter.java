@@ -0,0 +1,83 @@
+package io.joyrpc.cluster.distribution.limiter;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import io.joyrpc.cluster.distribution.ConcurrencyLimiter;
+
+/**
+ * 自适应并发限制器基类
+ */
+public abstract class AbstractConcurrencyLimiter implements ConcurrencyLimiter {
+
+    /**
+     * 最小并发数
+     */
+    protected static final int MIN_LIMIT = 1;
+
+    /**
+     * 当前并发数上限
+     */
+    protected volatile int limit = INITIAL_LIMIT;
+    /**
+     * 最大并发数
+     */
+    protected int maxLimit = 1000;
+
+    @Override
+    public void setup(final int initialLimit, final int maxLimit) {
+        this.maxLimit = Math.max(maxLimit, MIN_LIMIT);
+        this.limit = Math.min(Math.max(initialLimit, MIN_LIMIT), this.maxLimit);
+    }
+
+    @Override
+    public int getLimit() {
+        return limit;
+    }
+
+    @Override
+    public synchronized void onSample(final long rttNanos, final long inflight, final boolean dropped) {
+        if (rttNanos > 0) {
+            double value = update(limit, rttNanos, inflight, dropped);
+            limit = (int) Math.min(Math.max(value, MIN_LIMIT), maxLimit);
+        }
+    }
+
+    /**
+     * 计算新的并发数上限，调用方已经加锁
+     *
+     * @param limit    当前并发数上限
+     * @param rttNanos 请求耗时，单位纳秒
+     * @param inflight 请求开始时的并发数
+     * @param dropped  是否被丢弃
+     * @return 新的并发数上限
+     */
+    protected abstract double update(int limit, long rttNanos, long inflight, boolean dropped);
+
+    /**
+     * 以10为底的对数，最小为1
+     *
+     * @param value 值
+     * @return 对数
+     */
+    protected static double log10(final int value) {
+        return Math.max(1, Math.log10(value));
+    }
+}
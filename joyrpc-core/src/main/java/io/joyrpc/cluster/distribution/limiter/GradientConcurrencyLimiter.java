@@ -0,0 +1,79 @@
+package io.joyrpc.cluster.distribution.limiter;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import io.joyrpc.extension.Extension;
+
+/**
+ * 基于耗时梯度的并发限制器。<br/>
+ * 比较长期平均耗时和当前耗时得到梯度，梯度小于1说明出现了排队，按梯度收缩并发数，否则在当前并发数上增加sqrt(limit)的探测余量。
+ */
+@Extension("gradient")
+public class GradientConcurrencyLimiter extends AbstractConcurrencyLimiter {
+
+    /**
+     * 长期耗时的平滑窗口（采样数）
+     */
+    protected static final int LONG_WINDOW = 600;
+    /**
+     * 允许长期耗时的放大倍数
+     */
+    protected static final double TOLERANCE = 1.5;
+    /**
+     * 新值的平滑系数
+     */
+    protected static final double SMOOTHING = 0.2;
+
+    /**
+     * 长期平均耗时
+     */
+    protected double longRtt;
+    /**
+     * 估算的并发数
+     */
+    protected double estimate;
+
+    @Override
+    public void setup(final int initialLimit, final int maxLimit) {
+        super.setup(initialLimit, maxLimit);
+        this.estimate = limit;
+    }
+
+    @Override
+    protected double update(final int limit, final long rttNanos, final long inflight, final boolean dropped) {
+        if (estimate <= 0) {
+            estimate = limit;
+        }
+        longRtt = longRtt <= 0 ? rttNanos : longRtt + (rttNanos - longRtt) / LONG_WINDOW;
+        //长期耗时明显偏高，说明负载下降了，加快恢复
+        if (longRtt / rttNanos > 2) {
+            longRtt *= 0.95;
+        }
+        if (dropped || inflight * 2 >= limit) {
+            //并发数用满一半才调整，请求被丢弃按照最小梯度收缩
+            double gradient = dropped ? 0.5 : Math.max(0.5, Math.min(1.0, TOLERANCE * longRtt / rttNanos));
+            double target = estimate * gradient + Math.sqrt(estimate);
+            estimate = estimate * (1 - SMOOTHING) + target * SMOOTHING;
+        }
+        estimate = Math.min(estimate, maxLimit);
+        return estimate;
+    }
+}
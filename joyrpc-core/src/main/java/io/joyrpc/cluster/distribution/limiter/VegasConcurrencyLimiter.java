@@ -0,0 +1,76 @@
+package io.joyrpc.cluster.distribution.limiter;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import io.joyrpc.extension.Extension;
+
+/**
+ * 参考TCP Vegas的并发限制器。<br/>
+ * 以观察到的最小耗时作为无负载耗时，估算排队的请求数：queue = limit * (1 - minRtt / rtt)，
+ * 排队少则增大并发数，排队多则减小并发数，请求被丢弃的时候也减小并发数。
+ */
+@Extension("vegas")
+public class VegasConcurrencyLimiter extends AbstractConcurrencyLimiter {
+
+    /**
+     * 重新探测无负载耗时的采样倍数
+     */
+    protected static final int PROBE_MULTIPLIER = 30;
+
+    /**
+     * 无负载耗时
+     */
+    protected long rttNoLoad;
+    /**
+     * 距离上次探测的采样数
+     */
+    protected long probeCount;
+
+    @Override
+    protected double update(final int limit, final long rttNanos, final long inflight, final boolean dropped) {
+        //定期重置无负载耗时，适应服务本身耗时的变化
+        if (++probeCount >= (long) limit * PROBE_MULTIPLIER) {
+            probeCount = 0;
+            rttNoLoad = rttNanos;
+            return limit;
+        }
+        if (rttNoLoad == 0 || rttNanos < rttNoLoad) {
+            rttNoLoad = rttNanos;
+            return limit;
+        }
+        double log = log10(limit);
+        if (dropped) {
+            return limit - log;
+        } else if (inflight * 2 < limit) {
+            //并发数没有用满，不需要调整
+            return limit;
+        }
+        int queue = (int) Math.ceil(limit * (1 - (double) rttNoLoad / rttNanos));
+        if (queue <= log) {
+            return limit + 6 * log;
+        } else if (queue < 3 * log) {
+            return limit + log;
+        } else if (queue > 6 * log) {
+            return limit - log;
+        }
+        return limit;
+    }
+}
@@ -0,0 +1,136 @@
+package io.joyrpc.cluster.distribution.loadbalance;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import io.joyrpc.cluster.Weighter;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 加权随机的别名表(Vose Alias Method)，构建一次O(n)，每次选择O(1)
+ *
+ * @param <T> 节点类型
+ */
+public class AliasTable<T extends Weighter> {
+
+    /**
+     * 节点
+     */
+    protected final Object[] nodes;
+    /**
+     * 选中本列的概率
+     */
+    protected final double[] probs;
+    /**
+     * 别名
+     */
+    protected final int[] aliases;
+
+    /**
+     * 构造函数
+     *
+     * @param source 节点列表
+     */
+    public AliasTable(final List<T> source) {
+        this.nodes = source.toArray();
+        int size = nodes.length;
+        this.probs = new double[size];
+        this.aliases = new int[size];
+        //总权重
+        long total = 0;
+        int weight;
+        for (int i = 0; i < size; i++) {
+            weight = ((Weighter) nodes[i]).getWeight();
+            total += weight > 0 ? weight : 0;
+        }
+        if (total <= 0) {
+            //权重和不大于零,直接退化为随机
+            for (int i = 0; i < size; i++) {
+                probs[i] = 1;
+                aliases[i] = i;
+            }
+            return;
+        }
+        //按平均权重缩放，小于1的放在small，其余放在large
+        double[] scaled = new double[size];
+        int[] small = new int[size];
+        int[] large = new int[size];
+        int smalls = 0;
+        int larges = 0;
+        for (int i = 0; i < size; i++) {
+            weight = ((Weighter) nodes[i]).getWeight();
+            scaled[i] = (weight > 0 ? weight : 0) * (double) size / total;
+            if (scaled[i] < 1) {
+                small[smalls++] = i;
+            } else {
+                large[larges++] = i;
+            }
+        }
+        int less;
+        int more;
+        while (smalls > 0 && larges > 0) {
+            less = small[--smalls];
+            more = large[--larges];
+            probs[less] = scaled[less];
+            aliases[less] = more;
+            //大的补齐小的列
+            scaled[more] = scaled[more] + scaled[less] - 1;
+            if (scaled[more] < 1) {
+                small[smalls++] = more;
+            } else {
+                large[larges++] = more;
+            }
+        }
+        //剩余的由于精度误差，概率视为1
+        while (larges > 0) {
+            more = large[--larges];
+            probs[more] = 1;
+            aliases[more] = more;
+        }
+        while (smalls > 0) {
+            less = small[--smalls];
+            probs[less] = 1;
+            aliases[less] = less;
+        }
+    }
+
+    /**
+     * 随机选择
+     *
+     * @return 节点
+     */
+    @SuppressWarnings("unchecked")
+    public T select() {
+        return (T) nodes[next()];
+    }
+
+    /**
+     * 随机选择节点的位置，和构建时的节点列表顺序一致
+     *
+     * @return 节点位置
+     */
+    public int next() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int column = random.nextInt(nodes.length);
+        return random.nextDouble() < probs[column] ? column : aliases[column];
+    }
+}
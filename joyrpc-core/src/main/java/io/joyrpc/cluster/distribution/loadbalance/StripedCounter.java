@@ -0,0 +1,80 @@
+package io.joyrpc.cluster.distribution.loadbalance;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * 分段计数器，按线程把计数分散到多个计数槽，避免在单个原子变量上自旋CAS。
+ * <p>
+ * 各计数槽从序列的不同位置开始，单个槽内严格轮询，整体上仍然均匀分布。
+ */
+public class StripedCounter {
+
+    /**
+     * 计数槽间隔，避免伪共享
+     */
+    protected static final int PADDING = 16;
+    /**
+     * 最大槽数
+     */
+    protected static final int MAX_STRIPES = 64;
+
+    /**
+     * 计数槽
+     */
+    protected final AtomicIntegerArray counters;
+    /**
+     * 槽数
+     */
+    protected final int stripes;
+    /**
+     * 槽掩码
+     */
+    protected final int mask;
+
+    public StripedCounter() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    public StripedCounter(final int concurrency) {
+        int n = 1;
+        while (n < concurrency && n < MAX_STRIPES) {
+            n <<= 1;
+        }
+        this.stripes = n;
+        this.mask = n - 1;
+        this.counters = new AtomicIntegerArray(n * PADDING);
+    }
+
+    /**
+     * 获取下一个位置
+     *
+     * @param size 序列大小
+     * @return 位置，范围[0,size)
+     */
+    public int next(final int size) {
+        int stripe = (int) Thread.currentThread().getId() & mask;
+        //各槽从序列的不同位置开始
+        int offset = stripe == 0 ? 0 : (int) ((long) stripe * size / stripes);
+        return ((counters.getAndIncrement(stripe * PADDING) + offset) & Integer.MAX_VALUE) % size;
+    }
+}
@@ -43,9 +43,9 @@ public class AdaptiveEvaluator {
      */
     protected final AdaptiveConfig config;
     /**
-     * TP函数
+     * TP函数，单位微秒
      */
-    protected final Function<TPSnapshot, Integer> tpFunction;
+    protected final Function<TPSnapshot, Long> tpFunction;
     /**
      * 抽样数量
      */
@@ -70,7 +70,7 @@ public class AdaptiveEvaluator {
      * @param tpFunction   TP函数
      * @param samplingSize 抽样数量
      */
-    public AdaptiveEvaluator(AdaptiveConfig config, Function<TPSnapshot, Integer> tpFunction, int samplingSize) {
+    public AdaptiveEvaluator(AdaptiveConfig config, Function<TPSnapshot, Long> tpFunction, int samplingSize) {
         this.config = config;
         this.tpFunction = tpFunction;
         this.samplingSize = samplingSize;
@@ -191,7 +191,9 @@ public class AdaptiveEvaluator {
         if (config.tpScore == null) {
             TPWindow window = cluster.getDashboard().getMethod(method);
             if (window != null) {
-                result.setTpScore(computeTpScore(tpFunction.apply(window.getSnapshot().getSnapshot())));
+                //TP按照微秒计算，向上取整为毫秒阈值，避免亚毫秒的服务都落在最低档
+                long micros = tpFunction.apply(window.getSnapshot().getSnapshot());
+                result.setTpScore(computeTpScore((int) Math.min(Integer.MAX_VALUE, (micros + 999) / 1000)));
             }
         }
         return result;
@@ -59,6 +59,15 @@ public class AdaptiveLoadBalance implements LoadBalance, InvokerAware, Dashboard
     public static final Function<TPSnapshot, Integer> TP99_FUNCTION = TPSnapshot::getTp99;
     public static final Function<TPSnapshot, Integer> TP999_FUNCTION = TPSnapshot::getTp999;
     public static final Function<TPSnapshot, Integer> TPAVG_FUNCTION = TPSnapshot::getAvg;
+    /**
+     * 微秒的TP函数，用于自适应评分
+     */
+    public static final Function<TPSnapshot, Long> TP30_MICROS_FUNCTION = TPSnapshot::getTp30Micros;
+    public static final Function<TPSnapshot, Long> TP50_MICROS_FUNCTION = TPSnapshot::getTp50Micros;
+    public static final Function<TPSnapshot, Long> TP90_MICROS_FUNCTION = TPSnapshot::getTp90Micros;
+    public static final Function<TPSnapshot, Long> TP99_MICROS_FUNCTION = TPSnapshot::getTp99Micros;
+    public static final Function<TPSnapshot, Long> TP999_MICROS_FUNCTION = TPSnapshot::getTp999Micros;
+    public static final Function<TPSnapshot, Long> TPAVG_MICROS_FUNCTION = TPSnapshot::getAvgMicros;
 
     /**
      * URL
@@ -69,13 +78,13 @@ public class AdaptiveLoadBalance implements LoadBalance, InvokerAware, Dashboard
      */
     protected Consumer<List<NodeRank>> recorder;
     /**
-     * 集群TP函数
+     * 集群TP函数，单位微秒
      */
-    protected Function<TPSnapshot, Integer> clusterFunction;
+    protected Function<TPSnapshot, Long> clusterFunction;
     /**
-     * 节点TP函数
+     * 节点TP函数，单位微秒
      */
-    protected Function<TPSnapshot, Integer> nodeFunction;
+    protected Function<TPSnapshot, Long> nodeFunction;
     /**
      * 集群评分抽样数量
      */
@@ -97,8 +106,8 @@ public class AdaptiveLoadBalance implements LoadBalance, InvokerAware, Dashboard
 
     @Override
     public void setup() {
-        clusterFunction = getTpFunction(url.getString(ADAPTIVE_CLUSTER_TP), TP30_FUNCTION);
-        nodeFunction = getTpFunction(url.getString(ADAPTIVE_NODE_TP), TP90_FUNCTION);
+        clusterFunction = getTpFunction(url.getString(ADAPTIVE_CLUSTER_TP), TP30_MICROS_FUNCTION);
+        nodeFunction = getTpFunction(url.getString(ADAPTIVE_NODE_TP), TP90_MICROS_FUNCTION);
         samplingSize = url.getInteger(ADAPTIVE_SAMPLING_SIZE);
         if (url.getBoolean(ADAPTIVE_LOG)) {
             recorder = ranks -> {
@@ -121,18 +130,18 @@ public class AdaptiveLoadBalance implements LoadBalance, InvokerAware, Dashboard
         }
     }
 
-    protected Function<TPSnapshot, Integer> getTpFunction(final String type, final Function<TPSnapshot, Integer> def) {
+    protected Function<TPSnapshot, Long> getTpFunction(final String type, final Function<TPSnapshot, Long> def) {
         switch (type) {
             case "avg":
-                return TPAVG_FUNCTION;
+                return TPAVG_MICROS_FUNCTION;
             case "tp50":
-                return TP50_FUNCTION;
+                return TP50_MICROS_FUNCTION;
             case "tp90":
-                return TP90_FUNCTION;
+                return TP90_MICROS_FUNCTION;
             case "tp99":
-                return TP99_FUNCTION;
+                return TP99_MICROS_FUNCTION;
             case "tp999":
-                return TP999_FUNCTION;
+                return TP999_MICROS_FUNCTION;
             default:
                 return def;
         }
@@ -220,9 +229,9 @@ public class AdaptiveLoadBalance implements LoadBalance, InvokerAware, Dashboard
         //指标请求
         protected Function<Dashboard, TPWindow> metricFunction;
         /**
-         * 节点TP函数
+         * 节点TP函数，单位微秒
          */
-        protected Function<TPSnapshot, Integer> nodeFunction;
+        protected Function<TPSnapshot, Long> nodeFunction;
 
         /**
          * 构造函数
@@ -234,7 +243,7 @@ public class AdaptiveLoadBalance implements LoadBalance, InvokerAware, Dashboard
          */
         public ClusterRank(final Cluster cluster, final AdaptivePolicy policy,
                            final Function<Dashboard, TPWindow> metricFunction,
-                           final Function<TPSnapshot, Integer> nodeFunction) {
+                           final Function<TPSnapshot, Long> nodeFunction) {
             this.cluster = cluster;
             this.policy = policy;
             this.metricFunction = metricFunction;
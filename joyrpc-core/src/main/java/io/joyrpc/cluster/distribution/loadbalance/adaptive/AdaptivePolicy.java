@@ -56,6 +56,10 @@ public class AdaptivePolicy {
      * TP评分基线
      */
     protected RankScore<Integer> tpScore;
+    /**
+     * 微秒的TP评分基线
+     */
+    protected RankScore<Long> tpMicrosScore;
     /**
      * 可用率评分基线
      */
@@ -95,6 +99,7 @@ public class AdaptivePolicy {
         this.concurrencyScore = config.getConcurrencyScore();
         this.qpsScore = config.getQpsScore();
         this.tpScore = config.getTpScore();
+        this.tpMicrosScore = toMicros(tpScore);
         this.availabilityScore = config.getAvailabilityScore();
         this.decubation = config.getDecubation();
         this.exclusionRooms = config.getExclusionRooms();
@@ -138,6 +143,23 @@ public class AdaptivePolicy {
         return tpScore;
     }
 
+    public RankScore<Long> getTpMicrosScore() {
+        return tpMicrosScore;
+    }
+
+    /**
+     * 把毫秒的TP阈值转换成微秒，用于和微秒精度的TP进行比较
+     *
+     * @param score 毫秒阈值
+     * @return 微秒阈值
+     */
+    protected static RankScore<Long> toMicros(final RankScore<Integer> score) {
+        return score == null ? null : new RankScore<>(
+                score.getFair() == null ? null : score.getFair() * 1000L,
+                score.getPoor() == null ? null : score.getPoor() * 1000L,
+                score.getDisable() == null ? null : score.getDisable() * 1000L);
+    }
+
     public RankScore<Double> getAvailabilityScore() {
         return availabilityScore;
     }
@@ -38,6 +38,11 @@ public class NodeMetric implements Weighter {
 
     public static final Function<TPSnapshot, Integer> TP50_FUNCTION = TPSnapshot::getTp50;
     public static final Function<TPSnapshot, Integer> TP90_FUNCTION = TPSnapshot::getTp90;
+    /**
+     * 微秒的TP函数，用于自适应评分
+     */
+    public static final Function<TPSnapshot, Long> TP50_MICROS_FUNCTION = TPSnapshot::getTp50Micros;
+    public static final Function<TPSnapshot, Long> TP90_MICROS_FUNCTION = TPSnapshot::getTp90Micros;
 
     /**
      * 节点
@@ -68,9 +73,9 @@ public class NodeMetric implements Weighter {
      */
     protected TPMetric clusterSnapshot;
     /**
-     * 节点TP函数
+     * 节点TP函数，单位微秒
      */
-    protected Function<TPSnapshot, Integer> nodeFunction;
+    protected Function<TPSnapshot, Long> nodeFunction;
     /**
      * 服务权重
      */
@@ -100,11 +105,11 @@ public class NodeMetric implements Weighter {
      */
     public NodeMetric(final Node node, final Cluster cluster,
                       final Function<Dashboard, TPWindow> function,
-                      final Function<TPSnapshot, Integer> nodeFunction) {
+                      final Function<TPSnapshot, Long> nodeFunction) {
         this(node, cluster,
                 function == null ? node.getDashboard().getMetric() : function.apply(node.getDashboard()),
                 function == null ? cluster.getDashboard().getMetric() : function.apply(cluster.getDashboard()),
-                nodeFunction == null ? TP90_FUNCTION : nodeFunction);
+                nodeFunction == null ? TP90_MICROS_FUNCTION : nodeFunction);
     }
 
     /**
@@ -119,7 +124,7 @@ public class NodeMetric implements Weighter {
     public NodeMetric(final Node node, final Cluster cluster,
                       final TPWindow nodeWindow,
                       final TPWindow clusterWindow,
-                      final Function<TPSnapshot, Integer> nodeFunction) {
+                      final Function<TPSnapshot, Long> nodeFunction) {
         this.node = node;
         this.cluster = cluster;
         this.nodeWindow = nodeWindow;
@@ -161,7 +166,7 @@ public class NodeMetric implements Weighter {
         return clusterSnapshot;
     }
 
-    public Function<TPSnapshot, Integer> getNodeFunction() {
+    public Function<TPSnapshot, Long> getNodeFunction() {
         return nodeFunction;
     }
 
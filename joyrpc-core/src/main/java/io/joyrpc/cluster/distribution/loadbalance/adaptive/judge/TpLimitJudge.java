@@ -42,7 +42,8 @@ public class TpLimitJudge extends AbstractJudge implements MetricAware {
             //当虚弱的时候，由于没有数据，TP为0，可用率为100，容易判断出Good，进行修正
             return Rank.Fair;
         } else {
-            result = score(policy.getTpScore(), metric.getNodeFunction().apply(nodeTp), RankScore.INT_DESCENDING);
+            //按照微秒精度评分，毫秒直方图的微秒值是毫秒乘以1000，结果不变
+            result = score(policy.getTpMicrosScore(), metric.getNodeFunction().apply(nodeTp), RankScore.LONG_DESCENDING);
         }
         //先考虑TP，再考虑可用率
         switch (result) {
@@ -0,0 +1,106 @@
+package io.joyrpc.cluster.distribution.loadbalance.alias;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import io.joyrpc.cluster.Candidate;
+import io.joyrpc.cluster.Node;
+import io.joyrpc.cluster.NodeSnapshot;
+import io.joyrpc.cluster.distribution.LoadBalance;
+import io.joyrpc.cluster.distribution.loadbalance.AliasTable;
+import io.joyrpc.cluster.distribution.loadbalance.RandomWeight;
+import io.joyrpc.extension.Extension;
+import io.joyrpc.protocol.message.Invocation;
+import io.joyrpc.protocol.message.RequestMessage;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 基于别名表的加权随机负载均衡，按集群全量节点构建别名表，节点成员或所在集群的权重变化后重建，每次选择O(1)。
+ * <p>
+ * 重试、对冲等场景的候选节点是全量节点的子集，在全量别名表上跳过非候选节点，不会重建别名表。
+ */
+@Extension("aliasRandomWeight")
+public class AliasRandomWeightLoadBalance implements LoadBalance {
+
+    /**
+     * 候选节点是子集的时候在全量别名表上的最大选择次数，超过后对候选节点加权随机
+     */
+    protected static final int MAX_ATTEMPTS = 16;
+
+    /**
+     * 别名表
+     */
+    protected volatile Index index;
+
+    @Override
+    public Node select(final Candidate candidate, final RequestMessage<Invocation> request) {
+        List<Node> nodes = candidate.getNodes();
+        int size = nodes == null ? 0 : nodes.size();
+        switch (size) {
+            case 0:
+                return null;
+            case 1:
+                return nodes.get(0);
+            default:
+                List<Node> members = candidate.getMembers();
+                Index idx = index;
+                if (idx == null || !idx.snapshot.matches(members)) {
+                    idx = new Index(new NodeSnapshot(members, true));
+                    index = idx;
+                }
+                if (nodes == members || idx.snapshot.matches(nodes)) {
+                    return idx.table.select();
+                }
+                //候选节点是子集，跳过非候选节点
+                boolean[] marks = idx.snapshot.mark(nodes);
+                if (marks != null) {
+                    int pos;
+                    for (int i = 0; i < MAX_ATTEMPTS; i++) {
+                        pos = idx.table.next();
+                        if (marks[pos]) {
+                            return idx.snapshot.getMembers()[pos];
+                        }
+                    }
+                }
+                return RandomWeight.select(nodes);
+        }
+    }
+
+    /**
+     * 别名表索引
+     */
+    protected static class Index {
+        /**
+         * 节点快照
+         */
+        protected final NodeSnapshot snapshot;
+        /**
+         * 别名表
+         */
+        protected final AliasTable<Node> table;
+
+        public Index(final NodeSnapshot snapshot) {
+            this.snapshot = snapshot;
+            this.table = new AliasTable<>(Arrays.asList(snapshot.getMembers()));
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package io.joyrpc.cluster.distribution.loadbalance.hash;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import io.joyrpc.apm.metric.Dashboard;
+import io.joyrpc.apm.metric.TPWindow;
+import io.joyrpc.cluster.Candidate;
+import io.joyrpc.cluster.Node;
+import io.joyrpc.cluster.distribution.LoadBalance;
+import io.joyrpc.cluster.distribution.loadbalance.RandomWeight;
+import io.joyrpc.exception.InitializationException;
+import io.joyrpc.expression.Expression;
+import io.joyrpc.expression.ExpressionProvider;
+import io.joyrpc.extension.URL;
+import io.joyrpc.protocol.message.Invocation;
+import io.joyrpc.protocol.message.RequestMessage;
+import io.joyrpc.util.MilliPeriod;
+import io.joyrpc.util.StringUtils;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Parameter;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static io.joyrpc.Plugin.EXPRESSION_PROVIDER;
+import static io.joyrpc.constants.Constants.*;
+import static io.joyrpc.constants.ExceptionCode.CONSUMER_LOADBALANCE_CONF;
+
+/**
+ * 哈希负载均衡，相同的键路由到相同的节点，便于提升服务端的缓存命中率。
+ * <p>
+ * 键默认取指定位置的参数，配置了表达式则按表达式计算；没有键的请求退化为加权随机。
+ */
+public abstract class AbstractHashLoadBalance implements LoadBalance {
+
+    /**
+     * URL配置
+     */
+    protected URL url;
+    /**
+     * 键参数位置
+     */
+    protected int argument;
+    /**
+     * 键表达式
+     */
+    protected Expression expression;
+    /**
+     * 方法的参数名称
+     */
+    protected Map<Method, String[]> parameters = new ConcurrentHashMap<>();
+
+    @Override
+    public void setUrl(final URL url) {
+        this.url = url;
+    }
+
+    @Override
+    public void setup() {
+        argument = url.getInteger(HASH_ARGUMENT_OPTION);
+        String el = StringUtils.trim(url.getString(HASH_EXPRESSION_OPTION));
+        if (el != null && !el.isEmpty()) {
+            //表达式配置错误直接失败，避免所有请求静默退化为按参数路由
+            String engine = url.getString(HASH_EXPRESSION_ENGINE_OPTION);
+            ExpressionProvider provider = engine == null || engine.isEmpty() ? EXPRESSION_PROVIDER.get() : EXPRESSION_PROVIDER.get(engine);
+            if (provider == null) {
+                throw new InitializationException(String.format("Expression engine %s is not found for hash expression %s",
+                        engine == null || engine.isEmpty() ? "default" : engine, el), CONSUMER_LOADBALANCE_CONF);
+            }
+            try {
+                expression = provider.build(el);
+            } catch (Exception e) {
+                throw new InitializationException(String.format("Error occurs while building hash expression %s", el), e, CONSUMER_LOADBALANCE_CONF);
+            }
+            if (expression == null) {
+                throw new InitializationException(String.format("Illegal hash expression %s", el), CONSUMER_LOADBALANCE_CONF);
+            }
+        }
+    }
+
+    @Override
+    public Node select(final Candidate candidate, final RequestMessage<Invocation> request) {
+        List<Node> nodes = candidate.getNodes();
+        int size = nodes == null ? 0 : nodes.size();
+        switch (size) {
+            case 0:
+                return null;
+            case 1:
+                return nodes.get(0);
+            default:
+                Object key = getKey(request.getPayLoad());
+                return key == null ? RandomWeight.select(nodes) : select(candidate.getMembers(), nodes, hash(key.toString()));
+        }
+    }
+
+    /**
+     * 根据键的哈希值选择节点
+     *
+     * @param nodes 节点，至少有2个
+     * @param hash  键的哈希值
+     * @return 节点
+     */
+    protected Node select(final List<Node> nodes, final long hash) {
+        return select(nodes, nodes, hash);
+    }
+
+    /**
+     * 根据键的哈希值选择节点，按全量节点构建索引，候选节点是全量节点的子集时跳过非候选节点，不重建索引
+     *
+     * @param members 集群全量节点
+     * @param nodes   候选节点，至少有2个
+     * @param hash    键的哈希值
+     * @return 节点
+     */
+    protected abstract Node select(List<Node> members, List<Node> nodes, long hash);
+
+    /**
+     * 获取路由的键
+     *
+     * @param invocation 调用
+     * @return 键
+     */
+    protected Object getKey(final Invocation invocation) {
+        Object[] args = invocation.getArgs();
+        if (expression != null) {
+            Method method = invocation.getMethod();
+            String[] names = parameters.computeIfAbsent(method, m -> {
+                Parameter[] params = m.getParameters();
+                String[] result = new String[params.length];
+                for (int i = 0; i < params.length; i++) {
+                    result[i] = params[i].getName();
+                }
+                return result;
+            });
+            Map<String, Object> context = new HashMap<>(names.length + 1);
+            for (int i = 0; i < names.length && args != null && i < args.length; i++) {
+                context.put(names[i], args[i]);
+            }
+            context.put("args", args);
+            return expression.evaluate(context);
+        }
+        return args == null || argument < 0 || argument >= args.length ? null : args[argument];
+    }
+
+    /**
+     * 节点是否可用，熔断或者虚弱的节点优先让给相邻的节点
+     *
+     * @param node 节点
+     * @return 可用标识
+     */
+    protected boolean isAvailable(final Node node) {
+        Dashboard dashboard = node.getDashboard();
+        TPWindow window = dashboard == null ? null : dashboard.getMetric();
+        if (window == null) {
+            return true;
+        }
+        MilliPeriod period = window.getBrokenPeriod();
+        if (period != null && period.between()) {
+            return false;
+        }
+        period = window.getWeakPeriod();
+        return period == null || !period.between();
+    }
+
+    /**
+     * 字符串的64位哈希值，FNV-1a后再做一次扰动，保证分布均匀
+     *
+     * @param value 字符串
+     * @return 哈希值
+     */
+    protected static long hash(final String value) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            h ^= value.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        return mix(h);
+    }
+
+    /**
+     * 64位扰动函数
+     *
+     * @param h 哈希值
+     * @return 扰动后的哈希值
+     */
+    protected static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,230 @@
+package io.joyrpc.cluster.distribution.loadbalance.hash;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import io.joyrpc.cluster.Node;
+import io.joyrpc.cluster.NodeSnapshot;
+import io.joyrpc.extension.Extension;
+
+import java.util.*;
+import java.util.function.Predicate;
+
+import static io.joyrpc.constants.Constants.HASH_VIRTUAL_NODES_OPTION;
+
+/**
+ * 一致性哈希负载均衡，每个节点在环上有若干虚拟节点，节点上下线只影响其相邻区间的键。
+ * <p>
+ * 节点成员变化时复用已有节点的虚拟节点，只合并新增节点的虚拟节点；目标节点熔断或虚弱时顺时针让给下一个节点。
+ * 哈希环按集群全量节点构建，重试、对冲等场景的候选节点是子集，顺时针跳过非候选节点，和按子集构建的环选择结果相同。
+ */
+@Extension("consistentHash")
+public class ConsistentHashLoadBalance extends AbstractHashLoadBalance {
+
+    /**
+     * 每个节点的虚拟节点数
+     */
+    protected int virtualNodes;
+    /**
+     * 哈希环
+     */
+    protected volatile Ring ring;
+
+    @Override
+    public void setup() {
+        super.setup();
+        virtualNodes = Math.max(1, url.getInteger(HASH_VIRTUAL_NODES_OPTION));
+    }
+
+    @Override
+    protected Node select(final List<Node> members, final List<Node> nodes, final long hash) {
+        Ring r = ring;
+        if (r == null || !r.snapshot.matches(members)) {
+            r = new Ring(new NodeSnapshot(members), r, virtualNodes);
+            ring = r;
+        }
+        if (nodes == members || r.snapshot.matches(nodes)) {
+            return r.select(hash, null, this::isAvailable);
+        }
+        //候选节点是子集，顺时针跳过非候选节点
+        boolean[] marks = r.snapshot.mark(nodes);
+        Node result = marks == null ? null : r.select(hash, marks, this::isAvailable);
+        //存在不属于集群的候选节点，在原有环的基础上构建临时的环，不替换缓存
+        return result != null ? result : new Ring(new NodeSnapshot(nodes), r, virtualNodes).select(hash, null, this::isAvailable);
+    }
+
+    /**
+     * 节点的虚拟节点哈希值，已排序
+     *
+     * @param name  节点名称
+     * @param count 虚拟节点数
+     * @return 哈希值
+     */
+    protected static long[] points(final String name, final int count) {
+        long[] result = new long[count];
+        long seed = hash(name);
+        for (int i = 0; i < count; i++) {
+            result[i] = mix(seed + i * 0x9E3779B97F4A7C15L);
+        }
+        Arrays.sort(result);
+        return result;
+    }
+
+    /**
+     * 哈希环
+     */
+    protected static class Ring {
+        /**
+         * 节点快照，虚拟节点不加权，只关心成员
+         */
+        protected final NodeSnapshot snapshot;
+        /**
+         * 环上的点，已排序
+         */
+        protected final long[] points;
+        /**
+         * 点对应的节点
+         */
+        protected final Node[] owners;
+        /**
+         * 点对应的节点在快照成员中的位置
+         */
+        protected final int[] positions;
+
+        /**
+         * 构造函数，在原有环的基础上增量构建
+         *
+         * @param snapshot     节点快照
+         * @param previous     原有的环
+         * @param virtualNodes 虚拟节点数
+         */
+        public Ring(final NodeSnapshot snapshot, final Ring previous, final int virtualNodes) {
+            this.snapshot = snapshot;
+            Node[] members = snapshot.getMembers();
+            Map<String, Integer> current = new HashMap<>(members.length * 4 / 3 + 1);
+            for (int i = 0; i < members.length; i++) {
+                current.putIfAbsent(members[i].getName(), i);
+            }
+            //保留原有环上仍然存在的节点，节点对象可能已经替换，按名称重新关联
+            int size = previous == null ? 0 : previous.points.length;
+            long[] keptPoints = new long[size];
+            int[] keptPositions = new int[size];
+            int kept = 0;
+            Set<String> exists = new HashSet<>();
+            Integer position;
+            for (int i = 0; i < size; i++) {
+                position = current.get(previous.owners[i].getName());
+                if (position != null) {
+                    keptPoints[kept] = previous.points[i];
+                    keptPositions[kept++] = position;
+                    exists.add(members[position].getName());
+                }
+            }
+            //新增节点的虚拟节点
+            List<Integer> added = new ArrayList<>();
+            for (Map.Entry<String, Integer> entry : current.entrySet()) {
+                if (!exists.contains(entry.getKey())) {
+                    added.add(entry.getValue());
+                }
+            }
+            int addSize = added.size() * virtualNodes;
+            long[] addPoints = new long[addSize];
+            int[] addPositions = new int[addSize];
+            if (addSize > 0) {
+                //按哈希值排序，多路归并的代价不如直接排序索引
+                long[][] all = new long[added.size()][];
+                Integer[] index = new Integer[addSize];
+                for (int i = 0; i < all.length; i++) {
+                    all[i] = points(members[added.get(i)].getName(), virtualNodes);
+                }
+                for (int i = 0; i < addSize; i++) {
+                    index[i] = i;
+                }
+                Arrays.sort(index, Comparator.comparingLong(i -> all[i / virtualNodes][i % virtualNodes]));
+                for (int i = 0; i < addSize; i++) {
+                    addPoints[i] = all[index[i] / virtualNodes][index[i] % virtualNodes];
+                    addPositions[i] = added.get(index[i] / virtualNodes);
+                }
+            }
+            //归并
+            points = new long[kept + addSize];
+            positions = new int[kept + addSize];
+            int i = 0, j = 0, k = 0;
+            while (i < kept && j < addSize) {
+                if (keptPoints[i] <= addPoints[j]) {
+                    points[k] = keptPoints[i];
+                    positions[k++] = keptPositions[i++];
+                } else {
+                    points[k] = addPoints[j];
+                    positions[k++] = addPositions[j++];
+                }
+            }
+            while (i < kept) {
+                points[k] = keptPoints[i];
+                positions[k++] = keptPositions[i++];
+            }
+            while (j < addSize) {
+                points[k] = addPoints[j];
+                positions[k++] = addPositions[j++];
+            }
+            owners = new Node[k];
+            for (int m = 0; m < k; m++) {
+                owners[m] = members[positions[m]];
+            }
+        }
+
+        /**
+         * 顺时针查找第一个可用的候选节点，都不可用则返回目标节点
+         *
+         * @param hash      键的哈希值
+         * @param marks     候选节点在快照成员中的位置标记，null表示全部节点都是候选节点
+         * @param predicate 可用判断
+         * @return 节点，没有候选节点返回null
+         */
+        public Node select(final long hash, final boolean[] marks, final Predicate<Node> predicate) {
+            int length = points.length;
+            int pos = Arrays.binarySearch(points, hash);
+            if (pos < 0) {
+                pos = -pos - 1;
+            }
+            if (pos >= length) {
+                pos = 0;
+            }
+            Node primary = null;
+            Node last = null;
+            Node owner;
+            int index;
+            for (int i = 0; i < length; i++) {
+                index = (pos + i) % length;
+                owner = owners[index];
+                //跳过非候选节点，以及已经判断过的节点
+                if (owner != last && owner != primary && (marks == null || marks[positions[index]])) {
+                    if (predicate.test(owner)) {
+                        return owner;
+                    } else if (primary == null) {
+                        primary = owner;
+                    }
+                    last = owner;
+                }
+            }
+            return primary;
+        }
+    }
+}
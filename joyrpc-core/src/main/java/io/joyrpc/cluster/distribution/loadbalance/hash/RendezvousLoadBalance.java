@@ -0,0 +1,129 @@
+package io.joyrpc.cluster.distribution.loadbalance.hash;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import io.joyrpc.cluster.Node;
+import io.joyrpc.cluster.NodeSnapshot;
+import io.joyrpc.extension.Extension;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 加权最高随机权重（Rendezvous）哈希负载均衡，每个节点对键打分，取分数最高的节点。
+ * <p>
+ * 分数为 -weight/ln(u)，u为键和节点哈希得到的(0,1)均匀值，键按权重比例分布；节点上下线只影响原本落在该节点上的键。
+ * 按集群全量节点计算种子和权重，重试、对冲等场景的候选节点是子集，只在候选节点中比较分数，不重建。
+ */
+@Extension("rendezvous")
+public class RendezvousLoadBalance extends AbstractHashLoadBalance {
+
+    /**
+     * 节点快照
+     */
+    protected volatile Table table;
+
+    @Override
+    protected Node select(final List<Node> members, final List<Node> nodes, final long hash) {
+        Table t = table;
+        if (t == null || !t.snapshot.matches(members)) {
+            t = new Table(new NodeSnapshot(members, true));
+            table = t;
+        }
+        if (nodes == members || t.snapshot.matches(nodes)) {
+            return select(t, null, hash);
+        }
+        //候选节点是子集，只比较候选节点
+        boolean[] marks = t.snapshot.mark(nodes);
+        Node result = marks == null ? null : select(t, marks, hash);
+        //存在不属于集群的候选节点或者候选节点权重都为0，构建临时的快照，不替换缓存
+        return result != null ? result : select(new Table(new NodeSnapshot(nodes, true)), null, hash);
+    }
+
+    /**
+     * 选择分数最高的可用候选节点，都不可用则返回分数最高的候选节点
+     *
+     * @param t     节点快照
+     * @param marks 候选节点在快照成员中的位置标记，null表示全部节点都是候选节点
+     * @param hash  键的哈希值
+     * @return 节点
+     */
+    protected Node select(final Table t, final boolean[] marks, final long hash) {
+        Node[] shards = t.snapshot.getMembers();
+        Node best = null;
+        Node available = null;
+        double bestScore = -1;
+        double availableScore = -1;
+        double score;
+        for (int i = 0; i < t.seeds.length; i++) {
+            if (t.weights[i] > 0 && (marks == null || marks[i])) {
+                //取高53位映射到(0,1)开区间
+                score = -t.weights[i] / Math.log(((mix(hash ^ t.seeds[i]) >>> 11) + 0.5) * 0x1.0p-53);
+                if (score > bestScore) {
+                    bestScore = score;
+                    best = shards[i];
+                }
+                if (score > availableScore && isAvailable(shards[i])) {
+                    availableScore = score;
+                    available = shards[i];
+                }
+            }
+        }
+        return available != null ? available : best;
+    }
+
+    /**
+     * 节点快照
+     */
+    protected static class Table {
+        /**
+         * 节点快照，成员或所在集群的权重变化后重建
+         */
+        protected final NodeSnapshot snapshot;
+        /**
+         * 节点哈希种子
+         */
+        protected final long[] seeds;
+        /**
+         * 节点权重，权重都为0则视为相等
+         */
+        protected final double[] weights;
+
+        public Table(final NodeSnapshot snapshot) {
+            this.snapshot = snapshot;
+            Node[] nodes = snapshot.getMembers();
+            int size = nodes.length;
+            this.seeds = new long[size];
+            this.weights = new double[size];
+            boolean positive = false;
+            Node node;
+            for (int i = 0; i < size; i++) {
+                node = nodes[i];
+                seeds[i] = hash(node.getName());
+                weights[i] = Math.max(node.getWeight(), 0);
+                positive = positive || weights[i] > 0;
+            }
+            if (!positive) {
+                Arrays.fill(weights, 1);
+            }
+        }
+    }
+}
@@ -23,12 +23,12 @@ package io.joyrpc.cluster.distribution.loadbalance.roundrobin;
 import io.joyrpc.cluster.Candidate;
 import io.joyrpc.cluster.Node;
 import io.joyrpc.cluster.distribution.LoadBalance;
+import io.joyrpc.cluster.distribution.loadbalance.StripedCounter;
 import io.joyrpc.extension.Extension;
 import io.joyrpc.protocol.message.Invocation;
 import io.joyrpc.protocol.message.RequestMessage;
 
 import java.util.List;
-import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * 轮询负载均衡
@@ -36,21 +36,11 @@ import java.util.concurrent.atomic.AtomicInteger;
 @Extension("roundRobin")
 public class RoundRobinLoadBalance implements LoadBalance {
 
-    protected AtomicInteger counter = new AtomicInteger(0);
+    protected StripedCounter counter = new StripedCounter();
 
     @Override
     public Node select(final Candidate candidate, final RequestMessage<Invocation> request) {
         final List<Node> shards = candidate.getNodes();
-        int next;
-        int current;
-        int size = shards.size();
-        for (; ; ) {
-            current = counter.get();
-            next = (current + 1) % size;
-            if (counter.compareAndSet(current, next)) {
-                break;
-            }
-        }
-        return shards.get(next);
+        return shards.get(counter.next(shards.size()));
     }
 }
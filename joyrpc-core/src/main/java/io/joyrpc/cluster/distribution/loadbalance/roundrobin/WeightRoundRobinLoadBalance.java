@@ -0,0 +1,178 @@
+package io.joyrpc.cluster.distribution.loadbalance.roundrobin;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import io.joyrpc.cluster.Candidate;
+import io.joyrpc.cluster.Node;
+import io.joyrpc.cluster.NodeSnapshot;
+import io.joyrpc.cluster.distribution.LoadBalance;
+import io.joyrpc.cluster.distribution.loadbalance.RandomWeight;
+import io.joyrpc.cluster.distribution.loadbalance.StripedCounter;
+import io.joyrpc.extension.Extension;
+import io.joyrpc.protocol.message.Invocation;
+import io.joyrpc.protocol.message.RequestMessage;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 平滑加权轮询负载均衡。
+ * <p>
+ * 按集群全量节点预先生成平滑的轮询序列，每个节点按权重均匀分布在序列中，节点成员或所在集群的权重变化后重新生成，每次选择O(1)。
+ * 重试、对冲等场景的候选节点是全量节点的子集，在全量序列上随机选择并跳过非候选节点，不会重新生成序列，也不会打乱全量节点的轮询顺序。
+ */
+@Extension("weightRoundRobin")
+public class WeightRoundRobinLoadBalance implements LoadBalance {
+
+    /**
+     * 最大序列长度，总权重超过后按比例缩小权重
+     */
+    protected static final int MAX_SEQUENCE = 1 << 16;
+    /**
+     * 候选节点是子集的时候在全量序列上的最大选择次数，超过后对候选节点加权随机
+     */
+    protected static final int MAX_ATTEMPTS = 16;
+
+    /**
+     * 计数器
+     */
+    protected final StripedCounter counter = new StripedCounter();
+    /**
+     * 轮询序列
+     */
+    protected volatile Sequence sequence;
+
+    @Override
+    public Node select(final Candidate candidate, final RequestMessage<Invocation> request) {
+        List<Node> nodes = candidate.getNodes();
+        int size = nodes == null ? 0 : nodes.size();
+        switch (size) {
+            case 0:
+                return null;
+            case 1:
+                return nodes.get(0);
+            default:
+                List<Node> members = candidate.getMembers();
+                Sequence s = sequence;
+                if (s == null || !s.snapshot.matches(members)) {
+                    s = new Sequence(new NodeSnapshot(members, true));
+                    sequence = s;
+                }
+                if (nodes == members || s.snapshot.matches(nodes)) {
+                    return s.shards[s.indexes[counter.next(s.indexes.length)]];
+                }
+                //候选节点是子集，序列中每个节点出现的次数和权重成正比，随机选择并跳过非候选节点
+                boolean[] marks = s.snapshot.mark(nodes);
+                if (marks != null) {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    int pos;
+                    for (int i = 0; i < MAX_ATTEMPTS; i++) {
+                        pos = s.indexes[random.nextInt(s.indexes.length)];
+                        if (marks[pos]) {
+                            return s.shards[pos];
+                        }
+                    }
+                }
+                return RandomWeight.select(nodes);
+        }
+    }
+
+    /**
+     * 平滑加权轮询序列
+     */
+    protected static class Sequence {
+        /**
+         * 节点快照
+         */
+        protected final NodeSnapshot snapshot;
+        /**
+         * 节点
+         */
+        protected final Node[] shards;
+        /**
+         * 序列，存放节点的位置
+         */
+        protected final int[] indexes;
+
+        public Sequence(final NodeSnapshot snapshot) {
+            this.snapshot = snapshot;
+            this.shards = snapshot.getMembers();
+            int size = shards.length;
+            int[] weights = new int[size];
+            long total = 0;
+            for (int i = 0; i < size; i++) {
+                weights[i] = Math.max(shards[i].getWeight(), 0);
+                total += weights[i];
+            }
+            if (total <= 0) {
+                //权重和不大于零，退化为普通轮询
+                Arrays.fill(weights, 1);
+                total = size;
+            } else {
+                //约去公约数，缩短序列
+                int gcd = 0;
+                for (int weight : weights) {
+                    gcd = weight == 0 ? gcd : gcd(gcd, weight);
+                }
+                total = 0;
+                for (int i = 0; i < size; i++) {
+                    weights[i] /= gcd;
+                    total += weights[i];
+                }
+                if (total > MAX_SEQUENCE) {
+                    //按比例缩小，保留有权重的节点
+                    long sum = 0;
+                    for (int i = 0; i < size; i++) {
+                        if (weights[i] > 0) {
+                            weights[i] = (int) Math.max(1, weights[i] * MAX_SEQUENCE / total);
+                            sum += weights[i];
+                        }
+                    }
+                    total = sum;
+                }
+            }
+            //每个节点的第c次选中时间为(c+0.5)*total/weight，按时间排序得到平滑序列
+            int length = (int) total;
+            long[] events = new long[length];
+            int pos = 0;
+            for (int i = 0; i < size; i++) {
+                for (int c = 0; c < weights[i]; c++) {
+                    //时间放大2^20倍量化，再拼上节点位置，相同时间按节点顺序
+                    long time = (long) ((2 * c + 1) * (double) total / (2 * weights[i]) * (1 << 20));
+                    events[pos++] = time * size + i;
+                }
+            }
+            Arrays.sort(events);
+            this.indexes = new int[length];
+            for (int i = 0; i < length; i++) {
+                indexes[i] = (int) (events[i] % size);
+            }
+        }
+
+        /**
+         * 最大公约数
+         */
+        protected static int gcd(final int a, final int b) {
+            return b == 0 ? a : gcd(b, a % b);
+        }
+    }
+}
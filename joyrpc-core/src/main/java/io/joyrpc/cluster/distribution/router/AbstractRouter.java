@@ -30,6 +30,7 @@ import io.joyrpc.protocol.message.RequestMessage;
 import io.joyrpc.util.TriFunction;
 
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 /**
  * 抽象的Route实现
@@ -48,6 +49,10 @@ public abstract class AbstractRouter implements Router {
      * URL
      */
     protected URL url;
+    /**
+     * 异步发起调用的线程池
+     */
+    protected Executor executor;
 
     @Override
     public void setLoadBalance(LoadBalance loadBalance) {
@@ -64,4 +69,9 @@ public abstract class AbstractRouter implements Router {
         this.url = url;
     }
 
+    @Override
+    public void setExecutor(Executor executor) {
+        this.executor = executor;
+    }
+
 }
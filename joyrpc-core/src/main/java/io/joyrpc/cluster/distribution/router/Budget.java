@@ -0,0 +1,137 @@
+package io.joyrpc.cluster.distribution.router;
+
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 令牌桶预算，按照请求的百分比补充令牌，用于限制重试或对冲这类额外请求占总流量的比例
+ */
+public class Budget {
+
+    /**
+     * 一个令牌对应的刻度，按照百分比补充
+     */
+    protected static final long UNIT = 100;
+
+    /**
+     * 补充比例（百分比）
+     */
+    protected final int ratio;
+    /**
+     * 最大刻度
+     */
+    protected final long capacity;
+    /**
+     * 当前刻度
+     */
+    protected final AtomicLong tokens;
+    /**
+     * 补充次数
+     */
+    protected final LongAdder deposits = new LongAdder();
+    /**
+     * 成功获取令牌次数
+     */
+    protected final LongAdder acquires = new LongAdder();
+    /**
+     * 获取令牌失败次数
+     */
+    protected final LongAdder rejects = new LongAdder();
+
+    /**
+     * 构造函数
+     *
+     * @param ratio 补充比例（百分比）
+     * @param burst 最多可以累积的令牌数
+     */
+    public Budget(final int ratio, final int burst) {
+        this.ratio = ratio < 0 ? 0 : Math.min(ratio, 100);
+        this.capacity = Math.max(burst, 1) * UNIT;
+        this.tokens = new AtomicLong(capacity);
+    }
+
+    /**
+     * 补充令牌
+     */
+    public void deposit() {
+        deposits.increment();
+        if (ratio > 0 && tokens.get() < capacity) {
+            tokens.getAndUpdate(v -> Math.min(capacity, v + ratio));
+        }
+    }
+
+    /**
+     * 获取一个令牌
+     *
+     * @return 成功标识
+     */
+    public boolean acquire() {
+        long v;
+        while ((v = tokens.get()) >= UNIT) {
+            if (tokens.compareAndSet(v, v - UNIT)) {
+                acquires.increment();
+                return true;
+            }
+        }
+        rejects.increment();
+        return false;
+    }
+
+    /**
+     * 归还已经获取的令牌，用于组合预算中后续预算拒绝的场景
+     */
+    public void refund() {
+        acquires.decrement();
+        tokens.getAndUpdate(v -> Math.min(capacity, v + UNIT));
+    }
+
+    public int getRatio() {
+        return ratio;
+    }
+
+    /**
+     * 剩余的令牌数
+     *
+     * @return 剩余的令牌数
+     */
+    public double getTokens() {
+        return (double) tokens.get() / UNIT;
+    }
+
+    public long getCapacity() {
+        return capacity / UNIT;
+    }
+
+    public long getDeposits() {
+        return deposits.sum();
+    }
+
+    public long getAcquires() {
+        return acquires.sum();
+    }
+
+    public long getRejects() {
+        return rejects.sum();
+    }
+}
@@ -22,6 +22,7 @@ package io.joyrpc.cluster.distribution.router.failover;
 
 import io.joyrpc.Result;
 import io.joyrpc.cluster.Candidate;
+import io.joyrpc.cluster.Cluster;
 import io.joyrpc.cluster.Node;
 import io.joyrpc.cluster.distribution.ExceptionPolicy;
 import io.joyrpc.cluster.distribution.FailoverPolicy;
@@ -86,14 +87,28 @@ public class FailoverRouter extends AbstractRouter {
                     Futures.completeExceptionally(createEmptyException(0, candidate.getSize(), true));
         }
         CompletableFuture<Result> result = new CompletableFuture<>();
-        retry(request, null, candidate, 0, policy, candidate.getNodes(), result);
+        Cluster cluster = candidate.getCluster();
+        retry(request, cluster == null ? null : cluster.getRetryBudget(), null, candidate, 0, policy, candidate.getNodes(), result);
         return result;
     }
 
+    /**
+     * 构建重试预算耗尽异常
+     *
+     * @param retry 重试次数
+     * @param cause 异常
+     * @return 异常
+     */
+    protected Throwable createBudgetException(final int retry, final Throwable cause) {
+        return new FailoverException(String.format("Retry budget is exhausted after retrying %d. The last exception caused by %s ",
+                retry, cause.getMessage()), cause);
+    }
+
     /**
      * 递归重试
      *
      * @param request   请求
+     * @param budget    重试预算
      * @param last      前一次重试节点
      * @param candidate 候选者
      * @param retry     当前重试次数
@@ -102,6 +117,7 @@ public class FailoverRouter extends AbstractRouter {
      * @param future    结束Future
      */
     protected void retry(final RequestMessage<Invocation> request,
+                         final RetryBudget budget,
                          final Node last,
                          final Candidate candidate,
                          final int retry,
@@ -121,6 +137,10 @@ public class FailoverRouter extends AbstractRouter {
             result.whenComplete((r, t) -> {
                 t = t == null ? r.getException() : t;
                 if (t == null) {
+                    if (retry == 0 && budget != null) {
+                        //首次调用成功，补充重试预算
+                        budget.deposit(request.getPayLoad().getMethodName());
+                    }
                     future.complete(r);
                 } else {
                     ExceptionPolicy exceptionPolicy = policy.getExceptionPolicy();
@@ -135,6 +155,9 @@ public class FailoverRouter extends AbstractRouter {
                     } else if (retry >= policy.getMaxRetry()) {
                         //超过重试次数
                         future.completeExceptionally(createOverloadException(policy.getMaxRetry(), t));
+                    } else if (budget != null && !budget.acquire(request.getPayLoad().getMethodName())) {
+                        //重试预算耗尽，避免重试风暴
+                        future.completeExceptionally(createBudgetException(retry, t));
                     } else {
                         //删除失败的节点进行重试
                         List<Node> shards = candidate.getNodes();
@@ -151,7 +174,7 @@ public class FailoverRouter extends AbstractRouter {
                                 //设置新的超时时间
                                 timeoutPolicy.decline(request);
                             }
-                            retry(request, node, selector.select(candidate, node, retry, null, origins),
+                            retry(request, budget, node, selector.select(candidate, node, retry, null, origins),
                                     retry + 1, policy, origins, future);
                         }
                     }
@@ -0,0 +1,147 @@
+package io.joyrpc.cluster.distribution.router.failover;
+
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import io.joyrpc.cluster.distribution.router.Budget;
+import io.joyrpc.extension.URL;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static io.joyrpc.constants.Constants.*;
+
+/**
+ * 集群的重试预算，首次调用成功的时候补充令牌，重试需要获取令牌，避免故障期间重试放大流量
+ */
+public class RetryBudget {
+
+    /**
+     * 是否启用
+     */
+    protected final boolean enabled;
+    /**
+     * 补充比例（百分比）
+     */
+    protected final int ratio;
+    /**
+     * 最多可以累积的令牌数
+     */
+    protected final int burst;
+    /**
+     * 集群预算
+     */
+    protected final Budget budget;
+    /**
+     * 方法预算
+     */
+    protected final Map<String, Budget> methods;
+
+    /**
+     * 构造函数
+     *
+     * @param url URL
+     */
+    public RetryBudget(final URL url) {
+        int value = url.getInteger(RETRY_BUDGET_OPTION);
+        this.enabled = value >= 0;
+        this.ratio = value;
+        this.burst = url.getInteger(RETRY_BURST_OPTION);
+        this.budget = new Budget(ratio, burst);
+        this.methods = url.getBoolean(RETRY_METHOD_BUDGET_OPTION) ? new ConcurrentHashMap<>() : null;
+    }
+
+    /**
+     * 首次调用成功，补充令牌
+     *
+     * @param method 方法名称
+     */
+    public void deposit(final String method) {
+        if (enabled) {
+            budget.deposit();
+            Budget mb = getMethod(method);
+            if (mb != null) {
+                mb.deposit();
+            }
+        }
+    }
+
+    /**
+     * 获取重试令牌，方法预算和集群预算都满足才能重试
+     *
+     * @param method 方法名称
+     * @return 成功标识
+     */
+    public boolean acquire(final String method) {
+        if (!enabled) {
+            return true;
+        }
+        Budget mb = getMethod(method);
+        if (mb != null && !mb.acquire()) {
+            return false;
+        } else if (!budget.acquire()) {
+            //集群预算拒绝，归还方法令牌，避免方法预算被白白消耗
+            if (mb != null) {
+                mb.refund();
+            }
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * 获取方法预算
+     *
+     * @param method 方法名称
+     * @return 方法预算
+     */
+    protected Budget getMethod(final String method) {
+        return methods == null || method == null ? null : methods.computeIfAbsent(method, o -> new Budget(ratio, burst));
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public Budget getBudget() {
+        return budget;
+    }
+
+    public Map<String, Budget> getMethods() {
+        return methods;
+    }
+
+    /**
+     * 输出预算的消耗情况
+     *
+     * @return 预算的消耗情况
+     */
+    public Map<String, Object> dump() {
+        Map<String, Object> result = new HashMap<>(4);
+        result.put("enabled", enabled);
+        result.put("cluster", budget);
+        if (methods != null) {
+            result.put("methods", methods);
+        }
+        return result;
+    }
+}
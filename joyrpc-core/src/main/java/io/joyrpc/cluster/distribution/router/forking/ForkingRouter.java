@@ -56,7 +56,7 @@ public class ForkingRouter extends AbstractRouter {
         if (forks == nodes.size()) {
             //全部调用
             for (Node node : nodes) {
-                futures[total++] = operation.apply(node, null, request);
+                futures[total++] = operation.apply(node, null, fork(request, forks));
             }
         } else if (forks == 1) {
             //调用一个
@@ -72,7 +72,7 @@ public class ForkingRouter extends AbstractRouter {
                 node = loadBalance.select(node == null ? candidate : new Candidate(candidate, nodes.remove(node) ? nodes : nodes), request);
                 if (node != null) {
                     total++;
-                    futures[i] = operation.apply(node, null, request);
+                    futures[i] = operation.apply(node, null, fork(request, forks));
                 } else {
                     break;
                 }
@@ -92,11 +92,36 @@ public class ForkingRouter extends AbstractRouter {
                     if (remain == 0) {
                         result.complete(r);
                     }
-                } else {
-                    result.complete(r);
+                } else if (result.complete(r)) {
+                    //放弃其它还没有返回的调用，通知服务端取消
+                    cancel(futures);
                 }
             });
         }
         return result;
     }
+
+    /**
+     * 并行调用的每个分支使用独立的请求，避免并发修改共享的消息头导致消息ID错乱，取消请求发错目标
+     *
+     * @param request 请求
+     * @param forks   并行数量
+     * @return 请求
+     */
+    protected RequestMessage<Invocation> fork(final RequestMessage<Invocation> request, final int forks) {
+        return forks > 1 ? request.fork() : request;
+    }
+
+    /**
+     * 放弃还没有完成的调用
+     *
+     * @param futures 调用
+     */
+    protected void cancel(final CompletableFuture<Result>[] futures) {
+        for (CompletableFuture<Result> future : futures) {
+            if (future != null && !future.isDone()) {
+                future.cancel(false);
+            }
+        }
+    }
 }
@@ -0,0 +1,292 @@
+package io.joyrpc.cluster.distribution.router.hedging;
+
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import io.joyrpc.Result;
+import io.joyrpc.apm.metric.Dashboard;
+import io.joyrpc.apm.metric.TPMetric;
+import io.joyrpc.apm.metric.TPSnapshot;
+import io.joyrpc.apm.metric.TPWindow;
+import io.joyrpc.cluster.Candidate;
+import io.joyrpc.cluster.Cluster;
+import io.joyrpc.cluster.Node;
+import io.joyrpc.cluster.distribution.router.AbstractRouter;
+import io.joyrpc.cluster.distribution.router.Budget;
+import io.joyrpc.extension.Extension;
+import io.joyrpc.invoker.option.ConsumerMethodOption;
+import io.joyrpc.protocol.message.Invocation;
+import io.joyrpc.protocol.message.RequestMessage;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static io.joyrpc.cluster.distribution.Router.HEDGING;
+import static io.joyrpc.cluster.distribution.Router.ORDER_HEDGING;
+import static io.joyrpc.cluster.distribution.loadbalance.adaptive.AdaptiveLoadBalance.*;
+import static io.joyrpc.constants.Constants.*;
+import static io.joyrpc.util.Timer.requestTimer;
+
+/**
+ * 对冲调用，先向一个节点发起请求，超过方法的TP耗时还没有应答，再向其它节点发起请求，取最先成功的结果。<br/>
+ * 对冲请求受预算限制，不会超过总请求数的指定比例。<br/>
+ * 每次调用使用独立复制的请求，定时器只负责触发，对冲请求在调用线程池中发起
+ */
+@Extension(value = HEDGING, order = ORDER_HEDGING)
+public class HedgingRouter extends AbstractRouter {
+
+    /**
+     * 触发对冲的TP函数
+     */
+    protected Function<TPSnapshot, Long> tpFunction;
+    /**
+     * 没有统计数据时候的对冲延迟
+     */
+    protected int delay;
+    /**
+     * 对冲预算
+     */
+    protected Budget budget;
+
+    @Override
+    public void setup() {
+        tpFunction = getTpFunction(url.getString(HEDGING_TP));
+        delay = Math.max(url.getInteger(HEDGING_DELAY), 1);
+        budget = new Budget(url.getInteger(HEDGING_BUDGET), url.getInteger(HEDGING_BURST));
+    }
+
+    /**
+     * 获取TP函数
+     *
+     * @param type 类型
+     * @return TP函数
+     */
+    protected Function<TPSnapshot, Long> getTpFunction(final String type) {
+        switch (type) {
+            case "avg":
+                return TPAVG_MICROS_FUNCTION;
+            case "tp50":
+                return TP50_MICROS_FUNCTION;
+            case "tp90":
+                return TP90_MICROS_FUNCTION;
+            case "tp999":
+                return TP999_MICROS_FUNCTION;
+            default:
+                return TP99_MICROS_FUNCTION;
+        }
+    }
+
+    @Override
+    public CompletableFuture<Result> route(final RequestMessage<Invocation> request, final Candidate candidate) {
+        budget.deposit();
+        Node node = loadBalance.select(candidate, request);
+        ConsumerMethodOption option = (ConsumerMethodOption) request.getOption();
+        //最大调用次数
+        int forks = Math.min(option.getForks(), candidate.getNodes().size());
+        if (node == null || forks <= 1) {
+            return operation.apply(node, null, request);
+        }
+        Hedging hedging = new Hedging(request, candidate, forks);
+        hedging.pending.incrementAndGet();
+        hedging.invoke(node, null);
+        long wait = getDelay(request, candidate.getCluster());
+        int timeout = request.getTimeout() > 0 ? request.getTimeout() : request.getHeader().getTimeout();
+        if (timeout <= 0 || wait < timeout) {
+            hedging.schedule(wait);
+        }
+        return hedging.result;
+    }
+
+    /**
+     * 在调用线程池中执行，避免在定时器线程中做负载均衡和编码发送
+     *
+     * @param runnable 任务
+     * @return 成功提交标识
+     */
+    protected boolean execute(final Runnable runnable) {
+        try {
+            if (executor != null) {
+                executor.execute(runnable);
+            } else {
+                CompletableFuture.runAsync(runnable);
+            }
+            return true;
+        } catch (RejectedExecutionException e) {
+            //线程池已满，放弃对冲，不影响已经发起的调用
+            return false;
+        }
+    }
+
+    /**
+     * 计算发起对冲请求的延迟，优先采用方法的TP耗时
+     *
+     * @param request 请求
+     * @param cluster 集群
+     * @return 延迟（毫秒）
+     */
+    protected long getDelay(final RequestMessage<Invocation> request, final Cluster cluster) {
+        Dashboard dashboard = cluster == null ? null : cluster.getDashboard();
+        TPWindow window = dashboard == null ? null : dashboard.getMethod(request.getPayLoad().getMethodName());
+        TPMetric metric = window == null ? null : window.getSnapshot();
+        TPSnapshot snapshot = metric == null ? null : metric.getSnapshot();
+        Long tp = snapshot == null || snapshot.getSuccesses() <= 0 ? null : tpFunction.apply(snapshot);
+        //TP单位微秒，向上取整为毫秒
+        return tp == null || tp <= 0 ? delay : (tp + 999) / 1000;
+    }
+
+    public Budget getBudget() {
+        return budget;
+    }
+
+    /**
+     * 一次对冲调用
+     */
+    protected class Hedging {
+        /**
+         * 请求
+         */
+        protected final RequestMessage<Invocation> request;
+        /**
+         * 候选者
+         */
+        protected final Candidate candidate;
+        /**
+         * 最大调用次数
+         */
+        protected final int forks;
+        /**
+         * 已经调用的节点
+         */
+        protected final List<Node> nodes;
+        /**
+         * 已经发起的调用
+         */
+        protected final List<CompletableFuture<Result>> futures;
+        /**
+         * 还没有返回的调用数
+         */
+        protected final AtomicInteger pending = new AtomicInteger();
+        /**
+         * 结果
+         */
+        protected final CompletableFuture<Result> result = new CompletableFuture<>();
+
+        public Hedging(final RequestMessage<Invocation> request, final Candidate candidate, final int forks) {
+            this.request = request;
+            this.candidate = candidate;
+            this.forks = forks;
+            this.nodes = new ArrayList<>(forks);
+            this.futures = new ArrayList<>(forks);
+        }
+
+        /**
+         * 向节点发起调用，调用前已经增加了计数器。每次调用复制请求，避免并发修改消息头
+         *
+         * @param node 节点
+         * @param last 上一个节点
+         */
+        protected void invoke(final Node node, final Node last) {
+            CompletableFuture<Result> future = operation.apply(node, last, request.fork());
+            synchronized (this) {
+                nodes.add(node);
+                futures.add(future);
+            }
+            future.whenComplete((r, error) -> {
+                if (error == null && !r.isException()) {
+                    if (result.complete(r)) {
+                        //放弃其它还没有返回的调用
+                        cancel();
+                    }
+                } else if (pending.decrementAndGet() == 0) {
+                    //所有发起的调用都失败了
+                    result.complete(error == null ? r : new Result(request.getContext(), error));
+                }
+            });
+        }
+
+        /**
+         * 定时触发对冲请求
+         *
+         * @param wait 等待的时间
+         */
+        protected void schedule(final long wait) {
+            requestTimer().delay("hedging", wait, () -> {
+                if (!result.isDone()) {
+                    execute(() -> hedge(wait));
+                }
+            });
+        }
+
+        /**
+         * 在调用线程池中发起对冲请求
+         *
+         * @param wait 等待的时间
+         */
+        protected void hedge(final long wait) {
+            if (result.isDone()) {
+                return;
+            }
+            List<Node> remains;
+            Node last;
+            synchronized (this) {
+                remains = new ArrayList<>(candidate.getNodes());
+                remains.removeAll(nodes);
+                last = nodes.get(nodes.size() - 1);
+            }
+            Node node = remains.isEmpty() ? null : loadBalance.select(new Candidate(candidate, remains), request);
+            //没有可用节点，没有剩余的超时时间，或者超过了预算
+            if (node == null || !request.decline() || !budget.acquire()) {
+                return;
+            }
+            //所有的调用都已经失败返回，则不再对冲
+            if (pending.getAndUpdate(v -> v == 0 ? 0 : v + 1) == 0) {
+                return;
+            }
+            invoke(node, last);
+            boolean more;
+            synchronized (this) {
+                more = nodes.size() < forks;
+            }
+            if (more) {
+                schedule(wait);
+            }
+        }
+
+        /**
+         * 放弃还没有完成的调用
+         */
+        protected void cancel() {
+            List<CompletableFuture<Result>> copies;
+            synchronized (this) {
+                copies = new ArrayList<>(futures);
+            }
+            for (CompletableFuture<Result> future : copies) {
+                if (!future.isDone()) {
+                    future.cancel(false);
+                }
+            }
+        }
+    }
+}
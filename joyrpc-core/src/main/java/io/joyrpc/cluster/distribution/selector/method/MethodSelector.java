@@ -24,6 +24,7 @@ import io.joyrpc.cluster.Candidate;
 import io.joyrpc.cluster.Node;
 import io.joyrpc.cluster.Shard;
 import io.joyrpc.cluster.distribution.NodeSelector;
+import io.joyrpc.cluster.distribution.selector.method.predicate.RouteRules;
 import io.joyrpc.invoker.option.ConsumerMethodOption;
 import io.joyrpc.extension.Extension;
 import io.joyrpc.extension.URL;
@@ -47,7 +48,6 @@ public class MethodSelector implements NodeSelector {
      * 接口类
      */
     protected String className;
-
     @Override
     public void setUrl(final URL url) {
         this.url = url;
@@ -65,8 +65,18 @@ public class MethodSelector implements NodeSelector {
         if (predicate == null) {
             return candidate.getNodes();
         }
-        List<Node> result = new LinkedList<>();
         List<Node> nodes = candidate.getNodes();
+        if (predicate instanceof RouteRules && ((RouteRules) predicate).size() <= Long.SIZE) {
+            RouteRules rules = (RouteRules) predicate;
+            long matches = rules.when(request);
+            if (matches == 0) {
+                //没有命中规则
+                return nodes;
+            }
+            //索引缓存在每个方法的路由规则上，避免不同方法互相覆盖
+            return rules.select(nodes, matches);
+        }
+        List<Node> result = new LinkedList<>();
         //先遍历服务列表
         for (Node node : nodes) {
             //在遍历路由规则
@@ -76,5 +86,4 @@ public class MethodSelector implements NodeSelector {
         }
         return result;
     }
-
 }
@@ -27,9 +27,7 @@ import io.joyrpc.exception.InitializationException;
 import io.joyrpc.protocol.message.Invocation;
 import io.joyrpc.protocol.message.RequestMessage;
 
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Optional;
+import java.util.*;
 import java.util.function.BiPredicate;
 import java.util.function.Function;
 import java.util.regex.Matcher;
@@ -124,7 +122,7 @@ public class MethodSelectorBuilder {
      * @return
      */
     public static BiPredicate<Shard, RequestMessage<Invocation>> build(final String json) {
-        BiPredicate<Shard, RequestMessage<Invocation>> predicate = null;
+        List<RouteRules.Rule> rules = new ArrayList<>();
         if (json != null && !json.isEmpty()) {
             //json反序列化为Map
             Map<String, String> map = JSON.get().parseObject(json, Map.class);
@@ -135,13 +133,16 @@ public class MethodSelectorBuilder {
                     //遍历map的value生成then谓词
                     BiPredicate<Shard, RequestMessage<Invocation>> thenCond = buildThen(entry.getValue());
                     if (thenCond != null) {
+                        if (whenCond == null) {
+                            throw new InitializationException("Illegal route rule when: [" + entry.getKey() + "]", ExceptionCode.CONSUMER_ROUTE_CONF);
+                        }
                         //when不匹配，或者when匹配then匹配，返回true
-                        predicate = predicate == null ? whenCond.negate().or(thenCond) : predicate.and(whenCond.negate().or(thenCond));
+                        rules.add(new RouteRules.Rule(whenCond, thenCond));
                     }
                 }
             }
         }
-        return predicate;
+        return rules.isEmpty() ? null : new RouteRules(rules);
     }
 
     /**
@@ -0,0 +1,199 @@
+package io.joyrpc.cluster.distribution.selector.method.predicate;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import io.joyrpc.cluster.Node;
+import io.joyrpc.cluster.NodeSnapshot;
+import io.joyrpc.cluster.Shard;
+import io.joyrpc.protocol.message.Invocation;
+import io.joyrpc.protocol.message.RequestMessage;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiPredicate;
+
+/**
+ * 条件路由规则集合，每条规则要求when不匹配，或者when匹配then匹配，所有规则都满足才选中节点。
+ * <p>
+ * when条件只和请求相关，then条件只和节点相关，选择器可以按命中的when规则缓存节点的筛选结果。
+ */
+public class RouteRules implements BiPredicate<Shard, RequestMessage<Invocation>> {
+
+    /**
+     * 规则
+     */
+    protected List<Rule> rules;
+    /**
+     * 节点筛选索引，节点成员变化后重建
+     */
+    protected volatile Index index;
+
+    public RouteRules(final List<Rule> rules) {
+        this.rules = rules;
+    }
+
+    public List<Rule> getRules() {
+        return rules;
+    }
+
+    public int size() {
+        return rules.size();
+    }
+
+    /**
+     * 计算请求命中的when规则位图，最多支持64条规则
+     *
+     * @param request 请求
+     * @return 位图
+     */
+    public long when(final RequestMessage<Invocation> request) {
+        long result = 0;
+        int i = 0;
+        for (Rule rule : rules) {
+            if (rule.when.test(null, request)) {
+                result |= 1L << i;
+            }
+            i++;
+        }
+        return result;
+    }
+
+    /**
+     * 计算节点满足的then规则位图，最多支持64条规则
+     *
+     * @param shard 节点
+     * @return 位图
+     */
+    public long then(final Shard shard) {
+        long result = 0;
+        int i = 0;
+        for (Rule rule : rules) {
+            if (rule.then.test(shard, null)) {
+                result |= 1L << i;
+            }
+            i++;
+        }
+        return result;
+    }
+
+    /**
+     * 按命中的when规则位图筛选节点，最多支持64条规则
+     *
+     * @param nodes   节点列表
+     * @param matches 命中的when规则位图
+     * @return 节点
+     */
+    public List<Node> select(final List<Node> nodes, final long matches) {
+        Index idx = index;
+        if (idx == null || !idx.snapshot.matches(nodes)) {
+            idx = new Index(new NodeSnapshot(nodes), this);
+            index = idx;
+        }
+        return idx.select(matches);
+    }
+
+    @Override
+    public boolean test(final Shard shard, final RequestMessage<Invocation> request) {
+        for (Rule rule : rules) {
+            if (rule.when.test(shard, request) && !rule.then.test(shard, request)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 路由规则
+     */
+    public static class Rule {
+        /**
+         * 请求条件
+         */
+        protected BiPredicate<Shard, RequestMessage<Invocation>> when;
+        /**
+         * 节点条件
+         */
+        protected BiPredicate<Shard, RequestMessage<Invocation>> then;
+
+        public Rule(final BiPredicate<Shard, RequestMessage<Invocation>> when,
+                    final BiPredicate<Shard, RequestMessage<Invocation>> then) {
+            this.when = when;
+            this.then = then;
+        }
+
+        public BiPredicate<Shard, RequestMessage<Invocation>> getWhen() {
+            return when;
+        }
+
+        public BiPredicate<Shard, RequestMessage<Invocation>> getThen() {
+            return then;
+        }
+    }
+
+    /**
+     * 节点筛选索引，预先计算每个节点满足的then规则，按命中的when规则位图缓存筛选结果
+     */
+    protected static class Index {
+        /**
+         * 节点快照
+         */
+        protected final NodeSnapshot snapshot;
+        /**
+         * 节点满足的then规则位图
+         */
+        protected final long[] accepts;
+        /**
+         * 筛选结果
+         */
+        protected final Map<Long, List<Node>> results = new ConcurrentHashMap<>();
+
+        public Index(final NodeSnapshot snapshot, final RouteRules rules) {
+            this.snapshot = snapshot;
+            Node[] shards = snapshot.getMembers();
+            this.accepts = new long[shards.length];
+            for (int i = 0; i < shards.length; i++) {
+                accepts[i] = rules.then(shards[i]);
+            }
+        }
+
+        /**
+         * 选择节点
+         *
+         * @param matches 命中的when规则位图
+         * @return 节点
+         */
+        public List<Node> select(final long matches) {
+            return results.computeIfAbsent(matches, m -> {
+                Node[] shards = snapshot.getMembers();
+                List<Node> result = new ArrayList<>();
+                for (int i = 0; i < shards.length; i++) {
+                    if ((accepts[i] & m) == m) {
+                        result.add(shards[i]);
+                    }
+                }
+                return Collections.unmodifiableList(result);
+            });
+        }
+    }
+}
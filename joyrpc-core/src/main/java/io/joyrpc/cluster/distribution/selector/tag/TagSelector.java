@@ -22,15 +22,14 @@ package io.joyrpc.cluster.distribution.selector.tag;
 
 import io.joyrpc.cluster.Candidate;
 import io.joyrpc.cluster.Node;
+import io.joyrpc.cluster.NodeSnapshot;
 import io.joyrpc.cluster.distribution.NodeSelector;
 import io.joyrpc.extension.Extension;
 import io.joyrpc.extension.URL;
 import io.joyrpc.protocol.message.Invocation;
 import io.joyrpc.protocol.message.RequestMessage;
 
-import java.util.LinkedList;
-import java.util.List;
-import java.util.Objects;
+import java.util.*;
 
 import static io.joyrpc.constants.Constants.TAG_KEY_OPTION;
 
@@ -54,6 +53,10 @@ public class TagSelector implements NodeSelector {
      * 配置的标签值
      */
     protected String tagValue;
+    /**
+     * 标签索引
+     */
+    protected volatile Index index;
 
     @Override
     public void setUrl(final URL url) {
@@ -72,17 +75,54 @@ public class TagSelector implements NodeSelector {
         if (tag == null || tag.isEmpty()) {
             return candidate.getNodes();
         }
-        List<Node> result = new LinkedList<>();
         List<Node> nodes = candidate.getNodes();
-        URL url;
-        //先遍历服务列表
-        for (Node node : nodes) {
-            url = node.getUrl();
-            String nodeTag = url == null ? null : url.getString(tagKey);
-            if (Objects.equals(tag, nodeTag)) {
-                result.add(node);
+        Index idx = index;
+        if (idx == null || !idx.snapshot.matches(nodes)) {
+            //节点成员变化，重建索引
+            idx = new Index(new NodeSnapshot(nodes), tagKey);
+            index = idx;
+        }
+        return idx.get(tag);
+    }
+
+    /**
+     * 标签索引，按节点成员判断是否需要重建
+     */
+    protected static class Index {
+        /**
+         * 节点快照
+         */
+        protected final NodeSnapshot snapshot;
+        /**
+         * 标签值对应的节点
+         */
+        protected final Map<String, List<Node>> tags;
+
+        public Index(final NodeSnapshot snapshot, final String tagKey) {
+            this.snapshot = snapshot;
+            Map<String, List<Node>> map = new HashMap<>();
+            URL url;
+            String nodeTag;
+            for (Node node : snapshot.getMembers()) {
+                url = node.getUrl();
+                nodeTag = url == null ? null : url.getString(tagKey);
+                if (nodeTag != null) {
+                    map.computeIfAbsent(nodeTag, o -> new ArrayList<>()).add(node);
+                }
             }
+            map.replaceAll((k, v) -> Collections.unmodifiableList(v));
+            this.tags = map;
+        }
+
+        /**
+         * 获取标签对应的节点
+         *
+         * @param tag 标签值
+         * @return 节点
+         */
+        public List<Node> get(final String tag) {
+            List<Node> result = tags.get(tag);
+            return result == null ? Collections.emptyList() : result;
         }
-        return result;
     }
 }
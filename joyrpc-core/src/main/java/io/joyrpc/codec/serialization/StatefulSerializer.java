@@ -0,0 +1,98 @@
+package io.joyrpc.codec.serialization;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import io.joyrpc.exception.SerializerException;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Type;
+
+/**
+ * 有状态的序列化，类型定义等引用表在连接上复用，重复的类型只传输引用。<br/>
+ * 要求同一个连接上的消息按照顺序编码和解码，编码端和解码端各自持有状态。
+ */
+public interface StatefulSerializer extends Serializer {
+
+    /**
+     * 创建编码端状态
+     *
+     * @return 状态
+     */
+    State createWriteState();
+
+    /**
+     * 创建解码端状态
+     *
+     * @return 状态
+     */
+    State createReadState();
+
+    /**
+     * 基于连接状态序列化
+     *
+     * @param os     输出流
+     * @param object 对象
+     * @param state  编码端状态
+     * @param <T>
+     * @throws SerializerException
+     */
+    <T> void serialize(OutputStream os, T object, State state) throws SerializerException;
+
+    /**
+     * 基于连接状态反序列化
+     *
+     * @param is    输入流
+     * @param type  类型
+     * @param state 解码端状态
+     * @param <T>
+     * @return 对象
+     * @throws SerializerException
+     */
+    <T> T deserialize(InputStream is, Type type, State state) throws SerializerException;
+
+    /**
+     * 连接上的引用表状态
+     */
+    interface State {
+
+        /**
+         * 引用表的大小，编码端随消息发送，解码端据此判断两端是否同步
+         *
+         * @return 引用表的大小
+         */
+        int size();
+
+        /**
+         * 引用表是否已满，已满的编码端状态在下一次编码前清空，避免无限增长
+         *
+         * @return 已满标识
+         */
+        default boolean isFull() {
+            return false;
+        }
+
+        /**
+         * 清空引用表
+         */
+        void clear();
+    }
+}
@@ -152,6 +152,14 @@ public abstract class AbstractInterfaceConfig extends AbstractIdConfig {
      * 缓存值是否可空
      */
     protected Boolean cacheNullable;
+    /**
+     * 缓存提前刷新时间
+     */
+    protected Long cacheRefreshAhead;
+    /**
+     * 异常结果的缓存时间
+     */
+    protected Long cacheExceptionExpireTime;
     /**
      * 外部注入的配置中心
      */
@@ -196,6 +204,8 @@ public abstract class AbstractInterfaceConfig extends AbstractIdConfig {
         this.cacheExpireTime = config.cacheExpireTime;
         this.cacheCapacity = config.cacheCapacity;
         this.cacheNullable = config.cacheNullable;
+        this.cacheRefreshAhead = config.cacheRefreshAhead;
+        this.cacheExceptionExpireTime = config.cacheExceptionExpireTime;
         this.name = config.name;
         this.interfaceClass = config.interfaceClass;
         this.configure = config.configure;
@@ -509,6 +519,22 @@ public abstract class AbstractInterfaceConfig extends AbstractIdConfig {
         this.cacheNullable = cacheNullable;
     }
 
+    public Long getCacheRefreshAhead() {
+        return cacheRefreshAhead;
+    }
+
+    public void setCacheRefreshAhead(Long cacheRefreshAhead) {
+        this.cacheRefreshAhead = cacheRefreshAhead;
+    }
+
+    public Long getCacheExceptionExpireTime() {
+        return cacheExceptionExpireTime;
+    }
+
+    public void setCacheExceptionExpireTime(Long cacheExceptionExpireTime) {
+        this.cacheExceptionExpireTime = cacheExceptionExpireTime;
+    }
+
     public Configure getConfigure() {
         return configure;
     }
@@ -639,6 +665,8 @@ public abstract class AbstractInterfaceConfig extends AbstractIdConfig {
         addElement2Map(params, Constants.CACHE_KEY_GENERATOR_OPTION, cacheKeyGenerator);
         addElement2Map(params, Constants.CACHE_CAPACITY_OPTION, cacheCapacity);
         addElement2Map(params, Constants.CACHE_NULLABLE_OPTION, cacheNullable);
+        addElement2Map(params, Constants.CACHE_REFRESH_AHEAD_OPTION, cacheRefreshAhead);
+        addElement2Map(params, Constants.CACHE_EXCEPTION_EXPIRE_TIME_OPTION, cacheExceptionExpireTime);
 
         if (null != parameters) {
             parameters.forEach((k, v) -> addElement2Map(params, k, v));
@@ -129,6 +129,14 @@ public class MethodConfig extends AbstractConfig {
      * 缓存值是否可空
      */
     protected Boolean cacheNullable;
+    /**
+     * 缓存提前刷新时间
+     */
+    protected Long cacheRefreshAhead;
+    /**
+     * 异常结果的缓存时间
+     */
+    protected Long cacheExceptionExpireTime;
 
     public String getName() {
         return name;
@@ -290,6 +298,22 @@ public class MethodConfig extends AbstractConfig {
         this.cacheNullable = cacheNullable;
     }
 
+    public Long getCacheRefreshAhead() {
+        return cacheRefreshAhead;
+    }
+
+    public void setCacheRefreshAhead(Long cacheRefreshAhead) {
+        this.cacheRefreshAhead = cacheRefreshAhead;
+    }
+
+    public Long getCacheExceptionExpireTime() {
+        return cacheExceptionExpireTime;
+    }
+
+    public void setCacheExceptionExpireTime(Long cacheExceptionExpireTime) {
+        this.cacheExceptionExpireTime = cacheExceptionExpireTime;
+    }
+
     public String getCacheProvider() {
         return cacheProvider;
     }
@@ -342,6 +366,8 @@ public class MethodConfig extends AbstractConfig {
         addElement2Map(params, METHOD_KEY_FUNC.apply(name, Constants.CACHE_EXPIRE_TIME_OPTION.getName()), cacheExpireTime);
         addElement2Map(params, METHOD_KEY_FUNC.apply(name, Constants.CACHE_CAPACITY_OPTION.getName()), cacheCapacity);
         addElement2Map(params, METHOD_KEY_FUNC.apply(name, Constants.CACHE_NULLABLE_OPTION.getName()), cacheNullable);
+        addElement2Map(params, METHOD_KEY_FUNC.apply(name, Constants.CACHE_REFRESH_AHEAD_OPTION.getName()), cacheRefreshAhead);
+        addElement2Map(params, METHOD_KEY_FUNC.apply(name, Constants.CACHE_EXCEPTION_EXPIRE_TIME_OPTION.getName()), cacheExceptionExpireTime);
         addElement2Map(params, METHOD_KEY_FUNC.apply(name, Constants.CACHE_KEY_EXPRESSION), cacheKeyExpression);
 
         if (null != parameters) {
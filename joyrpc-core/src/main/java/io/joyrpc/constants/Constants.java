@@ -154,6 +154,10 @@ public class Constants {
      * 统计面板启用标识
      */
     public static final String DASHBOARD_ENABLE = "dashboard.enable";
+    /**
+     * 统计面板类型，mc：毫秒精度，hdr：微秒精度的高精度直方图
+     */
+    public static final URLOption<String> DASHBOARD_TYPE_OPTION = new URLOption<>("dashboard.type", "mc");
     /**
      * 熔断异常
      */
@@ -464,6 +468,22 @@ public class Constants {
      * 定时器线程数
      */
     public static final String TIMER_THREADS = "timer.threads";
+    /**
+     * 请求超时定时器类型，wheel：默认定时器（默认值），hashed：高精度分片时间轮，需要显式开启
+     */
+    public static final String TIMER_REQUEST_TYPE = "timer.request.type";
+    /**
+     * 请求超时定时器每一跳的时间（毫秒）
+     */
+    public static final String TIMER_REQUEST_TICK = "timer.request.tick";
+    /**
+     * 请求超时定时器的时间轮分片数
+     */
+    public static final String TIMER_REQUEST_SHARDS = "timer.request.shards";
+    /**
+     * 请求超时定时器的工作线程数
+     */
+    public static final String TIMER_REQUEST_THREADS = "timer.request.threads";
     /**
      * SERVICE_MESH的键名称
      */
@@ -527,6 +547,26 @@ public class Constants {
      * 消费者调用超时时间
      */
     public static final URLOption<Integer> TIMEOUT_OPTION = new URLOption<>(TIMEOUT_KEY, DEFAULT_TIMEOUT);
+    /**
+     * 嵌套调用是否继承调用链的截止时间，超时时间不超过剩余的预算
+     */
+    public static final URLOption<Boolean> DEADLINE_OPTION = new URLOption<>("deadline", true);
+    /**
+     * 请求超时或者被放弃后，是否通知服务端取消执行，需要和服务端协商
+     */
+    public static final URLOption<Boolean> CANCEL_OPTION = new URLOption<>("cancel", true);
+    /**
+     * 是否协商方法表，协商成功后请求用方法ID代替方法名称，需要和服务端协商
+     */
+    public static final URLOption<Boolean> METHOD_ID_OPTION = new URLOption<>("methodId", true);
+    /**
+     * 协商应答中的方法表，按照方法ID顺序排列的方法名称
+     */
+    public static final String METHOD_TABLE_KEY = "methodTable";
+    /**
+     * 是否开启有状态的序列化，类型定义等引用表在连接上复用，需要和服务端协商
+     */
+    public static final URLOption<Boolean> STATEFUL_SERIALIZATION_OPTION = new URLOption<>("statefulSerialization", false);
     public static final URLOption<Boolean> REGISTER_OPTION = new URLOption<>("register", true);
     public static final URLOption<Boolean> SUBSCRIBE_OPTION = new URLOption<>("subscribe", true);
     public static final URLOption<String> SERVICE_NAME_OPTION = new URLOption<>(SERVICE_NAME_KEY, "");
@@ -604,6 +644,18 @@ public class Constants {
      * 每个节点只重试一次
      */
     public static final URLOption<Boolean> RETRY_ONLY_ONCE_PER_NODE_OPTION = new URLOption<>("retryOnlyOncePerNode", false);
+    /**
+     * 重试预算，按照首次调用成功数的百分比补充重试令牌，默认为-1不启用，负数表示不限制重试
+     */
+    public static final URLOption<Integer> RETRY_BUDGET_OPTION = new URLOption<>("retry.budget", -1);
+    /**
+     * 重试预算最多可以累积的令牌数
+     */
+    public static final URLOption<Integer> RETRY_BURST_OPTION = new URLOption<>("retry.burst", 10);
+    /**
+     * 是否为每个方法单独设置重试预算，集群预算同时生效
+     */
+    public static final URLOption<Boolean> RETRY_METHOD_BUDGET_OPTION = new URLOption<>("retry.methodBudget", false);
 
     /**
      * 默认重试目标节点选择器
@@ -622,6 +674,22 @@ public class Constants {
      * 负载均衡选项
      */
     public static final URLOption<String> LOADBALANCE_OPTION = new URLOption<>("loadbalance", DEFAULT_LOADBALANCE);
+    /**
+     * 哈希负载均衡的键参数位置
+     */
+    public static final URLOption<Integer> HASH_ARGUMENT_OPTION = new URLOption<>("hash.argument", 0);
+    /**
+     * 哈希负载均衡的键表达式，配置后优先于参数位置
+     */
+    public static final URLOption<String> HASH_EXPRESSION_OPTION = new URLOption<>("hash.expression", (String) null);
+    /**
+     * 哈希负载均衡的表达式引擎，为空则使用默认引擎
+     */
+    public static final URLOption<String> HASH_EXPRESSION_ENGINE_OPTION = new URLOption<>("hash.expression.engine", (String) null);
+    /**
+     * 一致性哈希每个节点的虚拟节点数
+     */
+    public static final URLOption<Integer> HASH_VIRTUAL_NODES_OPTION = new URLOption<>("hash.virtualNodes", 160);
     public static final URLOption<Boolean> STICKY_OPTION = new URLOption<>("sticky", false);
     public static final URLOption<Boolean> IN_JVM_OPTION = new URLOption<>("injvm", true);
     public static final URLOption<Boolean> CHECK_OPTION = new URLOption<>("check", true);
@@ -657,6 +725,30 @@ public class Constants {
      * 候选者选项
      */
     public static final URLOption<String> CANDIDATURE_OPTION = new URLOption<>("candidature", DEFAULT_CANDIDATURE);
+    /**
+     * 孔径选举的最小连接数
+     */
+    public static final URLOption<Integer> APERTURE_MIN_OPTION = new URLOption<>("aperture.min", 5);
+    /**
+     * 孔径选举的最大连接数
+     */
+    public static final URLOption<Integer> APERTURE_MAX_OPTION = new URLOption<>("aperture.max", 50);
+    /**
+     * 孔径选举的单节点低负载（平均并发），低于该值缩小孔径
+     */
+    public static final URLOption<Double> APERTURE_LOW_LOAD_OPTION = new URLOption<>("aperture.lowLoad", 0.5d);
+    /**
+     * 孔径选举的单节点高负载（平均并发），高于该值扩大孔径
+     */
+    public static final URLOption<Double> APERTURE_HIGH_LOAD_OPTION = new URLOption<>("aperture.highLoad", 2.0d);
+    /**
+     * 孔径选举的消费者实例数，配合实例序号使用可以让服务端负载完全均衡
+     */
+    public static final URLOption<Integer> APERTURE_PEERS_OPTION = new URLOption<>("aperture.peers", 0);
+    /**
+     * 孔径选举的消费者实例序号，从0开始
+     */
+    public static final URLOption<Integer> APERTURE_PEER_INDEX_OPTION = new URLOption<>("aperture.peerIndex", -1);
 
     /*------------------------ consumer group配置 ------------------------*/
     public static final URLOption<Integer> DST_PARAM_OPTION = new URLOption<>("dstParam", (Integer) null);
@@ -677,6 +769,18 @@ public class Constants {
     public static final URLOption<Integer> DELAY_OPTION = new URLOption<>("delay", -1);
     public static final URLOption<Boolean> DYNAMIC_OPTION = new URLOption<>("dynamic", true);
     public static final URLOption<Integer> CONCURRENCY_OPTION = new URLOption<>("concurrency", 0);
+    /**
+     * 异步调用超过并发数的最大排队数
+     */
+    public static final URLOption<Integer> CONCURRENCY_QUEUE_OPTION = new URLOption<>("concurrency.queue", 1024);
+    /**
+     * 自适应并发限制器，vegas或gradient，配置后并发数作为初始值
+     */
+    public static final URLOption<String> CONCURRENCY_LIMITER_OPTION = new URLOption<>("concurrency.limiter", "");
+    /**
+     * 自适应并发限制器的最大并发数
+     */
+    public static final URLOption<Integer> CONCURRENCY_LIMITER_MAX_OPTION = new URLOption<>("concurrency.limiter.max", 1000);
     public static final URLOption<Boolean> LIMITER_OPTION = new URLOption<>("limiter", false);
     public static final URLOption<String> METHOD_EXCLUDE_OPTION = new URLOption<>("exclude", "");
     public static final URLOption<String> CONTEXT_PATH_OPTION = new URLOption<>("contextpath", "/");
@@ -778,16 +882,46 @@ public class Constants {
     public static final URLOption<Integer> CACHE_EXPIRE_TIME_OPTION = new URLOption<>("cacheExpireTime", -1);
     public static final URLOption<Integer> CACHE_CAPACITY_OPTION = new URLOption<>("cacheCapacity", 10000);
     public static final URLOption<Boolean> CACHE_NULLABLE_OPTION = new URLOption<>("cacheNullable", Boolean.FALSE);
+    /**
+     * 缓存提前刷新时间，缓存剩余有效时间小于该值时返回旧值并异步刷新，小于等于0不刷新
+     */
+    public static final URLOption<Long> CACHE_REFRESH_AHEAD_OPTION = new URLOption<>("cacheRefreshAhead", -1L);
+    /**
+     * 异常结果的缓存时间，小于等于0不缓存异常
+     */
+    public static final URLOption<Long> CACHE_EXCEPTION_EXPIRE_TIME_OPTION = new URLOption<>("cacheExceptionExpireTime", -1L);
 
     /**
      * 指标窗口时间（毫秒）
      */
     public static final URLOption<Long> METRIC_WINDOWS_TIME_OPTION = new URLOption<>("metric.window.time", 1000L);
+    /**
+     * 指标记录模式，event：每次调用发布指标事件，direct：在调用完成的线程上直接更新仪表盘
+     */
+    public static final String METRIC_MODE_EVENT = "event";
+    public static final String METRIC_MODE_DIRECT = "direct";
+    public static final URLOption<String> METRIC_MODE_OPTION = new URLOption<>("metric.mode", METRIC_MODE_EVENT);
 
     /**
      * 插件默认常量
      */
     public static final URLOption<String> CHANNEL_MANAGER_FACTORY_OPTION = new URLOption<>("channelManagerFactory", "shared");
+    /**
+     * 每个服务端节点最多建立的物理连接数，默认一个连接，大于1的时候按照负载动态增减连接
+     */
+    public static final URLOption<Integer> CONNECTIONS_OPTION = new URLOption<>("connections", 1);
+    /**
+     * 平均每个物理连接正在处理的请求数超过该阈值的时候新建连接，低于一半的时候回收连接
+     */
+    public static final URLOption<Integer> CONNECTIONS_THRESHOLD_OPTION = new URLOption<>("connections.threshold", 64);
+    /**
+     * grpc服务端流式应答最大在途消息数
+     */
+    public static final URLOption<Integer> GRPC_STREAM_WINDOW_OPTION = new URLOption<>("grpc.stream.window", 16);
+    /**
+     * grpc服务端流式应答超出在途消息数后最多缓存的消息数
+     */
+    public static final URLOption<Integer> GRPC_STREAM_CAPACITY_OPTION = new URLOption<>("grpc.stream.capacity", 256);
 
     public static final URLOption<Integer> PAYLOAD = new URLOption<>("payload", 8388608);
 
@@ -815,6 +949,26 @@ public class Constants {
     public static final URLOption<Integer> SO_BACKLOG_OPTION = new URLOption<>("soBacklog", 35536);
     public static final URLOption<Integer> SO_TIMEOUT_OPTION = new URLOption<>("soTimeout", 10000);
     public static final URLOption<Boolean> SO_REUSE_PORT_OPTION = new URLOption<>(REUSE_PORT_KEY, true);
+    /**
+     * 批量合并刷盘，默认关闭
+     */
+    public static final URLOption<Boolean> WRITE_BATCH_OPTION = new URLOption<>("writeBatch", false);
+    /**
+     * 批量合并刷盘的最大消息条数
+     */
+    public static final URLOption<Integer> WRITE_BATCH_SIZE_OPTION = new URLOption<>("writeBatchSize", 64);
+    /**
+     * 批量合并刷盘的最大字节数
+     */
+    public static final URLOption<Integer> WRITE_BATCH_BYTES_OPTION = new URLOption<>("writeBatchBytes", 64 * 1024);
+    /**
+     * 消息体在业务线程池中解码，IO线程只解码消息头，默认关闭
+     */
+    public static final URLOption<Boolean> DECODE_OFFLOAD_OPTION = new URLOption<>("decodeOffload", false);
+    /**
+     * 客户端请求在调用线程中编码，IO线程直接写出编码好的数据，默认关闭
+     */
+    public static final URLOption<Boolean> ENCODE_OFFLOAD_OPTION = new URLOption<>("encodeOffload", false);
 
 
     /**
@@ -934,6 +1088,22 @@ public class Constants {
      * 自适应负载均衡，集群TP
      */
     public static final URLOption<String> ADAPTIVE_CLUSTER_TP = new URLOption<>("adaptive.clusterTp", "tp30");
+    /**
+     * 对冲请求，触发对冲的方法TP，没有对应TP统计的时候采用对冲延迟
+     */
+    public static final URLOption<String> HEDGING_TP = new URLOption<>("hedging.tp", "tp99");
+    /**
+     * 对冲请求，没有方法统计数据的时候，发起对冲请求的延迟（毫秒）
+     */
+    public static final URLOption<Integer> HEDGING_DELAY = new URLOption<>("hedging.delay", 100);
+    /**
+     * 对冲请求，对冲请求占总请求的最大百分比
+     */
+    public static final URLOption<Integer> HEDGING_BUDGET = new URLOption<>("hedging.budget", 10);
+    /**
+     * 对冲请求，预算可以累积的最大对冲请求数
+     */
+    public static final URLOption<Integer> HEDGING_BURST = new URLOption<>("hedging.burst", 10);
 
     /**
      * GrpcType函数
@@ -1044,4 +1214,16 @@ public class Constants {
      * 兼容老版本的网关请求
      */
     public static final Head HEAD_GENERIC = new Head((byte) 12, Byte.class);
+    /**
+     * 会话协商的方法ID，代替请求中的方法名称
+     */
+    public static final Head HEAD_METHOD_ID = new Head((byte) 14, Short.class);
+    /**
+     * 有状态序列化的编码端引用表大小，解码端据此校验两端状态是否同步
+     */
+    public static final Head HEAD_SERIALIZATION_STATE = new Head((byte) 15, Integer.class);
+    /**
+     * 有状态序列化的解码端引用表不同步，通知对端清空编码端引用表
+     */
+    public static final Head HEAD_SERIALIZATION_RESET = new Head((byte) 16, Byte.class);
 }
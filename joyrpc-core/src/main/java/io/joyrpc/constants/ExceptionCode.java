@@ -73,6 +73,8 @@ public abstract class ExceptionCode {
     //路由配置错误
     public static final String CONSUMER_ROUTE_CONF = CONSUMER_PREFIX + CONFIG_LEVEL + "009";
     public static final String CONSUMER_DUPLICATE_REFER = CONSUMER_PREFIX + CONFIG_LEVEL + "010";
+    //负载均衡配置错误
+    public static final String CONSUMER_LOADBALANCE_CONF = CONSUMER_PREFIX + CONFIG_LEVEL + "011";
 
     // PROVIDER 模块
     public static final String PROVIDER_INVOKER_MISMATCH = PROVIDER_PREFIX + CONFIG_LEVEL + "001";
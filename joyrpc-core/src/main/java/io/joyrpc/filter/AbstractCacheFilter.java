@@ -23,25 +23,49 @@ package io.joyrpc.filter;
 import io.joyrpc.Invoker;
 import io.joyrpc.Result;
 import io.joyrpc.cache.Cache;
+import io.joyrpc.cache.CacheObject;
+import io.joyrpc.codec.UnsafeByteArrayOutputStream;
+import io.joyrpc.codec.serialization.Serialization;
+import io.joyrpc.context.RequestContext;
 import io.joyrpc.invoker.option.InterfaceOption;
 import io.joyrpc.invoker.option.CacheOption;
+import io.joyrpc.invoker.option.CacheOption.Failure;
 import io.joyrpc.exception.CacheException;
+import io.joyrpc.exception.SerializerException;
 import io.joyrpc.extension.URL;
 import io.joyrpc.protocol.message.Invocation;
 import io.joyrpc.protocol.message.RequestMessage;
+import io.joyrpc.util.Futures;
+import io.joyrpc.util.SystemClock;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.ByteArrayInputStream;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 
+import static io.joyrpc.Plugin.SERIALIZATION;
+
 
 /**
  * consumer结果缓存过滤器, 需要扩展实现Cache接口
+ * <p>
+ * 相同键的并发未命中共享一次远程调用，可以配置快过期时提前异步刷新，以及短期缓存异常结果，避免热点键过期时的请求风暴
  */
 public class AbstractCacheFilter extends AbstractFilter {
 
     private static final Logger logger = LoggerFactory.getLogger(AbstractCacheFilter.class);
 
+    /**
+     * 最多缓存的异常数量
+     */
+    protected static final int MAX_FAILURES = 1024;
+
+    /**
+     * 复制异常的序列化方式
+     */
+    protected static final String FAILURE_SERIALIZATION = "java";
+
     @Override
     public CompletableFuture<Result> invoke(final Invoker invoker, final RequestMessage<Invocation> request) {
         final CacheOption policy = request.getOption().getCachePolicy();
@@ -59,30 +83,238 @@ public class AbstractCacheFilter extends AbstractFilter {
         cache.get(key).whenComplete((c, t) -> {
             if (t == null && c != null) {
                 result.complete(new Result(request.getContext(), c.getResult()));
+                if (isRefresh(policy, c)) {
+                    //快要过期，返回旧值并异步刷新，已经有调用在执行则忽略
+                    CompletableFuture<Result> flight = new CompletableFuture<>();
+                    if (policy.getFlights().putIfAbsent(key, flight) == null) {
+                        invoke(invoker, createRefresh(request), policy, key, flight, true);
+                    }
+                }
             } else {
                 //没有拿到缓存
                 if (t != null) {
                     //有异常
                     logger.error("Error occurs while reading cache,caused by " + t.getMessage(), t);
                 }
-                //未命中发起远程调用
-                invoker.invoke(request).whenComplete((r, error) -> {
-                    if (error != null) {
-                        //远程调用异常
-                        result.completeExceptionally(error);
+                //短期缓存的异常
+                Failure failure = getFailure(policy, key);
+                Throwable throwable = failure == null ? null : getThrowable(policy, key, failure);
+                if (throwable != null) {
+                    if (failure.isError()) {
+                        result.completeExceptionally(throwable);
                     } else {
-                        if (!r.isException()) {
-                            //缓存非异常结果
-                            cache.put(key, r.getValue());
-                        }
-                        result.complete(r);
+                        result.complete(new Result(request.getContext(), throwable));
                     }
-                });
+                    return;
+                }
+                //未命中发起远程调用，相同键的并发请求共享一次调用
+                CompletableFuture<Result> flight = new CompletableFuture<>();
+                CompletableFuture<Result> exists = policy.getFlights().putIfAbsent(key, flight);
+                if (exists == null) {
+                    invoke(invoker, request, policy, key, flight, false);
+                    flight.whenComplete((r, error) -> {
+                        if (error != null) {
+                            result.completeExceptionally(error);
+                        } else {
+                            result.complete(r);
+                        }
+                    });
+                } else {
+                    //等待共享的调用，异常复制一份，避免和其它请求共享同一个异常对象
+                    exists.whenComplete((r, error) -> {
+                        if (error != null) {
+                            result.completeExceptionally(copy(error));
+                        } else if (r.isException()) {
+                            result.complete(new Result(request.getContext(), copy(r.getException())));
+                        } else {
+                            result.complete(new Result(request.getContext(), r.getValue()));
+                        }
+                    });
+                }
+            }
+        });
+        return result;
+    }
+
+    /**
+     * 发起远程调用，写入缓存后再结束共享的调用
+     *
+     * @param invoker 调用器
+     * @param request 请求
+     * @param policy  缓存策略
+     * @param key     缓存键
+     * @param flight  共享的调用
+     * @param refresh 是否是异步刷新
+     */
+    protected void invoke(final Invoker invoker, final RequestMessage<Invocation> request, final CacheOption policy,
+                          final Object key, final CompletableFuture<Result> flight, final boolean refresh) {
+        CompletableFuture<Result> future;
+        try {
+            future = invoker.invoke(request);
+        } catch (Throwable e) {
+            future = Futures.completeExceptionally(e);
+        }
+        future.whenComplete((r, error) -> {
+            CompletableFuture<Void> stored;
+            if (error != null || r.isException()) {
+                //异步刷新失败继续使用旧值，不缓存异常
+                if (!refresh) {
+                    addFailure(policy, key, error != null ? error : r.getException(), error != null);
+                }
+                stored = CompletableFuture.completedFuture(null);
+            } else {
+                //缓存非异常结果
+                policy.getFailures().remove(key);
+                stored = policy.getCache().put(key, r.getValue());
             }
+            stored.whenComplete((v, t) -> {
+                if (t != null) {
+                    logger.error("Error occurs while writing cache,caused by " + t.getMessage(), t);
+                }
+                policy.getFlights().remove(key, flight);
+                if (error != null) {
+                    flight.completeExceptionally(error);
+                } else {
+                    flight.complete(r);
+                }
+            });
         });
+    }
+
+    /**
+     * 构建异步刷新的请求，原始请求已经返回给调用方，刷新使用独立的消息头、调用对象和上下文，并重新计算超时
+     *
+     * @param request 原始请求
+     * @return 刷新请求
+     */
+    protected RequestMessage<Invocation> createRefresh(final RequestMessage<Invocation> request) {
+        RequestMessage<Invocation> result = request.fork();
+        result.setContext(new RequestContext());
+        result.setCreateTime(SystemClock.now());
         return result;
     }
 
+    /**
+     * 是否需要提前刷新
+     *
+     * @param policy 缓存策略
+     * @param cache  缓存对象
+     * @return 刷新标识
+     */
+    protected boolean isRefresh(final CacheOption policy, final CacheObject<Object> cache) {
+        long expire = policy.getExpireAfterWrite();
+        long ahead = policy.getRefreshAhead();
+        return expire > 0 && ahead > 0 && SystemClock.now() - cache.getCreateTime() >= expire - ahead;
+    }
+
+    /**
+     * 获取短期缓存的异常
+     *
+     * @param policy 缓存策略
+     * @param key    缓存键
+     * @return 异常
+     */
+    protected Failure getFailure(final CacheOption policy, final Object key) {
+        if (policy.getExceptionExpireTime() <= 0) {
+            return null;
+        }
+        Failure failure = policy.getFailures().get(key);
+        if (failure != null && failure.isExpire(SystemClock.now())) {
+            policy.getFailures().remove(key, failure);
+            return null;
+        }
+        return failure;
+    }
+
+    /**
+     * 反序列化出新的异常对象，失败则删除该缓存的异常
+     *
+     * @param policy  缓存策略
+     * @param key     缓存键
+     * @param failure 缓存的异常
+     * @return 异常
+     */
+    protected Throwable getThrowable(final CacheOption policy, final Object key, final Failure failure) {
+        try {
+            return deserialize(failure.getData());
+        } catch (SerializerException e) {
+            logger.error("Error occurs while reading cached exception,caused by " + e.getMessage(), e);
+            policy.getFailures().remove(key, failure);
+            return null;
+        }
+    }
+
+    /**
+     * 短期缓存异常
+     *
+     * @param policy    缓存策略
+     * @param key       缓存键
+     * @param throwable 异常
+     * @param error     是否是调用异常
+     */
+    protected void addFailure(final CacheOption policy, final Object key, final Throwable throwable, final boolean error) {
+        long expireTime = policy.getExceptionExpireTime();
+        if (expireTime <= 0) {
+            return;
+        }
+        long now = SystemClock.now();
+        Map<Object, Failure> failures = policy.getFailures();
+        if (failures.size() >= MAX_FAILURES) {
+            //清理过期的异常，仍然满了则不缓存
+            failures.values().removeIf(o -> o.isExpire(now));
+            if (failures.size() >= MAX_FAILURES) {
+                return;
+            }
+        }
+        //序列化保存，不能序列化的异常不缓存
+        try {
+            failures.put(key, new Failure(serialize(throwable), error, now + expireTime));
+        } catch (SerializerException e) {
+            logger.warn("Exception is not cached, it can not be serialized. caused by " + e.getMessage());
+        }
+    }
+
+    /**
+     * 复制异常，不能序列化的异常则返回原有异常
+     *
+     * @param throwable 异常
+     * @return 新的异常对象
+     */
+    protected Throwable copy(final Throwable throwable) {
+        try {
+            return deserialize(serialize(throwable));
+        } catch (SerializerException e) {
+            logger.warn("Exception is shared with the waiting requests, it can not be copied. caused by " + e.getMessage());
+            return throwable;
+        }
+    }
+
+    /**
+     * 序列化异常
+     *
+     * @param throwable 异常
+     * @return 字节数组
+     * @throws SerializerException 不能序列化
+     */
+    protected byte[] serialize(final Throwable throwable) throws SerializerException {
+        Serialization serialization = SERIALIZATION.get(FAILURE_SERIALIZATION);
+        UnsafeByteArrayOutputStream os = new UnsafeByteArrayOutputStream(1024);
+        serialization.getSerializer().serialize(os, throwable);
+        return os.toByteArray();
+    }
+
+    /**
+     * 反序列化出新的异常对象
+     *
+     * @param data 字节数组
+     * @return 异常
+     * @throws SerializerException 不能反序列化
+     */
+    protected Throwable deserialize(final byte[] data) throws SerializerException {
+        return SERIALIZATION.get(FAILURE_SERIALIZATION).getSerializer().deserialize(
+                new ByteArrayInputStream(data), Throwable.class);
+    }
+
     /**
      * 生成缓存键
      *
@@ -22,6 +22,8 @@ package io.joyrpc.filter;
 
 import io.joyrpc.Invoker;
 import io.joyrpc.Result;
+import io.joyrpc.cluster.distribution.ConcurrencyLimiter;
+import io.joyrpc.exception.OverloadException;
 import io.joyrpc.invoker.option.InterfaceOption;
 import io.joyrpc.invoker.option.Concurrency;
 import io.joyrpc.extension.URL;
@@ -29,6 +31,8 @@ import io.joyrpc.protocol.message.Invocation;
 import io.joyrpc.protocol.message.RequestMessage;
 
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeoutException;
 
 /**
  * 调用端并发限制器，按接口和方法进行限制
@@ -52,9 +56,26 @@ public abstract class AbstractConcurrencyFilter extends AbstractFilter {
             }
         }
         //执行调用
+        onInvoke(concurrency);
+        return doInvoke(invoker, request, concurrency);
+    }
+
+    /**
+     * 执行调用，调用前已经增加了并发数
+     *
+     * @param invoker     调用器
+     * @param request     请求
+     * @param concurrency 并发配置
+     * @return 结果
+     */
+    protected CompletableFuture<Result> doInvoke(final Invoker invoker, final RequestMessage<Invocation> request,
+                                                 final Concurrency concurrency) {
+        ConcurrencyLimiter limiter = concurrency.getLimiter();
+        if (limiter != null) {
+            return doInvoke(invoker, request, concurrency, limiter);
+        }
         CompletableFuture<Result> future = null;
         try {
-            onInvoke(concurrency);
             future = invoker.invoke(request);
             return future.whenComplete((result, throwable) -> onInvokeComplete(concurrency));
         } finally {
@@ -64,6 +85,48 @@ public abstract class AbstractConcurrencyFilter extends AbstractFilter {
         }
     }
 
+    /**
+     * 执行调用，并把耗时采样给自适应并发限制器
+     *
+     * @param invoker     调用器
+     * @param request     请求
+     * @param concurrency 并发配置
+     * @param limiter     自适应并发限制器
+     * @return 结果
+     */
+    protected CompletableFuture<Result> doInvoke(final Invoker invoker, final RequestMessage<Invocation> request,
+                                                 final Concurrency concurrency, final ConcurrencyLimiter limiter) {
+        final long inflight = concurrency.getActives();
+        final long startNanos = System.nanoTime();
+        CompletableFuture<Result> future = null;
+        try {
+            future = invoker.invoke(request);
+            return future.whenComplete((result, throwable) -> {
+                limiter.onSample(System.nanoTime() - startNanos, inflight, isDropped(result, throwable));
+                onInvokeComplete(concurrency);
+            });
+        } finally {
+            if (future == null) {
+                onInvokeException(concurrency);
+            }
+        }
+    }
+
+    /**
+     * 判断请求是否被丢弃，超时或者过载
+     *
+     * @param result    结果
+     * @param throwable 异常
+     * @return 丢弃标识
+     */
+    protected boolean isDropped(final Result result, final Throwable throwable) {
+        Throwable error = throwable != null ? throwable : (result != null && result.isException() ? result.getException() : null);
+        if (error instanceof CompletionException && error.getCause() != null) {
+            error = error.getCause();
+        }
+        return error instanceof TimeoutException || error instanceof OverloadException;
+    }
+
     /**
      * 调用前
      *
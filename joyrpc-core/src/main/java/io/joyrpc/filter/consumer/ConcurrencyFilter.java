@@ -20,6 +20,7 @@ package io.joyrpc.filter.consumer;
  * #L%
  */
 
+import io.joyrpc.Invoker;
 import io.joyrpc.Result;
 import io.joyrpc.invoker.option.Concurrency;
 import io.joyrpc.constants.ExceptionCode;
@@ -31,12 +32,70 @@ import io.joyrpc.protocol.message.Invocation;
 import io.joyrpc.protocol.message.RequestMessage;
 import io.joyrpc.util.SystemClock;
 
+import java.util.concurrent.CompletableFuture;
+
 /**
  * 按接口和方法进行限制<br>
  */
 @Extension(value = "concurrency", order = ConsumerFilter.CONCURRENCY_ORDER)
 public class ConcurrencyFilter extends AbstractConcurrencyFilter implements ConsumerFilter {
 
+    @Override
+    public CompletableFuture<Result> invoke(final Invoker invoker, final RequestMessage<Invocation> request) {
+        Concurrency concurrency = request.getOption().getConcurrency();
+        if (concurrency.getMax() <= 0 || concurrency.getLimiter() != null || !request.getOption().isAsync()) {
+            return super.invoke(invoker, request);
+        }
+        //异步调用，超过并发数进行排队，不阻塞当前线程
+        long start = SystemClock.now();
+        int timeout = request.getHeader().getTimeout();
+        CompletableFuture<Boolean> acquire = concurrency.acquire(timeout);
+        if (acquire == null) {
+            //排队数已满，快速失败
+            return CompletableFuture.completedFuture(onOverload(request, concurrency,
+                    "Waiting queue is full in client-side when invoke ", 0, timeout));
+        } else if (acquire.isDone() && acquire.join()) {
+            return doInvoke(invoker, request, concurrency);
+        }
+        return acquire.thenCompose(acquired -> {
+            long elapsed = SystemClock.now() - start;
+            long remain = timeout - elapsed;
+            if (!acquired || remain <= 0) {
+                if (acquired) {
+                    onInvokeComplete(concurrency);
+                }
+                return CompletableFuture.completedFuture(onOverload(request, concurrency,
+                        "Waiting concurrent timeout in client-side when invoke ", elapsed, timeout));
+            }
+            request.getHeader().setTimeout((int) remain);
+            return doInvoke(invoker, request, concurrency);
+        });
+    }
+
+    /**
+     * 构造超过并发数的结果
+     *
+     * @param request     请求
+     * @param concurrency 并发配置
+     * @param message     消息
+     * @param elapsed     等待时间
+     * @param timeout     超时时间
+     * @return 结果
+     */
+    protected Result onOverload(final RequestMessage<Invocation> request, final Concurrency concurrency,
+                                final String message, final long elapsed, final int timeout) {
+        Invocation invocation = request.getPayLoad();
+        //被限流后会抛出大量异常，不打印异常堆栈，避免消耗CPU
+        return new Result(request.getContext(),
+                new OverloadException(message + invocation.getClassName() + "." + invocation.getMethodName()
+                        + ", elapsed: " + elapsed + ", timeout: " + timeout
+                        + ". concurrent invokes: " + concurrency.getActives()
+                        + ". waiting invokes: " + concurrency.getWaiting()
+                        + ". max concurrency: " + concurrency.getMax()
+                        + ". You can change it by interface or method concurrency",
+                        ExceptionCode.FILTER_CONCURRENT_CONSUMER_TIMEOUT, 0, false));
+    }
+
     @Override
     protected void onInvokeException(final Concurrency concurrency) {
         concurrency.decrement();
@@ -51,6 +110,11 @@ public class ConcurrencyFilter extends AbstractConcurrencyFilter implements Cons
 
     @Override
     protected Result onExceed(final RequestMessage<Invocation> request, final Concurrency concurrency) {
+        if (concurrency.getLimiter() != null) {
+            //自适应并发，直接拒绝，避免排队
+            return onOverload(request, concurrency, "Exceeding adaptive concurrency limit in client-side when invoke ",
+                    0, request.getHeader().getTimeout());
+        }
         long start = SystemClock.now();
         Invocation invocation = request.getPayLoad();
         long active;
@@ -0,0 +1,152 @@
+package io.joyrpc.invoker;
+
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import io.joyrpc.context.RequestContext;
+import io.joyrpc.protocol.message.RequestMessage;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 调用链的截止时间，记录因为时间预算耗尽而放弃的请求。<br/>
+ * 截止时间不单独传递，服务端按照本机收到请求的时间加上请求头的超时时间计算，避免服务器之间的时钟偏差
+ */
+public class Deadline {
+
+    /**
+     * 消费者发起调用前，调用链的时间预算已经耗尽而放弃的请求数
+     */
+    protected static final LongAdder SHEDS = new LongAdder();
+    /**
+     * 服务端收到请求时，调用方已经超时而丢弃的请求数
+     */
+    protected static final LongAdder DISCARDS = new LongAdder();
+    /**
+     * 超时时间被截止时间裁剪的请求数
+     */
+    protected static final LongAdder CLIPS = new LongAdder();
+    /**
+     * 被裁剪掉的超时时间合计，单位毫秒
+     */
+    protected static final LongAdder CLIPPED_MILLIS = new LongAdder();
+
+    /**
+     * 服务端收到请求，按照本机收到请求的时间和请求的超时时间计算截止时间
+     *
+     * @param receiveTime 收到请求的时间
+     * @param timeout     请求的超时时间
+     * @return 截止时间，0表示没有截止时间
+     */
+    public static long of(final long receiveTime, final int timeout) {
+        return timeout > 0 && receiveTime > 0 ? receiveTime + timeout : 0;
+    }
+
+    /**
+     * 按照上下文中调用链的截止时间裁剪嵌套调用的超时时间
+     *
+     * @param request 嵌套调用的请求
+     * @param now     当前时间
+     * @return 裁剪后的超时时间
+     */
+    public static int clip(final RequestMessage<?> request, final long now) {
+        int timeout = request.getTimeout() > 0 ? request.getTimeout() : request.getHeader().getTimeout();
+        long deadline = request.getContext().getDeadline();
+        if (deadline > 0) {
+            int remain = (int) (deadline - now);
+            if (remain > 0 && remain < timeout) {
+                clip(timeout - remain);
+                request.setTimeout(remain);
+                request.getHeader().setTimeout(remain);
+                return remain;
+            }
+        }
+        return timeout;
+    }
+
+    /**
+     * 调用链的时间预算是否已经耗尽
+     *
+     * @param context 上下文
+     * @param now     当前时间
+     * @return 耗尽标识
+     */
+    public static boolean isExceeded(final RequestContext context, final long now) {
+        long deadline = context.getDeadline();
+        return deadline > 0 && now >= deadline;
+    }
+
+    /**
+     * 消费者放弃请求
+     */
+    public static void shed() {
+        SHEDS.increment();
+    }
+
+    /**
+     * 服务端丢弃请求
+     */
+    public static void discard() {
+        DISCARDS.increment();
+    }
+
+    /**
+     * 裁剪超时时间
+     *
+     * @param millis 裁剪掉的时间，单位毫秒
+     */
+    public static void clip(final long millis) {
+        CLIPS.increment();
+        CLIPPED_MILLIS.add(millis);
+    }
+
+    public static long getSheds() {
+        return SHEDS.sum();
+    }
+
+    public static long getDiscards() {
+        return DISCARDS.sum();
+    }
+
+    public static long getClips() {
+        return CLIPS.sum();
+    }
+
+    public static long getClippedMillis() {
+        return CLIPPED_MILLIS.sum();
+    }
+
+    /**
+     * 输出统计信息
+     *
+     * @return 统计信息
+     */
+    public static Map<String, Object> dump() {
+        Map<String, Object> result = new HashMap<>(4);
+        result.put("sheds", SHEDS.sum());
+        result.put("discards", DISCARDS.sum());
+        result.put("clips", CLIPS.sum());
+        result.put("clippedMillis", CLIPPED_MILLIS.sum());
+        return result;
+    }
+}
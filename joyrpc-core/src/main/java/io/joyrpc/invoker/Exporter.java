@@ -304,8 +304,18 @@ public class Exporter extends AbstractService {
 
     @Override
     public void setup(final RequestMessage<Invocation> request) {
+        setup(request, null);
+    }
+
+    /**
+     * 构建请求
+     *
+     * @param request 请求
+     * @param method  会话协商的方法ID对应的方法选项，为空则按照方法名称查找
+     */
+    public void setup(final RequestMessage<Invocation> request, final MethodOption method) {
         Invocation invocation = request.getPayLoad();
-        MethodOption option = this.option.getOption(invocation.getMethodName());
+        MethodOption option = method != null ? method : this.option.getOption(invocation.getMethodName());
         //类名，如果不存在则从会话里面获取
         invocation.setClazz(interfaceClass);
         invocation.setMethod(option.getMethod());
@@ -63,12 +63,14 @@ import io.joyrpc.protocol.message.RequestMessage;
 import io.joyrpc.protocol.message.ResponsePayload;
 import io.joyrpc.transport.Client;
 import io.joyrpc.transport.Server;
+import io.joyrpc.transport.channel.Channel;
 import io.joyrpc.transport.message.Message;
 import io.joyrpc.transport.session.DefaultSession;
 import io.joyrpc.transport.session.Session;
 import io.joyrpc.util.Futures;
 import io.joyrpc.util.Shutdown;
 import io.joyrpc.util.SystemClock;
+import io.joyrpc.util.Timer.Timeout;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -76,6 +78,7 @@ import java.net.InetSocketAddress;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CopyOnWriteArraySet;
 import java.util.concurrent.TimeoutException;
@@ -87,7 +90,7 @@ import static io.joyrpc.Plugin.*;
 import static io.joyrpc.constants.Constants.*;
 import static io.joyrpc.constants.ExceptionCode.CONSUMER_NO_ALIVE_PROVIDER;
 import static io.joyrpc.util.StringUtils.split;
-import static io.joyrpc.util.Timer.timer;
+import static io.joyrpc.util.Timer.requestTimer;
 
 /**
  * 引用
@@ -140,6 +143,10 @@ public class Refer extends AbstractService {
      * 是否优先本地JVM调用
      */
     protected boolean inJvm;
+    /**
+     * 是否继承调用链的截止时间
+     */
+    protected boolean deadline;
     /**
      * 本地服务的名称
      */
@@ -223,6 +230,7 @@ public class Refer extends AbstractService {
         this.interfaceName = url.getPath();
 
         this.inJvm = url.getBoolean(Constants.IN_JVM_OPTION);
+        this.deadline = url.getBoolean(Constants.DEADLINE_OPTION);
         this.exporterName = EXPORTER_NAME_FUNC.apply(interfaceName, alias);
         //节点选择器
         this.nodeSelectors = buildSelectors();
@@ -295,24 +303,76 @@ public class Refer extends AbstractService {
             if (request.getOption().getCallback() != null) {
                 container.addCallback(request, client);
             }
-            //异步发起调用
-            CompletableFuture<Message> future = client.async(request, header.getTimeout());
+            //异步发起调用，记录实际发送的物理连接，取消请求需要发送到同一个连接上
+            Channel channel = client.getChannel().select();
+            CompletableFuture<Message> future = client.async(channel, request, header.getTimeout());
+            //记录发送的消息ID，超时或者被放弃的时候据此通知服务端取消
+            long msgId = header.getMsgId();
+            int timeout = header.getTimeout();
+            boolean cancellable = isCancellable(client);
 
             //返回future
-            return future.handle((response, err) -> {
+            CompletableFuture<Result> result = future.handle((response, err) -> {
+                if (cancellable && err instanceof TimeoutException) {
+                    //请求超时，通知服务端不再执行
+                    cancel(client, channel, msgId, timeout);
+                }
                 //线程恢复统一改在consumerInvokerHandler里面
-                Result result = err != null ? new Result(request.getContext(), err, response) : response2Result(request, client, response);
-                if (result.isException()) {
+                Result r = err != null ? new Result(request.getContext(), err, response) : response2Result(request, client, response);
+                if (r.isException()) {
                     //异常处理
-                    onException(request, result, client);
+                    onException(request, r, client);
                 }
-                return result;
+                return r;
             });
+            if (cancellable) {
+                //路由放弃了该请求，例如并行调用已经有其它节点返回了结果，此时上面的handle不会再执行
+                result.whenComplete((r, err) -> {
+                    if (err instanceof CancellationException) {
+                        channel.getFutureManager().completeExceptionally(msgId, err);
+                        cancel(client, channel, msgId, timeout);
+                    }
+                });
+            }
+            return result;
         } catch (Throwable e) {
             return Futures.completeExceptionally(e);
         }
     }
 
+    /**
+     * 判断服务端是否支持取消请求
+     *
+     * @param client 客户端
+     * @return 支持取消请求标识
+     */
+    protected boolean isCancellable(final Client client) {
+        Session session = client.session();
+        return session != null && Boolean.parseBoolean(session.get(CANCEL_OPTION.getName()));
+    }
+
+    /**
+     * 通知服务端取消请求
+     *
+     * @param client  客户端
+     * @param channel 请求发送的物理连接
+     * @param msgId   消息ID
+     * @param timeout 请求的超时时间
+     */
+    protected void cancel(final Client client, final Channel channel, final long msgId, final int timeout) {
+        Session session = client.session();
+        Message message = session == null ? null : client.getProtocol().cancel(url, client, msgId, timeout);
+        if (message != null) {
+            message.setSessionId(session.getSessionId());
+            message.getHeader().setSerialization(session.getSerializationType());
+            channel.send(message).whenComplete((v, error) -> {
+                if (error != null && logger.isDebugEnabled()) {
+                    logger.debug(String.format("Failed sending cancel message of request %d to %s", msgId, client.getRemoteAddress()), error);
+                }
+            });
+        }
+    }
+
     /**
      * 把应答消息转换成调用结果
      *
@@ -399,6 +459,8 @@ public class Refer extends AbstractService {
             router.setUrl(url);
             router.setLoadBalance(loadBalance);
             router.setOperation(this::invokeRemote);
+            //异步发起的调用使用消费者的回调线程池，按需创建
+            router.setExecutor(r -> ServiceManager.getCallbackPool().execute(r));
             router.setup();
         }
         return router;
@@ -438,6 +500,10 @@ public class Refer extends AbstractService {
             request.setTimeout(timeout);
             request.getHeader().setTimeout(timeout);
         }
+        //继承调用链的截止时间，超时时间不超过剩余的预算，下游按照收到请求的时间和超时时间重新计算截止时间
+        if (deadline) {
+            Deadline.clip(request, SystemClock.now());
+        }
     }
 
     /**
@@ -447,6 +513,11 @@ public class Refer extends AbstractService {
      * @return 结果
      */
     protected CompletableFuture<Result> distribute(final RequestMessage<Invocation> request) {
+        //调用链的时间预算已经耗尽，上游已经放弃，不再向下游发起调用
+        if (deadline && Deadline.isExceeded(request.getContext(), SystemClock.now())) {
+            Deadline.shed();
+            return Futures.completeExceptionally(new TimeoutException(String.format("The deadline is exceeded before invoking %s.%s", interfaceName, request.getMethodName())));
+        }
         //需要重新设置一下超时时间，防止过滤器占用时间过多
         if (!request.decline()) {
             return Futures.completeExceptionally(new TimeoutException(String.format("It's timeout to invoke %s.%s", interfaceName, request.getMethodName())));
@@ -524,13 +595,15 @@ public class Refer extends AbstractService {
         //透传处理
         transmit.onServerReceive(newRequest);
         local.setup(newRequest);
+        //本地调用同样按照超时时间计算截止时间
+        newRequest.getContext().setDeadline(Deadline.of(newRequest.getReceiveTime(), request.getHeader().getTimeout()));
 
         //产生本地调用的消息ID
         MessageHeader header = request.getHeader();
         header.setMsgId(localMsgId.incrementAndGet());
         final CompletableFuture<Result> result = new CompletableFuture<>();
-        //超时判断
-        timer().add(FUTURE_TIMEOUT_PREFIX + request.getMsgId(), SystemClock.now() + header.getTimeout(), () -> {
+        //超时判断，不设置任务名称，避免字符串拼接
+        Timeout timeout = requestTimer().add(null, SystemClock.now() + header.getTimeout(), () -> {
             if (!result.isDone()) {
                 result.completeExceptionally(new TimeoutException(String.format("It's timeout to invoke %s.%s", interfaceName, request.getMethodName())));
             }
@@ -539,6 +612,8 @@ public class Refer extends AbstractService {
         server.runAsync(() -> {
             //恢复服务端上下文
             newRequest.restore(() -> local.invoke(newRequest).whenComplete((r, err) -> {
+                //提前结束，放弃超时任务
+                timeout.cancel();
                 if (err != null) {
                     result.completeExceptionally(err);
                 } else {
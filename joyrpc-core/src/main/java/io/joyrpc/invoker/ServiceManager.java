@@ -409,7 +409,7 @@ public class ServiceManager {
         //自适应负载均衡、熔断都需要统计面板
         return loadBalance instanceof DashboardAware
                 || url.getBoolean(CIRCUIT_BREAKER_ENABLE, false)
-                || url.getBoolean(DASHBOARD_ENABLE, false) ? DASHBOARD_FACTORY.get() : null;
+                || url.getBoolean(DASHBOARD_ENABLE, false) ? DASHBOARD_FACTORY.getOrDefault(url.getString(DASHBOARD_TYPE_OPTION)) : null;
     }
 
     /**
@@ -21,11 +21,13 @@ package io.joyrpc.invoker.injection;
  */
 
 import io.joyrpc.context.RequestContext;
+import io.joyrpc.invoker.Deadline;
 import io.joyrpc.invoker.injection.Transmit;
 import io.joyrpc.extension.Extension;
 import io.joyrpc.protocol.message.Invocation;
 import io.joyrpc.protocol.message.RequestMessage;
 import io.joyrpc.transport.session.Session.RpcSession;
+import io.joyrpc.util.SystemClock;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -61,6 +63,9 @@ public class ContextTransmit implements Transmit {
         RequestContext context = request.getContext();
         context.setLocalAddress(request.getLocalAddress());
         context.setRemoteAddress(request.getRemoteAddress());
+        //按照本机收到请求的时间和请求的超时时间计算调用链的截止时间，避免服务器之间的时钟偏差
+        long receiveTime = request.getReceiveTime();
+        context.setDeadline(Deadline.of(receiveTime > 0 ? receiveTime : SystemClock.now(), request.getHeader().getTimeout()));
 
         Invocation invocation = request.getPayLoad();
         Map<String, Object> attachments = invocation.getAttachments();
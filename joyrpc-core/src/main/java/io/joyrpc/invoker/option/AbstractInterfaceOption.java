@@ -28,6 +28,7 @@ import io.joyrpc.cache.CacheConfig;
 import io.joyrpc.cache.CacheFactory;
 import io.joyrpc.cache.CacheKeyGenerator;
 import io.joyrpc.cache.CacheKeyGenerator.ExpressionGenerator;
+import io.joyrpc.cluster.distribution.ConcurrencyLimiter;
 import io.joyrpc.constants.ExceptionCode;
 import io.joyrpc.exception.InitializationException;
 import io.joyrpc.exception.MethodOverloadException;
@@ -47,6 +48,7 @@ import javax.validation.metadata.MethodDescriptor;
 import java.lang.reflect.Method;
 import java.lang.reflect.Parameter;
 import java.util.Map;
+import java.util.concurrent.Executor;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Predicate;
 
@@ -89,6 +91,18 @@ public abstract class AbstractInterfaceOption implements InterfaceOption {
      * 接口级别并发数配置
      */
     protected int concurrency;
+    /**
+     * 接口级别异步并发排队数配置
+     */
+    protected int concurrencyQueue;
+    /**
+     * 接口级别自适应并发限制器配置
+     */
+    protected String concurrencyLimiter;
+    /**
+     * 接口级别自适应并发限制器的最大并发数
+     */
+    protected int concurrencyLimiterMax;
     /**
      * 是否启用缓存
      */
@@ -105,6 +119,14 @@ public abstract class AbstractInterfaceOption implements InterfaceOption {
      * 缓存过期时间
      */
     protected int cacheExpireTime;
+    /**
+     * 缓存提前刷新时间
+     */
+    protected long cacheRefreshAhead;
+    /**
+     * 异常结果的缓存时间
+     */
+    protected long cacheExceptionExpireTime;
     /**
      * 缓存键生成器
      */
@@ -197,12 +219,17 @@ public abstract class AbstractInterfaceOption implements InterfaceOption {
         this.implicits = url.startsWith(String.valueOf(HIDE_KEY_PREFIX));
         this.timeout = url.getPositiveInt(TIMEOUT_OPTION);
         this.concurrency = url.getInteger(CONCURRENCY_OPTION);
+        this.concurrencyQueue = url.getInteger(CONCURRENCY_QUEUE_OPTION);
+        this.concurrencyLimiter = url.getString(CONCURRENCY_LIMITER_OPTION);
+        this.concurrencyLimiterMax = url.getPositiveInt(CONCURRENCY_LIMITER_MAX_OPTION);
         this.token = url.getString(HIDDEN_KEY_TOKEN);
         //缓存配置
         this.cacheEnable = url.getBoolean(CACHE_OPTION);
         this.cacheNullable = url.getBoolean(CACHE_NULLABLE_OPTION);
         this.cacheCapacity = url.getInteger(CACHE_CAPACITY_OPTION);
         this.cacheExpireTime = url.getInteger(CACHE_EXPIRE_TIME_OPTION);
+        this.cacheRefreshAhead = url.getLong(CACHE_REFRESH_AHEAD_OPTION);
+        this.cacheExceptionExpireTime = url.getLong(CACHE_EXCEPTION_EXPIRE_TIME_OPTION);
         this.cacheKeyGenerator = url.getString(CACHE_KEY_GENERATOR_OPTION);
         this.cacheProvider = url.getString(CACHE_PROVIDER_OPTION);
         this.cacheFactory = CACHE.get(cacheProvider);
@@ -384,13 +411,16 @@ public abstract class AbstractInterfaceOption implements InterfaceOption {
                 }
                 //判断是否缓存空值
                 //创建缓存
+                int expireTime = parametric.getInteger(CACHE_EXPIRE_TIME_OPTION.getName(), cacheExpireTime);
                 CacheConfig<Object, Object> cacheConfig = CacheConfig.builder().
                         nullable(parametric.getBoolean(CACHE_NULLABLE_OPTION.getName(), cacheNullable)).
                         capacity(parametric.getInteger(CACHE_CAPACITY_OPTION.getName(), cacheCapacity)).
-                        expireAfterWrite(parametric.getInteger(CACHE_EXPIRE_TIME_OPTION.getName(), cacheExpireTime)).
+                        expireAfterWrite(expireTime).
                         build();
                 Cache<Object, Object> cache = cacheFactory.build(parametric.getName(), cacheConfig);
-                cachePolicy = new CacheOption(cache, generator);
+                cachePolicy = new CacheOption(cache, generator, expireTime,
+                        parametric.getLong(CACHE_REFRESH_AHEAD_OPTION.getName(), cacheRefreshAhead),
+                        parametric.getLong(CACHE_EXCEPTION_EXPIRE_TIME_OPTION.getName(), cacheExceptionExpireTime));
             }
         }
         return cachePolicy;
@@ -448,7 +478,39 @@ public abstract class AbstractInterfaceOption implements InterfaceOption {
 
     @Override
     public boolean isConcurrency() {
-        return concurrency > 0 || predicate(option -> option.getConcurrency().getMax() > 0);
+        return concurrency > 0 || concurrencyLimiter != null && !concurrencyLimiter.isEmpty()
+                || predicate(option -> option.getConcurrency().getMax() > 0);
+    }
+
+    /**
+     * 构建方法的并发数配置
+     *
+     * @param parametric 方法参数
+     * @param maxWaiters 异步调用的最大排队数
+     * @return 并发数配置
+     */
+    protected Concurrency getConcurrency(final WrapperParametric parametric, final int maxWaiters) {
+        return getConcurrency(parametric, maxWaiters, null);
+    }
+
+    /**
+     * 构建方法的并发数配置
+     *
+     * @param parametric 方法参数
+     * @param maxWaiters 异步调用的最大排队数
+     * @param executor   唤醒排队等待者的线程池
+     * @return 并发数配置
+     */
+    protected Concurrency getConcurrency(final WrapperParametric parametric, final int maxWaiters, final Executor executor) {
+        int max = parametric.getInteger(CONCURRENCY_OPTION.getName(), concurrency);
+        String type = parametric.getString(CONCURRENCY_LIMITER_OPTION.getName(), concurrencyLimiter);
+        ConcurrencyLimiter limiter = type == null || type.isEmpty() ? null : CONCURRENCY_LIMITER.get(type);
+        if (limiter != null) {
+            //插件是多态的，每个方法一个实例
+            limiter.setup(max > 0 ? max : ConcurrencyLimiter.INITIAL_LIMIT,
+                    parametric.getPositive(CONCURRENCY_LIMITER_MAX_OPTION.getName(), concurrencyLimiterMax));
+        }
+        return new Concurrency(max, maxWaiters, limiter, executor);
     }
 
     @Override
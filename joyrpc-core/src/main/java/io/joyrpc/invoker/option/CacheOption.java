@@ -20,9 +20,14 @@ package io.joyrpc.invoker.option;
  * #L%
  */
 
+import io.joyrpc.Result;
 import io.joyrpc.cache.Cache;
 import io.joyrpc.cache.CacheKeyGenerator;
 
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
 /**
  * 缓存选项
  */
@@ -35,10 +40,38 @@ public class CacheOption {
      * 缓存键生成器
      */
     protected final CacheKeyGenerator generator;
+    /**
+     * 缓存过期时间
+     */
+    protected final long expireAfterWrite;
+    /**
+     * 提前刷新时间，缓存剩余有效时间小于该值时异步刷新
+     */
+    protected final long refreshAhead;
+    /**
+     * 异常结果的缓存时间
+     */
+    protected final long exceptionExpireTime;
+    /**
+     * 正在执行的远程调用，相同键的并发请求共享一次调用
+     */
+    protected final Map<Object, CompletableFuture<Result>> flights = new ConcurrentHashMap<>();
+    /**
+     * 缓存的异常结果
+     */
+    protected final Map<Object, Failure> failures = new ConcurrentHashMap<>();
 
     public CacheOption(Cache<Object, Object> cache, CacheKeyGenerator generator) {
+        this(cache, generator, -1, -1, -1);
+    }
+
+    public CacheOption(Cache<Object, Object> cache, CacheKeyGenerator generator,
+                       long expireAfterWrite, long refreshAhead, long exceptionExpireTime) {
         this.cache = cache;
         this.generator = generator;
+        this.expireAfterWrite = expireAfterWrite;
+        this.refreshAhead = refreshAhead;
+        this.exceptionExpireTime = exceptionExpireTime;
     }
 
     public Cache<Object, Object> getCache() {
@@ -48,4 +81,60 @@ public class CacheOption {
     public CacheKeyGenerator getGenerator() {
         return generator;
     }
+
+    public long getExpireAfterWrite() {
+        return expireAfterWrite;
+    }
+
+    public long getRefreshAhead() {
+        return refreshAhead;
+    }
+
+    public long getExceptionExpireTime() {
+        return exceptionExpireTime;
+    }
+
+    public Map<Object, CompletableFuture<Result>> getFlights() {
+        return flights;
+    }
+
+    public Map<Object, Failure> getFailures() {
+        return failures;
+    }
+
+    /**
+     * 缓存的异常，保存序列化后的数据，每次回放反序列化出新的异常对象，避免多个调用方共享同一个异常实例
+     */
+    public static class Failure {
+        /**
+         * 序列化后的异常
+         */
+        protected final byte[] data;
+        /**
+         * 是否是调用异常，否则是业务异常
+         */
+        protected final boolean error;
+        /**
+         * 过期时间
+         */
+        protected final long expireTime;
+
+        public Failure(byte[] data, boolean error, long expireTime) {
+            this.data = data;
+            this.error = error;
+            this.expireTime = expireTime;
+        }
+
+        public byte[] getData() {
+            return data;
+        }
+
+        public boolean isError() {
+            return error;
+        }
+
+        public boolean isExpire(long now) {
+            return now > expireTime;
+        }
+    }
 }
@@ -20,6 +20,16 @@ package io.joyrpc.invoker.option;
  * #L%
  */
 
+import io.joyrpc.cluster.distribution.ConcurrencyLimiter;
+import io.joyrpc.util.Timer;
+
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 
 /**
@@ -27,6 +37,11 @@ import java.util.concurrent.atomic.AtomicLong;
  */
 public class Concurrency {
 
+    /**
+     * 获取到许可的结果
+     */
+    protected static final CompletableFuture<Boolean> ACQUIRED = CompletableFuture.completedFuture(Boolean.TRUE);
+
     /**
      * 最大并发数
      */
@@ -36,13 +51,61 @@ public class Concurrency {
      * 活动并发
      */
     protected AtomicLong actives = new AtomicLong();
+    /**
+     * 异步等待的最大数量
+     */
+    protected int maxWaiters;
+    /**
+     * 异步等待数量
+     */
+    protected AtomicInteger waiting = new AtomicInteger();
+    /**
+     * 异步等待队列
+     */
+    protected Queue<Waiter> waiters = new ConcurrentLinkedQueue<>();
+    /**
+     * 自适应并发限制器
+     */
+    protected ConcurrencyLimiter limiter;
+    /**
+     * 唤醒等待者的线程池，避免在释放许可的线程（可能是IO线程）或定时器线程上执行后续调用，为空则在当前线程通知
+     */
+    protected Executor executor;
 
     public Concurrency(int max) {
+        this(max, 0, null, null);
+    }
+
+    public Concurrency(int max, int maxWaiters) {
+        this(max, maxWaiters, null, null);
+    }
+
+    public Concurrency(int max, int maxWaiters, ConcurrencyLimiter limiter) {
+        this(max, maxWaiters, limiter, null);
+    }
+
+    public Concurrency(int max, int maxWaiters, ConcurrencyLimiter limiter, Executor executor) {
         this.max = max;
+        this.maxWaiters = maxWaiters;
+        this.limiter = limiter;
+        this.executor = executor;
     }
 
+    /**
+     * 最大并发数，配置了自适应并发限制器则返回动态估算的值
+     *
+     * @return 最大并发数
+     */
     public int getMax() {
-        return max;
+        return limiter == null ? max : limiter.getLimit();
+    }
+
+    public ConcurrencyLimiter getLimiter() {
+        return limiter;
+    }
+
+    public int getMaxWaiters() {
+        return maxWaiters;
     }
 
     /**
@@ -54,6 +117,15 @@ public class Concurrency {
         return actives.get();
     }
 
+    /**
+     * 当前异步等待数
+     *
+     * @return 异步等待数
+     */
+    public int getWaiting() {
+        return waiting.get();
+    }
+
     /**
      * 增加
      */
@@ -62,10 +134,102 @@ public class Concurrency {
     }
 
     /**
-     * 减少并发数
+     * 减少并发数，并把许可交给异步等待者
      */
     public void decrement() {
         actives.decrementAndGet();
+        if (waiting.get() > 0) {
+            drain();
+        }
+    }
+
+    /**
+     * 没有超过最大并发数则增加并发数
+     *
+     * @return 成功标识
+     */
+    public boolean tryAcquire() {
+        long active;
+        while ((active = actives.get()) < getMax()) {
+            if (actives.compareAndSet(active, active + 1)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 异步获取许可，不阻塞当前线程
+     *
+     * @param timeout 等待超时时间（毫秒）
+     * @return 获取结果，true表示获取到许可，false表示等待超时，返回null表示等待队列已满
+     */
+    public CompletableFuture<Boolean> acquire(final long timeout) {
+        //前面没有等待者才直接获取，避免插队
+        if (waiting.get() == 0 && tryAcquire()) {
+            return ACQUIRED;
+        }
+        int count;
+        do {
+            count = waiting.get();
+            if (count >= maxWaiters) {
+                return null;
+            }
+        } while (!waiting.compareAndSet(count, count + 1));
+        Waiter waiter = new Waiter();
+        //先入队再注册超时任务，保证超时的时候能从队列中移除
+        waiters.offer(waiter);
+        waiter.timeout = Timer.requestTimer().delay(null, timeout, () -> {
+            if (waiter.claim()) {
+                waiting.decrementAndGet();
+                //从队列中移除，避免超时的等待者堆积
+                waiters.remove(waiter);
+                wakeup(waiter, Boolean.FALSE);
+            }
+        });
+        if (waiter.claimed.get()) {
+            waiter.cancelTimeout();
+        }
+        //入队之前许可可能已经释放
+        drain();
+        return waiter;
+    }
+
+    /**
+     * 把空闲的许可交给等待者
+     */
+    protected void drain() {
+        Waiter waiter;
+        while (!waiters.isEmpty() && tryAcquire()) {
+            waiter = waiters.poll();
+            if (waiter != null && waiter.claim()) {
+                waiting.decrementAndGet();
+                waiter.cancelTimeout();
+                wakeup(waiter, Boolean.TRUE);
+            } else {
+                //等待者已经超时，归还许可
+                actives.decrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * 在线程池中通知等待者，后续的调用不占用释放许可的线程或定时器线程
+     *
+     * @param waiter 等待者
+     * @param result true表示获取到许可，false表示等待超时
+     */
+    protected void wakeup(final Waiter waiter, final Boolean result) {
+        if (executor == null) {
+            waiter.complete(result);
+            return;
+        }
+        try {
+            executor.execute(() -> waiter.complete(result));
+        } catch (RejectedExecutionException e) {
+            //线程池满了或者已经关闭，在当前线程通知
+            waiter.complete(result);
+        }
     }
 
     /**
@@ -99,4 +263,37 @@ public class Concurrency {
         }
     }
 
+    /**
+     * 异步等待者
+     */
+    protected static class Waiter extends CompletableFuture<Boolean> {
+        /**
+         * 超时任务
+         */
+        protected volatile Timer.Timeout timeout;
+        /**
+         * 是否已经被处理
+         */
+        protected final AtomicBoolean claimed = new AtomicBoolean();
+
+        /**
+         * 抢占处理权，超时和获取到许可只能有一个生效
+         *
+         * @return 成功标识
+         */
+        protected boolean claim() {
+            return claimed.compareAndSet(false, true);
+        }
+
+        /**
+         * 取消超时任务
+         */
+        protected void cancelTimeout() {
+            Timer.Timeout t = timeout;
+            if (t != null) {
+                t.cancel();
+            }
+        }
+    }
+
 }
@@ -39,9 +39,9 @@ import io.joyrpc.exception.OverloadException;
 import io.joyrpc.extension.ExtensionMeta;
 import io.joyrpc.extension.URL;
 import io.joyrpc.extension.WrapperParametric;
+import io.joyrpc.invoker.ServiceManager;
 import io.joyrpc.invoker.option.AbstractInterfaceOption;
 import io.joyrpc.invoker.option.AbstractMethodOption;
-import io.joyrpc.invoker.option.Concurrency;
 import io.joyrpc.invoker.option.MethodAdaptiveOption;
 import io.joyrpc.permission.BlackWhiteList;
 import io.joyrpc.permission.ExceptionBlackWhiteList;
@@ -281,7 +281,9 @@ public class InnerConsumerOption extends AbstractInterfaceOption {
                 genericClass.get(method),
                 getImplicits(parametric.getName()),
                 parametric.getPositive(TIMEOUT_OPTION.getName(), timeout),
-                new Concurrency(parametric.getInteger(CONCURRENCY_OPTION.getName(), concurrency)),
+                //排队的调用获取到许可后使用消费者的回调线程池继续执行，按需创建
+                getConcurrency(parametric, parametric.getInteger(CONCURRENCY_QUEUE_OPTION.getName(), concurrencyQueue),
+                        r -> ServiceManager.getCallbackPool().execute(r)),
                 getCachePolicy(parametric),
                 getValidator(parametric),
                 transactionFactory == null ? null : transactionFactory.create(interfaceClass, method),
@@ -128,7 +128,7 @@ public class InnerProviderOption extends AbstractInterfaceOption {
                 genericClass.get(method),
                 getImplicits(parametric.getName()),
                 parametric.getPositive(TIMEOUT_OPTION.getName(), timeout),
-                new Concurrency(parametric.getInteger(CONCURRENCY_OPTION.getName(), concurrency)),
+                getConcurrency(parametric, 0),
                 getCachePolicy(parametric),
                 getValidator(parametric),
                 transactionFactory == null ? null : transactionFactory.create(interfaceClass, method),
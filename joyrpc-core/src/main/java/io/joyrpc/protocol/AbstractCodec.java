@@ -33,13 +33,17 @@ import io.joyrpc.protocol.message.MessageHeader;
 import io.joyrpc.protocol.message.RequestMessage;
 import io.joyrpc.protocol.message.ResponseMessage;
 import io.joyrpc.transport.buffer.ChannelBuffer;
+import io.joyrpc.transport.channel.Channel;
 import io.joyrpc.transport.codec.Codec;
 import io.joyrpc.transport.codec.DecodeContext;
+import io.joyrpc.transport.codec.DeferredMessage;
 import io.joyrpc.transport.codec.EncodeContext;
 import io.joyrpc.transport.codec.LengthFieldFrameCodec;
 import io.joyrpc.transport.message.Header;
 import io.joyrpc.transport.message.Message;
+import io.joyrpc.transport.session.Cancellation;
 import io.joyrpc.transport.session.Session;
+import io.joyrpc.transport.session.Session.ServerSession;
 import io.joyrpc.util.StringUtils;
 import io.joyrpc.util.SystemClock;
 
@@ -50,6 +54,7 @@ import java.lang.reflect.Type;
 import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Function;
 
 import static io.joyrpc.Plugin.COMPRESSION_SELECTOR;
@@ -164,6 +169,8 @@ public abstract class AbstractCodec implements Codec, LengthFieldFrameCodec {
         Message target = (Message) message;
         Header header = null;
         try {
+            //根据协议和会话调整消息
+            target = prepareEncode(context, target);
             //进行转换
             MessageConverter converter = protocol.outMessage();
             //转换消息头
@@ -338,6 +345,17 @@ public abstract class AbstractCodec implements Codec, LengthFieldFrameCodec {
         serialize(serialization, buffer.outputStream(), message, context);
     }
 
+    /**
+     * 编码前根据协议和会话对消息进行调整，请求头可能被并行调用共享，需要修改的时候返回新的消息
+     *
+     * @param context 上下文
+     * @param message 消息
+     * @return 消息
+     */
+    protected Message prepareEncode(final EncodeContext context, final Message message) {
+        return message;
+    }
+
     /**
      * 编码阶段根据协议和序列化对消息体进行调整
      *
@@ -384,6 +402,10 @@ public abstract class AbstractCodec implements Codec, LengthFieldFrameCodec {
             //进行转换
             MessageConverter converter = protocol.inMessage();
             header = convert(header, converter);
+            if (isDeferred(context, buffer, header)) {
+                //IO线程只解码消息头，消息体延迟到业务线程池中解码
+                return new DeferredPayload(context, buffer.readRetainedSlice(), header, converter, SystemClock.now());
+            }
             return convert(decodeMessage(context, buffer, header), converter);
         } catch (CodecException e) {
             e.setHeader(header);
@@ -395,6 +417,45 @@ public abstract class AbstractCodec implements Codec, LengthFieldFrameCodec {
         }
     }
 
+    /**
+     * 判断是否延迟解码消息体，只针对业务请求和应答，需要开启了消息体卸载并且有业务线程池。<br/>
+     * 协商、会话、心跳等控制消息体积小并且会修改通道状态，仍然在IO线程中按顺序解码。
+     *
+     * @param context 上下文
+     * @param buffer  缓冲区
+     * @param header  消息头
+     * @return 延迟解码标识
+     */
+    protected boolean isDeferred(final DecodeContext context, final ChannelBuffer buffer, final Header header) {
+        if (buffer.readableBytes() <= 0 || !isBiz(MsgType.valueOf((byte) header.getMsgType()))) {
+            return false;
+        }
+        //单独使用编解码器的时候没有通道
+        Channel channel = context.getChannel();
+        return channel != null && channel.getWorkerPool() != null && Boolean.TRUE.equals(channel.getAttribute(Channel.DECODE_OFFLOAD));
+    }
+
+    /**
+     * 判断是否是业务请求或应答，包括回调
+     *
+     * @param type 消息类型
+     * @return 业务消息标识
+     */
+    protected boolean isBiz(final MsgType type) {
+        if (type == null) {
+            return false;
+        }
+        switch (type) {
+            case BizReq:
+            case BizResp:
+            case CallbackReq:
+            case CallbackResp:
+                return true;
+            default:
+                return false;
+        }
+    }
+
     /**
      * 解码消息头
      *
@@ -564,6 +625,109 @@ public abstract class AbstractCodec implements Codec, LengthFieldFrameCodec {
 
     }
 
+    /**
+     * 延迟解码的消息体，持有消息体缓冲区的切片
+     */
+    protected class DeferredPayload implements DeferredMessage {
+        /**
+         * 上下文
+         */
+        protected final DecodeContext context;
+        /**
+         * 消息体缓冲区
+         */
+        protected final ChannelBuffer buffer;
+        /**
+         * 消息头
+         */
+        protected final Header header;
+        /**
+         * 转换器
+         */
+        protected final MessageConverter converter;
+        /**
+         * IO线程收到消息的时间
+         */
+        protected final long receiveTime;
+        /**
+         * 是否已经释放
+         */
+        protected final AtomicBoolean released = new AtomicBoolean();
+
+        public DeferredPayload(final DecodeContext context, final ChannelBuffer buffer, final Header header,
+                               final MessageConverter converter, final long receiveTime) {
+            this.context = context;
+            this.buffer = buffer;
+            this.header = header;
+            this.converter = converter;
+            this.receiveTime = receiveTime;
+        }
+
+        @Override
+        public Header getHeader() {
+            return header;
+        }
+
+        @Override
+        public boolean isRequest() {
+            return MsgType.valueOf((byte) header.getMsgType()).isRequest();
+        }
+
+        @Override
+        public Object decode() throws CodecException {
+            if (!released.compareAndSet(false, true)) {
+                CodecException ce = new CodecException("Error occurs while decoding. payload is already released.",
+                        ExceptionCode.CODEC_DEFAULT_EXCEPTION);
+                ce.setHeader(header);
+                throw ce;
+            }
+            try {
+                if (isCancelled()) {
+                    //调用方已经取消，不需要再反序列化
+                    return null;
+                }
+                Object message = decodeMessage(context, buffer, header);
+                if (message instanceof RequestMessage) {
+                    //超时时间从IO线程收到消息开始计算，包含在业务线程池中排队的时间
+                    ((RequestMessage) message).setReceiveTime(receiveTime);
+                }
+                return convert(message, converter);
+            } catch (CodecException e) {
+                e.setHeader(header);
+                throw e;
+            } catch (Exception e) {
+                CodecException ce = toCodecException("Error occurs while decoding.", e);
+                ce.setHeader(header);
+                throw ce;
+            } finally {
+                buffer.release();
+            }
+        }
+
+        /**
+         * 判断请求是否在排队期间被调用方取消了
+         *
+         * @return 取消标识
+         */
+        protected boolean isCancelled() {
+            Session session = header.getSession();
+            if (session instanceof ServerSession && header.getMsgType() == MsgType.BizReq.getType()) {
+                Cancellation cancellation = ((ServerSession) session).getCancellation();
+                return cancellation != null && cancellation.isCancelled(header.getMsgId());
+            }
+            return false;
+        }
+
+        @Override
+        public boolean release() {
+            if (released.compareAndSet(false, true)) {
+                buffer.release();
+                return true;
+            }
+            return false;
+        }
+    }
+
     /**
      * 为空
      */
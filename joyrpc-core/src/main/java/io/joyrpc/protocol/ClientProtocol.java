@@ -83,4 +83,17 @@ public interface ClientProtocol extends Protocol {
      */
     Message heartbeat(URL clusterUrl, Client client);
 
+    /**
+     * 构造取消请求消息，通知服务端放弃执行已经发出的请求
+     *
+     * @param clusterUrl 集群url
+     * @param client     客户端
+     * @param msgId      被取消的请求的消息ID
+     * @param timeout    被取消的请求的超时时间
+     * @return 取消请求消息，不支持返回null
+     */
+    default Message cancel(final URL clusterUrl, final Client client, final long msgId, final int timeout) {
+        return null;
+    }
+
 }
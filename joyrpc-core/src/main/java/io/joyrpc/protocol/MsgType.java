@@ -72,7 +72,11 @@ public enum MsgType {
     /**
      * 认证应答
      */
-    AuthenticationResp((byte) 18, false, AuthenticationResponse.class);
+    AuthenticationResp((byte) 18, false, AuthenticationResponse.class),
+    /**
+     * 取消请求，消息ID为被取消的请求ID，没有应答
+     */
+    CancelReq((byte) 19, true);
 
     /**
      * 类型
@@ -141,6 +145,8 @@ public enum MsgType {
                 return AuthenticationReq;
             case 18:
                 return AuthenticationResp;
+            case 19:
+                return CancelReq;
             default:
                 return null;
         }
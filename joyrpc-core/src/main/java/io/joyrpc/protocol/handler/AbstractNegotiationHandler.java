@@ -67,7 +67,7 @@ public abstract class AbstractNegotiationHandler extends AbstractReceiver {
                 //重置为请求的扩展信息
                 clone.setAttributes(request.getAttributes());
                 //构建并保存session
-                session(context, message.getSessionId(), recommendResponse(clone));
+                session(context, message.getSessionId(), recommendResponse(clone), negotiation);
             }
         }
         //响应
@@ -127,8 +127,10 @@ public abstract class AbstractNegotiationHandler extends AbstractReceiver {
      * @param context     上下文
      * @param sessionId   会话ID
      * @param negotiation 协商
+     * @param response    协商应答，可以补充会话相关的属性
      */
-    protected void session(final ChannelContext context, final int sessionId, final AbstractNegotiation negotiation) {
+    protected void session(final ChannelContext context, final int sessionId, final AbstractNegotiation negotiation,
+                           final NegotiationResponse response) {
     }
 
     /**
@@ -28,13 +28,16 @@ import io.joyrpc.invoker.injection.RespInjection;
 import io.joyrpc.invoker.injection.Transmit;
 import io.joyrpc.invoker.injection.Transmits;
 import io.joyrpc.exception.*;
+import io.joyrpc.invoker.Deadline;
 import io.joyrpc.invoker.Exporter;
 import io.joyrpc.invoker.ServiceManager;
+import io.joyrpc.invoker.option.MethodOption;
 import io.joyrpc.protocol.MsgType;
 import io.joyrpc.protocol.ServerProtocol;
 import io.joyrpc.protocol.message.*;
 import io.joyrpc.transport.channel.Channel;
 import io.joyrpc.transport.channel.ChannelContext;
+import io.joyrpc.transport.session.Cancellation;
 import io.joyrpc.transport.session.Session;
 import io.joyrpc.transport.session.Session.ServerSession;
 import io.joyrpc.util.GenericMethod;
@@ -49,6 +52,7 @@ import java.util.function.Supplier;
 
 import static io.joyrpc.Plugin.RESPONSE_INJECTION;
 import static io.joyrpc.Plugin.TRANSMIT;
+import static io.joyrpc.constants.Constants.HEAD_METHOD_ID;
 import static io.joyrpc.constants.ExceptionCode.PROVIDER_TASK_SESSION_EXPIRED;
 import static io.joyrpc.util.StringUtils.isEmpty;
 
@@ -135,6 +139,10 @@ public class BizReceiver extends AbstractReceiver {
          * Exporter
          */
         protected Exporter exporter;
+        /**
+         * 请求取消登记
+         */
+        protected Cancellation cancellation;
 
         public BizReq(ChannelContext context,
                       RequestMessage<Invocation> request,
@@ -147,6 +155,7 @@ public class BizReceiver extends AbstractReceiver {
             this.channel = context.getChannel();
             this.transmit = transmit;
             this.injections = injections;
+            this.cancellation = session == null ? null : session.getCancellation();
         }
 
         public RequestMessage<Invocation> getRequest() {
@@ -172,6 +181,8 @@ public class BizReceiver extends AbstractReceiver {
          */
         public void restore() throws ClassNotFoundException {
             request.setContext(RequestContext.getContext());
+            //会话协商的方法ID对应的方法选项
+            MethodOption methodOption = null;
             //从会话恢复接口和别名
             if (session != null) {
                 if (isEmpty(invocation.getClassName())) {
@@ -184,6 +195,15 @@ public class BizReceiver extends AbstractReceiver {
                 request.setRemoteAddress(session.getRemoteAddress());
                 request.setTransport(session.getTransport());
                 exporter = (Exporter) session.getProvider();
+                //从会话恢复方法名称
+                Object methodId = request.getHeader().getAttribute(HEAD_METHOD_ID);
+                if (methodId instanceof Short && isEmpty(invocation.getMethodName())) {
+                    methodOption = session.getMethodOption((Short) methodId);
+                    if (methodOption == null) {
+                        throw new SessionException(error(" method id " + methodId + " is not found in the session", PROVIDER_TASK_SESSION_EXPIRED));
+                    }
+                    invocation.setMethodName(methodOption.getMethod().getName());
+                }
             }
             if (request.getLocalAddress() == null) {
                 request.setLocalAddress(channel.getLocalAddress());
@@ -212,7 +232,7 @@ public class BizReceiver extends AbstractReceiver {
                 }
             }
             //构建请求
-            exporter.setup(request);
+            exporter.setup(request, methodOption);
             //对应服务端协议，设置认证信息
             if (exporter.getAuthentication() != null) {
                 ServerProtocol protocol = null;
@@ -315,13 +335,17 @@ public class BizReceiver extends AbstractReceiver {
                     future.whenComplete((obj, th) -> {
                         response.setPayLoad(new ResponsePayload(obj, th, type));
                         transmit.onServerComplete(request, th != null ? new Result(request.getContext(), th) : new Result(request.getContext(), obj));
-                        acknowledge(this.context, request, response, BizReceiver.logger);
+                        if (finish()) {
+                            acknowledge(this.context, request, response, BizReceiver.logger);
+                        }
                     });
                 } else {
                     //同步调用
                     response.setPayLoad(new ResponsePayload(result.getValue(), result.getException(), type));
                     transmit.onServerComplete(request, result);
-                    acknowledge(this.context, request, response, BizReceiver.logger);
+                    if (finish()) {
+                        acknowledge(this.context, request, response, BizReceiver.logger);
+                    }
                 }
             }
         }
@@ -386,6 +410,9 @@ public class BizReceiver extends AbstractReceiver {
         public void fail(Throwable e) {
             //服务端结束
             transmit.onServerComplete(request, new Result(request.getContext(), e));
+            if (!finish()) {
+                return;
+            }
             //构建异常应答消息，不压缩
             ResponseMessage<ResponsePayload> response = createResponseMessage(Compression.NONE);
             response.setPayLoad(new ResponsePayload(e));
@@ -404,6 +431,7 @@ public class BizReceiver extends AbstractReceiver {
         public boolean discard() {
             if (request.isTimeout(request::getReceiveTime)) {
                 //客户端已经超时的请求
+                Deadline.discard();
                 logger.warn(String.format("%sDiscard request caused by timeout after receive the msg. at %s : %s",
                         ExceptionCode.format(ExceptionCode.PROVIDER_DISCARD_TIMEOUT_MESSAGE),
                         Channel.toString(channel), request.getHeader()));
@@ -413,9 +441,30 @@ public class BizReceiver extends AbstractReceiver {
                 logger.error(String.format("Discard request caused by channel is not writable when client is sending too fast. at %s : %s",
                         Channel.toString(channel), request.getHeader()));
                 return true;
+            } else if (cancellation != null && !cancellation.start(request.getMsgId(), RequestContext.getContext())) {
+                //调用方已经取消，请求在排队期间收到了取消消息
+                if (logger.isDebugEnabled()) {
+                    logger.debug(String.format("Discard request caused by it is cancelled by the consumer. at %s : %s",
+                            Channel.toString(channel), request.getHeader()));
+                }
+                return true;
             }
             return false;
         }
 
+        /**
+         * 请求执行结束，从取消登记中删除
+         *
+         * @return 是否需要应答，调用方已经取消的请求不再应答
+         */
+        protected boolean finish() {
+            if (cancellation == null) {
+                return true;
+            }
+            cancellation.finish(request.getMsgId());
+            RequestContext ctx = request.getContext();
+            return ctx == null || !ctx.isCancelled();
+        }
+
     }
 }
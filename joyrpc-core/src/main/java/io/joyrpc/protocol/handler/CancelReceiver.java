@@ -0,0 +1,52 @@
+package io.joyrpc.protocol.handler;
+
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import io.joyrpc.constants.Constants;
+import io.joyrpc.exception.HandlerException;
+import io.joyrpc.protocol.MsgType;
+import io.joyrpc.protocol.message.Message;
+import io.joyrpc.transport.channel.ChannelContext;
+import io.joyrpc.transport.session.Cancellation;
+import io.joyrpc.transport.session.Session;
+import io.joyrpc.transport.session.Session.ServerSession;
+
+/**
+ * 取消请求处理器，在IO线程中执行，排队的请求不再执行，执行中的请求设置取消标识
+ */
+public class CancelReceiver extends AbstractReceiver {
+
+    @Override
+    public void handle(final ChannelContext context, final Message message) throws HandlerException {
+        Session session = message.getSession();
+        Cancellation cancellation = session instanceof ServerSession ? ((ServerSession) session).getCancellation() : null;
+        if (cancellation != null) {
+            int timeout = message.getHeader().getTimeout();
+            cancellation.cancel(message.getMsgId(), timeout > 0 ? timeout : Constants.DEFAULT_TIMEOUT);
+        }
+    }
+
+    @Override
+    public Integer type() {
+        return (int) MsgType.CancelReq.getType();
+    }
+}
@@ -21,11 +21,15 @@ package io.joyrpc.protocol.handler;
  */
 
 import io.joyrpc.Invoker;
+import io.joyrpc.codec.serialization.Serialization;
+import io.joyrpc.codec.serialization.StatefulSerializer;
 import io.joyrpc.constants.Version;
 import io.joyrpc.context.GlobalContext;
 import io.joyrpc.extension.Converts;
 import io.joyrpc.invoker.Exporter;
 import io.joyrpc.invoker.ServiceManager;
+import io.joyrpc.invoker.option.InterfaceOption;
+import io.joyrpc.invoker.option.MethodOption;
 import io.joyrpc.protocol.MsgType;
 import io.joyrpc.protocol.ServerProtocol;
 import io.joyrpc.protocol.message.Message;
@@ -35,11 +39,14 @@ import io.joyrpc.protocol.message.negotiation.NegotiationResponse;
 import io.joyrpc.transport.ChannelTransport;
 import io.joyrpc.transport.channel.Channel;
 import io.joyrpc.transport.channel.ChannelContext;
+import io.joyrpc.transport.session.Cancellation;
 import io.joyrpc.transport.session.DefaultSession;
+import io.joyrpc.transport.session.MethodTable;
 import io.joyrpc.transport.session.Session;
 
+import java.lang.reflect.Method;
 import java.net.InetSocketAddress;
-import java.util.Map;
+import java.util.*;
 
 import static io.joyrpc.Plugin.*;
 import static io.joyrpc.constants.Constants.*;
@@ -75,12 +82,17 @@ public class NegotiationReceiver extends AbstractNegotiationHandler {
             response.addAttribute(APPLICATION_NAME, GlobalContext.getString(KEY_APPNAME));
             response.addAttribute(APPLICATION_INSTANCE, GlobalContext.getString(KEY_APPINSID));
             response.addAttribute(APPLICATION_GROUP, GlobalContext.getString(KEY_APPGROUP));
+            //支持取消请求
+            if (Boolean.parseBoolean(attributes.get(CANCEL_OPTION.getName()))) {
+                response.addAttribute(CANCEL_OPTION.getName(), Boolean.TRUE.toString());
+            }
         }
         return response;
     }
 
     @Override
-    protected void session(final ChannelContext context, final int sessionId, final AbstractNegotiation negotiation) {
+    protected void session(final ChannelContext context, final int sessionId, final AbstractNegotiation negotiation,
+                           final NegotiationResponse response) {
         Map<String, String> attributes = negotiation.getAttributes();
         long timeout = Converts.getLong(attributes.remove(SESSION_TIMEOUT_OPTION.getName()), SESSION_TIMEOUT_OPTION.getValue());
         ProviderSession session = new ProviderSession(sessionId, timeout);
@@ -96,9 +108,27 @@ public class NegotiationReceiver extends AbstractNegotiationHandler {
         session.setCompressions(negotiation.getCompressions());
         session.setChecksums(negotiation.getChecksums());
         session.putAll(attributes);
+        if (Boolean.parseBoolean(attributes.get(CANCEL_OPTION.getName()))) {
+            session.setCancellation(new Cancellation());
+        }
         //提前绑定Exporter
         session.setExporter(ServiceManager.getExporter(session.getInterfaceName(), session.getAlias(),
                 session.localAddress.getPort()));
+        //协商方法表，请求用方法ID代替方法名称
+        if (Boolean.parseBoolean(attributes.get(METHOD_ID_OPTION.getName()))) {
+            MethodTable table = session.buildMethodTable();
+            if (table != null) {
+                response.addAttribute(METHOD_TABLE_KEY, table.toString());
+            }
+        }
+        //协商有状态的序列化，需要序列化实现支持
+        Serialization serialization = session.getSerialization();
+        boolean stateful = Boolean.parseBoolean(attributes.get(STATEFUL_SERIALIZATION_OPTION.getName()))
+                && serialization != null && serialization.getSerializer() instanceof StatefulSerializer;
+        session.put(STATEFUL_SERIALIZATION_OPTION.getName(), String.valueOf(stateful));
+        if (stateful) {
+            response.addAttribute(STATEFUL_SERIALIZATION_OPTION.getName(), String.valueOf(true));
+        }
         channel.addSession(sessionId, session);
     }
 
@@ -131,6 +161,18 @@ public class NegotiationReceiver extends AbstractNegotiationHandler {
          * 服务端协议
          */
         protected ServerProtocol protocol;
+        /**
+         * 请求取消登记
+         */
+        protected Cancellation cancellation;
+        /**
+         * 协商的方法表
+         */
+        protected MethodTable methodTable;
+        /**
+         * 按照方法ID排列的方法选项
+         */
+        protected MethodOption[] methodOptions;
 
         public ProviderSession(int sessionId, long timeout) {
             super(sessionId, timeout);
@@ -149,6 +191,50 @@ public class NegotiationReceiver extends AbstractNegotiationHandler {
             this.exporter = exporter;
         }
 
+        /**
+         * 根据服务提供者构建方法表，方法按照名称排序
+         *
+         * @return 方法表
+         */
+        protected MethodTable buildMethodTable() {
+            Class<?> clazz = exporter == null ? null : exporter.getInterfaceClass();
+            InterfaceOption option = exporter == null ? null : exporter.getOption();
+            if (clazz == null || option == null || option.isGeneric()) {
+                return null;
+            }
+            Set<String> names = new TreeSet<>();
+            for (Method method : clazz.getMethods()) {
+                names.add(method.getName());
+            }
+            List<String> valid = new ArrayList<>(names.size());
+            List<MethodOption> options = new ArrayList<>(names.size());
+            MethodOption methodOption;
+            for (String name : names) {
+                methodOption = option.getOption(name);
+                if (methodOption != null) {
+                    valid.add(name);
+                    options.add(methodOption);
+                }
+            }
+            //方法ID按照short传输
+            if (valid.isEmpty() || valid.size() > Short.MAX_VALUE) {
+                return null;
+            }
+            methodTable = new MethodTable(valid.toArray(new String[0]));
+            methodOptions = options.toArray(new MethodOption[0]);
+            return methodTable;
+        }
+
+        @Override
+        public MethodTable getMethodTable() {
+            return methodTable;
+        }
+
+        @Override
+        public MethodOption getMethodOption(final int methodId) {
+            return methodOptions != null && methodId >= 0 && methodId < methodOptions.length ? methodOptions[methodId] : null;
+        }
+
         @Override
         public InetSocketAddress getRemoteAddress() {
             return remoteAddress;
@@ -184,5 +270,14 @@ public class NegotiationReceiver extends AbstractNegotiationHandler {
         public void setProtocol(ServerProtocol protocol) {
             this.protocol = protocol;
         }
+
+        @Override
+        public Cancellation getCancellation() {
+            return cancellation;
+        }
+
+        public void setCancellation(Cancellation cancellation) {
+            this.cancellation = cancellation;
+        }
     }
 }
@@ -24,7 +24,7 @@ import io.joyrpc.exception.RpcException;
 import io.joyrpc.transport.channel.Channel;
 import io.joyrpc.transport.channel.ChannelContext;
 import io.joyrpc.transport.channel.ChannelReader;
-import io.joyrpc.transport.channel.FutureManager;
+import io.joyrpc.transport.channel.LongFutureManager;
 import io.joyrpc.transport.message.Header;
 import io.joyrpc.transport.message.Message;
 import org.slf4j.Logger;
@@ -41,7 +41,7 @@ public class ResponseReceiver implements ChannelReader {
     public void received(final ChannelContext context, final Object message) throws Exception {
         if (isResponse(message)) {
             Message<?, ?> msg = (Message<?, ?>) message;
-            FutureManager<Long, Message> futureManager = context.getChannel().getFutureManager();
+            LongFutureManager<Message> futureManager = context.getChannel().getFutureManager();
             if (futureManager != null && !futureManager.complete(msg.getMsgId(), msg)) {
                 logger.warn(String.format("request is timeout. id=%d, type=%d, remote=%s",
                         msg.getMsgId(),
@@ -58,7 +58,7 @@ public class ResponseReceiver implements ChannelReader {
         if (throwable instanceof RpcException) {
             Header header = ((RpcException) throwable).getHeader();
             if (header != null) {
-                FutureManager<Long, Message> futureManager = context.getChannel().getFutureManager();
+                LongFutureManager<Message> futureManager = context.getChannel().getFutureManager();
                 if (futureManager != null && !futureManager.completeExceptionally(header.getMsgId(), throwable)) {
                     logger.warn(String.format("request is timeout. id=%d, type=%d, remote=%s",
                             header.getMsgId(),
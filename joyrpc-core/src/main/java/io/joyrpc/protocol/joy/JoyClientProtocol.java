@@ -94,6 +94,11 @@ public class JoyClientProtocol extends AbstractProtocol implements ClientProtoco
         negotiation.addAttribute(Constants.APPLICATION_INSTANCE, GlobalContext.getString(Constants.KEY_APPINSID));
         negotiation.addAttribute(SESSION_TIMEOUT_OPTION.getName(), String.valueOf(clusterUrl.getPositiveLong(SESSION_TIMEOUT_OPTION)));
         negotiation.addAttribute(REMOTE_START_TIMESTAMP, GlobalContext.getString(Constants.KEY_START_TIME));
+        negotiation.addAttribute(Constants.CANCEL_OPTION.getName(), String.valueOf(clusterUrl.getBoolean(Constants.CANCEL_OPTION)));
+        negotiation.addAttribute(Constants.METHOD_ID_OPTION.getName(), String.valueOf(clusterUrl.getBoolean(Constants.METHOD_ID_OPTION)));
+        //调用线程编码的时候不能保证连接上消息的编码顺序，不能开启有状态的序列化
+        negotiation.addAttribute(Constants.STATEFUL_SERIALIZATION_OPTION.getName(), String.valueOf(
+                clusterUrl.getBoolean(Constants.STATEFUL_SERIALIZATION_OPTION) && !clusterUrl.getBoolean(Constants.ENCODE_OFFLOAD_OPTION)));
         //构造协商请求消息
         return new RequestMessage<>(new MessageHeader(MsgType.NegotiationReq.getType()), negotiation);
     }
@@ -126,6 +131,13 @@ public class JoyClientProtocol extends AbstractProtocol implements ClientProtoco
         return new RequestMessage(new MessageHeader(MsgType.HbReq.getType()));
     }
 
+    @Override
+    public Message cancel(final URL clusterUrl, final Client client, final long msgId, final int timeout) {
+        MessageHeader header = new MessageHeader(MsgType.CancelReq.getType(), msgId);
+        header.setTimeout(timeout);
+        return new RequestMessage(header);
+    }
+
     @Override
     public Message sessionbeat(final URL clusterUrl, final Client client) {
         return new RequestMessage<>(new MessageHeader(MsgType.SessionbeatReq.getType()), new Sessionbeat());
@@ -21,14 +21,37 @@ package io.joyrpc.protocol.joy.codec;
  */
 
 import io.joyrpc.codec.serialization.Serialization;
+import io.joyrpc.codec.serialization.Serializer;
+import io.joyrpc.codec.serialization.StatefulSerializer;
+import io.joyrpc.codec.serialization.StatefulSerializer.State;
+import io.joyrpc.constants.ExceptionCode;
+import io.joyrpc.exception.CodecException;
 import io.joyrpc.protocol.AbstractCodec;
 import io.joyrpc.protocol.Protocol;
-import io.joyrpc.protocol.message.Invocation;
+import io.joyrpc.protocol.message.*;
+import io.joyrpc.transport.buffer.ChannelBuffer;
+import io.joyrpc.transport.channel.Channel;
+import io.joyrpc.transport.codec.DecodeContext;
+import io.joyrpc.transport.codec.EncodeContext;
+import io.joyrpc.transport.message.Header;
 import io.joyrpc.transport.message.Message;
+import io.joyrpc.transport.session.MethodTable;
+import io.joyrpc.transport.session.Session;
 import io.joyrpc.transport.session.Session.RpcSession;
+import io.joyrpc.transport.session.Session.ServerSession;
 
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Type;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Objects;
 
+import static io.joyrpc.Plugin.SERIALIZATION_SELECTOR;
+import static io.joyrpc.constants.Constants.HEAD_METHOD_ID;
+import static io.joyrpc.constants.Constants.HEAD_SERIALIZATION_RESET;
+import static io.joyrpc.constants.Constants.HEAD_SERIALIZATION_STATE;
+
 /**
  * joy编解码器
  *
@@ -36,10 +59,189 @@ import java.util.Objects;
  */
 public class JoyCodec extends AbstractCodec {
 
+    /**
+     * 连接上有状态序列化的编码端状态，后面拼接序列化类型
+     */
+    protected static final String SERIALIZATION_WRITE_STATE = "SERIALIZATION_WRITE_STATE_";
+    /**
+     * 连接上有状态序列化的解码端状态，后面拼接序列化类型
+     */
+    protected static final String SERIALIZATION_READ_STATE = "SERIALIZATION_READ_STATE_";
+    /**
+     * 解码端引用表不同步，需要通知对端重置编码端状态，后面拼接序列化类型
+     */
+    protected static final String SERIALIZATION_RESYNC = "SERIALIZATION_RESYNC_";
+
     public JoyCodec(Protocol protocol) {
         super(protocol);
     }
 
+    @Override
+    public void encode(final EncodeContext context, final ChannelBuffer buffer, final Object message) throws CodecException {
+        try {
+            super.encode(context, buffer, message);
+        } catch (CodecException e) {
+            //编码失败的消息不会发送，新增的引用对端收不到，清空引用表，下一条消息会通知对端重置
+            Header header = e.getHeader();
+            Channel channel = context == null ? null : context.getChannel();
+            if (channel != null && header instanceof MessageHeader
+                    && ((MessageHeader) header).getAttribute(HEAD_SERIALIZATION_STATE) != null) {
+                State state = channel.getAttribute(SERIALIZATION_WRITE_STATE + header.getSerialization());
+                if (state != null) {
+                    state.clear();
+                }
+                if (((MessageHeader) header).getAttribute(HEAD_SERIALIZATION_RESET) != null) {
+                    //重置通知没有发出去，由下一条消息携带
+                    channel.setAttribute(SERIALIZATION_RESYNC + header.getSerialization(), Boolean.TRUE);
+                }
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    protected Message prepareEncode(final EncodeContext context, final Message message) {
+        Short methodId = getMethodId(message);
+        State state = getWriteState(context, message);
+        if (methodId == null && state == null) {
+            return message;
+        }
+        //请求头和调用对象会被重试和并行调用共享，复制一份再修改
+        MessageHeader header = ((MessageHeader) message.getHeader()).clone();
+        Map<Byte, Object> attributes = header.getAttributes();
+        header.setAttributes(attributes == null ? new HashMap<>(2) : new HashMap<>(attributes));
+        header.setSession(message.getSession());
+        Object payLoad = message.getPayLoad();
+        if (methodId != null) {
+            //会话协商了方法表，用方法ID代替方法名称
+            header.addAttribute(HEAD_METHOD_ID, methodId);
+            payLoad = ((Invocation) payLoad).compact();
+        }
+        if (state != null) {
+            //有状态的序列化，携带编码前的引用表大小
+            if (state.isFull()) {
+                state.clear();
+            }
+            header.addAttribute(HEAD_SERIALIZATION_STATE, state.size());
+            if (context.getChannel().removeAttribute(SERIALIZATION_RESYNC + header.getSerialization()) != null) {
+                //本端解码时发现引用表不同步，通知对端清空编码端引用表
+                header.addAttribute(HEAD_SERIALIZATION_RESET, (byte) 1);
+            }
+        }
+        return message.isRequest() ? new RequestMessage<>(header, payLoad) : new ResponseMessage<>(header, payLoad);
+    }
+
+    /**
+     * 获取会话协商的方法ID
+     *
+     * @param message 消息
+     * @return 方法ID
+     */
+    protected Short getMethodId(final Message message) {
+        //客户端请求，会话协商了方法表
+        Object payLoad = message.getPayLoad();
+        if (!message.isRequest() || !(payLoad instanceof Invocation)) {
+            return null;
+        }
+        Session session = message.getSession();
+        if (!(session instanceof RpcSession) || session instanceof ServerSession) {
+            return null;
+        }
+        RpcSession rpcSession = (RpcSession) session;
+        MethodTable table = rpcSession.getMethodTable();
+        if (table == null) {
+            return null;
+        }
+        Invocation invocation = (Invocation) payLoad;
+        Integer methodId = table.getId(invocation.getMethodName());
+        if (methodId == null || !Objects.equals(invocation.getClassName(), rpcSession.getInterfaceName())) {
+            return null;
+        }
+        Serialization serialization = SERIALIZATION_SELECTOR.select(message.getHeader().getSerialization());
+        return serialization == null || !serialization.autoType() ? null : methodId.shortValue();
+    }
+
+    /**
+     * 获取连接上有状态序列化的编码端状态，只对业务请求和应答生效
+     *
+     * @param context 上下文
+     * @param message 消息
+     * @return 编码端状态
+     */
+    protected State getWriteState(final EncodeContext context, final Message message) {
+        Object payLoad = message.getPayLoad();
+        Channel channel = context == null ? null : context.getChannel();
+        if (channel == null || !(payLoad instanceof Invocation || payLoad instanceof ResponsePayload)) {
+            return null;
+        }
+        Header header = message.getHeader();
+        //服务端应答的消息头没有会话，根据会话ID获取
+        Session session = message.getSession();
+        session = session != null ? session : channel.getSession(header.getSessionId());
+        if (!(session instanceof RpcSession) || !((RpcSession) session).isStatefulSerialization()) {
+            return null;
+        }
+        Serialization serialization = SERIALIZATION_SELECTOR.select(header.getSerialization());
+        Serializer serializer = serialization == null ? null : serialization.getSerializer();
+        if (!(serializer instanceof StatefulSerializer)) {
+            return null;
+        }
+        return channel.getAttribute(SERIALIZATION_WRITE_STATE + serialization.getTypeId(),
+                k -> ((StatefulSerializer) serializer).createWriteState());
+    }
+
+    @Override
+    protected void serialize(final Serialization serialization, final OutputStream os, final Message message, final EncodeContext context) {
+        MessageHeader header = (MessageHeader) message.getHeader();
+        State state = header.getAttribute(HEAD_SERIALIZATION_STATE) == null ? null :
+                context.getChannel().getAttribute(SERIALIZATION_WRITE_STATE + serialization.getTypeId());
+        if (state == null) {
+            super.serialize(serialization, os, message, context);
+        } else {
+            ((StatefulSerializer) serialization.getSerializer()).serialize(os, message.getPayLoad(), state);
+        }
+    }
+
+    @Override
+    protected boolean isDeferred(final DecodeContext context, final ChannelBuffer buffer, final Header header) {
+        //有状态的序列化要求按照连接上的顺序解码，不能延迟到业务线程池
+        return super.isDeferred(context, buffer, header)
+                && ((MessageHeader) header).getAttribute(HEAD_SERIALIZATION_STATE) == null;
+    }
+
+    @Override
+    protected Object deserialize(final Serialization serialization, final InputStream is, final Type type,
+                                 final MessageHeader header, final DecodeContext context) {
+        Object size = header.getAttribute(HEAD_SERIALIZATION_STATE);
+        Serializer serializer = serialization.getSerializer();
+        Channel channel = context == null ? null : context.getChannel();
+        if (!(size instanceof Integer) || !(serializer instanceof StatefulSerializer) || channel == null) {
+            return super.deserialize(serialization, is, type, header, context);
+        }
+        StatefulSerializer stateful = (StatefulSerializer) serializer;
+        if (header.getAttribute(HEAD_SERIALIZATION_RESET) != null) {
+            //对端解码不同步，清空本端的编码端引用表，下一条消息通知对端从空的引用表开始
+            State writeState = channel.getAttribute(SERIALIZATION_WRITE_STATE + serialization.getTypeId());
+            if (writeState != null) {
+                writeState.clear();
+            }
+        }
+        State state = channel.getAttribute(SERIALIZATION_READ_STATE + serialization.getTypeId(), k -> stateful.createReadState());
+        int expect = (Integer) size;
+        if (expect == 0) {
+            //对端从空的引用表开始
+            state.clear();
+        } else if (expect != state.size()) {
+            //两端引用表不同步，只拒绝该消息，并通知对端重置，在重置之前对端的消息都会被拒绝
+            int actual = state.size();
+            state.clear();
+            channel.setAttribute(SERIALIZATION_RESYNC + serialization.getTypeId(), Boolean.TRUE);
+            throw new CodecException(String.format("Serialization state is out of sync. expect %d but %d, waiting for reset.",
+                    expect, actual), ExceptionCode.CODEC_SERIALIZER_EXCEPTION);
+        }
+        return stateful.deserialize(is, type, state);
+    }
+
     @Override
     protected void adjustEncode(final Message message, final Serialization serialization) {
         //Invocation可以不传输类名和别名，BizReqHandler已经根据会话补充了类名和别名
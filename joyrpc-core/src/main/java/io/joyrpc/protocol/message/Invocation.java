@@ -234,6 +234,31 @@ public class Invocation implements Call {
         setArgsType(argTypes);
     }
 
+    /**
+     * 复制调用对象，用于同时向多个节点发送，扩展参数各自独立，避免并发注入节点参数
+     *
+     * @return 调用对象
+     */
+    public Invocation fork() {
+        Invocation result = new Invocation();
+        result.className = className;
+        result.alias = alias;
+        result.methodName = methodName;
+        result.argsType = argsType;
+        result.argClasses = argClasses;
+        result.args = args;
+        result.attachments = attachments == null ? null : new HashMap<>(attachments);
+        result.method = method;
+        result.idlMethodDesc = idlMethodDesc;
+        result.clazz = clazz;
+        result.object = object;
+        result.generic = generic;
+        result.callback = callback;
+        result.genericMethod = genericMethod;
+        result.genericTypes = genericTypes;
+        return result;
+    }
+
     /**
      * 为本地服务端创建调用对象
      *
@@ -251,6 +276,21 @@ public class Invocation implements Call {
         return result;
     }
 
+    /**
+     * 创建用于传输的调用对象，方法名称由会话协商的方法ID代替
+     *
+     * @return 调用对象
+     */
+    public Invocation compact() {
+        Invocation result = new Invocation();
+        result.className = className;
+        result.alias = alias;
+        result.args = args;
+        result.argsType = argsType;
+        result.attachments = attachments;
+        return result;
+    }
+
     @Override
     public String[] getArgsType() {
         return argsType;
@@ -36,6 +36,8 @@ import io.joyrpc.transport.session.Session;
 import io.joyrpc.util.SystemClock;
 
 import java.net.InetSocketAddress;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.function.Function;
 import java.util.function.Supplier;
 
@@ -233,6 +235,41 @@ public class RequestMessage<T> extends BaseMessage<T> implements Request {
         return request;
     }
 
+    /**
+     * 复制请求，用于同时向多个节点发送。<br/>
+     * 消息头、扩展属性和调用对象各自独立，避免并发修改消息ID、会话和注入的节点参数，请求上下文共享
+     *
+     * @return 请求
+     */
+    public RequestMessage<T> fork() {
+        MessageHeader target = header.clone();
+        Map<Byte, Object> attributes = header.getAttributes();
+        target.setAttributes(attributes == null ? null : new HashMap<>(attributes));
+        RequestMessage<T> result = new RequestMessage<>(target,
+                payload instanceof Invocation ? (T) ((Invocation) payload).fork() : payload);
+        result.createTime = createTime;
+        result.receiveTime = receiveTime;
+        result.timeout = timeout;
+        result.option = option;
+        result.context = context;
+        result.localAddress = localAddress;
+        result.remoteAddress = remoteAddress;
+        result.transport = transport;
+        result.thread = thread;
+        result.responseSupplier = responseSupplier;
+        result.authenticated = authenticated;
+        result.identification = identification;
+        result.authentication = authentication;
+        result.authorization = authorization;
+        result.retryTimes = retryTimes;
+        result.methodName = methodName;
+        result.consumer = consumer;
+        result.tracer = tracer;
+        result.transactionContext = transactionContext;
+        result.url = url;
+        return result;
+    }
+
     @Override
     public T getPayLoad() {
         return payload;
@@ -427,6 +464,12 @@ public class RequestMessage<T> extends BaseMessage<T> implements Request {
         return true;
     }
 
+    @Override
+    public boolean isInline() {
+        //取消请求需要尽快处理，不能排在被取消的请求后面
+        return header.getMsgType() == MsgType.CancelReq.getType();
+    }
+
     /**
      * 恢复上下文并允许
      *
@@ -20,6 +20,7 @@ package io.joyrpc.proxy;
  * #L%
  */
 
+import io.joyrpc.StreamObserver;
 import io.joyrpc.exception.ProxyException;
 import io.joyrpc.util.IDLMethodDesc;
 import io.joyrpc.util.IDLType;
@@ -44,6 +45,9 @@ public abstract class AbstractIDLFactory implements IDLFactory {
     @Override
     public IDLMethodDesc build(final Class<?> clz, final Method method, final Supplier<String> suffix) throws ProxyException {
         try {
+            if (isStreaming(clz, method)) {
+                return new IDLMethodDesc(getStreamRequestType(clz, method), getStreamResponseType(clz, method), true);
+            }
             IDLType request = getRequestType(clz, method, new Naming(clz, method, REQUEST_SUFFIX, suffix));
             IDLType response = getResponseType(clz, method, new Naming(clz, method, RESPONSE_SUFFIX, suffix));
             return new IDLMethodDesc(request, response);
@@ -55,6 +59,73 @@ public abstract class AbstractIDLFactory implements IDLFactory {
         }
     }
 
+    /**
+     * 是否是服务端流式方法，最后一个参数为StreamObserver
+     *
+     * @param clz    类
+     * @param method 方法
+     * @return 流式方法标识
+     */
+    protected boolean isStreaming(final Class<?> clz, final Method method) {
+        if (StreamObserver.class.isAssignableFrom(method.getReturnType())) {
+            throw new ProxyException(String.format("client streaming and bidi streaming are not supported. %s.%s",
+                    clz.getName(), method.getName()));
+        }
+        Class<?>[] types = method.getParameterTypes();
+        for (int i = 0; i < types.length; i++) {
+            if (StreamObserver.class == types[i]) {
+                if (i != types.length - 1) {
+                    throw new ProxyException(String.format("StreamObserver must be the last parameter of %s.%s",
+                            clz.getName(), method.getName()));
+                }
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 获取流式方法的请求类型，只支持没有请求参数或单个POJO请求参数
+     *
+     * @param clz    类
+     * @param method 方法
+     * @return 请求类型
+     */
+    protected IDLType getStreamRequestType(final Class<?> clz, final Method method) {
+        Class<?>[] types = method.getParameterTypes();
+        switch (types.length) {
+            case 1:
+                return null;
+            case 2:
+                if (isPojo(types[0])) {
+                    return new IDLType(types[0], false);
+                }
+            default:
+                throw new ProxyException(String.format("streaming method %s.%s only supports a single pojo request parameter",
+                        clz.getName(), method.getName()));
+        }
+    }
+
+    /**
+     * 获取流式方法单条应答的类型，即StreamObserver的泛型参数
+     *
+     * @param clz    类
+     * @param method 方法
+     * @return 应答类型
+     */
+    protected IDLType getStreamResponseType(final Class<?> clz, final Method method) {
+        Type[] types = method.getGenericParameterTypes();
+        Type type = types[types.length - 1];
+        if (type instanceof ParameterizedType) {
+            type = ((ParameterizedType) type).getActualTypeArguments()[0];
+            if (type instanceof Class && isPojo((Class<?>) type)) {
+                return new IDLType((Class<?>) type, false);
+            }
+        }
+        throw new ProxyException(String.format("StreamObserver of %s.%s must declare a pojo type argument",
+                clz.getName(), method.getName()));
+    }
+
     /**
      * 获取应答包装类型
      *
@@ -25,6 +25,7 @@ import io.joyrpc.event.Publisher;
 import io.joyrpc.exception.ConnectionException;
 import io.joyrpc.extension.URL;
 import io.joyrpc.protocol.ClientProtocol;
+import io.joyrpc.transport.buffer.ChannelBuffer;
 import io.joyrpc.util.thread.ThreadPool;
 import io.joyrpc.transport.channel.Channel;
 import io.joyrpc.transport.channel.ChannelChain;
@@ -32,8 +33,11 @@ import io.joyrpc.transport.channel.ChannelManager;
 import io.joyrpc.transport.channel.ChannelManager.Connector;
 import io.joyrpc.transport.channel.ChannelManagerFactory;
 import io.joyrpc.transport.codec.Codec;
+import io.joyrpc.transport.codec.DefaultEncodeContext;
+import io.joyrpc.transport.codec.LengthFieldFrameCodec;
 import io.joyrpc.transport.event.TransportEvent;
 import io.joyrpc.transport.heartbeat.HeartbeatStrategy;
+import io.joyrpc.transport.message.Message;
 import io.joyrpc.util.State;
 import io.joyrpc.util.StateController;
 import io.joyrpc.util.StateMachine.IntStateMachine;
@@ -83,6 +87,10 @@ public abstract class AbstractClient extends DefaultChannelTransport implements
      * 客户端协议
      */
     protected ClientProtocol protocol;
+    /**
+     * 在调用线程中编码请求
+     */
+    protected final boolean encodeOffload;
     /**
      * 打开的结果
      */
@@ -104,6 +112,7 @@ public abstract class AbstractClient extends DefaultChannelTransport implements
                             //channel不设置为null，防止正在处理的请求报空指针错误
                             //channel = null;
                             ch.removeSession(id);
+                            ch.removeHandshake(id);
                         });
                     }
                 }
@@ -122,6 +131,7 @@ public abstract class AbstractClient extends DefaultChannelTransport implements
         this.name = channelManager.getName(this);
         this.publisher = EVENT_BUS.get().getPublisher(EVENT_PUBLISHER_CLIENT_NAME, name, EVENT_PUBLISHER_TRANSPORT_CONF);
         this.workerPool = workerPool;
+        this.encodeOffload = url.getBoolean(ENCODE_OFFLOAD_OPTION);
     }
 
     @Override
@@ -134,6 +144,22 @@ public abstract class AbstractClient extends DefaultChannelTransport implements
         return stateMachine.close(false);
     }
 
+    @Override
+    protected Object encode(final Message message) {
+        //基于长度字段的帧是自包含的，可以在调用线程中序列化和压缩，IO线程直接写出
+        if (!encodeOffload || !(codec instanceof LengthFieldFrameCodec)) {
+            return message;
+        }
+        ChannelBuffer buffer = channel.buffer();
+        try {
+            codec.encode(new DefaultEncodeContext(channel), buffer, message);
+            return buffer;
+        } catch (Throwable e) {
+            buffer.release();
+            throw e;
+        }
+    }
+
     /**
      * 获取连接器
      *
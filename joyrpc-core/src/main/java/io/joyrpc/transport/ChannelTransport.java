@@ -53,6 +53,15 @@ public interface ChannelTransport extends Transport {
      */
     CompletableFuture<Void> oneway(Message message);
 
+    /**
+     * 在指定的物理连接上发送一个消息（不关心响应）
+     *
+     * @param channel 连接通道，由{@link Channel#getChannels()}获取
+     * @param message 消息
+     * @return CompletableFuture
+     */
+    CompletableFuture<Void> oneway(Channel channel, Message message);
+
     /**
      * 同步发送一个请求
      *
@@ -82,6 +91,16 @@ public interface ChannelTransport extends Transport {
      */
     CompletableFuture<Message> async(Message message, int timeoutMillis);
 
+    /**
+     * 在指定的物理连接上异步发送一个请求
+     *
+     * @param channel       连接通道，由{@link Channel#select()}选择
+     * @param message       消息
+     * @param timeoutMillis 超时毫秒数
+     * @return CompletableFuture
+     */
+    CompletableFuture<Message> async(Channel channel, Message message, int timeoutMillis);
+
     /**
      * 获取远程地址
      *
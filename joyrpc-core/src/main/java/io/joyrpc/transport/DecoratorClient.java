@@ -95,6 +95,11 @@ public class DecoratorClient<T extends TransportClient> implements Client {
         return transport.oneway(message);
     }
 
+    @Override
+    public CompletableFuture<Void> oneway(final Channel channel, final Message message) {
+        return transport.oneway(channel, message);
+    }
+
     @Override
     public Message sync(final Message message, final int timoutMillis) throws RpcException, TimeoutException {
         return transport.sync(message, timoutMillis);
@@ -105,6 +110,11 @@ public class DecoratorClient<T extends TransportClient> implements Client {
         return transport.async(message, timoutMillis);
     }
 
+    @Override
+    public CompletableFuture<Message> async(final Channel channel, final Message message, final int timoutMillis) {
+        return transport.async(channel, message, timoutMillis);
+    }
+
     @Override
     public void setHeartbeatStrategy(final HeartbeatStrategy heartbeatStrategy) {
         transport.setHeartbeatStrategy(heartbeatStrategy);
@@ -24,7 +24,7 @@ import io.joyrpc.constants.Constants;
 import io.joyrpc.exception.ChannelSendException;
 import io.joyrpc.extension.URL;
 import io.joyrpc.transport.channel.Channel;
-import io.joyrpc.transport.channel.FutureManager;
+import io.joyrpc.transport.channel.LongFutureManager;
 import io.joyrpc.transport.message.Message;
 import io.joyrpc.transport.session.Session;
 import io.joyrpc.util.Futures;
@@ -92,14 +92,20 @@ public class DefaultChannelTransport implements ChannelTransport {
 
     @Override
     public CompletableFuture<Void> oneway(final Message message) {
+        //连接池有多个物理连接的时候，选择负载最低的连接
+        return oneway(channel == null ? null : channel.select(), message);
+    }
+
+    @Override
+    public CompletableFuture<Void> oneway(final Channel ch, final Message message) {
         requests.incrementAndGet();
         CompletableFuture<Void> result = new CompletableFuture<>();
         if (message != null) {
-            message.setMsgId(channel.getFutureManager().nextMessageId());
+            message.setMsgId(ch.getFutureManager().nextId());
             message.setSessionId(transportId);
             message.setSession(session);
             try {
-                channel.send(message).whenComplete((v, error) -> {
+                ch.send(encode(message)).whenComplete((v, error) -> {
                     requests.decrementAndGet();
                     if (error == null) {
                         result.complete(null);
@@ -121,6 +127,12 @@ public class DefaultChannelTransport implements ChannelTransport {
 
     @Override
     public CompletableFuture<Message> async(final Message message, final int timeoutMillis) {
+        //连接池有多个物理连接的时候，选择负载最低的连接
+        return async(channel == null ? null : channel.select(), message, timeoutMillis);
+    }
+
+    @Override
+    public CompletableFuture<Message> async(final Channel channel, final Message message, final int timeoutMillis) {
         requests.incrementAndGet();
         CompletableFuture<Message> future;
         if (message == null) {
@@ -133,15 +145,15 @@ public class DefaultChannelTransport implements ChannelTransport {
                             Channel.toString(channel))));
         } else {
             int timeout = timeoutMillis <= 0 ? Constants.DEFAULT_TIMEOUT : timeoutMillis;
-            FutureManager<Long, Message> futureManager = channel.getFutureManager();
+            LongFutureManager<Message> futureManager = channel.getFutureManager();
             //设置id
-            message.setMsgId(futureManager.nextMessageId());
+            message.setMsgId(futureManager.nextId());
             message.setSessionId(transportId);
             message.setSession(session);
             //创建 future
             future = futureManager.create(message.getMsgId(), timeout, session, requests);
             try {
-                channel.send(message).whenComplete((v, error) -> {
+                channel.send(encode(message)).whenComplete((v, error) -> {
                     if (error != null) {
                         Throwable throwable = new ChannelSendException(error);
                         futureManager.completeExceptionally(message.getMsgId(), throwable);
@@ -158,6 +170,16 @@ public class DefaultChannelTransport implements ChannelTransport {
         return future;
     }
 
+    /**
+     * 发送前对消息进行编码，默认由IO线程编码
+     *
+     * @param message 消息
+     * @return 待发送的对象
+     */
+    protected Object encode(final Message message) {
+        return message;
+    }
+
     @Override
     public InetSocketAddress getRemoteAddress() {
         return channel.getRemoteAddress();
@@ -234,6 +234,13 @@ public interface ChannelBuffer {
 
     boolean isReleased();
 
+    /**
+     * 读取剩余的可读数据作为切片，切片增加了引用计数，需要单独释放
+     *
+     * @return 切片
+     */
+    ChannelBuffer readRetainedSlice();
+
     InputStream inputStream();
 
     InputStream inputStream(int length);
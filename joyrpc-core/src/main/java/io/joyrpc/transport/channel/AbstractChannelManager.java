@@ -26,10 +26,14 @@ import io.joyrpc.exception.ConnectionException;
 import io.joyrpc.exception.LafException;
 import io.joyrpc.extension.URL;
 import io.joyrpc.transport.TransportClient;
+import io.joyrpc.transport.buffer.ChannelBuffer;
+import io.joyrpc.transport.event.HeartbeatEvent;
+import io.joyrpc.transport.event.InactiveEvent;
 import io.joyrpc.transport.event.TransportEvent;
 import io.joyrpc.transport.heartbeat.DefaultHeartbeatTrigger;
 import io.joyrpc.transport.heartbeat.HeartbeatStrategy;
 import io.joyrpc.transport.heartbeat.HeartbeatTrigger;
+import io.joyrpc.transport.session.Session;
 import io.joyrpc.util.Futures;
 import io.joyrpc.util.StateController;
 import io.joyrpc.util.StateMachine.IntStateMachine;
@@ -38,14 +42,24 @@ import io.joyrpc.util.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
 import java.util.function.Function;
 
+import static io.joyrpc.Plugin.EVENT_BUS;
+import static io.joyrpc.constants.Constants.*;
+import static io.joyrpc.util.Timer.requestTimer;
 import static io.joyrpc.util.Timer.timer;
 
 /**
@@ -118,6 +132,10 @@ public abstract class AbstractChannelManager implements ChannelManager {
          * 打开
          */
         protected Connector connector;
+        /**
+         * 控制器
+         */
+        protected PoolChannelController controller;
         /**
          * 计数器
          */
@@ -130,6 +148,30 @@ public abstract class AbstractChannelManager implements ChannelManager {
          * 状态机
          */
         protected IntStateMachine<Channel, StateController<Channel>> stateMachine = new IntStateMachine<>(() -> new PoolChannelController(this), THROWABLE_FUNCTION);
+        /**
+         * 最大物理连接数
+         */
+        protected int connections;
+        /**
+         * 扩容阈值，平均每个物理连接正在处理的请求数
+         */
+        protected int threshold;
+        /**
+         * 按照负载新建的物理连接
+         */
+        protected List<Connection> extras = new CopyOnWriteArrayList<>();
+        /**
+         * 会话握手，新建的物理连接需要重放
+         */
+        protected Map<Integer, Function<Channel, CompletableFuture<Void>>> handshakes = new ConcurrentHashMap<>();
+        /**
+         * 正在新建物理连接
+         */
+        protected AtomicBoolean scaling = new AtomicBoolean();
+        /**
+         * 物理连接序号
+         */
+        protected AtomicInteger sequence = new AtomicInteger();
 
         /**
          * 构造函数
@@ -147,6 +189,9 @@ public abstract class AbstractChannelManager implements ChannelManager {
             this.connector = connector;
             this.beforeClose = beforeClose;
             this.strategy = client.getHeartbeatStrategy();
+            URL url = client.getUrl();
+            this.connections = url == null ? 1 : Math.max(url.getInteger(CONNECTIONS_OPTION), 1);
+            this.threshold = url == null ? 1 : Math.max(url.getInteger(CONNECTIONS_THRESHOLD_OPTION), 1);
         }
 
         /**
@@ -178,6 +223,7 @@ public abstract class AbstractChannelManager implements ChannelManager {
             connector.connect(name, publisher).whenComplete((ch, error) -> {
                 if (error == null) {
                     channel = ch;
+                    this.controller = controller;
                     ch.getFutureManager().open();
                     publisher.start();
                     trigger = strategy == null || strategy.getHeartbeat() == null ? null :
@@ -190,9 +236,13 @@ public abstract class AbstractChannelManager implements ChannelManager {
                                 break;
                             case TIMING:
                                 //定时心跳
-                                timer().add(new HeartbeatTask(this, controller));
+                                requestTimer().add(new HeartbeatTask(this, controller));
                         }
                     }
+                    if (connections > 1) {
+                        //按照负载增减物理连接
+                        timer().add(new ScaleTask(this, controller));
+                    }
                     future.complete(ch);
                 } else {
                     future.completeExceptionally(error);
@@ -209,6 +259,10 @@ public abstract class AbstractChannelManager implements ChannelManager {
                 LafException throwable = new ChannelClosedException(
                         String.format("Send request exception, causing channel is not opened. at  %s : %s",
                                 Channel.toString(this), object.toString()));
+                if (object instanceof ChannelBuffer) {
+                    //调用线程已经编码好的数据，没有写出需要释放
+                    ((ChannelBuffer) object).release();
+                }
                 return Futures.completeExceptionally(throwable);
             }
         }
@@ -218,6 +272,201 @@ public abstract class AbstractChannelManager implements ChannelManager {
             return super.isActive() && stateMachine.isOpened();
         }
 
+        @Override
+        public Channel select() {
+            if (extras.isEmpty()) {
+                return this;
+            }
+            //选择可写的，待应答请求最少的连接
+            Channel result = this;
+            long min = load(channel);
+            long load;
+            for (Connection connection : extras) {
+                load = load(connection.channel);
+                if (load < min) {
+                    min = load;
+                    result = connection.channel;
+                }
+            }
+            return result;
+        }
+
+        /**
+         * 计算物理连接的负载
+         *
+         * @param ch 物理连接
+         * @return 负载
+         */
+        protected long load(final Channel ch) {
+            if (!ch.isActive()) {
+                return Long.MAX_VALUE;
+            }
+            long requests = ch.getFutureManager().size();
+            return ch.isWritable() ? requests : requests + Integer.MAX_VALUE;
+        }
+
+        @Override
+        public List<Channel> getChannels() {
+            if (extras.isEmpty()) {
+                return Collections.singletonList(this);
+            }
+            List<Channel> result = new ArrayList<>(extras.size() + 1);
+            result.add(this);
+            extras.forEach(o -> result.add(o.channel));
+            return result;
+        }
+
+        @Override
+        public Session addSession(final int sessionId, final Session session) {
+            extras.forEach(o -> o.channel.addSession(sessionId, session));
+            return super.addSession(sessionId, session);
+        }
+
+        @Override
+        public Session removeSession(final int sessionId) {
+            extras.forEach(o -> o.channel.removeSession(sessionId));
+            return super.removeSession(sessionId);
+        }
+
+        @Override
+        public void addHandshake(final int sessionId, final Function<Channel, CompletableFuture<Void>> handshake) {
+            if (handshake != null) {
+                handshakes.put(sessionId, handshake);
+                //已经存在的物理连接也需要重放握手
+                extras.forEach(o -> handshake(o, sessionId, handshake));
+            }
+        }
+
+        /**
+         * 在物理连接上重放会话握手，握手失败则从连接池中移除该连接
+         *
+         * @param connection 物理连接
+         * @param sessionId  会话ID
+         * @param handshake  握手函数
+         * @return CompletableFuture
+         */
+        protected CompletableFuture<Void> handshake(final Connection connection, final int sessionId,
+                                                    final Function<Channel, CompletableFuture<Void>> handshake) {
+            CompletableFuture<Void> future = connection.handshake(sessionId, handshake);
+            future.whenComplete((v, e) -> {
+                if (e != null && extras.remove(connection)) {
+                    connection.close();
+                    logger.warn(String.format("Failed handshaking on connection to %s, caused by %s", name, e.getMessage()));
+                }
+            });
+            return future;
+        }
+
+        @Override
+        public void removeHandshake(final int sessionId) {
+            handshakes.remove(sessionId);
+            extras.forEach(o -> o.sessions.remove(sessionId));
+        }
+
+        /**
+         * 按照负载增减物理连接
+         */
+        protected void scale() {
+            //移除断开的连接
+            for (Connection connection : extras) {
+                if (!connection.channel.isActive()) {
+                    extras.remove(connection);
+                    connection.close();
+                }
+            }
+            int total = extras.size() + 1;
+            long requests = channel.getFutureManager().size();
+            for (Connection connection : extras) {
+                requests += connection.channel.getFutureManager().size();
+            }
+            if (total < connections && (requests >= (long) threshold * total || !channel.isWritable())) {
+                grow();
+            } else if (total > 1 && requests * 2 < (long) threshold * (total - 1)) {
+                //负载降低，回收最后新建的连接，等待正在处理的请求结束后关闭
+                Connection connection = extras.remove(total - 2);
+                connection.close();
+            }
+        }
+
+        /**
+         * 新建物理连接，复制会话并重放握手后加入连接池
+         */
+        protected void grow() {
+            if (!scaling.compareAndSet(false, true)) {
+                return;
+            }
+            Publisher<TransportEvent> pub = EVENT_BUS.get().getPublisher(EVENT_PUBLISHER_CLIENT_NAME,
+                    name + "#" + sequence.incrementAndGet(), EVENT_PUBLISHER_TRANSPORT_CONF);
+            connector.connect(name, pub).whenComplete((ch, error) -> {
+                if (error != null) {
+                    scaling.set(false);
+                    pub.close();
+                    logger.warn(String.format("Failed adding connection to %s, caused by %s", name, error.getMessage()));
+                    return;
+                }
+                Connection connection = new Connection(ch, pub);
+                ch.getFutureManager().open();
+                pub.start();
+                channel.getSessionManager().forEach(ch::addSession);
+                List<CompletableFuture<Void>> futures = new ArrayList<>(handshakes.size());
+                handshakes.forEach((k, o) -> futures.add(connection.handshake(k, o)));
+                CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).whenComplete((v, e) -> {
+                    try {
+                        if (e == null && stateMachine.isOpened()) {
+                            extras.add(connection);
+                            //握手期间新增或删除的会话和握手需要补齐
+                            channel.getSessionManager().forEach(ch::addSession);
+                            ch.getSessionManager().forEach((k, o) -> {
+                                if (channel.getSession(k) == null) {
+                                    ch.removeSession(k);
+                                }
+                            });
+                            handshakes.forEach((k, o) -> handshake(connection, k, o));
+                            heartbeat(connection);
+                            logger.info(String.format("Success adding connection to %s, total %d", name, extras.size() + 1));
+                        } else {
+                            connection.close();
+                            if (e != null) {
+                                logger.warn(String.format("Failed handshaking on new connection to %s, caused by %s", name, e.getMessage()));
+                            }
+                        }
+                    } finally {
+                        scaling.set(false);
+                    }
+                });
+            });
+        }
+
+        /**
+         * 在新建的物理连接上开启心跳，心跳失败则从连接池中移除该连接
+         *
+         * @param connection 物理连接
+         */
+        protected void heartbeat(final Connection connection) {
+            if (trigger == null) {
+                return;
+            }
+            connection.trigger = new DefaultHeartbeatTrigger(connection.channel, url, strategy, connection.publisher);
+            connection.publisher.addHandler(event -> {
+                if (event instanceof HeartbeatEvent && !((HeartbeatEvent) event).isSuccess()
+                        || event instanceof InactiveEvent) {
+                    if (extras.remove(connection)) {
+                        connection.close();
+                        logger.warn(String.format("Failed heartbeat on connection to %s, remove it from pool.", name));
+                    }
+                }
+            });
+            switch (strategy.getHeartbeatMode()) {
+                case IDLE:
+                    //利用Channel的Idle事件进行心跳检测
+                    connection.channel.setAttribute(Channel.IDLE_HEARTBEAT_TRIGGER, connection.trigger);
+                    break;
+                case TIMING:
+                    //定时心跳
+                    requestTimer().add(new HeartbeatTask(this, controller, connection));
+            }
+        }
+
         /**
          * 判断是否还有正在处理的请求
          *
@@ -243,6 +492,9 @@ public abstract class AbstractChannelManager implements ChannelManager {
          * @param future
          */
         protected void doClose(final CompletableFuture<Channel> future) {
+            //关闭按照负载新建的连接
+            extras.forEach(Connection::close);
+            extras.clear();
             channel.close().whenComplete((ch, error) -> {
                 publisher.close();
                 future.complete(ch);
@@ -251,6 +503,62 @@ public abstract class AbstractChannelManager implements ChannelManager {
 
     }
 
+    /**
+     * 按照负载新建的物理连接
+     */
+    protected static class Connection {
+        /**
+         * 物理连接
+         */
+        protected final Channel channel;
+        /**
+         * 独立的事件发布器，连接断开不会影响到连接池
+         */
+        protected final Publisher<TransportEvent> publisher;
+        /**
+         * 已经重放过握手的会话
+         */
+        protected final Set<Integer> sessions = ConcurrentHashMap.newKeySet();
+        /**
+         * 心跳触发器
+         */
+        protected HeartbeatTrigger trigger;
+
+        public Connection(final Channel channel, final Publisher<TransportEvent> publisher) {
+            this.channel = channel;
+            this.publisher = publisher;
+        }
+
+        /**
+         * 重放会话握手，每个会话只重放一次
+         *
+         * @param sessionId 会话ID
+         * @param handshake 握手函数
+         * @return CompletableFuture
+         */
+        protected CompletableFuture<Void> handshake(final int sessionId, final Function<Channel, CompletableFuture<Void>> handshake) {
+            if (!sessions.add(sessionId)) {
+                return CompletableFuture.completedFuture(null);
+            }
+            try {
+                return handshake.apply(channel);
+            } catch (Throwable e) {
+                return Futures.completeExceptionally(e);
+            }
+        }
+
+        /**
+         * 等待正在处理的请求结束后关闭
+         */
+        protected void close() {
+            if (channel.getFutureManager().isEmpty() || !channel.isActive()) {
+                channel.close().whenComplete((ch, error) -> publisher.close());
+            } else {
+                timer().delay("CloseConnection-" + channel.getName(), 400L, this::close);
+            }
+        }
+    }
+
     /**
      * 控制器
      */
@@ -331,6 +639,72 @@ public abstract class AbstractChannelManager implements ChannelManager {
         }
     }
 
+    /**
+     * 连接扩缩容任务
+     */
+    protected static class ScaleTask implements Timer.TimeTask {
+
+        /**
+         * 扩缩容检查的时间间隔
+         */
+        protected static final long INTERVAL = 1000L;
+        /**
+         * Channel
+         */
+        protected final PoolChannel channel;
+        /**
+         * 控制器
+         */
+        protected final StateController<Channel> controller;
+        /**
+         * 名称
+         */
+        protected final String name;
+        /**
+         * 执行时间
+         */
+        protected long time;
+
+        /**
+         * 构造函数
+         *
+         * @param channel    连接通道
+         * @param controller 控制器
+         */
+        public ScaleTask(final PoolChannel channel, final StateController<Channel> controller) {
+            this.channel = channel;
+            this.controller = controller;
+            this.time = SystemClock.now() + INTERVAL;
+            this.name = this.getClass().getSimpleName() + "-" + channel.name;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public long getTime() {
+            return time;
+        }
+
+        @Override
+        public void run() {
+            if (channel.stateMachine.isOpen(controller)) {
+                if (channel.stateMachine.isOpened(controller)) {
+                    try {
+                        channel.scale();
+                    } catch (Exception e) {
+                        logger.error(String.format("Error occurs while scaling connections to %s, caused by: %s",
+                                Channel.toString(channel.getRemoteAddress()), e.getMessage()), e);
+                    }
+                }
+                time = SystemClock.now() + INTERVAL;
+                timer().add(this);
+            }
+        }
+    }
+
     /**
      * 心跳任务
      */
@@ -352,6 +726,10 @@ public abstract class AbstractChannelManager implements ChannelManager {
          * 心跳触发器
          */
         protected final HeartbeatTrigger trigger;
+        /**
+         * 按照负载新建的物理连接，为空表示主连接
+         */
+        protected final Connection connection;
         /**
          * 名称
          */
@@ -372,9 +750,21 @@ public abstract class AbstractChannelManager implements ChannelManager {
          * @param controller 控制器
          */
         public HeartbeatTask(final PoolChannel channel, final StateController<Channel> controller) {
+            this(channel, controller, null);
+        }
+
+        /**
+         * 构造函数
+         *
+         * @param channel    连接通道
+         * @param controller 控制器
+         * @param connection 按照负载新建的物理连接
+         */
+        public HeartbeatTask(final PoolChannel channel, final StateController<Channel> controller, final Connection connection) {
             this.channel = channel;
             this.controller = controller;
-            this.trigger = channel.trigger;
+            this.connection = connection;
+            this.trigger = connection == null ? channel.trigger : connection.trigger;
             this.strategy = trigger.strategy();
             this.interval = strategy.getInterval() <= 0 ? HeartbeatStrategy.DEFAULT_INTERVAL : strategy.getInterval();
             this.time = SystemClock.now() + ThreadLocalRandom.current().nextInt(interval);
@@ -393,8 +783,8 @@ public abstract class AbstractChannelManager implements ChannelManager {
 
         @Override
         public void run() {
-            //添加任务是在opening状态
-            if (channel.stateMachine.isOpen(controller)) {
+            //添加任务是在opening状态，新建的物理连接移出连接池后不再心跳
+            if (channel.stateMachine.isOpen(controller) && (connection == null || channel.extras.contains(connection))) {
                 if (channel.stateMachine.isOpened(controller)) {
                     //打开状态才执行心跳
                     try {
@@ -405,7 +795,7 @@ public abstract class AbstractChannelManager implements ChannelManager {
                     }
                 }
                 time = SystemClock.now() + interval;
-                timer().add(this);
+                requestTimer().add(this);
             }
         }
     }
@@ -31,6 +31,8 @@ import io.joyrpc.transport.session.SessionManager;
 
 import java.net.InetAddress;
 import java.net.InetSocketAddress;
+import java.util.Collections;
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import java.util.function.BiConsumer;
 import java.util.function.BiPredicate;
@@ -47,6 +49,8 @@ public interface Channel {
 
     String PROTOCOL = "PROTOCOL";
 
+    String DECODE_OFFLOAD = "DECODE_OFFLOAD";
+
     /**
      * 获取名称
      *
@@ -212,11 +216,13 @@ public interface Channel {
     Object removeAttribute(String key);
 
     /**
-     * 获取Future管理器
+     * 获取Future管理器。<br/>
+     * 兼容性说明：1.4.8版本起返回类型由FutureManager&lt;Long, Message&gt;调整为其子类LongFutureManager&lt;Message&gt;，
+     * 调用方源码兼容；自定义的Channel实现需要返回LongFutureManager，基于旧版本编译的调用方需要重新编译。
      *
      * @return Future管理器
      */
-    FutureManager<Long, Message> getFutureManager();
+    LongFutureManager<Message> getFutureManager();
 
     /**
      * 获取会话管理器
@@ -335,6 +341,41 @@ public interface Channel {
         return getSessionManager().beat(sessionId);
     }
 
+    /**
+     * 选择发送请求的物理连接，连接池有多个连接的时候返回负载最低的连接
+     *
+     * @return 连接通道
+     */
+    default Channel select() {
+        return this;
+    }
+
+    /**
+     * 获取所有的物理连接，连接池有多个连接的时候用于在每个连接上发送会话心跳
+     *
+     * @return 物理连接列表
+     */
+    default List<Channel> getChannels() {
+        return Collections.singletonList(this);
+    }
+
+    /**
+     * 添加会话握手，连接池新建物理连接后需要重放握手，服务端才能识别该会话
+     *
+     * @param sessionId 会话ID
+     * @param handshake 在指定物理连接上进行握手的函数
+     */
+    default void addHandshake(final int sessionId, final Function<Channel, CompletableFuture<Void>> handshake) {
+    }
+
+    /**
+     * 删除会话握手
+     *
+     * @param sessionId 会话ID
+     */
+    default void removeHandshake(final int sessionId) {
+    }
+
     /**
      * 触发异常事件
      *
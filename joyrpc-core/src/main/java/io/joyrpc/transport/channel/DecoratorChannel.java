@@ -92,7 +92,7 @@ public class DecoratorChannel implements Channel {
     }
 
     @Override
-    public FutureManager<Long, Message> getFutureManager() {
+    public LongFutureManager<Message> getFutureManager() {
         return channel.getFutureManager();
     }
 
@@ -35,7 +35,7 @@ import java.util.function.Consumer;
 import java.util.function.Supplier;
 
 import static io.joyrpc.constants.Constants.FUTURE_TIMEOUT_PREFIX;
-import static io.joyrpc.util.Timer.timer;
+import static io.joyrpc.util.Timer.requestTimer;
 
 /**
  * Future管理器，绑定到Channel上
@@ -62,9 +62,9 @@ public class FutureManager<I, M> {
      */
     protected Consumer<I> timeout;
     /**
-     * Future管理，有些连接并发很少不需要初始化
+     * Future管理，延迟初始化，子类采用其它存储的时候不会分配
      */
-    protected Map<I, RequestFuture<I, M>> futures = new ConcurrentHashMap<>();
+    protected volatile Map<I, RequestFuture<I, M>> futures;
 
     /**
      * 构造函数
@@ -127,11 +127,11 @@ public class FutureManager<I, M> {
                                          final Session session,
                                          final AtomicInteger requests,
                                          final BiConsumer<M, Throwable> afterRun) {
-        return futures.computeIfAbsent(messageId, o -> {
+        return getFutures().computeIfAbsent(messageId, o -> {
             //增加计数器
             counter.incrementAndGet();
             TimeTask task = new FutureTimeoutTask<>(messageId, SystemClock.now() + timeoutMillis, timeout);
-            Timeout timeout = timer().add(task);
+            Timeout timeout = requestTimer().add(task);
             return new RequestFuture<>(o, session, timeout, requests, afterRun);
         });
     }
@@ -143,7 +143,8 @@ public class FutureManager<I, M> {
      * @return 增强的CompletableFuture
      */
     public RequestFuture<I, M> get(final I messageId) {
-        return futures.get(messageId);
+        Map<I, RequestFuture<I, M>> futures = this.futures;
+        return futures == null ? null : futures.get(messageId);
     }
 
     /**
@@ -177,7 +178,8 @@ public class FutureManager<I, M> {
      * @return 成功标识
      */
     protected boolean complete(final I messageId, final M message, final Throwable throwable) {
-        RequestFuture<I, M> result = futures.remove(messageId);
+        Map<I, RequestFuture<I, M>> futures = this.futures;
+        RequestFuture<I, M> result = futures == null ? null : futures.remove(messageId);
         if (result != null) {
             //减少计数器
             counter.decrementAndGet();
@@ -186,6 +188,25 @@ public class FutureManager<I, M> {
         return false;
     }
 
+    /**
+     * 获取Future存储，第一次使用的时候初始化
+     *
+     * @return Future存储
+     */
+    protected Map<I, RequestFuture<I, M>> getFutures() {
+        Map<I, RequestFuture<I, M>> result = futures;
+        if (result == null) {
+            synchronized (this) {
+                result = futures;
+                if (result == null) {
+                    result = new ConcurrentHashMap<>();
+                    futures = result;
+                }
+            }
+        }
+        return result;
+    }
+
     /**
      * 开启FutureManager（注册timeout事件）
      */
@@ -196,9 +217,15 @@ public class FutureManager<I, M> {
      * 清空
      */
     public void close() {
-        Map<I, RequestFuture<I, M>> futures = this.futures;
-        this.futures = new ConcurrentHashMap<>();
+        Map<I, RequestFuture<I, M>> futures;
+        synchronized (this) {
+            futures = this.futures;
+            this.futures = null;
+        }
         this.counter = new AtomicInteger();
+        if (futures == null) {
+            return;
+        }
         Exception exception = new ChannelClosedException("channel is inactive, address is " + channel.getRemoteAddress());
         futures.forEach((id, future) -> future.completeExceptionally(exception));
         futures.clear();
@@ -0,0 +1,533 @@
+package io.joyrpc.transport.channel;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import io.joyrpc.exception.ChannelClosedException;
+import io.joyrpc.transport.session.Session;
+import io.joyrpc.util.SystemClock;
+
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+import static io.joyrpc.util.Timer.requestTimer;
+
+/**
+ * 基于long类型消息ID的Future管理器。<br/>
+ * 采用分段加锁的开放寻址哈希表存储，避免了ConcurrentHashMap的节点分配、消息ID装箱以及超时任务名称的字符串拼接。
+ *
+ * @param <M> 消息类型
+ */
+public class LongFutureManager<M> extends FutureManager<Long, M> {
+    /**
+     * 默认分段数
+     */
+    protected static final int DEFAULT_SEGMENTS = 16;
+    /**
+     * 每个分段的初始容量
+     */
+    protected static final int DEFAULT_CAPACITY = 16;
+    /**
+     * 分段
+     */
+    protected final Segment<M>[] segments;
+    /**
+     * 分段掩码
+     */
+    protected final int segmentMask;
+    /**
+     * 原生类型的消息ID生成器
+     */
+    protected final LongSupplier longIdGenerator;
+
+    /**
+     * 构造函数
+     *
+     * @param channel           连接通道
+     * @param msgIdGenerator    消息ID生成器
+     * @param streamIdGenerator 流式ID生成器
+     */
+    public LongFutureManager(final Channel channel,
+                             final Supplier<Long> msgIdGenerator,
+                             final Supplier<Integer> streamIdGenerator) {
+        this(channel, msgIdGenerator, streamIdGenerator, DEFAULT_SEGMENTS);
+    }
+
+    /**
+     * 构造函数
+     *
+     * @param channel           连接通道
+     * @param msgIdGenerator    消息ID生成器
+     * @param streamIdGenerator 流式ID生成器
+     * @param concurrency       并发度，会调整为2的幂
+     */
+    @SuppressWarnings("unchecked")
+    public LongFutureManager(final Channel channel,
+                             final Supplier<Long> msgIdGenerator,
+                             final Supplier<Integer> streamIdGenerator,
+                             final int concurrency) {
+        super(channel, msgIdGenerator, streamIdGenerator);
+        this.longIdGenerator = msgIdGenerator instanceof LongSupplier ? (LongSupplier) msgIdGenerator : msgIdGenerator::get;
+        int size = powerOfTwo(concurrency <= 0 ? DEFAULT_SEGMENTS : concurrency);
+        this.segments = new Segment[size];
+        this.segmentMask = size - 1;
+        for (int i = 0; i < size; i++) {
+            segments[i] = new Segment<>(DEFAULT_CAPACITY);
+        }
+    }
+
+    /**
+     * 创建一个future
+     *
+     * @param messageId     消息ID
+     * @param timeoutMillis 超时时间（毫秒）
+     * @param afterRun      结束后执行
+     * @return 完成状态
+     */
+    public RequestFuture<Long, M> create(final long messageId,
+                                         final long timeoutMillis,
+                                         final BiConsumer<M, Throwable> afterRun) {
+        return create(messageId, timeoutMillis, null, null, afterRun);
+    }
+
+    /**
+     * 创建一个future
+     *
+     * @param messageId     消息ID
+     * @param timeoutMillis 超时时间
+     * @param session       会话
+     * @param requests      正在处理的请求数
+     * @return 完成状态
+     */
+    public RequestFuture<Long, M> create(final long messageId,
+                                         final long timeoutMillis,
+                                         final Session session,
+                                         final AtomicInteger requests) {
+        return create(messageId, timeoutMillis, session, requests, null);
+    }
+
+    @Override
+    protected RequestFuture<Long, M> create(final Long messageId,
+                                            final long timeoutMillis,
+                                            final Session session,
+                                            final AtomicInteger requests,
+                                            final BiConsumer<M, Throwable> afterRun) {
+        return create(messageId.longValue(), timeoutMillis, session, requests, afterRun);
+    }
+
+    /**
+     * 创建一个future
+     *
+     * @param messageId     消息ID
+     * @param timeoutMillis 超时时间
+     * @param session       会话
+     * @param requests      正在处理的请求数
+     * @param afterRun      结束后执行
+     * @return 完成状态
+     */
+    protected RequestFuture<Long, M> create(final long messageId,
+                                            final long timeoutMillis,
+                                            final Session session,
+                                            final AtomicInteger requests,
+                                            final BiConsumer<M, Throwable> afterRun) {
+        long hash = hash(messageId);
+        Segment<M> segment = segments[(int) hash & segmentMask];
+        synchronized (segment) {
+            RequestFuture<Long, M> result = segment.get(messageId, hash);
+            if (result == null) {
+                //增加计数器
+                counter.incrementAndGet();
+                //Future本身作为超时任务，不再额外创建闭包；超时任务不设置名称，避免字符串拼接。
+                //超时触发后需要获取分段锁才能移除，所以在放入分段之前设置超时对象是安全的
+                LongRequestFuture<M> future = new LongRequestFuture<>(this, messageId, session, requests, afterRun);
+                future.timeout = requestTimer().add(null, SystemClock.now() + timeoutMillis, future);
+                segment.put(messageId, hash, future);
+                result = future;
+            }
+            return result;
+        }
+    }
+
+    @Override
+    public RequestFuture<Long, M> get(final Long messageId) {
+        return messageId == null ? null : get(messageId.longValue());
+    }
+
+    /**
+     * 根据msgId获取future
+     *
+     * @param messageId 消息ID
+     * @return 增强的CompletableFuture
+     */
+    public RequestFuture<Long, M> get(final long messageId) {
+        long hash = hash(messageId);
+        Segment<M> segment = segments[(int) hash & segmentMask];
+        synchronized (segment) {
+            return segment.get(messageId, hash);
+        }
+    }
+
+    /**
+     * 正常结束
+     *
+     * @param messageId 消息ID
+     * @param message   消息
+     * @return 成功标识
+     */
+    public boolean complete(final long messageId, final M message) {
+        return complete(messageId, message, null);
+    }
+
+    /**
+     * 异常结束
+     *
+     * @param messageId 消息ID
+     * @param throwable 异常
+     * @return 成功标识
+     */
+    public boolean completeExceptionally(final long messageId, final Throwable throwable) {
+        return complete(messageId, null, throwable);
+    }
+
+    @Override
+    protected boolean complete(final Long messageId, final M message, final Throwable throwable) {
+        return messageId != null && complete(messageId.longValue(), message, throwable);
+    }
+
+    /**
+     * 结束
+     *
+     * @param messageId 消息ID
+     * @param message   消息
+     * @param throwable 异常
+     * @return 成功标识
+     */
+    protected boolean complete(final long messageId, final M message, final Throwable throwable) {
+        long hash = hash(messageId);
+        Segment<M> segment = segments[(int) hash & segmentMask];
+        RequestFuture<Long, M> result;
+        synchronized (segment) {
+            result = segment.remove(messageId, hash);
+        }
+        if (result != null) {
+            //减少计数器
+            counter.decrementAndGet();
+            return throwable != null ? result.completeExceptionally(throwable) : result.complete(message);
+        }
+        return false;
+    }
+
+    @Override
+    public void close() {
+        List<RequestFuture<Long, M>> futures = new LinkedList<>();
+        for (Segment<M> segment : segments) {
+            synchronized (segment) {
+                segment.clear(futures);
+            }
+        }
+        counter.addAndGet(-futures.size());
+        Exception exception = new ChannelClosedException("channel is inactive, address is " + channel.getRemoteAddress());
+        futures.forEach(future -> future.completeExceptionally(exception));
+    }
+
+    /**
+     * 生成原生类型的消息ID
+     *
+     * @return 消息ID
+     */
+    public long nextId() {
+        return longIdGenerator.getAsLong();
+    }
+
+    /**
+     * 哈希扰动
+     *
+     * @param messageId 消息ID
+     * @return 哈希值
+     */
+    protected static long hash(final long messageId) {
+        long h = messageId * 0x9E3779B97F4A7C15L;
+        return h ^ (h >>> 29);
+    }
+
+    /**
+     * 计算大于等于该值的2的幂
+     *
+     * @param value 值
+     * @return 2的幂
+     */
+    protected static int powerOfTwo(final int value) {
+        int n = -1 >>> Integer.numberOfLeadingZeros(value - 1);
+        return n < 1 ? 1 : (n >= 1 << 30 ? 1 << 30 : n + 1);
+    }
+
+    /**
+     * 分段，开放寻址（线性探测）哈希表，由调用方加锁
+     *
+     * @param <M> 消息类型
+     */
+    protected static class Segment<M> {
+        /**
+         * 键
+         */
+        protected long[] keys;
+        /**
+         * 值，为空表示该槽位空闲
+         */
+        protected RequestFuture<Long, M>[] values;
+        /**
+         * 槽位掩码
+         */
+        protected int mask;
+        /**
+         * 元素数量
+         */
+        protected int size;
+        /**
+         * 扩容阈值
+         */
+        protected int threshold;
+
+        /**
+         * 构造函数
+         *
+         * @param capacity 容量
+         */
+        public Segment(final int capacity) {
+            allocate(powerOfTwo(capacity));
+        }
+
+        /**
+         * 分配存储
+         *
+         * @param capacity 容量，2的幂
+         */
+        @SuppressWarnings("unchecked")
+        protected void allocate(final int capacity) {
+            keys = new long[capacity];
+            values = new RequestFuture[capacity];
+            mask = capacity - 1;
+            //装载因子0.5，保证线性探测的长度较短
+            threshold = capacity >>> 1;
+        }
+
+        /**
+         * 计算起始槽位，用高位避免和分段索引冲突
+         *
+         * @param hash 哈希值
+         * @return 槽位
+         */
+        protected int index(final long hash) {
+            return (int) (hash >>> 32) & mask;
+        }
+
+        /**
+         * 获取
+         *
+         * @param key  键
+         * @param hash 哈希值
+         * @return 值
+         */
+        protected RequestFuture<Long, M> get(final long key, final long hash) {
+            RequestFuture<Long, M> value;
+            int i = index(hash);
+            while ((value = values[i]) != null) {
+                if (keys[i] == key) {
+                    return value;
+                }
+                i = (i + 1) & mask;
+            }
+            return null;
+        }
+
+        /**
+         * 添加，调用方已经确认键不存在
+         *
+         * @param key   键
+         * @param hash  哈希值
+         * @param value 值
+         */
+        protected void put(final long key, final long hash, final RequestFuture<Long, M> value) {
+            if (size >= threshold) {
+                resize();
+            }
+            int i = index(hash);
+            while (values[i] != null) {
+                i = (i + 1) & mask;
+            }
+            keys[i] = key;
+            values[i] = value;
+            size++;
+        }
+
+        /**
+         * 删除，采用向后移位删除，不需要墓碑标记
+         *
+         * @param key  键
+         * @param hash 哈希值
+         * @return 删除的值
+         */
+        protected RequestFuture<Long, M> remove(final long key, final long hash) {
+            int i = index(hash);
+            RequestFuture<Long, M> value;
+            while ((value = values[i]) != null) {
+                if (keys[i] == key) {
+                    shift(i);
+                    size--;
+                    return value;
+                }
+                i = (i + 1) & mask;
+            }
+            return null;
+        }
+
+        /**
+         * 删除槽位后，把后续冲突的元素往前移动
+         *
+         * @param pos 删除的槽位
+         */
+        protected void shift(final int pos) {
+            int hole = pos;
+            int i = pos;
+            int home;
+            values[hole] = null;
+            while (true) {
+                i = (i + 1) & mask;
+                if (values[i] == null) {
+                    return;
+                }
+                home = index(hash(keys[i]));
+                //判断起始槽位是否循环落在(hole,i]区间中，不在则需要移动到空洞
+                if (hole <= i ? (home <= hole || home > i) : (home <= hole && home > i)) {
+                    keys[hole] = keys[i];
+                    values[hole] = values[i];
+                    values[i] = null;
+                    hole = i;
+                }
+            }
+        }
+
+        /**
+         * 扩容
+         */
+        protected void resize() {
+            long[] oldKeys = keys;
+            RequestFuture<Long, M>[] oldValues = values;
+            allocate(oldKeys.length << 1);
+            int i;
+            for (int j = 0; j < oldValues.length; j++) {
+                if (oldValues[j] != null) {
+                    i = index(hash(oldKeys[j]));
+                    while (values[i] != null) {
+                        i = (i + 1) & mask;
+                    }
+                    keys[i] = oldKeys[j];
+                    values[i] = oldValues[j];
+                }
+            }
+        }
+
+        /**
+         * 清空，并收集所有的值
+         *
+         * @param futures 收集器
+         */
+        protected void clear(final List<RequestFuture<Long, M>> futures) {
+            for (RequestFuture<Long, M> value : values) {
+                if (value != null) {
+                    futures.add(value);
+                }
+            }
+            //恢复初始容量，释放高峰期占用的内存
+            allocate(DEFAULT_CAPACITY);
+            size = 0;
+        }
+    }
+
+    /**
+     * 原生类型消息ID的Future，同时作为超时任务，消息ID按需装箱并缓存
+     *
+     * @param <M> 消息类型
+     */
+    protected static class LongRequestFuture<M> extends RequestFuture<Long, M> implements Runnable {
+        /**
+         * Future管理器
+         */
+        protected final LongFutureManager<M> manager;
+        /**
+         * 消息ID
+         */
+        protected final long id;
+        /**
+         * 装箱后的消息ID
+         */
+        protected Long boxedId;
+
+        /**
+         * 构造函数
+         *
+         * @param manager  Future管理器
+         * @param id       消息ID
+         * @param session  会话
+         * @param requests 请求计数器
+         * @param consumer 消费者
+         */
+        public LongRequestFuture(final LongFutureManager<M> manager,
+                                 final long id,
+                                 final Session session,
+                                 final AtomicInteger requests,
+                                 final BiConsumer<M, Throwable> consumer) {
+            super(null, session, null, requests, consumer);
+            this.manager = manager;
+            this.id = id;
+        }
+
+        /**
+         * 获取原生类型的消息ID
+         *
+         * @return 消息ID
+         */
+        public long getId() {
+            return id;
+        }
+
+        @Override
+        public Long getMessageId() {
+            //并发情况下可能重复装箱，不影响正确性
+            Long result = boxedId;
+            if (result == null) {
+                result = id;
+                boxedId = result;
+            }
+            return result;
+        }
+
+        @Override
+        public void run() {
+            manager.complete(id, null, new TimeoutException("future is timeout."));
+        }
+    }
+
+}
@@ -40,9 +40,9 @@ public class RequestFuture<I, M> extends CompletableFuture<M> {
      */
     protected final Session session;
     /**
-     * 超时时间
+     * 超时时间，子类可以在构造后再设置
      */
-    protected final Timeout timeout;
+    protected Timeout timeout;
     /**
      * 连接上的请求计数器
      */
@@ -0,0 +1,133 @@
+package io.joyrpc.transport.channel;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import io.joyrpc.extension.URL;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import static io.joyrpc.constants.Constants.*;
+
+/**
+ * 批量合并刷盘的配置及统计计数器，每个连接通道一个实例，通过通道属性{@link #WRITE_BATCH}获取
+ */
+public class WriteBatch {
+
+    /**
+     * 连接通道上批量配置的属性名称
+     */
+    public static final String WRITE_BATCH = "WRITE_BATCH";
+
+    /**
+     * 每批最大消息条数
+     */
+    protected final int maxMessages;
+    /**
+     * 每批最大字节数
+     */
+    protected final int maxBytes;
+    /**
+     * 刷盘次数
+     */
+    protected final LongAdder flushes = new LongAdder();
+    /**
+     * 刷盘的消息条数
+     */
+    protected final LongAdder messages = new LongAdder();
+    /**
+     * 刷盘的字节数
+     */
+    protected final LongAdder bytes = new LongAdder();
+    /**
+     * 单次刷盘的最大消息条数
+     */
+    protected final LongAccumulator maxBatch = new LongAccumulator(Math::max, 0);
+
+    /**
+     * 构造函数
+     *
+     * @param maxMessages 每批最大消息条数
+     * @param maxBytes    每批最大字节数
+     */
+    public WriteBatch(final int maxMessages, final int maxBytes) {
+        this.maxMessages = maxMessages;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * 记录一次刷盘
+     *
+     * @param size  消息条数
+     * @param bytes 字节数
+     */
+    public void record(final int size, final long bytes) {
+        this.flushes.increment();
+        this.messages.add(size);
+        this.bytes.add(bytes);
+        this.maxBatch.accumulate(size);
+    }
+
+    public int getMaxMessages() {
+        return maxMessages;
+    }
+
+    public int getMaxBytes() {
+        return maxBytes;
+    }
+
+    public long getFlushes() {
+        return flushes.sum();
+    }
+
+    public long getMessages() {
+        return messages.sum();
+    }
+
+    public long getBytes() {
+        return bytes.sum();
+    }
+
+    public long getMaxBatch() {
+        return maxBatch.get();
+    }
+
+    /**
+     * 平均每次刷盘的消息条数
+     *
+     * @return 平均批量大小
+     */
+    public double getAvgBatch() {
+        long count = flushes.sum();
+        return count == 0 ? 0 : ((double) messages.sum()) / count;
+    }
+
+    /**
+     * 根据URL创建批量配置
+     *
+     * @param url url
+     * @return 批量配置，没有开启则返回null
+     */
+    public static WriteBatch create(final URL url) {
+        return url == null || !url.getBoolean(WRITE_BATCH_OPTION) ? null :
+                new WriteBatch(url.getPositiveInt(WRITE_BATCH_SIZE_OPTION), url.getPositiveInt(WRITE_BATCH_BYTES_OPTION));
+    }
+}
@@ -0,0 +1,60 @@
+package io.joyrpc.transport.codec;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import io.joyrpc.exception.CodecException;
+import io.joyrpc.transport.message.Header;
+
+/**
+ * 延迟解码的消息，IO线程只解码消息头并持有消息体的缓冲区，消息体在业务线程池中解压缩和反序列化。<br/>
+ * 持有者必须调用{@link #decode()}或{@link #release()}之一，确保缓冲区被释放。
+ */
+public interface DeferredMessage {
+
+    /**
+     * 获取消息头
+     *
+     * @return 消息头
+     */
+    Header getHeader();
+
+    /**
+     * 是否是请求消息
+     *
+     * @return 请求消息标识
+     */
+    boolean isRequest();
+
+    /**
+     * 解码消息体，无论成功与否都会释放缓冲区
+     *
+     * @return 解码后的消息
+     * @throws CodecException 解码异常
+     */
+    Object decode() throws CodecException;
+
+    /**
+     * 放弃解码，释放缓冲区
+     *
+     * @return 本次调用是否释放了缓冲区
+     */
+    boolean release();
+}
@@ -23,7 +23,7 @@ package io.joyrpc.transport.heartbeat;
 import io.joyrpc.event.Publisher;
 import io.joyrpc.extension.URL;
 import io.joyrpc.transport.channel.Channel;
-import io.joyrpc.transport.channel.FutureManager;
+import io.joyrpc.transport.channel.LongFutureManager;
 import io.joyrpc.transport.event.HeartbeatEvent;
 import io.joyrpc.transport.event.InactiveEvent;
 import io.joyrpc.transport.event.TransportEvent;
@@ -90,9 +90,9 @@ public class DefaultHeartbeatTrigger implements HeartbeatTrigger {
         //关机状态不发送心跳了
         if (!Shutdown.isShutdown() && supplier != null && (heartbeatMessage = supplier.get()) != null) {
             if (channel.isActive()) {
-                FutureManager<Long, Message> futureManager = channel.getFutureManager();
+                LongFutureManager<Message> futureManager = channel.getFutureManager();
                 //设置id
-                heartbeatMessage.setMsgId(futureManager.nextMessageId());
+                heartbeatMessage.setMsgId(futureManager.nextId());
                 //创建future
                 futureManager.create(heartbeatMessage.getMsgId(), strategy.getTimeout(), afterRun);
                 //发送消息
@@ -20,6 +20,8 @@ package io.joyrpc.transport.http2;
  * #L%
  */
 
+import io.joyrpc.transport.buffer.ChannelBuffer;
+
 /**
  * 默认http2消息
  */
@@ -40,6 +42,10 @@ public class AbstractHttp2Message implements Http2Message {
      * 数据包
      */
     protected byte[] content;
+    /**
+     * 数据缓冲区
+     */
+    protected ChannelBuffer buffer;
     /**
      * 结束头
      */
@@ -58,6 +64,15 @@ public class AbstractHttp2Message implements Http2Message {
         this.end = end;
     }
 
+    public AbstractHttp2Message(int streamId, long msgId, Http2Headers headers, ChannelBuffer buffer, Http2Headers endHeaders, boolean end) {
+        this.streamId = streamId;
+        this.msgId = msgId;
+        this.headers = headers;
+        this.buffer = buffer;
+        this.endHeaders = endHeaders;
+        this.end = end;
+    }
+
     @Override
     public int getStreamId() {
         return this.streamId;
@@ -75,9 +90,20 @@ public class AbstractHttp2Message implements Http2Message {
 
     @Override
     public byte[] content() {
+        if (content == null && buffer != null) {
+            //兼容字节数组的使用方，复制缓冲区的可读数据
+            byte[] bytes = new byte[buffer.readableBytes()];
+            buffer.getBytes(buffer.readerIndex(), bytes);
+            content = bytes;
+        }
         return content;
     }
 
+    @Override
+    public ChannelBuffer buffer() {
+        return buffer;
+    }
+
     @Override
     public Http2Headers endHeaders() {
         return endHeaders;
@@ -20,6 +20,8 @@ package io.joyrpc.transport.http2;
  * #L%
  */
 
+import io.joyrpc.transport.buffer.ChannelBuffer;
+
 /**
  * 默认http2请求消息
  */
@@ -29,6 +31,10 @@ public class DefaultHttp2RequestMessage extends AbstractHttp2Message implements
         super(streamId, msgId, headers, content, endHeaders, end);
     }
 
+    public DefaultHttp2RequestMessage(int streamId, long msgId, Http2Headers headers, ChannelBuffer buffer, Http2Headers endHeaders, boolean end) {
+        super(streamId, msgId, headers, buffer, endHeaders, end);
+    }
+
     @Override
     public void setStreamId(int streamId) {
         this.streamId = streamId;
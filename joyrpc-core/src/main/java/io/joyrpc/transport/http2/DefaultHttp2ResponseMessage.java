@@ -20,6 +20,8 @@ package io.joyrpc.transport.http2;
  * #L%
  */
 
+import io.joyrpc.transport.buffer.ChannelBuffer;
+
 /**
  * 默认http2应答消息
  */
@@ -28,4 +30,8 @@ public class DefaultHttp2ResponseMessage extends AbstractHttp2Message implements
     public DefaultHttp2ResponseMessage(int streamId, long msgId, Http2Headers headers, byte[] content, Http2Headers endHeaders, boolean end) {
         super(streamId, msgId, headers, content, endHeaders, end);
     }
+
+    public DefaultHttp2ResponseMessage(int streamId, long msgId, Http2Headers headers, ChannelBuffer buffer, Http2Headers endHeaders, boolean end) {
+        super(streamId, msgId, headers, buffer, endHeaders, end);
+    }
 }
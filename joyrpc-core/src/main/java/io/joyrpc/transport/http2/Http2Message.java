@@ -20,6 +20,8 @@ package io.joyrpc.transport.http2;
  * #L%
  */
 
+import io.joyrpc.transport.buffer.ChannelBuffer;
+
 /**
  * http2消息
  */
@@ -67,4 +69,11 @@ public interface Http2Message {
      */
     byte[] content();
 
+    /**
+     * 内容缓冲区，由发送方从通道分配，写出时直接交给网络层，避免拷贝
+     *
+     * @return 内容缓冲区，没有则返回null
+     */
+    ChannelBuffer buffer();
+
 }
@@ -91,6 +91,15 @@ public interface Message<H extends Header, T> {
      */
     boolean isRequest();
 
+    /**
+     * 是否在IO线程中直接处理，不进入业务线程池排队，适用于处理很快的控制消息
+     *
+     * @return 直接处理标识
+     */
+    default boolean isInline() {
+        return false;
+    }
+
     /**
      * 获取会话ID
      *
@@ -0,0 +1,107 @@
+package io.joyrpc.transport.session;
+
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import io.joyrpc.context.RequestContext;
+import io.joyrpc.util.SystemClock;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static io.joyrpc.util.Timer.timer;
+
+/**
+ * 服务端会话上的请求取消登记，按照消息ID记录执行中的请求和还没有开始执行就被取消的请求
+ */
+public class Cancellation {
+
+    /**
+     * 还没有开始执行就被取消的标记
+     */
+    protected static final Object CANCELLED = new Object();
+
+    /**
+     * 消息ID对应执行中请求的上下文或者取消标记
+     */
+    protected final Map<Long, Object> requests = new ConcurrentHashMap<>();
+
+    /**
+     * 取消请求
+     *
+     * @param msgId 消息ID
+     * @param ttl   取消标记的保留时间（毫秒），超过该时间排队的请求已经超时，会被直接丢弃
+     */
+    public void cancel(final long msgId, final long ttl) {
+        Object target = requests.putIfAbsent(msgId, CANCELLED);
+        if (target == null) {
+            //请求还在排队或者已经执行完，到期清理标记
+            timer().add(null, SystemClock.now() + ttl, () -> requests.remove(msgId, CANCELLED));
+        } else if (target instanceof RequestContext) {
+            //正在执行，设置取消标识
+            ((RequestContext) target).cancel();
+        }
+    }
+
+    /**
+     * 判断请求是否在开始执行前就被取消了
+     *
+     * @param msgId 消息ID
+     * @return 取消标识
+     */
+    public boolean isCancelled(final long msgId) {
+        return requests.get(msgId) == CANCELLED;
+    }
+
+    /**
+     * 开始执行请求
+     *
+     * @param msgId   消息ID
+     * @param context 请求上下文
+     * @return 请求已经被取消返回false
+     */
+    public boolean start(final long msgId, final RequestContext context) {
+        Object target = requests.putIfAbsent(msgId, context);
+        if (target == CANCELLED) {
+            requests.remove(msgId, CANCELLED);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * 请求执行结束
+     *
+     * @param msgId 消息ID
+     */
+    public void finish(final long msgId) {
+        requests.remove(msgId);
+    }
+
+    /**
+     * 登记的请求数量
+     *
+     * @return 请求数量
+     */
+    public int size() {
+        return requests.size();
+    }
+}
@@ -126,6 +126,14 @@ public class DefaultSession implements RpcSession {
      * 远端应用分组
      */
     protected volatile Optional<String> remoteAppGroup;
+    /**
+     * 协商的方法表
+     */
+    protected volatile Optional<MethodTable> methodTable;
+    /**
+     * 有状态的序列化
+     */
+    protected volatile Boolean statefulSerialization;
 
     /**
      * 会话属性集
@@ -330,6 +338,22 @@ public class DefaultSession implements RpcSession {
         return remoteAppGroup.orElse(null);
     }
 
+    @Override
+    public MethodTable getMethodTable() {
+        if (methodTable == null) {
+            methodTable = Optional.ofNullable(MethodTable.parse(attrs.get(METHOD_TABLE_KEY)));
+        }
+        return methodTable.orElse(null);
+    }
+
+    @Override
+    public boolean isStatefulSerialization() {
+        if (statefulSerialization == null) {
+            statefulSerialization = Boolean.parseBoolean(attrs.get(STATEFUL_SERIALIZATION_OPTION.getName()));
+        }
+        return statefulSerialization;
+    }
+
     @Override
     public long getLastTime() {
         return lastTime;
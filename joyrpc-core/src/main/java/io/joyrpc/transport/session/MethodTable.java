@@ -0,0 +1,122 @@
+package io.joyrpc.transport.session;
+
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 会话协商的方法表，请求用方法ID代替方法名称，减少传输的数据和服务端的查找
+ */
+public class MethodTable {
+
+    /**
+     * 方法名称的分隔符
+     */
+    protected static final char DELIMITER = ',';
+
+    /**
+     * 按照方法ID排列的方法名称
+     */
+    protected final String[] names;
+    /**
+     * 方法名称到方法ID的映射
+     */
+    protected final Map<String, Integer> ids;
+
+    /**
+     * 构造函数
+     *
+     * @param names 按照方法ID排列的方法名称
+     */
+    public MethodTable(final String[] names) {
+        this.names = names;
+        this.ids = new HashMap<>(names.length * 4 / 3 + 1);
+        for (int i = 0; i < names.length; i++) {
+            ids.put(names[i], i);
+        }
+    }
+
+    /**
+     * 解析协商应答中的方法表
+     *
+     * @param text 文本
+     * @return 方法表
+     */
+    public static MethodTable parse(final String text) {
+        if (text == null || text.isEmpty()) {
+            return null;
+        }
+        int count = 1;
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) == DELIMITER) {
+                count++;
+            }
+        }
+        String[] names = new String[count];
+        int start = 0;
+        int end;
+        for (int i = 0; i < count; i++) {
+            end = text.indexOf(DELIMITER, start);
+            end = end < 0 ? text.length() : end;
+            names[i] = text.substring(start, end);
+            start = end + 1;
+        }
+        return new MethodTable(names);
+    }
+
+    /**
+     * 获取方法ID
+     *
+     * @param name 方法名称
+     * @return 方法ID，不存在返回null
+     */
+    public Integer getId(final String name) {
+        return name == null ? null : ids.get(name);
+    }
+
+    /**
+     * 获取方法名称
+     *
+     * @param id 方法ID
+     * @return 方法名称，不存在返回null
+     */
+    public String getName(final int id) {
+        return id >= 0 && id < names.length ? names[id] : null;
+    }
+
+    public int size() {
+        return names.length;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder(names.length * 16);
+        for (int i = 0; i < names.length; i++) {
+            if (i > 0) {
+                builder.append(DELIMITER);
+            }
+            builder.append(names[i]);
+        }
+        return builder.toString();
+    }
+}
@@ -24,6 +24,7 @@ import io.joyrpc.Invoker;
 import io.joyrpc.codec.checksum.Checksum;
 import io.joyrpc.codec.compression.Compression;
 import io.joyrpc.codec.serialization.Serialization;
+import io.joyrpc.invoker.option.MethodOption;
 import io.joyrpc.protocol.ServerProtocol;
 import io.joyrpc.transport.ChannelTransport;
 import io.joyrpc.util.SystemClock;
@@ -379,6 +380,24 @@ public interface Session {
          * @return 远端应用分组
          */
         String getRemoteAppGroup();
+
+        /**
+         * 获取协商的方法表，没有协商返回null
+         *
+         * @return 方法表
+         */
+        default MethodTable getMethodTable() {
+            return null;
+        }
+
+        /**
+         * 是否协商了有状态的序列化
+         *
+         * @return 有状态的序列化标识
+         */
+        default boolean isStatefulSerialization() {
+            return false;
+        }
     }
 
     /**
@@ -421,6 +440,25 @@ public interface Session {
          */
         ServerProtocol getProtocol();
 
+        /**
+         * 请求取消登记，调用方没有协商取消返回null
+         *
+         * @return 请求取消登记
+         */
+        default Cancellation getCancellation() {
+            return null;
+        }
+
+        /**
+         * 根据协商的方法ID获取方法选项，没有协商返回null
+         *
+         * @param methodId 方法ID
+         * @return 方法选项
+         */
+        default MethodOption getMethodOption(final int methodId) {
+            return null;
+        }
+
     }
 
 
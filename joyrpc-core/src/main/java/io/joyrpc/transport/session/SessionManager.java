@@ -24,6 +24,7 @@ import io.joyrpc.util.SystemClock;
 
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
 
 /**
  * 会话管理器
@@ -97,6 +98,15 @@ public class SessionManager {
         return sessions.remove(sessionId);
     }
 
+    /**
+     * 遍历会话
+     *
+     * @param consumer 消费者
+     */
+    public void forEach(final BiConsumer<Integer, Session> consumer) {
+        sessions.forEach(consumer);
+    }
+
     /**
      * 记录心跳时间
      *
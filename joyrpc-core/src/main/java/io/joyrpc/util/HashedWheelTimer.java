@@ -0,0 +1,436 @@
+package io.joyrpc.util;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import io.joyrpc.util.thread.NamedThreadFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 分片的哈希时间轮定时器。<br/>
+ * 每个分片有独立的时间轮和驱动线程，按照调用线程选择分片，事件循环线程固定落在同一个分片上。
+ * 任务直接加入到时间槽的双向链表中，放弃任务直接从链表中摘除，不需要经过队列中转。
+ */
+public class HashedWheelTimer extends Timer {
+
+    private final static Logger logger = LoggerFactory.getLogger(HashedWheelTimer.class);
+
+    protected static final AtomicIntegerFieldUpdater<Node> STATE_UPDATER =
+            AtomicIntegerFieldUpdater.newUpdater(Node.class, "state");
+
+    /**
+     * 每一跳的时间（纳秒）
+     */
+    protected final long tickNanos;
+    /**
+     * 分片
+     */
+    protected final Shard[] shards;
+    /**
+     * 分片掩码
+     */
+    protected final int shardMask;
+    /**
+     * 分片驱动线程
+     */
+    protected final Thread[] threads;
+    /**
+     * 关闭标识
+     */
+    protected volatile boolean closed;
+
+    /**
+     * 构造函数
+     *
+     * @param name          名称
+     * @param tickTime      每一跳时间（毫秒）
+     * @param ticks         时间轮有几跳，会调整为2的幂
+     * @param shards        分片数，会调整为2的幂
+     * @param workerThreads 工作线程数
+     * @param maxTasks      最大待处理任务
+     */
+    public HashedWheelTimer(final String name, final long tickTime, final int ticks, final int shards,
+                            final int workerThreads, final long maxTasks) {
+        super(name, workerThreads, maxTasks);
+        if (tickTime <= 0) {
+            throw new IllegalArgumentException("tickTime must be greater than 0");
+        } else if (ticks <= 0) {
+            throw new IllegalArgumentException("ticks must be greater than 0");
+        } else if (shards <= 0) {
+            throw new IllegalArgumentException("shards must be greater than 0");
+        }
+        this.tickNanos = TimeUnit.MILLISECONDS.toNanos(tickTime);
+        int shardSize = powerOfTwo(shards);
+        int wheelSize = powerOfTwo(ticks);
+        this.shards = new Shard[shardSize];
+        this.shardMask = shardSize - 1;
+        this.threads = new Thread[shardSize];
+        String prefix = name == null || name.isEmpty() ? "timer" : name;
+        NamedThreadFactory factory = new NamedThreadFactory(prefix + "-tick", true);
+        for (int i = 0; i < shardSize; i++) {
+            this.shards[i] = new Shard(wheelSize);
+            this.threads[i] = factory.newThread(this.shards[i]);
+            this.shards[i].thread = this.threads[i];
+            this.threads[i].start();
+        }
+    }
+
+    /**
+     * 关闭定时器，停止驱动线程和工作线程，未到期的任务不再执行
+     */
+    public void close() {
+        if (!closed) {
+            closed = true;
+            for (Thread thread : threads) {
+                LockSupport.unpark(thread);
+            }
+            workerPool.shutdown();
+        }
+    }
+
+    @Override
+    public Timeout add(final String name, final long time, final Runnable runnable) {
+        return runnable == null ? null : schedule(name, runnable, time - SystemClock.now());
+    }
+
+    @Override
+    public Timeout delay(final String name, final long delay, final Runnable runnable) {
+        return runnable == null ? null : schedule(name, runnable, delay);
+    }
+
+    @Override
+    public Timeout add(final TimeTask task) {
+        if (task == null) {
+            return null;
+        }
+        //名称在需要的时候才获取，避免字符串拼接
+        return schedule(null, task, task instanceof DelayTask ? task.getTime() : task.getTime() - SystemClock.now());
+    }
+
+    /**
+     * 调度任务
+     *
+     * @param name     名称
+     * @param runnable 任务
+     * @param delay    延迟时间（毫秒）
+     * @return 超时对象
+     */
+    protected Timeout schedule(final String name, final Runnable runnable, final long delay) {
+        if (tasks.incrementAndGet() > maxTasks && maxTasks > 0) {
+            tasks.decrementAndGet();
+            throw new RejectedExecutionException("the maximum of pending tasks is " + maxTasks);
+        }
+        Shard shard = shards[(int) Thread.currentThread().getId() & shardMask];
+        Node node = new Node(name, runnable, shard, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(Math.max(delay, 0)));
+        shard.add(node);
+        return node;
+    }
+
+    /**
+     * 执行到期任务
+     *
+     * @param node 任务
+     */
+    protected void execute(final Node node) {
+        try {
+            workerPool.execute(node);
+        } catch (RejectedExecutionException e) {
+            //线程池关闭了，在当前线程执行
+            node.run();
+        }
+    }
+
+    /**
+     * 计算大于等于该值的2的幂
+     *
+     * @param value 值
+     * @return 2的幂
+     */
+    protected static int powerOfTwo(final int value) {
+        int n = -1 >>> Integer.numberOfLeadingZeros(value - 1);
+        return n < 1 ? 1 : (n >= 1 << 30 ? 1 << 30 : n + 1);
+    }
+
+    /**
+     * 时间轮分片
+     */
+    protected class Shard implements Runnable {
+        /**
+         * 时间槽，每个槽是一个双向链表的头节点
+         */
+        protected final Node[] slots;
+        /**
+         * 槽位掩码
+         */
+        protected final int mask;
+        /**
+         * 启动时间（纳秒）
+         */
+        protected final long startTime;
+        /**
+         * 下一个待处理的跳
+         */
+        protected long tick;
+        /**
+         * 时间轮中的任务数
+         */
+        protected int size;
+        /**
+         * 驱动线程
+         */
+        protected Thread thread;
+
+        /**
+         * 构造函数
+         *
+         * @param ticks 时间轮的跳数
+         */
+        public Shard(final int ticks) {
+            this.slots = new Node[ticks];
+            this.mask = ticks - 1;
+            this.startTime = System.nanoTime();
+        }
+
+        /**
+         * 添加任务，在任务到期后的第一跳执行
+         *
+         * @param node 任务
+         */
+        protected synchronized void add(final Node node) {
+            boolean idle = size == 0;
+            if (idle) {
+                //空闲时驱动线程没有推进跳数，直接跳到当前时间
+                tick = Math.max(tick, (System.nanoTime() - startTime) / tickNanos);
+            }
+            long deadline = node.deadline - startTime;
+            long target = deadline <= 0 ? 0 : (deadline + tickNanos - 1) / tickNanos;
+            if (target < tick) {
+                target = tick;
+            }
+            node.rounds = (target - tick) >>> Integer.numberOfTrailingZeros(slots.length);
+            node.slot = (int) (target & mask);
+            Node head = slots[node.slot];
+            node.next = head;
+            if (head != null) {
+                head.prev = node;
+            }
+            slots[node.slot] = node;
+            size++;
+            if (idle) {
+                //唤醒无限期等待的驱动线程
+                LockSupport.unpark(thread);
+            }
+        }
+
+        /**
+         * 移除任务
+         *
+         * @param node 任务
+         */
+        protected synchronized void remove(final Node node) {
+            if (node.slot >= 0) {
+                unlink(node);
+            }
+        }
+
+        /**
+         * 从链表中摘除
+         *
+         * @param node 任务
+         */
+        protected void unlink(final Node node) {
+            if (node.prev != null) {
+                node.prev.next = node.next;
+            } else {
+                slots[node.slot] = node.next;
+            }
+            if (node.next != null) {
+                node.next.prev = node.prev;
+            }
+            node.prev = null;
+            node.next = null;
+            node.slot = -1;
+            size--;
+        }
+
+        /**
+         * 时间轮是否为空
+         *
+         * @return 空标识
+         */
+        protected synchronized boolean isEmpty() {
+            return size == 0;
+        }
+
+        /**
+         * 处理当前跳，摘除到期的任务
+         *
+         * @return 到期的任务，通过next串联
+         */
+        protected synchronized Node expire() {
+            Node expired = null;
+            Node node = slots[(int) (tick & mask)];
+            Node next;
+            while (node != null) {
+                next = node.next;
+                if (node.rounds <= 0) {
+                    unlink(node);
+                    node.next = expired;
+                    expired = node;
+                } else {
+                    node.rounds--;
+                }
+                node = next;
+            }
+            tick++;
+            return expired;
+        }
+
+        @Override
+        public void run() {
+            long deadline;
+            long now;
+            Node expired;
+            Node next;
+            while (!closed && !Shutdown.isShutdown()) {
+                try {
+                    deadline = startTime + tick * tickNanos;
+                    now = System.nanoTime();
+                    if (now < deadline) {
+                        if (isEmpty()) {
+                            //没有任务则无限期等待，添加任务时唤醒，避免空闲时每一跳都唤醒
+                            LockSupport.park(this);
+                        } else {
+                            LockSupport.parkNanos(deadline - now);
+                        }
+                    } else {
+                        expired = expire();
+                        while (expired != null) {
+                            next = expired.next;
+                            expired.next = null;
+                            execute(expired);
+                            expired = next;
+                        }
+                    }
+                } catch (Throwable e) {
+                    logger.error(e.getMessage(), e);
+                }
+            }
+        }
+    }
+
+    /**
+     * 任务节点
+     */
+    protected class Node implements Runnable, Timeout {
+        protected static final int INIT = 0;
+        protected static final int CANCELLED = 1;
+        protected static final int EXPIRED = 2;
+
+        /**
+         * 名称
+         */
+        protected final String name;
+        /**
+         * 任务
+         */
+        protected final Runnable runnable;
+        /**
+         * 分片
+         */
+        protected final Shard shard;
+        /**
+         * 到期时间（纳秒）
+         */
+        protected final long deadline;
+        /**
+         * 剩余圈数
+         */
+        protected long rounds;
+        /**
+         * 所在的槽位，-1表示不在时间轮中
+         */
+        protected int slot = -1;
+        /**
+         * 上一个节点
+         */
+        protected Node prev;
+        /**
+         * 下一个节点
+         */
+        protected Node next;
+        /**
+         * 状态
+         */
+        protected volatile int state = INIT;
+
+        public Node(final String name, final Runnable runnable, final Shard shard, final long deadline) {
+            this.name = name;
+            this.runnable = runnable;
+            this.shard = shard;
+            this.deadline = deadline;
+        }
+
+        @Override
+        public void run() {
+            if (STATE_UPDATER.compareAndSet(this, INIT, EXPIRED)) {
+                try {
+                    runnable.run();
+                } finally {
+                    tasks.decrementAndGet();
+                }
+            }
+        }
+
+        @Override
+        public boolean isExpired() {
+            return state == EXPIRED;
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return state == CANCELLED;
+        }
+
+        @Override
+        public boolean cancel() {
+            if (STATE_UPDATER.compareAndSet(this, INIT, CANCELLED)) {
+                tasks.decrementAndGet();
+                shard.remove(this);
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public String toString() {
+            if (name != null && !name.isEmpty()) {
+                return name;
+            }
+            return runnable instanceof TimeTask ? ((TimeTask) runnable).getName() : super.toString();
+        }
+    }
+}
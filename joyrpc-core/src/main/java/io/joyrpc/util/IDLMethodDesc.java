@@ -37,6 +37,10 @@ public class IDLMethodDesc {
      * 应答类型
      */
     protected IDLType response;
+    /**
+     * 是否是服务端流式方法，最后一个参数为StreamObserver
+     */
+    protected boolean streaming;
 
     /**
      * 构造函数
@@ -45,8 +49,20 @@ public class IDLMethodDesc {
      * @param response 应答包装
      */
     public IDLMethodDesc(IDLType request, IDLType response) {
+        this(request, response, false);
+    }
+
+    /**
+     * 构造函数
+     *
+     * @param request   请求包装
+     * @param response  应答包装，流式方法为单条应答的类型
+     * @param streaming 是否是服务端流式方法
+     */
+    public IDLMethodDesc(IDLType request, IDLType response, boolean streaming) {
         this.request = request;
         this.response = response;
+        this.streaming = streaming;
     }
 
     public IDLType getRequest() {
@@ -57,4 +73,8 @@ public class IDLMethodDesc {
         return response;
     }
 
+    public boolean isStreaming() {
+        return streaming;
+    }
+
 }
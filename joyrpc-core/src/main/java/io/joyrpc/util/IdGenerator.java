@@ -22,6 +22,7 @@ package io.joyrpc.util;
 
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
 import java.util.function.Supplier;
 
 /**
@@ -98,7 +99,7 @@ public interface IdGenerator<M> extends Supplier<M> {
     /**
      * 短整数转换成长整形ID生成器
      */
-    class IntToLongIdGenerator implements IdGenerator<Long> {
+    class IntToLongIdGenerator implements IdGenerator<Long>, LongSupplier {
 
         protected AtomicInteger id = new AtomicInteger(0);
 
@@ -107,6 +108,11 @@ public interface IdGenerator<M> extends Supplier<M> {
             return (long) id.incrementAndGet();
         }
 
+        @Override
+        public long getAsLong() {
+            return id.incrementAndGet();
+        }
+
     }
 
 }
@@ -0,0 +1,505 @@
+package io.joyrpc.util;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.function.BiConsumer;
+
+/**
+ * 不可变的持久化Map，基于哈希数组映射前缀树(HAMT)实现。
+ * <p>
+ * 修改操作返回新的Map，只复制从根到被修改叶子的路径，其余节点结构共享，单次增删的代价是O(log32 n)，
+ * 适合读多写少、需要频繁发布快照的场景。
+ *
+ * @param <K> 键类型
+ * @param <V> 值类型
+ */
+public final class PersistentMap<K, V> {
+
+    /**
+     * 空Map
+     */
+    protected static final PersistentMap<?, ?> EMPTY = new PersistentMap<>(null, 0);
+    /**
+     * 每层使用的哈希位数
+     */
+    protected static final int BITS = 5;
+    /**
+     * 每层的掩码
+     */
+    protected static final int MASK = (1 << BITS) - 1;
+
+    /**
+     * 根节点
+     */
+    protected final Node<K, V> root;
+    /**
+     * 大小
+     */
+    protected final int size;
+
+    protected PersistentMap(final Node<K, V> root, final int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    /**
+     * 获取空Map
+     *
+     * @param <K> 键类型
+     * @param <V> 值类型
+     * @return 空Map
+     */
+    @SuppressWarnings("unchecked")
+    public static <K, V> PersistentMap<K, V> empty() {
+        return (PersistentMap<K, V>) EMPTY;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * 获取值
+     *
+     * @param key 键
+     * @return 值
+     */
+    public V get(final Object key) {
+        return key == null || root == null ? null : root.get(key, hash(key), 0);
+    }
+
+    /**
+     * 是否包含键
+     *
+     * @param key 键
+     * @return 包含标识
+     */
+    public boolean containsKey(final Object key) {
+        return get(key) != null;
+    }
+
+    /**
+     * 添加或修改，不修改原有Map
+     *
+     * @param key   键
+     * @param value 值
+     * @return 新的Map，没有变化则返回当前对象
+     */
+    public PersistentMap<K, V> put(final K key, final V value) {
+        if (key == null || value == null) {
+            throw new NullPointerException("key and value can not be null.");
+        }
+        Change change = new Change();
+        int hash = hash(key);
+        Node<K, V> node = root == null ? new BitmapNode<K, V>(0, new Object[0]).put(key, value, hash, 0, change) :
+                root.put(key, value, hash, 0, change);
+        return node == root ? this : new PersistentMap<>(node, change.added ? size + 1 : size);
+    }
+
+    /**
+     * 删除，不修改原有Map
+     *
+     * @param key 键
+     * @return 新的Map，没有变化则返回当前对象
+     */
+    public PersistentMap<K, V> remove(final Object key) {
+        return remove(key, null, false);
+    }
+
+    /**
+     * 键对应的值相等才删除，不修改原有Map
+     *
+     * @param key   键
+     * @param value 值
+     * @return 新的Map，没有变化则返回当前对象
+     */
+    public PersistentMap<K, V> remove(final Object key, final Object value) {
+        return remove(key, value, true);
+    }
+
+    /**
+     * 删除
+     *
+     * @param key   键
+     * @param value 值
+     * @param match 是否要匹配值
+     * @return 新的Map
+     */
+    protected PersistentMap<K, V> remove(final Object key, final Object value, final boolean match) {
+        if (key == null || root == null) {
+            return this;
+        }
+        Node<K, V> node = root.remove(key, value, match, hash(key), 0);
+        return node == root ? this : (size == 1 ? empty() : new PersistentMap<>(node, size - 1));
+    }
+
+    /**
+     * 遍历
+     *
+     * @param consumer 消费者
+     */
+    public void forEach(final BiConsumer<? super K, ? super V> consumer) {
+        if (root != null) {
+            root.forEach(consumer);
+        }
+    }
+
+    /**
+     * 扰动哈希值，让高位也参与各层的索引计算
+     *
+     * @param key 键
+     * @return 哈希值
+     */
+    protected static int hash(final Object key) {
+        int h = key.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * 修改结果
+     */
+    protected static class Change {
+        /**
+         * 是否新增了键
+         */
+        protected boolean added;
+    }
+
+    /**
+     * 叶子条目
+     *
+     * @param <K> 键类型
+     * @param <V> 值类型
+     */
+    protected static final class Entry<K, V> {
+        protected final int hash;
+        protected final K key;
+        protected final V value;
+
+        protected Entry(final int hash, final K key, final V value) {
+            this.hash = hash;
+            this.key = key;
+            this.value = value;
+        }
+    }
+
+    /**
+     * 节点
+     *
+     * @param <K> 键类型
+     * @param <V> 值类型
+     */
+    protected abstract static class Node<K, V> {
+
+        /**
+         * 获取值
+         *
+         * @param key   键
+         * @param hash  哈希值
+         * @param shift 当前层的位移
+         * @return 值
+         */
+        protected abstract V get(Object key, int hash, int shift);
+
+        /**
+         * 添加或修改
+         *
+         * @param key    键
+         * @param value  值
+         * @param hash   哈希值
+         * @param shift  当前层的位移
+         * @param change 修改结果
+         * @return 新节点，没有变化返回当前节点
+         */
+        protected abstract Node<K, V> put(K key, V value, int hash, int shift, Change change);
+
+        /**
+         * 删除
+         *
+         * @param key   键
+         * @param value 值
+         * @param match 是否要匹配值
+         * @param hash  哈希值
+         * @param shift 当前层的位移
+         * @return 新节点，没有变化返回当前节点，节点为空返回null
+         */
+        protected abstract Node<K, V> remove(Object key, Object value, boolean match, int hash, int shift);
+
+        /**
+         * 只有一个条目时返回该条目，便于上层节点内联
+         *
+         * @return 条目
+         */
+        protected abstract Entry<K, V> single();
+
+        /**
+         * 遍历
+         *
+         * @param consumer 消费者
+         */
+        protected abstract void forEach(BiConsumer<? super K, ? super V> consumer);
+    }
+
+    /**
+     * 位图索引节点，slots中按位图顺序存放条目或子节点
+     *
+     * @param <K> 键类型
+     * @param <V> 值类型
+     */
+    protected static final class BitmapNode<K, V> extends Node<K, V> {
+        protected final int bitmap;
+        protected final Object[] slots;
+
+        protected BitmapNode(final int bitmap, final Object[] slots) {
+            this.bitmap = bitmap;
+            this.slots = slots;
+        }
+
+        /**
+         * 合并两个条目，构造子节点
+         *
+         * @param e1    条目1
+         * @param e2    条目2
+         * @param shift 子节点的位移
+         * @param <K>   键类型
+         * @param <V>   值类型
+         * @return 子节点
+         */
+        @SuppressWarnings("unchecked")
+        protected static <K, V> Node<K, V> merge(final Entry<K, V> e1, final Entry<K, V> e2, final int shift) {
+            if (e1.hash == e2.hash || shift >= 32) {
+                return new CollisionNode<>(e1.hash, new Entry[]{e1, e2});
+            }
+            int i1 = (e1.hash >>> shift) & MASK;
+            int i2 = (e2.hash >>> shift) & MASK;
+            if (i1 == i2) {
+                return new BitmapNode<>(1 << i1, new Object[]{merge(e1, e2, shift + BITS)});
+            }
+            return i1 < i2 ? new BitmapNode<>((1 << i1) | (1 << i2), new Object[]{e1, e2}) :
+                    new BitmapNode<>((1 << i1) | (1 << i2), new Object[]{e2, e1});
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        protected V get(final Object key, final int hash, final int shift) {
+            int bit = 1 << ((hash >>> shift) & MASK);
+            if ((bitmap & bit) == 0) {
+                return null;
+            }
+            Object slot = slots[Integer.bitCount(bitmap & (bit - 1))];
+            if (slot instanceof Entry) {
+                Entry<K, V> entry = (Entry<K, V>) slot;
+                return entry.hash == hash && entry.key.equals(key) ? entry.value : null;
+            }
+            return ((Node<K, V>) slot).get(key, hash, shift + BITS);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        protected Node<K, V> put(final K key, final V value, final int hash, final int shift, final Change change) {
+            int bit = 1 << ((hash >>> shift) & MASK);
+            int index = Integer.bitCount(bitmap & (bit - 1));
+            if ((bitmap & bit) == 0) {
+                //新增条目
+                Object[] copy = new Object[slots.length + 1];
+                System.arraycopy(slots, 0, copy, 0, index);
+                copy[index] = new Entry<>(hash, key, value);
+                System.arraycopy(slots, index, copy, index + 1, slots.length - index);
+                change.added = true;
+                return new BitmapNode<>(bitmap | bit, copy);
+            }
+            Object slot = slots[index];
+            Object target;
+            if (slot instanceof Entry) {
+                Entry<K, V> entry = (Entry<K, V>) slot;
+                if (entry.hash == hash && entry.key.equals(key)) {
+                    if (entry.value == value) {
+                        return this;
+                    }
+                    target = new Entry<>(hash, key, value);
+                } else {
+                    change.added = true;
+                    target = merge(entry, new Entry<>(hash, key, value), shift + BITS);
+                }
+            } else {
+                Node<K, V> node = (Node<K, V>) slot;
+                target = node.put(key, value, hash, shift + BITS, change);
+                if (target == node) {
+                    return this;
+                }
+            }
+            Object[] copy = slots.clone();
+            copy[index] = target;
+            return new BitmapNode<>(bitmap, copy);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        protected Node<K, V> remove(final Object key, final Object value, final boolean match, final int hash, final int shift) {
+            int bit = 1 << ((hash >>> shift) & MASK);
+            if ((bitmap & bit) == 0) {
+                return this;
+            }
+            int index = Integer.bitCount(bitmap & (bit - 1));
+            Object slot = slots[index];
+            Object target;
+            if (slot instanceof Entry) {
+                Entry<K, V> entry = (Entry<K, V>) slot;
+                if (entry.hash != hash || !entry.key.equals(key) || match && !Objects.equals(entry.value, value)) {
+                    return this;
+                }
+                target = null;
+            } else {
+                Node<K, V> node = (Node<K, V>) slot;
+                Node<K, V> child = node.remove(key, value, match, hash, shift + BITS);
+                if (child == node) {
+                    return this;
+                }
+                //子节点只剩一个条目，上提到当前节点
+                Entry<K, V> single = child == null ? null : child.single();
+                target = single != null ? single : child;
+            }
+            if (target != null) {
+                Object[] copy = slots.clone();
+                copy[index] = target;
+                return new BitmapNode<>(bitmap, copy);
+            } else if (slots.length == 1) {
+                return null;
+            }
+            Object[] copy = new Object[slots.length - 1];
+            System.arraycopy(slots, 0, copy, 0, index);
+            System.arraycopy(slots, index + 1, copy, index, slots.length - index - 1);
+            return new BitmapNode<>(bitmap & ~bit, copy);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        protected Entry<K, V> single() {
+            return slots.length == 1 && slots[0] instanceof Entry ? (Entry<K, V>) slots[0] : null;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        protected void forEach(final BiConsumer<? super K, ? super V> consumer) {
+            for (Object slot : slots) {
+                if (slot instanceof Entry) {
+                    Entry<K, V> entry = (Entry<K, V>) slot;
+                    consumer.accept(entry.key, entry.value);
+                } else {
+                    ((Node<K, V>) slot).forEach(consumer);
+                }
+            }
+        }
+    }
+
+    /**
+     * 哈希冲突节点，存放哈希值完全相同的条目
+     *
+     * @param <K> 键类型
+     * @param <V> 值类型
+     */
+    protected static final class CollisionNode<K, V> extends Node<K, V> {
+        protected final int hash;
+        protected final Entry<K, V>[] entries;
+
+        protected CollisionNode(final int hash, final Entry<K, V>[] entries) {
+            this.hash = hash;
+            this.entries = entries;
+        }
+
+        /**
+         * 查找键的位置
+         *
+         * @param key 键
+         * @return 位置，不存在返回-1
+         */
+        protected int indexOf(final Object key) {
+            for (int i = 0; i < entries.length; i++) {
+                if (entries[i].key.equals(key)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        @Override
+        protected V get(final Object key, final int hash, final int shift) {
+            int index = hash == this.hash ? indexOf(key) : -1;
+            return index < 0 ? null : entries[index].value;
+        }
+
+        @Override
+        protected Node<K, V> put(final K key, final V value, final int hash, final int shift, final Change change) {
+            if (hash != this.hash) {
+                //哈希值不同，在当前层拆分成位图节点
+                return new BitmapNode<K, V>(1 << ((this.hash >>> shift) & MASK), new Object[]{this})
+                        .put(key, value, hash, shift, change);
+            }
+            int index = indexOf(key);
+            Entry<K, V>[] copy;
+            if (index >= 0) {
+                if (entries[index].value == value) {
+                    return this;
+                }
+                copy = entries.clone();
+            } else {
+                index = entries.length;
+                copy = Arrays.copyOf(entries, index + 1);
+                change.added = true;
+            }
+            copy[index] = new Entry<>(hash, key, value);
+            return new CollisionNode<>(hash, copy);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        protected Node<K, V> remove(final Object key, final Object value, final boolean match, final int hash, final int shift) {
+            int index = hash == this.hash ? indexOf(key) : -1;
+            if (index < 0 || match && !Objects.equals(entries[index].value, value)) {
+                return this;
+            } else if (entries.length == 1) {
+                return null;
+            }
+            Entry<K, V>[] copy = new Entry[entries.length - 1];
+            System.arraycopy(entries, 0, copy, 0, index);
+            System.arraycopy(entries, index + 1, copy, index, entries.length - index - 1);
+            return new CollisionNode<>(hash, copy);
+        }
+
+        @Override
+        protected Entry<K, V> single() {
+            return entries.length == 1 ? entries[0] : null;
+        }
+
+        @Override
+        protected void forEach(final BiConsumer<? super K, ? super V> consumer) {
+            for (Entry<K, V> entry : entries) {
+                consumer.accept(entry.key, entry.value);
+            }
+        }
+    }
+}
@@ -36,7 +36,7 @@ import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
 
 import static io.joyrpc.Plugin.ENVIRONMENT;
-import static io.joyrpc.constants.Constants.TIMER_THREADS;
+import static io.joyrpc.constants.Constants.*;
 
 /**
  * 时间轮调度器
@@ -49,6 +49,10 @@ public class Timer {
      * 默认定时器
      */
     protected static volatile Timer timer;
+    /**
+     * 请求超时定时器
+     */
+    protected static volatile Timer requestTimer;
 
     /**
      * 延迟队列
@@ -175,6 +179,23 @@ public class Timer {
         });
     }
 
+    /**
+     * 构造函数，只初始化工作线程池，由子类实现调度
+     *
+     * @param name          名称
+     * @param workerThreads 工作线程数
+     * @param maxTasks      最大待处理任务
+     */
+    protected Timer(final String name, final int workerThreads, final long maxTasks) {
+        if (workerThreads <= 0) {
+            throw new IllegalArgumentException("workerThreads must be greater than 0");
+        }
+        this.maxTasks = maxTasks;
+        this.afterRun = o -> tasks.decrementAndGet();
+        String prefix = name == null || name.isEmpty() ? "timer" : name;
+        this.workerPool = Executors.newFixedThreadPool(workerThreads, new NamedThreadFactory(prefix + "-worker", true));
+    }
+
     /**
      * 获取默认的定时器
      *
@@ -193,6 +214,35 @@ public class Timer {
         return timer;
     }
 
+    /**
+     * 获取请求超时定时器，用于请求超时、心跳等对精度敏感的任务。<br/>
+     * 默认复用默认定时器，可以通过全局参数timer.request.type=hashed开启毫秒级的分片时间轮，
+     * 该模式每个分片会常驻一个驱动线程
+     *
+     * @return 定时器
+     */
+    public static Timer requestTimer() {
+        if (requestTimer == null) {
+            synchronized (Timer.class) {
+                if (requestTimer == null) {
+                    Parametric parametric = new MapParametric<>(GlobalContext.getContext());
+                    if (!"hashed".equalsIgnoreCase(parametric.getString(TIMER_REQUEST_TYPE, "wheel"))) {
+                        requestTimer = timer();
+                    } else {
+                        int cpus = ENVIRONMENT.get().cpuCores();
+                        requestTimer = new HashedWheelTimer("request-timer",
+                                parametric.getPositive(TIMER_REQUEST_TICK, 1L),
+                                512,
+                                parametric.getPositive(TIMER_REQUEST_SHARDS, Math.min(cpus, 4)),
+                                parametric.getPositive(TIMER_REQUEST_THREADS, Math.min(cpus * 2 + 2, 10)),
+                                0);
+                    }
+                }
+            }
+        }
+        return requestTimer;
+    }
+
     /**
      * 放弃任务
      */
@@ -25,6 +25,7 @@ import io.joyrpc.permission.BlackWhiteList;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
 
 public class Hessian2BWLInput extends Hessian2Input {
 
@@ -47,6 +48,12 @@ public class Hessian2BWLInput extends Hessian2Input {
         this.inputStream = is;
     }
 
+    @Override
+    public void init(final InputStream is, final ArrayList<?> classDefs, final ArrayList<String> types) {
+        super.init(is, classDefs, types);
+        this.inputStream = is;
+    }
+
     @Override
     protected void validateType(final Class<?> type) throws IOException {
         if (blackWhiteList != null && !blackWhiteList.isValid(type)) {
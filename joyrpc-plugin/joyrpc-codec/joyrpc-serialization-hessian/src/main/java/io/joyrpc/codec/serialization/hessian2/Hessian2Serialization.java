@@ -25,14 +25,20 @@ import io.joyrpc.com.caucho.hessian.io.AutowiredObjectDeserializer;
 import io.joyrpc.com.caucho.hessian.io.AutowiredObjectSerializer;
 import io.joyrpc.com.caucho.hessian.io.Hessian2Output;
 import io.joyrpc.com.caucho.hessian.io.SerializerFactory;
+import io.joyrpc.com.caucho.hessian.util.IdentityIntMap;
+import io.joyrpc.exception.SerializerException;
 import io.joyrpc.extension.Extension;
 import io.joyrpc.permission.BlackList;
 import io.joyrpc.permission.SerializerBlackWhiteList;
 import io.joyrpc.util.Resource.Definition;
 
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 
 /**
  * hessian2序列化协议
@@ -63,7 +69,7 @@ public class Hessian2Serialization implements Serialization, BlackList.BlackList
     /**
      * Hessian2序列化和反序列化实现
      */
-    protected static final class Hessian2Serializer extends AbstractSerializer {
+    protected static final class Hessian2Serializer extends AbstractSerializer implements StatefulSerializer {
 
         protected static final SerializerBlackWhiteList BLACK_WHITE_LIST = new SerializerBlackWhiteList(
                 new Definition[]{
@@ -117,5 +123,101 @@ public class Hessian2Serialization implements Serialization, BlackList.BlackList
             input.init(is);
             return new Hessian2Reader(input);
         }
+
+        @Override
+        public State createWriteState() {
+            return new WriteState();
+        }
+
+        @Override
+        public State createReadState() {
+            return new ReadState();
+        }
+
+        @Override
+        public <T> void serialize(final OutputStream os, final T object, final State state) throws SerializerException {
+            WriteState writeState = (WriteState) state;
+            Hessian2Output output = HESSIAN_OUTPUT.get();
+            output.init(os, writeState.classRefs, writeState.typeRefs);
+            try {
+                write(new Hessian2Writer(output), object);
+            } catch (IOException e) {
+                throw new SerializerException("Error occurred while serializing class " + object.getClass().getName(), e);
+            }
+        }
+
+        @Override
+        public <T> T deserialize(final InputStream is, final Type type, final State state) throws SerializerException {
+            if (!(type instanceof Class)) {
+                throw new SerializerException("type must be a Class " + type);
+            }
+            ReadState readState = (ReadState) state;
+            Hessian2BWLInput input = HESSIAN_INPUT.get();
+            input.init(is, readState.classDefs, readState.types);
+            try {
+                return read(new Hessian2Reader(input), (Class<T>) type);
+            } catch (Exception e) {
+                throw new SerializerException("Error occurred while deserializing class " + type, e);
+            }
+        }
+    }
+
+    /**
+     * 编码端的类定义表和类型表
+     */
+    protected static class WriteState implements StatefulSerializer.State {
+        /**
+         * 引用表的最大数量，超过后清空重建
+         */
+        protected static final int MAX_SIZE = 4096;
+        /**
+         * 类定义表
+         */
+        protected final IdentityIntMap classRefs = new IdentityIntMap(256);
+        /**
+         * 类型表
+         */
+        protected final HashMap<String, Integer> typeRefs = new HashMap<>();
+
+        @Override
+        public int size() {
+            return classRefs.size() + typeRefs.size();
+        }
+
+        @Override
+        public void clear() {
+            classRefs.clear();
+            typeRefs.clear();
+        }
+
+        @Override
+        public boolean isFull() {
+            return size() >= MAX_SIZE;
+        }
+    }
+
+    /**
+     * 解码端的类定义表和类型表
+     */
+    protected static class ReadState implements StatefulSerializer.State {
+        /**
+         * 类定义表
+         */
+        protected final ArrayList<Object> classDefs = new ArrayList<>();
+        /**
+         * 类型表
+         */
+        protected final ArrayList<String> types = new ArrayList<>();
+
+        @Override
+        public int size() {
+            return classDefs.size() + types.size();
+        }
+
+        @Override
+        public void clear() {
+            classDefs.clear();
+            types.clear();
+        }
     }
 }
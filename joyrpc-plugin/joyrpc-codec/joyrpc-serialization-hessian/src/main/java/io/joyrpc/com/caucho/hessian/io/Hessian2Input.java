@@ -99,6 +99,9 @@ public class Hessian2Input
     protected ArrayList<String> _types
             = new ArrayList<String>();
 
+    private final ArrayList<ObjectDefinition> _localClassDefs = _classDefs;
+    private final ArrayList<String> _localTypes = _types;
+
     // the underlying input stream
     private InputStream _is;
     private final byte[] _buffer = new byte[SIZE];
@@ -209,10 +212,28 @@ public class Hessian2Input
         }
 
         _is = is;
+        _classDefs = _localClassDefs;
+        _types = _localTypes;
 
+        discardBuffer();
         reset();
     }
 
+    /**
+     * 使用外部的类定义表和类型表初始化，这两个表在多次输入之间复用，不会被重置
+     *
+     * @param is        输入流
+     * @param classDefs 类定义表
+     * @param types     类型表
+     */
+    @SuppressWarnings("unchecked")
+    public void init(InputStream is, ArrayList<?> classDefs, ArrayList<String> types) {
+        _classDefs = (ArrayList<ObjectDefinition>) classDefs;
+        _types = types;
+
+        initPacket(is);
+    }
+
     public void initPacket(InputStream is) {
         if (_dIs != null) {
             _dIs.initPacket(is);
@@ -221,9 +242,20 @@ public class Hessian2Input
 
         _is = is;
 
+        discardBuffer();
         resetReferences();
     }
 
+    /**
+     * 丢弃上次读取残留的数据，解析失败时缓冲区中可能还有未读完的字节，线程复用时会污染下一次读取
+     */
+    private void discardBuffer() {
+        _offset = 0;
+        _length = 0;
+        _isLastChunk = false;
+        _chunkLength = 0;
+    }
+
     /**
      * Starts reading the call
      *
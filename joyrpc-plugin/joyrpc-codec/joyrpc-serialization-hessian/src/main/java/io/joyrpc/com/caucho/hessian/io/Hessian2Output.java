@@ -92,9 +92,12 @@ public class Hessian2Output
     private boolean _isCloseStreamOnClose;
 
     // map of classes
-    private final IdentityIntMap _classRefs
+    private final IdentityIntMap _localClassRefs
             = new IdentityIntMap(256);
 
+    // map of classes, may be shared by the connection
+    private IdentityIntMap _classRefs = _localClassRefs;
+
     // map of types
     private HashMap<String, Integer> _typeRefs;
 
@@ -126,11 +129,30 @@ public class Hessian2Output
 
     @Override
     public void init(OutputStream os) {
+        _classRefs = _localClassRefs;
         reset();
 
         _os = os;
     }
 
+    /**
+     * 使用外部的类定义表和类型表初始化，这两个表在多次输出之间复用，不会被重置
+     *
+     * @param os        输出流
+     * @param classRefs 类定义表
+     * @param typeRefs  类型表
+     */
+    public void init(OutputStream os, IdentityIntMap classRefs, HashMap<String, Integer> typeRefs) {
+        resetReferences();
+
+        _classRefs = classRefs;
+        _typeRefs = typeRefs;
+        _offset = 0;
+        _isPacket = false;
+        _isUnshared = false;
+        _os = os;
+    }
+
     public void initPacket(OutputStream os) {
         resetReferences();
 
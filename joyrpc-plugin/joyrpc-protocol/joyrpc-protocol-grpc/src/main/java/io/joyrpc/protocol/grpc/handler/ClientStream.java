@@ -0,0 +1,106 @@
+package io.joyrpc.protocol.grpc.handler;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+
+import io.joyrpc.StreamObserver;
+import io.joyrpc.util.IDLType;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * grpc客户端调用的应答流，按数据帧增量拆分应答消息。
+ * <p>
+ * 普通调用取第一条完整消息作为应答；服务端流式调用把每条消息推送给观察者，流结束时通知观察者。
+ */
+public class ClientStream {
+
+    /**
+     * 应答类型
+     */
+    protected final IDLType type;
+    /**
+     * 流式应答观察者，普通调用为null
+     */
+    protected final StreamObserver<Object> observer;
+    /**
+     * 消息读取器
+     */
+    protected final MessageReader reader;
+    /**
+     * 是否已经结束
+     */
+    protected final AtomicBoolean closed = new AtomicBoolean(false);
+
+    public ClientStream(final IDLType type, final StreamObserver<Object> observer, final int maxSize) {
+        this.type = type;
+        this.observer = observer;
+        this.reader = new MessageReader(maxSize);
+    }
+
+    public IDLType getType() {
+        return type;
+    }
+
+    public MessageReader getReader() {
+        return reader;
+    }
+
+    /**
+     * 是否是服务端流式调用
+     *
+     * @return 流式调用标识
+     */
+    public boolean isStreaming() {
+        return observer != null;
+    }
+
+    /**
+     * 收到一条应答
+     *
+     * @param value 应答
+     */
+    public void onNext(final Object value) {
+        if (observer != null && !closed.get()) {
+            observer.onNext(value);
+        }
+    }
+
+    /**
+     * 流异常结束，只通知一次
+     *
+     * @param throwable 异常
+     */
+    public void onError(final Throwable throwable) {
+        if (observer != null && closed.compareAndSet(false, true)) {
+            observer.onError(throwable);
+        }
+    }
+
+    /**
+     * 流正常结束，只通知一次
+     */
+    public void onCompleted() {
+        if (observer != null && closed.compareAndSet(false, true)) {
+            observer.onCompleted();
+        }
+    }
+}
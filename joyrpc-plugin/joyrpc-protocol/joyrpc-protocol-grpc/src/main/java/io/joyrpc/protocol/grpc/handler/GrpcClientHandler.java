@@ -23,8 +23,9 @@ package io.joyrpc.protocol.grpc.handler;
 import io.grpc.Status;
 import io.grpc.Status.Code;
 import io.grpc.internal.GrpcUtil;
+import io.joyrpc.StreamObserver;
 import io.joyrpc.codec.UnsafeByteArrayInputStream;
-import io.joyrpc.codec.UnsafeByteArrayOutputStream;
+import io.joyrpc.codec.compression.AdaptiveCompressOutputStream;
 import io.joyrpc.codec.compression.Compression;
 import io.joyrpc.codec.serialization.Serialization;
 import io.joyrpc.context.GlobalContext;
@@ -34,6 +35,7 @@ import io.joyrpc.protocol.MsgType;
 import io.joyrpc.protocol.Protocol;
 import io.joyrpc.protocol.grpc.exception.GrpcBizException;
 import io.joyrpc.protocol.message.*;
+import io.joyrpc.transport.buffer.ChannelBuffer;
 import io.joyrpc.transport.channel.*;
 import io.joyrpc.transport.http.HttpMethod;
 import io.joyrpc.transport.http2.DefaultHttp2Headers;
@@ -110,70 +112,120 @@ public class GrpcClientHandler implements ChannelOperator {
     }
 
     /**
-     * 转换grpc应答
+     * 转换grpc应答，按数据帧增量拆分消息
      *
      * @param channel 通道
      * @param message 消息
-     * @return 应答消息
+     * @return 应答消息，消息不完整或流式调用未结束返回null
      */
     protected Object input(final Channel channel, final Http2ResponseMessage message) throws IOException {
-        if (message.getStreamId() <= 0 || message.content() == null) {
+        if (message.getStreamId() <= 0) {
+            return null;
+        }
+        RequestFuture<Long, Message> future = channel.getFutureManager().get(message.getMsgId());
+        if (future == null || !(future.getAttr() instanceof ClientStream)) {
+            //已经超时或者已经应答
             return null;
         }
+        ClientStream stream = (ClientStream) future.getAttr();
+        MessageReader reader = stream.getReader();
+        Http2Headers headers = message.headers();
+        Throwable error = getError(headers);
+        if (error == null && message.content() != null) {
+            reader.write(message.content());
+            byte[] data;
+            while ((data = reader.read()) != null) {
+                try {
+                    Object response = decode(data, headers, stream.getType(), message.getMsgId());
+                    if (!stream.isStreaming()) {
+                        //普通调用，第一条完整消息即为应答
+                        return build(message, new ResponsePayload(response));
+                    }
+                    stream.onNext(response);
+                } catch (Throwable e) {
+                    error = e;
+                    break;
+                }
+            }
+        }
+        if (error == null) {
+            error = getError(message.endHeaders());
+        }
+        if (error != null) {
+            stream.onError(error);
+            return build(message, new ResponsePayload(error));
+        } else if (message.isEnd()) {
+            if (reader.hasRemaining()) {
+                error = new GrpcBizException(String.format("response data is not full. id=%d", message.getMsgId()));
+                stream.onError(error);
+                return build(message, new ResponsePayload(error));
+            }
+            stream.onCompleted();
+            return build(message, new ResponsePayload(null));
+        }
+        return null;
+    }
 
+    /**
+     * 构建应答消息
+     *
+     * @param message 消息
+     * @param payload 应答
+     * @return 应答消息
+     */
+    protected ResponseMessage<ResponsePayload> build(final Http2ResponseMessage message, final ResponsePayload payload) {
         MessageHeader header = new MessageHeader(serialization.getTypeId(), BizResp.getType(), (byte) Protocol.GRPC);
         header.setMsgId(message.getMsgId());
         header.addAttribute(STREAM_ID.getNum(), message.getStreamId());
-        ResponsePayload payload;
-        Http2Headers headers = message.headers();
+        return new ResponseMessage<>(header, payload);
+    }
+
+    /**
+     * 根据头部获取异常
+     *
+     * @param headers 开始头或结束头
+     * @return 异常，正常返回null
+     */
+    protected Throwable getError(final Http2Headers headers) {
+        if (headers == null) {
+            return null;
+        }
         Object value = headers.get(GRPC_STATUS_KEY);
-        Object httpStatus = null;
-        int grpcStatus = -1;
         if (value == null) {
-            httpStatus = headers.get(STATUS.value());
-            if (HTTP_OK.equals(httpStatus)) {
-                grpcStatus = GRPC_OK;
-            }
-        } else {
-            grpcStatus = Integer.parseInt(value.toString());
+            Object httpStatus = headers.get(STATUS.value());
+            return httpStatus == null || HTTP_OK.equals(httpStatus.toString()) ? null :
+                    new GrpcBizException(String.format("Http2 error code %s", httpStatus));
         }
+        int grpcStatus = Integer.parseInt(value.toString());
         if (grpcStatus == GRPC_OK) {
-            RequestFuture<Long, Message> future = channel.getFutureManager().get(message.getMsgId());
-            if (future != null) {
-                payload = decodePayload(message, (IDLType) future.getAttr());
-            } else {
-                payload = new ResponsePayload(new GrpcBizException(String.format("request is timeout. id=%d", message.getMsgId())));
-            }
-        } else if (grpcStatus > 0) {
-            Status status = Status.fromCodeValue(grpcStatus);
-            String errMsg = String.format("%s [%d]: %s", status.getCode().name(), grpcStatus, headers.get(GRPC_MESSAGE_KEY));
-            payload = new ResponsePayload(new GrpcBizException(errMsg));
-        } else {
-            payload = new ResponsePayload(new GrpcBizException(String.format("Http2 error code %s", httpStatus)));
+            return null;
         }
-        return new ResponseMessage<>(header, payload);
+        Status status = Status.fromCodeValue(grpcStatus);
+        return new GrpcBizException(String.format("%s [%d]: %s", status.getCode().name(), grpcStatus, headers.get(GRPC_MESSAGE_KEY)));
     }
 
     /**
-     * 解析应答
+     * 解析一条应答消息
      *
-     * @param message 消息
+     * @param content 带5位前缀的消息
+     * @param headers 开始头
      * @param wrapper 返回类型
+     * @param msgId   消息ID
      * @return 应答
      * @throws IOException
      */
-    protected ResponsePayload decodePayload(final Http2ResponseMessage message, final IDLType wrapper) throws IOException {
-        Http2Headers headers = message.headers();
-        InputStream in = new UnsafeByteArrayInputStream(message.content());
+    protected Object decode(final byte[] content, final Http2Headers headers, final IDLType wrapper, final long msgId) throws IOException {
+        InputStream in = new UnsafeByteArrayInputStream(content);
         //读压缩位标识
         int isCompression = in.read();
         //读长度共4位
         if (in.skip(4) < 4) {
-            throw new IOException(String.format("request data is not full. id=%d", message.getMsgId()));
+            throw new IOException(String.format("request data is not full. id=%d", msgId));
         }
         //解压处理
-        if (isCompression > 0) {
-            Compression compression = COMPRESSION.get(split((String) headers.get(GrpcUtil.MESSAGE_ACCEPT_ENCODING), SEMICOLON_COMMA_WHITESPACE));
+        if (isCompression > 0 && headers != null) {
+            Object encoding = headers.get(GrpcUtil.MESSAGE_ENCODING);
+            Compression compression = COMPRESSION.get(split(encoding == null ? null : encoding.toString(), SEMICOLON_COMMA_WHITESPACE));
             if (compression != null) {
                 in = compression.decompress(in);
             }
@@ -185,7 +237,7 @@ public class GrpcClientHandler implements ChannelOperator {
             Object[] parameters = wrapper.getConversion().getToParameter().apply(response);
             response = parameters[0];
         }
-        return new ResponsePayload(response);
+        return response;
     }
 
     /**
@@ -208,45 +260,59 @@ public class GrpcClientHandler implements ChannelOperator {
         IDLType type = methodDesc.getResponse();
         //包装payload
         Object payLoad = wrapPayload(invocation, methodDesc);
-        //将返回值类型放到 future 中
-        FutureManager<Long, Message> futureManager = channel.getFutureManager();
+        //将应答流放到 future 中
+        LongFutureManager<Message> futureManager = channel.getFutureManager();
         RequestFuture<Long, Message> future = futureManager.get(message.getMsgId());
-        future.setAttr(type != null ? type : new IDLType(invocation.getMethod().getReturnType(), false));
+        StreamObserver<Object> observer = null;
+        if (methodDesc.isStreaming()) {
+            Object[] args = invocation.getArgs();
+            observer = (StreamObserver<Object>) args[args.length - 1];
+        }
+        ClientStream stream = new ClientStream(type != null ? type : new IDLType(invocation.getMethod().getReturnType(), false),
+                observer, channel.getPayloadSize());
+        future.setAttr(stream);
+        if (observer != null) {
+            //超时或连接断开，通知观察者
+            future.whenComplete((v, e) -> {
+                if (e != null) {
+                    stream.onError(e);
+                }
+            });
+        }
 
         byte compressType = message.getHeader().getCompression();
-        //设置content
-        UnsafeByteArrayOutputStream baos = new UnsafeByteArrayOutputStream();
-        //是否压缩
-        baos.write(0);
-        //长度(占位)
-        baos.write(new byte[]{0, 0, 0, 0}, 0, 4);
-        //序列化
-        if (payLoad != null) {
-            serialization.getSerializer().serialize(baos, payLoad);
-        }
-        //获取 content 字节数组
-        byte[] content = baos.toByteArray();
-        //压缩处理
-        if (content.length > 1024 && compressType > 0) {
-            Compression compression = COMPRESSION_SELECTOR.select(compressType);
-            if (compression != null) {
-                //复用内存缓冲区
-                baos.reset();
-                baos.write(new byte[]{1, 0, 0, 0, 0});
-                content = compression.compress(baos, content, 5, content.length - 5);
-                headers.set(GrpcUtil.MESSAGE_ENCODING, compression.getTypeName());
+        Compression compression = compressType > 0 ? COMPRESSION_SELECTOR.select(compressType) : null;
+        //直接序列化到通道分配的缓冲区，写出时交由网络层释放
+        ChannelBuffer buffer = channel.buffer();
+        try {
+            int start = buffer.writerIndex();
+            //是否压缩和长度占位
+            buffer.writeByte(0);
+            buffer.writeInt(0);
+            if (payLoad != null) {
+                if (compression == null) {
+                    serialization.getSerializer().serialize(buffer.outputStream(), payLoad);
+                } else {
+                    //超过1K才压缩
+                    AdaptiveCompressOutputStream acos = new AdaptiveCompressOutputStream(buffer, compression, 1024);
+                    serialization.getSerializer().serialize(acos, payLoad);
+                    acos.finish();
+                    if (acos.isCompressed()) {
+                        buffer.setByte(start, 1);
+                        headers.set(GrpcUtil.MESSAGE_ENCODING, compression.getTypeName());
+                    }
+                }
             }
+            //设置长度
+            buffer.setInt(start + 1, buffer.writerIndex() - start - 5);
+        } catch (Throwable e) {
+            buffer.release();
+            throw e;
         }
-        //设置长度
-        int length = content.length - 5;
-        content[1] = (byte) (length >>> 24);
-        content[2] = (byte) (length >>> 16);
-        content[3] = (byte) (length >>> 8);
-        content[4] = (byte) length;
         //streamId会在后续的处理器中设置
         //Stream IDs on the client MUST start at 1 and increment by 2 sequentially, such as 1, 3, 5, 7, etc.
         //Stream IDs on the server MUST start at 2 and increment by 2 sequentially, such as 2, 4, 6, 8, etc.
-        return new DefaultHttp2RequestMessage(0, message.getMsgId(), headers, content, null, true);
+        return new DefaultHttp2RequestMessage(0, message.getMsgId(), headers, buffer, null, true);
     }
 
     /**
@@ -307,7 +373,10 @@ public class GrpcClientHandler implements ChannelOperator {
         Object payLoad;
         Object[] args = invocation.getArgs();
         IDLType wrapper = methodDesc.getRequest();
-        if (wrapper == null) {
+        if (methodDesc.isStreaming()) {
+            //流式方法，最后一个参数是应答观察者
+            payLoad = wrapper == null ? null : args[0];
+        } else if (wrapper == null) {
             //不需要转换
             payLoad = (args == null || args.length == 0) ? null : args[0];
         } else if (wrapper.isWrapper()) {
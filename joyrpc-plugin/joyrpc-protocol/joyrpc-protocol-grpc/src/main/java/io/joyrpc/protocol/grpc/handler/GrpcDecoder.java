@@ -127,13 +127,16 @@ public class GrpcDecoder extends AbstractHttpDecoder {
             //反序列化
             Object target = serializer.deserialize(compression == null ? in : compression.decompress(in), wrapper.getClazz());
             //isWrapper为true，为包装对象，遍历每个field，逐个取值赋值给args数组，否则，直接赋值args[0]
-            if (wrapper.isWrapper()) {
+            if (methodDesc.isStreaming()) {
+                //流式方法，最后一个参数StreamObserver由处理器设置
+                args = new Object[]{target, null};
+            } else if (wrapper.isWrapper()) {
                 args = wrapper.getConversion().getToParameter().apply(target);
             } else {
                 args = new Object[]{target};
             }
         } else {
-            args = new Object[0];
+            args = methodDesc.isStreaming() ? new Object[1] : new Object[0];
         }
         invocation.setArgs(args);
     }
@@ -21,7 +21,7 @@ package io.joyrpc.protocol.grpc.handler;
  */
 
 import io.grpc.internal.GrpcUtil;
-import io.joyrpc.codec.UnsafeByteArrayOutputStream;
+import io.joyrpc.codec.compression.AdaptiveCompressOutputStream;
 import io.joyrpc.codec.compression.Compression;
 import io.joyrpc.codec.serialization.Serialization;
 import io.joyrpc.constants.Constants;
@@ -36,10 +36,13 @@ import io.joyrpc.protocol.Protocol;
 import io.joyrpc.protocol.grpc.HeaderMapping;
 import io.joyrpc.protocol.grpc.Headers;
 import io.joyrpc.protocol.grpc.message.GrpcResponseMessage;
+import io.joyrpc.protocol.grpc.message.GrpcStreamMessage;
 import io.joyrpc.protocol.message.Invocation;
 import io.joyrpc.protocol.message.MessageHeader;
 import io.joyrpc.protocol.message.RequestMessage;
 import io.joyrpc.protocol.message.ResponsePayload;
+import io.joyrpc.transport.ChannelTransport;
+import io.joyrpc.transport.buffer.ChannelBuffer;
 import io.joyrpc.transport.channel.Channel;
 import io.joyrpc.transport.channel.ChannelContext;
 import io.joyrpc.transport.channel.ChannelOperator;
@@ -59,6 +62,8 @@ import java.util.function.Supplier;
 
 import static io.joyrpc.Plugin.COMPRESSION;
 import static io.joyrpc.Plugin.SERIALIZATION_SELECTOR;
+import static io.joyrpc.constants.Constants.GRPC_STREAM_CAPACITY_OPTION;
+import static io.joyrpc.constants.Constants.GRPC_STREAM_WINDOW_OPTION;
 import static io.joyrpc.protocol.grpc.HeaderMapping.ACCEPT_ENCODING;
 import static io.joyrpc.util.StringUtils.SEMICOLON_COMMA_WHITESPACE;
 import static io.joyrpc.util.StringUtils.split;
@@ -80,7 +85,10 @@ public class GrpcServerHandler implements ChannelOperator {
         if (message instanceof Http2RequestMessage) {
             Http2RequestMessage request = (Http2RequestMessage) message;
             try {
-                ctx.fireChannelRead(input(request, ctx.getChannel(), SystemClock.now()));
+                RequestMessage<Invocation> input = input(request, ctx.getChannel(), SystemClock.now());
+                if (input != null) {
+                    ctx.fireChannelRead(input);
+                }
             } catch (Throwable e) {
                 logger.error(String.format("Error occurs while parsing grpc request from %s", Channel.toString(ctx.getChannel().getRemoteAddress())), e);
                 MessageHeader header = new MessageHeader();
@@ -96,10 +104,28 @@ public class GrpcServerHandler implements ChannelOperator {
 
     @Override
     public void wrote(final ChannelContext ctx, final Object message) throws Exception {
-        if (message instanceof GrpcResponseMessage) {
+        if (message instanceof GrpcStreamMessage) {
+            //流式应答片段，写出完成后通知，用于背压
+            GrpcStreamMessage stream = (GrpcStreamMessage) message;
+            ctx.wrote(stream.getMessage()).whenComplete((v, e) -> {
+                if (e == null) {
+                    stream.getFuture().complete(null);
+                } else {
+                    stream.getFuture().completeExceptionally(e);
+                }
+            });
+        } else if (message instanceof GrpcResponseMessage) {
             GrpcResponseMessage<?> response = (GrpcResponseMessage<?>) message;
+            if (response.getStream() != null) {
+                //流式方法由观察者输出应答，这里只处理调用异常
+                ResponsePayload payload = (ResponsePayload) response.getPayLoad();
+                if (payload != null && payload.isError()) {
+                    response.getStream().onError(payload.getException());
+                }
+                return;
+            }
             try {
-                ctx.wrote(output(response));
+                ctx.wrote(output(response, ctx.getChannel()));
             } catch (Exception e) {
                 logger.error(String.format("Error occurs while wrote grpc response from %s", Channel.toString(ctx.getChannel().getRemoteAddress())), e);
                 throw new RpcException(response.getHeader(), e);
@@ -148,9 +174,23 @@ public class GrpcServerHandler implements ChannelOperator {
                 .error(EXCEPTION_SUPPLIER)
                 .build();
         RequestMessage<Invocation> reqMessage = RequestMessage.build(header, invocation, channel, parametric, receiveTime);
+        ServerStreamObserver<?> stream = null;
+        if (invocation.getIdlMethodDesc().isStreaming()) {
+            //服务端流式方法，最后一个参数为应答观察者
+            Object[] args = invocation.getArgs();
+            //流控参数从服务端URL读取
+            ChannelTransport transport = channel.getAttribute(Channel.CHANNEL_TRANSPORT);
+            URL serverUrl = transport == null ? null : transport.getUrl();
+            int window = serverUrl == null ? GRPC_STREAM_WINDOW_OPTION.getValue() : serverUrl.getInteger(GRPC_STREAM_WINDOW_OPTION);
+            int capacity = serverUrl == null ? GRPC_STREAM_CAPACITY_OPTION.getValue() : serverUrl.getInteger(GRPC_STREAM_CAPACITY_OPTION);
+            stream = new ServerStreamObserver<>(channel, message.getStreamId(), header.getMsgId(), this::encode,
+                    getCompression(header), window, capacity);
+            args[args.length - 1] = stream;
+        }
+        final ServerStreamObserver<?> observer = stream;
         reqMessage.setResponseSupplier(() -> {
             MessageHeader respHeader = header.response(MsgType.BizResp.getType(), Compression.NONE, header.getAttributes());
-            return new GrpcResponseMessage<>(respHeader, invocation.getIdlMethodDesc());
+            return new GrpcResponseMessage<>(respHeader, invocation.getIdlMethodDesc(), observer);
         });
         return reqMessage;
     }
@@ -159,49 +199,74 @@ public class GrpcServerHandler implements ChannelOperator {
      * 构建应答消息
      *
      * @param message 消息
+     * @param channel 通道
      * @return 应答消息
      */
-    protected Http2ResponseMessage output(final GrpcResponseMessage<?> message) throws IOException {
+    protected Http2ResponseMessage output(final GrpcResponseMessage<?> message, final Channel channel) throws IOException {
         MessageHeader header = message.getHeader();
         int streamId = (Integer) header.getAttributes().get(HeaderMapping.STREAM_ID.getNum());
         ResponsePayload responsePayload = (ResponsePayload) message.getPayLoad();
         if (responsePayload.isError()) {
             return new DefaultHttp2ResponseMessage(streamId, header.getMsgId(),
-                    null, null, Headers.build(responsePayload.getException()), true);
+                    null, (byte[]) null, Headers.build(responsePayload.getException()), true);
         }
         //http2 header
         Http2Headers headers = Headers.build(true);
         IDLMethodDesc methodDesc = message.getMethodDesc();
         Object respObj = wrapPayload(responsePayload, methodDesc);
-        //设置content
-        UnsafeByteArrayOutputStream baos = new UnsafeByteArrayOutputStream();
-        //是否压缩
-        baos.write(0);
-        //长度(占位)
-        baos.write(new byte[]{0, 0, 0, 0}, 0, 4);
-        //序列化
-        serialization.getSerializer().serialize(baos, respObj);
-        //获取 content 字节数组
-        byte[] content = baos.toByteArray();
-        //压缩处理
-        Compression compression = null;
-        if (content.length > 1024) {
-            compression = COMPRESSION.get(split((String) header.getAttribute(ACCEPT_ENCODING.getNum()), SEMICOLON_COMMA_WHITESPACE));
+        //直接序列化到通道分配的缓冲区，写出时交由网络层释放
+        ChannelBuffer buffer = channel.buffer();
+        try {
+            Compression compression = getCompression(header);
+            if (encode(buffer, respObj, compression)) {
+                headers.set(GrpcUtil.MESSAGE_ENCODING, compression.getTypeName());
+            }
+        } catch (Throwable e) {
+            buffer.release();
+            throw e;
         }
-        if (compression != null) {
-            //复用缓冲区
-            baos.reset();
-            baos.write(new byte[]{1, 0, 0, 0, 0});
-            content = compression.compress(baos, content, 5, content.length - 5);
-            headers.set(GrpcUtil.MESSAGE_ENCODING, compression.getTypeName());
+        return new DefaultHttp2ResponseMessage(streamId, header.getMsgId(), headers, buffer, Headers.build(true), true);
+    }
+
+    /**
+     * 编码成带5位前缀的grpc消息，超过1K并且提供了压缩则进行压缩，压缩标识和长度在序列化后原地修改
+     *
+     * @param buffer      缓冲区
+     * @param value       对象
+     * @param compression 压缩
+     * @return 是否压缩
+     * @throws IOException
+     */
+    protected boolean encode(final ChannelBuffer buffer, final Object value, final Compression compression) throws IOException {
+        int start = buffer.writerIndex();
+        //是否压缩和长度占位
+        buffer.writeByte(0);
+        buffer.writeInt(0);
+        boolean compressed = false;
+        if (compression == null) {
+            serialization.getSerializer().serialize(buffer.outputStream(), value);
+        } else {
+            //超过1K才压缩
+            AdaptiveCompressOutputStream acos = new AdaptiveCompressOutputStream(buffer, compression, 1024);
+            serialization.getSerializer().serialize(acos, value);
+            acos.finish();
+            if (acos.isCompressed()) {
+                compressed = true;
+                buffer.setByte(start, 1);
+            }
         }
-        //设置数据长度
-        int length = content.length - 5;
-        content[1] = (byte) (length >>> 24);
-        content[2] = (byte) (length >>> 16);
-        content[3] = (byte) (length >>> 8);
-        content[4] = (byte) length;
-        return new DefaultHttp2ResponseMessage(streamId, header.getMsgId(), headers, content, Headers.build(true), true);
+        buffer.setInt(start + 1, buffer.writerIndex() - start - 5);
+        return compressed;
+    }
+
+    /**
+     * 根据客户端支持的压缩获取压缩插件
+     *
+     * @param header 消息头
+     * @return 压缩插件
+     */
+    protected Compression getCompression(final MessageHeader header) {
+        return COMPRESSION.get(split((String) header.getAttribute(ACCEPT_ENCODING.getNum()), SEMICOLON_COMMA_WHITESPACE));
     }
 
     /**
@@ -0,0 +1,166 @@
+package io.joyrpc.protocol.grpc.handler;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+
+import io.joyrpc.exception.CodecException;
+
+/**
+ * grpc消息增量读取器，按HTTP2数据帧逐帧追加数据，拆分出完整的长度前缀消息（1位压缩标识+4位长度+消息体）
+ */
+public class MessageReader {
+
+    /**
+     * 消息前缀长度
+     */
+    public static final int PREFIX_SIZE = 5;
+
+    /**
+     * 最大消息长度
+     */
+    protected final int maxSize;
+    /**
+     * 缓冲区
+     */
+    protected byte[] buffer;
+    /**
+     * 读取位置
+     */
+    protected int readIndex;
+    /**
+     * 写入位置
+     */
+    protected int writeIndex;
+    /**
+     * 已读取的消息数
+     */
+    protected int messages;
+
+    public MessageReader(final int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * 追加数据帧
+     *
+     * @param data 数据
+     */
+    public void write(final byte[] data) {
+        if (data == null || data.length == 0) {
+            return;
+        }
+        if (buffer == null || readIndex == writeIndex) {
+            //没有残留数据，直接引用
+            buffer = data;
+            readIndex = 0;
+            writeIndex = data.length;
+            return;
+        }
+        int remain = writeIndex - readIndex;
+        int required = remain + data.length;
+        if (buffer.length - writeIndex < data.length) {
+            if (readIndex > 0 && buffer.length >= required) {
+                //压缩已读数据
+                System.arraycopy(buffer, readIndex, buffer, 0, remain);
+            } else {
+                //扩容，已知消息长度则按消息大小分配，否则按倍数增长，避免大消息多帧追加时反复复制
+                int capacity = Math.max(required, Math.max(buffer.length << 1, getFrameSize()));
+                byte[] target = new byte[capacity];
+                System.arraycopy(buffer, readIndex, target, 0, remain);
+                buffer = target;
+            }
+            readIndex = 0;
+            writeIndex = remain;
+        }
+        System.arraycopy(data, 0, buffer, writeIndex, data.length);
+        writeIndex += data.length;
+    }
+
+    /**
+     * 获取当前消息的完整长度
+     *
+     * @return 完整长度，前缀不完整返回0
+     */
+    protected int getFrameSize() {
+        if (writeIndex - readIndex < PREFIX_SIZE) {
+            return 0;
+        }
+        int length = ((buffer[readIndex + 1] & 0xFF) << 24) | ((buffer[readIndex + 2] & 0xFF) << 16)
+                | ((buffer[readIndex + 3] & 0xFF) << 8) | (buffer[readIndex + 4] & 0xFF);
+        return length < 0 || maxSize > 0 && length > maxSize ? 0 : PREFIX_SIZE + length;
+    }
+
+    /**
+     * 读取下一条完整消息
+     *
+     * @return 包含5位前缀的消息，数据不足返回null
+     * @throws CodecException 消息超过最大长度
+     */
+    public byte[] read() throws CodecException {
+        int remain = writeIndex - readIndex;
+        if (remain < PREFIX_SIZE) {
+            return null;
+        }
+        int length = ((buffer[readIndex + 1] & 0xFF) << 24) | ((buffer[readIndex + 2] & 0xFF) << 16)
+                | ((buffer[readIndex + 3] & 0xFF) << 8) | (buffer[readIndex + 4] & 0xFF);
+        if (length < 0 || maxSize > 0 && length > maxSize) {
+            throw new CodecException(String.format("grpc message size %d exceeds the limit %d", length & 0xFFFFFFFFL, maxSize));
+        }
+        int size = PREFIX_SIZE + length;
+        if (remain < size) {
+            return null;
+        }
+        byte[] result;
+        if (readIndex == 0 && size == buffer.length) {
+            //整个缓冲区就是一条消息，避免复制
+            result = buffer;
+        } else {
+            result = new byte[size];
+            System.arraycopy(buffer, readIndex, result, 0, size);
+        }
+        readIndex += size;
+        if (readIndex == writeIndex) {
+            buffer = null;
+            readIndex = 0;
+            writeIndex = 0;
+        }
+        messages++;
+        return result;
+    }
+
+    /**
+     * 是否有未读完的数据
+     *
+     * @return 有残留数据标识
+     */
+    public boolean hasRemaining() {
+        return writeIndex > readIndex;
+    }
+
+    /**
+     * 已经读取的消息数
+     *
+     * @return 消息数
+     */
+    public int getMessages() {
+        return messages;
+    }
+}
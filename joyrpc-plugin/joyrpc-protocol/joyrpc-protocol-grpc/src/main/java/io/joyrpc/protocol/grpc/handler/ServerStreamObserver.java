@@ -0,0 +1,324 @@
+package io.joyrpc.protocol.grpc.handler;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import io.grpc.internal.GrpcUtil;
+import io.joyrpc.StreamObserver;
+import io.joyrpc.codec.compression.Compression;
+import io.joyrpc.exception.ChannelClosedException;
+import io.joyrpc.exception.OverloadException;
+import io.joyrpc.exception.RpcException;
+import io.joyrpc.protocol.grpc.Headers;
+import io.joyrpc.protocol.grpc.message.GrpcStreamMessage;
+import io.joyrpc.transport.buffer.ChannelBuffer;
+import io.joyrpc.transport.channel.Channel;
+import io.joyrpc.transport.http2.DefaultHttp2ResponseMessage;
+import io.joyrpc.transport.http2.Http2Headers;
+import io.joyrpc.util.thread.ThreadPool;
+
+import java.io.IOException;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * grpc服务端流式应答观察者。
+ * <p>
+ * 每条应答在调用线程中编码后作为一个DATA帧写出，最多允许window条应答在途（未通过HTTP2流控窗口写入网络），
+ * 超出的应答按顺序缓存，有应答写出后继续发送，onNext不会阻塞业务线程。
+ * 缓存的应答超过capacity条则直接拒绝，服务端应该根据{@link #isReady()}和{@link #setOnReadyHandler(Runnable)}控制推送速度。
+ *
+ * @param <T> 应答类型
+ */
+public class ServerStreamObserver<T> implements StreamObserver<T> {
+
+    /**
+     * 连接通道
+     */
+    protected final Channel channel;
+    /**
+     * 流ID
+     */
+    protected final int streamId;
+    /**
+     * 消息ID
+     */
+    protected final long msgId;
+    /**
+     * 编码器
+     */
+    protected final Encoder encoder;
+    /**
+     * 压缩，null表示不压缩
+     */
+    protected final Compression compression;
+    /**
+     * 最大在途应答数
+     */
+    protected final int window;
+    /**
+     * 最大缓存应答数
+     */
+    protected final int capacity;
+    /**
+     * 等待发送的应答帧，包括结束帧
+     */
+    protected final Queue<DefaultHttp2ResponseMessage> pending = new ConcurrentLinkedQueue<>();
+    /**
+     * 缓存的应答数，不包括结束帧
+     */
+    protected final AtomicInteger buffered = new AtomicInteger();
+    /**
+     * 在途应答数
+     */
+    protected final AtomicInteger inflight = new AtomicInteger();
+    /**
+     * 发送排他标识，保证应答帧按顺序发送
+     */
+    protected final AtomicInteger wip = new AtomicInteger();
+    /**
+     * 是否已经发送开始头
+     */
+    protected final AtomicBoolean started = new AtomicBoolean(false);
+    /**
+     * 是否已经结束
+     */
+    protected final AtomicBoolean closed = new AtomicBoolean(false);
+    /**
+     * 是否等待可推送通知
+     */
+    protected final AtomicBoolean waiting = new AtomicBoolean(false);
+    /**
+     * 可推送通知
+     */
+    protected volatile Runnable onReadyHandler;
+    /**
+     * 写出异常
+     */
+    protected volatile Throwable cause;
+
+    /**
+     * 构造函数
+     *
+     * @param channel     连接通道
+     * @param streamId    流ID
+     * @param msgId       消息ID
+     * @param encoder     编码器
+     * @param compression 压缩
+     * @param window      最大在途应答数
+     * @param capacity    最大缓存应答数
+     */
+    public ServerStreamObserver(final Channel channel, final int streamId, final long msgId, final Encoder encoder,
+                                final Compression compression, final int window, final int capacity) {
+        this.channel = channel;
+        this.streamId = streamId;
+        this.msgId = msgId;
+        this.encoder = encoder;
+        this.compression = compression;
+        this.window = Math.max(window, 1);
+        this.capacity = Math.max(capacity, 0);
+    }
+
+    @Override
+    public void onNext(final T value) {
+        if (closed.get()) {
+            throw new IllegalStateException(String.format("grpc stream %d is already closed.", streamId));
+        } else if (cause != null) {
+            throw new RpcException(String.format("Error occurs while writing grpc stream %d.", streamId), cause);
+        } else if (inflight.get() >= window && buffered.get() >= capacity) {
+            throw new OverloadException(String.format("grpc stream %d is blocked by flow control, %d responses are buffered.",
+                    streamId, buffered.get()), 0, true);
+        }
+        //直接序列化到通道分配的缓冲区，写出时交由网络层释放
+        ChannelBuffer buffer = channel.buffer();
+        try {
+            encoder.encode(buffer, value, compression);
+        } catch (Exception e) {
+            buffer.release();
+            throw new RpcException(String.format("Error occurs while encoding grpc stream %d.", streamId), e);
+        }
+        Http2Headers headers = started.compareAndSet(false, true) ? buildHeaders() : null;
+        buffered.incrementAndGet();
+        pending.offer(new DefaultHttp2ResponseMessage(streamId, msgId, headers, buffer, null, false));
+        drain();
+    }
+
+    @Override
+    public void onError(final Throwable throwable) {
+        if (closed.compareAndSet(false, true)) {
+            //未发送过开始头，则作为Trailers-Only应答
+            pending.offer(new DefaultHttp2ResponseMessage(streamId, msgId, null, (byte[]) null, Headers.build(throwable), true));
+            drain();
+        }
+    }
+
+    @Override
+    public void onCompleted() {
+        if (closed.compareAndSet(false, true)) {
+            Http2Headers headers = started.compareAndSet(false, true) ? buildHeaders() : null;
+            pending.offer(new DefaultHttp2ResponseMessage(streamId, msgId, headers, (byte[]) null, Headers.build(true), true));
+            drain();
+        }
+    }
+
+    @Override
+    public boolean isReady() {
+        if (closed.get() || cause != null || inflight.get() + buffered.get() >= window) {
+            waiting.set(true);
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public void setOnReadyHandler(final Runnable handler) {
+        this.onReadyHandler = handler;
+    }
+
+    /**
+     * 是否已经结束
+     *
+     * @return 结束标识
+     */
+    public boolean isClosed() {
+        return closed.get();
+    }
+
+    /**
+     * 按顺序发送等待的应答帧，在途应答达到窗口大小则暂停，等待有应答写出后继续
+     */
+    protected void drain() {
+        if (wip.getAndIncrement() != 0) {
+            return;
+        }
+        DefaultHttp2ResponseMessage message;
+        do {
+            while ((message = pending.peek()) != null) {
+                if (!message.isEnd()) {
+                    if (inflight.get() >= window) {
+                        break;
+                    }
+                    inflight.incrementAndGet();
+                    buffered.decrementAndGet();
+                }
+                pending.poll();
+                send(message, !message.isEnd());
+            }
+        } while (wip.decrementAndGet() != 0);
+    }
+
+    /**
+     * 构建开始头
+     *
+     * @return 开始头
+     */
+    protected Http2Headers buildHeaders() {
+        Http2Headers headers = Headers.build(false);
+        if (compression != null) {
+            headers.set(GrpcUtil.MESSAGE_ENCODING, compression.getTypeName());
+        }
+        return headers;
+    }
+
+    /**
+     * 发送
+     *
+     * @param message 应答帧
+     * @param permit  是否占用了在途名额
+     */
+    protected void send(final DefaultHttp2ResponseMessage message, final boolean permit) {
+        GrpcStreamMessage streamMessage = new GrpcStreamMessage(message);
+        streamMessage.getFuture().whenComplete((v, e) -> {
+            if (e != null && cause == null) {
+                cause = e;
+            }
+            if (permit) {
+                inflight.decrementAndGet();
+                drain();
+                notifyReady();
+            }
+        });
+        if (!channel.isActive()) {
+            release(message);
+            streamMessage.getFuture().completeExceptionally(new ChannelClosedException(
+                    String.format("Channel %s is closed.", Channel.toString(channel.getRemoteAddress()))));
+            return;
+        }
+        channel.send(streamMessage, (v, e) -> {
+            if (e != null) {
+                //没有进入管道，释放缓冲区
+                release(message);
+                streamMessage.getFuture().completeExceptionally(e);
+            }
+        });
+    }
+
+    /**
+     * 从不可推送变为可推送，通知服务端继续推送，优先在业务线程池中执行
+     */
+    protected void notifyReady() {
+        Runnable handler = onReadyHandler;
+        if (handler == null || !waiting.get() || !isReady() || !waiting.compareAndSet(true, false)) {
+            return;
+        }
+        ThreadPool pool = channel.getWorkerPool();
+        if (pool != null) {
+            try {
+                pool.execute(handler);
+                return;
+            } catch (RejectedExecutionException ignored) {
+            }
+        }
+        handler.run();
+    }
+
+    /**
+     * 释放未写出的缓冲区
+     *
+     * @param message 应答帧
+     */
+    protected void release(final DefaultHttp2ResponseMessage message) {
+        ChannelBuffer buffer = message.buffer();
+        if (buffer != null && !buffer.isReleased()) {
+            buffer.release();
+        }
+    }
+
+    /**
+     * 应答编码器
+     */
+    @FunctionalInterface
+    public interface Encoder {
+
+        /**
+         * 编码成带5位前缀的grpc消息
+         *
+         * @param buffer      缓冲区
+         * @param value       应答
+         * @param compression 压缩
+         * @return 是否压缩
+         * @throws IOException
+         */
+        boolean encode(ChannelBuffer buffer, Object value, Compression compression) throws IOException;
+    }
+}
@@ -20,6 +20,7 @@ package io.joyrpc.protocol.grpc.message;
  * #L%
  */
 
+import io.joyrpc.StreamObserver;
 import io.joyrpc.protocol.message.MessageHeader;
 import io.joyrpc.protocol.message.ResponseMessage;
 import io.joyrpc.util.IDLMethodDesc;
@@ -30,14 +31,27 @@ import io.joyrpc.util.IDLMethodDesc;
 public class GrpcResponseMessage<T> extends ResponseMessage<T> {
 
     protected final transient IDLMethodDesc methodDesc;
+    /**
+     * 服务端流式应答的观察者，流式方法由其负责输出应答
+     */
+    protected final transient StreamObserver<?> stream;
 
     public GrpcResponseMessage(MessageHeader header, IDLMethodDesc methodDesc) {
+        this(header, methodDesc, null);
+    }
+
+    public GrpcResponseMessage(MessageHeader header, IDLMethodDesc methodDesc, StreamObserver<?> stream) {
         super(header);
         this.methodDesc = methodDesc;
+        this.stream = stream;
     }
 
     public IDLMethodDesc getMethodDesc() {
         return methodDesc;
     }
 
+    public StreamObserver<?> getStream() {
+        return stream;
+    }
+
 }
@@ -0,0 +1,53 @@
+package io.joyrpc.protocol.grpc.message;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+
+import io.joyrpc.transport.http2.Http2ResponseMessage;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * grpc服务端流式应答片段，写出完成（受HTTP2流控约束）后通知future
+ */
+public class GrpcStreamMessage {
+
+    /**
+     * 应答帧
+     */
+    protected final Http2ResponseMessage message;
+    /**
+     * 写出结果
+     */
+    protected final CompletableFuture<Void> future = new CompletableFuture<>();
+
+    public GrpcStreamMessage(Http2ResponseMessage message) {
+        this.message = message;
+    }
+
+    public Http2ResponseMessage getMessage() {
+        return message;
+    }
+
+    public CompletableFuture<Void> getFuture() {
+        return future;
+    }
+}
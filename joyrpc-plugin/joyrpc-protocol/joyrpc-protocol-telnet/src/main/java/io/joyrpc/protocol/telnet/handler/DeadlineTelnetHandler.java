@@ -0,0 +1,59 @@
+package io.joyrpc.protocol.telnet.handler;
+
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import io.joyrpc.invoker.Deadline;
+import io.joyrpc.transport.channel.Channel;
+import io.joyrpc.transport.telnet.TelnetResponse;
+
+import static io.joyrpc.Plugin.JSON;
+
+/**
+ * 调用链截止时间统计处理器
+ */
+public class DeadlineTelnetHandler extends AbstractTelnetHandler {
+
+    @Override
+    public String type() {
+        return "deadline";
+    }
+
+    @Override
+    public String description() {
+        return "Usage:\tdeadline" + LINE + "Show the requests shed because the deadline of the call chain is exceeded.";
+    }
+
+    @Override
+    public String shortDescription() {
+        return "Show the requests shed by deadline.";
+    }
+
+    @Override
+    public TelnetResponse telnet(Channel channel, String[] args) {
+        return new TelnetResponse(JSON.get().toJSONString(Deadline.dump()));
+    }
+
+    @Override
+    public boolean newLine() {
+        return false;
+    }
+}
@@ -0,0 +1,78 @@
+package io.joyrpc.protocol.telnet.handler;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import io.joyrpc.cluster.Cluster;
+import io.joyrpc.invoker.Refer;
+import io.joyrpc.invoker.ServiceManager;
+import io.joyrpc.transport.channel.Channel;
+import io.joyrpc.transport.telnet.TelnetResponse;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static io.joyrpc.Plugin.JSON;
+
+/**
+ * 重试预算处理器
+ */
+public class RetryTelnetHandler extends AbstractTelnetHandler {
+
+    @Override
+    public String type() {
+        return "retry";
+    }
+
+    @Override
+    public String description() {
+        return "Usage:\tretry [interface] [alias]" + LINE + "Show the retry budget of the consumers.";
+    }
+
+    @Override
+    public String shortDescription() {
+        return "Show the retry budget of the consumers.";
+    }
+
+    @Override
+    public TelnetResponse telnet(Channel channel, String[] args) {
+        String className = args != null && args.length > 0 ? args[0] : null;
+        String alias = args != null && args.length > 1 ? args[1] : null;
+        List<Refer> refers = ServiceManager.getRefers();
+        Map<String, Object> result = new HashMap<>(refers.size());
+        Cluster cluster;
+        for (Refer refer : refers) {
+            cluster = refer.getCluster();
+            if (cluster != null
+                    && (className == null || className.equals(refer.getInterfaceName()))
+                    && (alias == null || alias.equals(refer.getAlias()))) {
+                //同一接口和别名可以有多个消费者，采用唯一的集群名称作为键
+                result.put(refer.getName(), cluster.getRetryBudget().dump());
+            }
+        }
+        return new TelnetResponse(JSON.get().toJSONString(result));
+    }
+
+    @Override
+    public boolean newLine() {
+        return false;
+    }
+}
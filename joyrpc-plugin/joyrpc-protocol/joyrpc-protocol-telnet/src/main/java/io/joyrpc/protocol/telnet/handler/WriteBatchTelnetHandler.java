@@ -0,0 +1,115 @@
+package io.joyrpc.protocol.telnet.handler;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import io.joyrpc.transport.Server;
+import io.joyrpc.transport.channel.Channel;
+import io.joyrpc.transport.channel.WriteBatch;
+import io.joyrpc.transport.telnet.TelnetResponse;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static io.joyrpc.Plugin.JSON;
+import static io.joyrpc.invoker.ServiceManager.getServer;
+import static io.joyrpc.invoker.ServiceManager.getServers;
+
+/**
+ * 批量合并刷盘统计处理器
+ */
+public class WriteBatchTelnetHandler extends AbstractTelnetHandler {
+
+    @Override
+    public String type() {
+        return "batch";
+    }
+
+    @Override
+    public String description() {
+        return "Usage:\tbatch [port]" + LINE + "Show the write batch statistics of the server connections.";
+    }
+
+    @Override
+    public String shortDescription() {
+        return "Show the write batch statistics.";
+    }
+
+    @Override
+    public TelnetResponse telnet(final Channel channel, final String[] args) {
+        Map<Integer, Object> result = new HashMap<>();
+        if (args != null && args.length > 0) {
+            try {
+                int port = Integer.parseInt(args[0]);
+                Server server = getServer(port);
+                if (server == null) {
+                    return new TelnetResponse("Invalid port " + args[0]);
+                }
+                result.put(port, statistic(server.getChannels()));
+            } catch (NumberFormatException e) {
+                return new TelnetResponse("Invalid port " + args[0]);
+            }
+        } else {
+            for (Server server : getServers()) {
+                result.put(server.getUrl().getPort(), statistic(server.getChannels()));
+            }
+        }
+        return new TelnetResponse(JSON.get().toJSONString(result));
+    }
+
+    /**
+     * 汇总连接通道的批量统计
+     *
+     * @param channels 连接通道
+     * @return 统计信息
+     */
+    protected Map<String, Object> statistic(final List<Channel> channels) {
+        int count = 0;
+        long flushes = 0;
+        long messages = 0;
+        long bytes = 0;
+        long maxBatch = 0;
+        WriteBatch batch;
+        for (Channel ch : channels) {
+            batch = ch.getAttribute(WriteBatch.WRITE_BATCH);
+            if (batch != null) {
+                count++;
+                flushes += batch.getFlushes();
+                messages += batch.getMessages();
+                bytes += batch.getBytes();
+                maxBatch = Math.max(maxBatch, batch.getMaxBatch());
+            }
+        }
+        Map<String, Object> result = new HashMap<>(8);
+        result.put("channels", count);
+        result.put("flushes", flushes);
+        result.put("messages", messages);
+        result.put("bytes", bytes);
+        result.put("maxBatch", maxBatch);
+        result.put("avgBatch", flushes == 0 ? 0 : ((double) messages) / flushes);
+        return result;
+    }
+
+    @Override
+    public boolean newLine() {
+        return false;
+    }
+}
@@ -401,6 +401,11 @@ public class NettyChannelBuffer implements ChannelBuffer {
         return released;
     }
 
+    @Override
+    public ChannelBuffer readRetainedSlice() {
+        return new NettyChannelBuffer(byteBuf.readRetainedSlice(byteBuf.readableBytes()));
+    }
+
     @Override
     public InputStream inputStream() {
         return new ChannelBufferInputStream(this);
@@ -27,7 +27,7 @@ import io.joyrpc.exception.OverloadException;
 import io.joyrpc.util.thread.ThreadPool;
 import io.joyrpc.transport.buffer.ChannelBuffer;
 import io.joyrpc.transport.channel.Channel;
-import io.joyrpc.transport.channel.FutureManager;
+import io.joyrpc.transport.channel.LongFutureManager;
 import io.joyrpc.transport.event.TransportEvent;
 import io.joyrpc.transport.message.Message;
 import io.joyrpc.transport.netty4.buffer.NettyChannelBuffer;
@@ -40,6 +40,7 @@ import io.joyrpc.util.IdGenerator.ServerStreamIdGenerator;
 import io.joyrpc.util.IdGenerator.StreamIdGenerator;
 import io.netty.util.Attribute;
 import io.netty.util.AttributeKey;
+import io.netty.util.ReferenceCountUtil;
 
 import java.net.InetSocketAddress;
 import java.util.concurrent.CompletableFuture;
@@ -82,7 +83,7 @@ public class NettyChannel implements Channel {
     /**
      * Future管理器
      */
-    protected final FutureManager<Long, Message> futureManager;
+    protected final LongFutureManager<Message> futureManager;
     /**
      * 会话管理器
      */
@@ -116,24 +117,27 @@ public class NettyChannel implements Channel {
         this.server = server;
         this.msgIdGenerator = new IntToLongIdGenerator();
         this.streamIdGenerator = server ? new ServerStreamIdGenerator() : new ClientStreamIdGenerator();
-        this.futureManager = new FutureManager<>(this, msgIdGenerator, streamIdGenerator);
+        this.futureManager = new LongFutureManager<>(this, msgIdGenerator, streamIdGenerator);
         this.sessionManager = new SessionManager(server);
     }
 
     @Override
     public CompletableFuture<Void> send(final Object object) {
         CompletableFuture<Void> future = new CompletableFuture<>();
-        if (object == null) {
+        //调用线程已经编码好的数据
+        Object target = object instanceof NettyChannelBuffer ? ((NettyChannelBuffer) object).getByteBuf() : object;
+        if (target == null) {
             future.complete(null);
         } else if (!channel.isWritable()) {
             LafException throwable = channel.isActive() ?
-                    new OverloadException(String.format(SEND_REQUEST_TOO_FAST, Channel.toString(this), object.toString()), 0, isServer()) :
-                    new ChannelClosedException(String.format(SEND_REQUEST_NOT_ACTIVE, Channel.toString(this), object.toString()));
+                    new OverloadException(String.format(SEND_REQUEST_TOO_FAST, Channel.toString(this), target.toString()), 0, isServer()) :
+                    new ChannelClosedException(String.format(SEND_REQUEST_NOT_ACTIVE, Channel.toString(this), target.toString()));
+            //没有写出，释放编码好的数据
+            ReferenceCountUtil.release(target);
             future.completeExceptionally(throwable);
         } else {
             try {
-                //TODO 要不要改成工作线程池来回调
-                channel.writeAndFlush(object).addListener(new FutureAdapter<>(future));
+                channel.writeAndFlush(target).addListener(new FutureAdapter<>(future));
             } catch (Throwable e) {
                 future.completeExceptionally(e);
             }
@@ -223,7 +227,7 @@ public class NettyChannel implements Channel {
     }
 
     @Override
-    public FutureManager<Long, Message> getFutureManager() {
+    public LongFutureManager<Message> getFutureManager() {
         return futureManager;
     }
 
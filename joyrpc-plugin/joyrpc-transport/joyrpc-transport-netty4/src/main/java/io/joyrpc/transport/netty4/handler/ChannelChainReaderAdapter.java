@@ -24,6 +24,10 @@ import io.joyrpc.transport.channel.Channel;
 import io.joyrpc.transport.channel.ChannelChainReaderContext;
 import io.joyrpc.transport.channel.ChannelContext;
 import io.joyrpc.transport.channel.ChannelReader;
+import io.joyrpc.transport.channel.LongFutureManager;
+import io.joyrpc.transport.codec.DeferredMessage;
+import io.joyrpc.transport.message.Header;
+import io.joyrpc.transport.message.Message;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInboundHandlerAdapter;
 import org.slf4j.Logger;
@@ -73,18 +77,33 @@ public class ChannelChainReaderAdapter extends ChannelInboundHandlerAdapter {
     @Override
     public void channelRead(final ChannelHandlerContext ctx, final Object msg) throws Exception {
         ChannelChainReaderContext context = new ChannelChainReaderContext(channel, readers, create(channel, ctx));
-        if (workerPool != null) {
+        if (workerPool != null && !isInline(msg)) {
             try {
                 workerPool.execute(new ReceiveJob(context, msg));
             } catch (Throwable e) {
-                //可能抛出RejectedExecutionException
+                //可能抛出RejectedExecutionException，延迟解码的消息需要释放缓冲区
+                if (msg instanceof DeferredMessage) {
+                    ((DeferredMessage) msg).release();
+                }
                 context.fireExceptionCaught(e);
             }
+        } else if (msg instanceof DeferredMessage) {
+            new ReceiveJob(context, msg).run();
         } else {
             context.fireChannelRead(msg);
         }
     }
 
+    /**
+     * 判断是否在IO线程中直接处理
+     *
+     * @param msg 消息
+     * @return 直接处理标识
+     */
+    protected boolean isInline(final Object msg) {
+        return msg instanceof Message && ((Message) msg).isInline();
+    }
+
     @Override
     public void exceptionCaught(final ChannelHandlerContext ctx, final Throwable cause) throws Exception {
         ChannelChainReaderContext context = new ChannelChainReaderContext(channel, readers, create(channel, ctx));
@@ -116,7 +135,39 @@ public class ChannelChainReaderAdapter extends ChannelInboundHandlerAdapter {
 
         @Override
         public void run() {
-            context.fireChannelRead(message);
+            Object target = message instanceof DeferredMessage ? decode((DeferredMessage) message) : message;
+            if (target != null) {
+                context.fireChannelRead(target);
+            }
+        }
+
+        /**
+         * 在业务线程中解码消息体
+         *
+         * @param deferred 延迟解码的消息
+         * @return 解码后的消息，失败或者应答已经超时返回null
+         */
+        protected Object decode(final DeferredMessage deferred) {
+            Channel channel = context.getChannel();
+            if (!deferred.isRequest()) {
+                Header header = deferred.getHeader();
+                LongFutureManager<Message> futureManager = channel.getFutureManager();
+                if (futureManager != null && futureManager.get(header.getMsgId()) == null) {
+                    //请求已经超时，不需要再反序列化应答
+                    deferred.release();
+                    logger.warn(String.format("request is timeout. id=%d, type=%d, remote=%s",
+                            header.getMsgId(),
+                            header.getMsgType(),
+                            Channel.toString(channel.getRemoteAddress())));
+                    return null;
+                }
+            }
+            try {
+                return deferred.decode();
+            } catch (Throwable e) {
+                context.fireExceptionCaught(e);
+                return null;
+            }
         }
     }
 }
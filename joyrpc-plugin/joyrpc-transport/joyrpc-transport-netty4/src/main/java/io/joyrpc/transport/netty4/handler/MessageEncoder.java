@@ -54,11 +54,19 @@ public class MessageEncoder extends MessageToByteEncoder {
         this.channel = channel;
     }
 
+    @Override
+    public boolean acceptOutboundMessage(final Object msg) throws Exception {
+        //调用线程已经编码好的数据直接写出
+        return !(msg instanceof ByteBuf) && super.acceptOutboundMessage(msg);
+    }
+
     @Override
     protected void encode(final ChannelHandlerContext ctx, final Object msg, final ByteBuf out) throws Exception {
         try {
             codec.encode(new DefaultEncodeContext(channel), new NettyChannelBuffer(out), msg);
         } catch (Throwable throwable) {
+            //丢弃编码了一半的数据，避免写出不完整的帧破坏后续的消息
+            out.clear();
             ctx.fireExceptionCaught(throwable);
         }
     }
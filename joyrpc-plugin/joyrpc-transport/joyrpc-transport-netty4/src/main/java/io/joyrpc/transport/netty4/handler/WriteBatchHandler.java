@@ -0,0 +1,190 @@
+package io.joyrpc.transport.netty4.handler;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import io.joyrpc.transport.channel.WriteBatch;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufHolder;
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+
+/**
+ * 批量合并刷盘处理器，在同一个事件循环周期内合并多次flush，减少系统调用次数。<br/>
+ * 满足以下任一条件立即刷盘：消息条数达到阈值、字节数达到阈值、通道不可写；否则在本轮事件循环结束时刷盘。
+ */
+public class WriteBatchHandler extends ChannelDuplexHandler {
+
+    /**
+     * 批量配置
+     */
+    protected final WriteBatch batch;
+    /**
+     * 上下文
+     */
+    protected ChannelHandlerContext context;
+    /**
+     * 未刷盘的消息条数
+     */
+    protected int messages;
+    /**
+     * 未刷盘的字节数
+     */
+    protected long bytes;
+    /**
+     * 是否在读取中
+     */
+    protected boolean reading;
+    /**
+     * 是否已经调度了刷盘任务
+     */
+    protected boolean scheduled;
+    /**
+     * 刷盘任务
+     */
+    protected final Runnable flushTask = () -> {
+        scheduled = false;
+        if (messages > 0 && context != null) {
+            flushNow(context);
+        }
+    };
+
+    /**
+     * 构造函数
+     *
+     * @param batch 批量配置
+     */
+    public WriteBatchHandler(final WriteBatch batch) {
+        this.batch = batch;
+    }
+
+    @Override
+    public void handlerAdded(final ChannelHandlerContext ctx) throws Exception {
+        this.context = ctx;
+        super.handlerAdded(ctx);
+    }
+
+    @Override
+    public void write(final ChannelHandlerContext ctx, final Object msg, final ChannelPromise promise) throws Exception {
+        messages++;
+        bytes += size(msg);
+        ctx.write(msg, promise);
+    }
+
+    @Override
+    public void flush(final ChannelHandlerContext ctx) throws Exception {
+        if (messages == 0) {
+            //没有待刷盘的数据，直接透传
+            ctx.flush();
+        } else if (messages >= batch.getMaxMessages() || bytes >= batch.getMaxBytes() || !ctx.channel().isWritable()) {
+            //达到阈值或者通道不可写，立即刷盘，让数据尽快进入操作系统缓冲区
+            flushNow(ctx);
+        } else if (!reading && !scheduled) {
+            //读取中的数据在读取完成后刷盘，否则放在本轮事件循环的末尾刷盘
+            scheduled = true;
+            ctx.channel().eventLoop().execute(flushTask);
+        }
+    }
+
+    @Override
+    public void channelRead(final ChannelHandlerContext ctx, final Object msg) throws Exception {
+        reading = true;
+        ctx.fireChannelRead(msg);
+    }
+
+    @Override
+    public void channelReadComplete(final ChannelHandlerContext ctx) throws Exception {
+        reading = false;
+        if (messages > 0) {
+            flushNow(ctx);
+        }
+        ctx.fireChannelReadComplete();
+    }
+
+    @Override
+    public void channelWritabilityChanged(final ChannelHandlerContext ctx) throws Exception {
+        if (!ctx.channel().isWritable() && messages > 0) {
+            flushNow(ctx);
+        }
+        ctx.fireChannelWritabilityChanged();
+    }
+
+    @Override
+    public void exceptionCaught(final ChannelHandlerContext ctx, final Throwable cause) throws Exception {
+        reading = false;
+        if (messages > 0) {
+            flushNow(ctx);
+        }
+        ctx.fireExceptionCaught(cause);
+    }
+
+    @Override
+    public void disconnect(final ChannelHandlerContext ctx, final ChannelPromise promise) throws Exception {
+        if (messages > 0) {
+            flushNow(ctx);
+        }
+        ctx.disconnect(promise);
+    }
+
+    @Override
+    public void close(final ChannelHandlerContext ctx, final ChannelPromise promise) throws Exception {
+        if (messages > 0) {
+            flushNow(ctx);
+        }
+        ctx.close(promise);
+    }
+
+    @Override
+    public void handlerRemoved(final ChannelHandlerContext ctx) throws Exception {
+        if (messages > 0) {
+            flushNow(ctx);
+        }
+        context = null;
+        super.handlerRemoved(ctx);
+    }
+
+    /**
+     * 立即刷盘，并记录批量统计
+     *
+     * @param ctx 上下文
+     */
+    protected void flushNow(final ChannelHandlerContext ctx) {
+        batch.record(messages, bytes);
+        messages = 0;
+        bytes = 0;
+        ctx.flush();
+    }
+
+    /**
+     * 计算消息大小
+     *
+     * @param msg 消息
+     * @return 字节数
+     */
+    protected long size(final Object msg) {
+        if (msg instanceof ByteBuf) {
+            return ((ByteBuf) msg).readableBytes();
+        } else if (msg instanceof ByteBufHolder) {
+            return ((ByteBufHolder) msg).content().readableBytes();
+        }
+        return 0;
+    }
+}
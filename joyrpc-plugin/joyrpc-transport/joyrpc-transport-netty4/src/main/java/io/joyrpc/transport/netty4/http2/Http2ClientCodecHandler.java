@@ -22,9 +22,11 @@ package io.joyrpc.transport.netty4.http2;
 
 import io.joyrpc.cluster.event.ReconnectEvent;
 import io.joyrpc.exception.ChannelSendException;
+import io.joyrpc.transport.buffer.ChannelBuffer;
 import io.joyrpc.transport.channel.Channel;
 import io.joyrpc.transport.codec.Http2Codec;
 import io.joyrpc.transport.http2.DefaultHttp2ResponseMessage;
+import io.joyrpc.transport.http2.Http2Message;
 import io.joyrpc.transport.http2.Http2RequestMessage;
 import io.joyrpc.transport.netty4.buffer.NettyChannelBuffer;
 import io.joyrpc.transport.netty4.transport.NettyServer;
@@ -114,44 +116,69 @@ public class Http2ClientCodecHandler extends Http2ConnectionHandler {
             Http2RequestMessage request = (Http2RequestMessage) msg;
             Http2Headers headers = request.headers() == null ? null : new Http2NettyHeaders(request.headers());
             Http2Headers endHeaders = request.endHeaders() == null ? null : new Http2NettyHeaders(request.endHeaders());
-            byte[] content = request.content();
-            if (content == null && headers == null && endHeaders == null) {
-                return;
-            }
-            int streamId = getStreamId(request);
-            if (headers != null) {
-                //开始头
-                encoder.writeHeaders(ctx, streamId, headers, 0, false,
-                        endHeaders == null && content == null ? promise : ctx.voidPromise()).addListener(f -> {
-                            if (f.isSuccess()) {
-                                Http2Stream stream = connection().stream(streamId);
-                                if (stream != null) {
-                                    stream.setProperty(msgIdKey, request.getMsgId());
+            ByteBuf content = getContent(request);
+            //内容交给编码器之前出现异常需要释放，避免池化缓冲区泄漏
+            boolean handover = content == null;
+            try {
+                if (content == null && headers == null && endHeaders == null) {
+                    return;
+                }
+                int streamId = getStreamId(request);
+                if (headers != null) {
+                    //开始头
+                    encoder.writeHeaders(ctx, streamId, headers, 0, false,
+                            endHeaders == null && content == null ? promise : ctx.voidPromise()).addListener(f -> {
+                                if (f.isSuccess()) {
+                                    Http2Stream stream = connection().stream(streamId);
+                                    if (stream != null) {
+                                        stream.setProperty(msgIdKey, request.getMsgId());
+                                    }
                                 }
                             }
-                        }
-                );
-            }
-            if (endHeaders == null) {
-                //没有结束头
-                if (content != null) {
-                    //有内容
-                    encoder.writeData(ctx, streamId, wrappedBuffer(content), 0, request.isEnd(), promise);
+                    );
                 }
-            } else {
-                //有结束头
-                if (content != null) {
-                    //有内容
-                    encoder.writeData(ctx, streamId, wrappedBuffer(content), 0, false, ctx.voidPromise());
+                if (endHeaders == null) {
+                    //没有结束头
+                    if (content != null) {
+                        //有内容，编码器负责释放
+                        handover = true;
+                        encoder.writeData(ctx, streamId, content, 0, request.isEnd(), promise);
+                    }
+                } else {
+                    //有结束头
+                    if (content != null) {
+                        //有内容，编码器负责释放
+                        handover = true;
+                        encoder.writeData(ctx, streamId, content, 0, false, ctx.voidPromise());
+                    }
+                    //结束头
+                    encoder.writeHeaders(ctx, streamId, endHeaders, 0, true, promise);
+                }
+            } finally {
+                if (!handover) {
+                    content.release();
                 }
-                //结束头
-                encoder.writeHeaders(ctx, streamId, endHeaders, 0, true, promise);
             }
         } else {
             super.write(ctx, msg, promise);
         }
     }
 
+    /**
+     * 获取待写出的内容，消息携带Netty缓冲区则直接写出，避免拷贝
+     *
+     * @param message 消息
+     * @return 内容
+     */
+    protected ByteBuf getContent(final Http2Message message) {
+        ChannelBuffer buffer = message.buffer();
+        if (buffer instanceof NettyChannelBuffer) {
+            return ((NettyChannelBuffer) buffer).getByteBuf();
+        }
+        byte[] content = message.content();
+        return content == null ? null : wrappedBuffer(content);
+    }
+
     /**
      * 获取流ID
      *
@@ -258,6 +285,8 @@ public class Http2ClientCodecHandler extends Http2ConnectionHandler {
                               final ByteBuf data,
                               final int padding,
                               final boolean endOfStream) throws Http2Exception {
+            //解码会读取数据，需要提前计算已处理的字节数，用于归还流控窗口
+            int processed = data.readableBytes() + padding;
             try {
                 Http2Stream stream = connection.stream(streamId);
                 Long bizMsgId = stream.getProperty(msgIdKey);
@@ -270,7 +299,7 @@ public class Http2ClientCodecHandler extends Http2ConnectionHandler {
             } catch (Exception e) {
                 throw Http2Exception.streamError(streamId, Http2Error.PROTOCOL_ERROR, e, "has error when codec");
             }
-            return data.readableBytes() + padding;
+            return processed;
         }
 
         @Override
@@ -324,7 +353,7 @@ public class Http2ClientCodecHandler extends Http2ConnectionHandler {
                 Long bizMsgId = stream.getProperty(msgIdKey);
                 bizMsgId = bizMsgId == null ? 0 : bizMsgId;
                 try {
-                    ctx.fireChannelRead(new DefaultHttp2ResponseMessage(streamId, bizMsgId, null, null,
+                    ctx.fireChannelRead(new DefaultHttp2ResponseMessage(streamId, bizMsgId, null, (byte[]) null,
                             new io.joyrpc.transport.http2.DefaultHttp2Headers(headers), true));
                 } catch (Exception e) {
                     throw Http2Exception.streamError(streamId, Http2Error.PROTOCOL_ERROR, e, "has error when codec");
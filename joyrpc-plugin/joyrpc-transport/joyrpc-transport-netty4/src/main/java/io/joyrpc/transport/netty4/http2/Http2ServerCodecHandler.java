@@ -20,13 +20,16 @@ package io.joyrpc.transport.netty4.http2;
  * #L%
  */
 
+import io.joyrpc.transport.buffer.ChannelBuffer;
 import io.joyrpc.transport.channel.Channel;
 import io.joyrpc.transport.codec.Http2Codec;
 import io.joyrpc.transport.http2.DefaultHttp2RequestMessage;
+import io.joyrpc.transport.http2.Http2Message;
 import io.joyrpc.transport.http2.Http2ResponseMessage;
 import io.joyrpc.transport.netty4.buffer.NettyChannelBuffer;
 import io.joyrpc.transport.netty4.transport.NettyServer;
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.CompositeByteBuf;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelPromise;
 import io.netty.handler.codec.http2.*;
@@ -49,6 +52,10 @@ public class Http2ServerCodecHandler extends Http2ConnectionHandler {
      * 消息头键
      */
     protected PropertyKey headerKey;
+    /**
+     * 未结束的请求数据键
+     */
+    protected PropertyKey bodyKey;
     /**
      * 编解码
      */
@@ -69,7 +76,18 @@ public class Http2ServerCodecHandler extends Http2ConnectionHandler {
         this.channel = channel;
         this.codec = codec;
         this.headerKey = encoder().connection().newKey();
-        decoder.frameListener(new FrameListener(encoder.connection(), headerKey, codec, channel));
+        this.bodyKey = encoder().connection().newKey();
+        decoder.frameListener(new FrameListener(encoder.connection(), headerKey, bodyKey, codec, channel));
+        encoder.connection().addListener(new Http2ConnectionAdapter() {
+            @Override
+            public void onStreamRemoved(final Http2Stream stream) {
+                //流被重置或异常关闭，释放未结束的请求数据
+                ByteBuf body = stream.removeProperty(bodyKey);
+                if (body != null) {
+                    body.release();
+                }
+            }
+        });
     }
 
 
@@ -79,32 +97,56 @@ public class Http2ServerCodecHandler extends Http2ConnectionHandler {
             Http2ResponseMessage response = (Http2ResponseMessage) msg;
             Http2Headers headers = response.headers() == null ? null : new Http2NettyHeaders(response.headers());
             Http2Headers endHeaders = response.endHeaders() == null ? null : new Http2NettyHeaders(response.endHeaders());
-            byte[] content = response.content();
-
-            if (headers != null) {
-                //开始头
-                encoder.writeHeaders(ctx, response.getStreamId(), headers, 0, false, endHeaders == null && content == null ? promise : ctx.voidPromise());
-            }
-            if (endHeaders == null) {
-                //没有结束头
-                if (content != null) {
-                    //有内容
-                    encoder.writeData(ctx, response.getStreamId(), wrappedBuffer(content), 0, response.isEnd(), promise);
+            ByteBuf content = getContent(response);
+            //内容交给编码器之前出现异常需要释放，避免池化缓冲区泄漏
+            boolean handover = content == null;
+            try {
+                if (headers != null) {
+                    //开始头
+                    encoder.writeHeaders(ctx, response.getStreamId(), headers, 0, false, endHeaders == null && content == null ? promise : ctx.voidPromise());
                 }
-            } else {
-                //有结束头
-                if (content != null) {
-                    //有内容
-                    encoder.writeData(ctx, response.getStreamId(), wrappedBuffer(content), 0, false, ctx.voidPromise());
+                if (endHeaders == null) {
+                    //没有结束头
+                    if (content != null) {
+                        //有内容，编码器负责释放
+                        handover = true;
+                        encoder.writeData(ctx, response.getStreamId(), content, 0, response.isEnd(), promise);
+                    }
+                } else {
+                    //有结束头
+                    if (content != null) {
+                        //有内容，编码器负责释放
+                        handover = true;
+                        encoder.writeData(ctx, response.getStreamId(), content, 0, false, ctx.voidPromise());
+                    }
+                    //结束头
+                    encoder.writeHeaders(ctx, response.getStreamId(), endHeaders, 0, true, promise);
+                }
+            } finally {
+                if (!handover) {
+                    content.release();
                 }
-                //结束头
-                encoder.writeHeaders(ctx, response.getStreamId(), endHeaders, 0, true, promise);
             }
         } else {
             super.write(ctx, msg, promise);
         }
     }
 
+    /**
+     * 获取待写出的内容，消息携带Netty缓冲区则直接写出，避免拷贝
+     *
+     * @param message 消息
+     * @return 内容
+     */
+    protected ByteBuf getContent(final Http2Message message) {
+        ChannelBuffer buffer = message.buffer();
+        if (buffer instanceof NettyChannelBuffer) {
+            return ((NettyChannelBuffer) buffer).getByteBuf();
+        }
+        byte[] content = message.content();
+        return content == null ? null : wrappedBuffer(content);
+    }
+
     /**
      * 创建http2服务端编解码处理器
      *
@@ -144,6 +186,10 @@ public class Http2ServerCodecHandler extends Http2ConnectionHandler {
          * 头部Key
          */
         protected final PropertyKey headerKey;
+        /**
+         * 未结束的请求数据键
+         */
+        protected final PropertyKey bodyKey;
         /**
          * 编解码
          */
@@ -153,9 +199,10 @@ public class Http2ServerCodecHandler extends Http2ConnectionHandler {
          */
         protected final Channel channel;
 
-        public FrameListener(Http2Connection connection, PropertyKey headerKey, Http2Codec codec, Channel channel) {
+        public FrameListener(Http2Connection connection, PropertyKey headerKey, PropertyKey bodyKey, Http2Codec codec, Channel channel) {
             this.connection = connection;
             this.headerKey = headerKey;
+            this.bodyKey = bodyKey;
             this.codec = codec;
             this.channel = channel;
         }
@@ -166,7 +213,33 @@ public class Http2ServerCodecHandler extends Http2ConnectionHandler {
             int processed = data.readableBytes() + padding;
             Http2Stream http2Stream = connection.stream(streamId);
             Http2Headers headers = http2Stream.getProperty(headerKey);
-            dispatch(ctx, streamId, headers, data, null, endOfStream);
+            CompositeByteBuf body = http2Stream.getProperty(bodyKey);
+            if (body == null && endOfStream) {
+                //单帧请求，直接派发
+                dispatch(ctx, streamId, headers, data, null, true);
+            } else {
+                //请求跨越多个数据帧，累积到流结束再派发，避免业务线程乱序处理各个数据帧
+                if (body == null) {
+                    body = ctx.alloc().compositeBuffer(Integer.MAX_VALUE);
+                    http2Stream.setProperty(bodyKey, body);
+                }
+                body.addComponent(true, data.retain());
+                int payloadSize = channel.getPayloadSize();
+                if (payloadSize > 0 && body.readableBytes() > payloadSize) {
+                    http2Stream.removeProperty(bodyKey);
+                    body.release();
+                    throw Http2Exception.streamError(streamId, Http2Error.PROTOCOL_ERROR,
+                            "request size exceeds the payload limit %d", payloadSize);
+                }
+                if (endOfStream) {
+                    http2Stream.removeProperty(bodyKey);
+                    try {
+                        dispatch(ctx, streamId, headers, body, null, true);
+                    } finally {
+                        body.release();
+                    }
+                }
+            }
             return processed;
         }
 
@@ -176,8 +249,18 @@ public class Http2ServerCodecHandler extends Http2ConnectionHandler {
             if (streamId > 0) {
                 // 正常的请求（streamId==1 的是settings请求）
                 if (endStream) {
-                    // 没有DATA帧的请求，可能是DATA
-                    dispatch(ctx, streamId, null, null, headers, true);
+                    // 没有DATA帧的请求，或者数据帧之后的结束头
+                    Http2Stream stream = connection.stream(streamId);
+                    CompositeByteBuf body = stream == null ? null : stream.removeProperty(bodyKey);
+                    if (body == null) {
+                        dispatch(ctx, streamId, null, null, headers, true);
+                    } else {
+                        try {
+                            dispatch(ctx, streamId, stream.getProperty(headerKey), body, headers, true);
+                        } finally {
+                            body.release();
+                        }
+                    }
                 } else {
                     // 缓存起来
                     Http2Stream stream = connection.stream(streamId);
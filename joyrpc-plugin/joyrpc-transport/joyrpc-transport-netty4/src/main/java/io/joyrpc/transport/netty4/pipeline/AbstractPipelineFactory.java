@@ -24,9 +24,11 @@ import io.joyrpc.transport.channel.Channel;
 import io.joyrpc.transport.channel.ChannelChain;
 import io.joyrpc.transport.channel.ChannelReader;
 import io.joyrpc.transport.channel.ChannelWriter;
+import io.joyrpc.transport.channel.WriteBatch;
 import io.joyrpc.transport.codec.Codec;
 import io.joyrpc.transport.netty4.handler.ChannelChainReaderAdapter;
 import io.joyrpc.transport.netty4.handler.ChannelChainWriterAdapter;
+import io.joyrpc.transport.netty4.handler.WriteBatchHandler;
 import io.netty.channel.ChannelPipeline;
 
 /**
@@ -70,6 +72,11 @@ public abstract class AbstractPipelineFactory implements PipelineFactory {
     @Override
     public void build(final ChannelPipeline pipeline, final Codec codec, final ChannelChain chain, final Channel channel) {
         if (codec != null) {
+            //批量合并刷盘，放在编解码器之前，统计的是编码后的字节数
+            WriteBatch batch = channel.getAttribute(WriteBatch.WRITE_BATCH);
+            if (batch != null) {
+                pipeline.addLast(WRITE_BATCH, new WriteBatchHandler(batch));
+            }
             //解码器
             build(pipeline, codec, channel);
         }
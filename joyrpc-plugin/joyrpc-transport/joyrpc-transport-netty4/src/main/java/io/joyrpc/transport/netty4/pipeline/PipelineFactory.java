@@ -37,6 +37,7 @@ public interface PipelineFactory {
     String HTTP_AGGREGATOR = "http-aggregator";
     String HTTP_REQUEST_NORMALIZER = "http-request-normalizer";
     String HTTP_RESPONSE_NORMALIZER = "http-response-normalizer";
+    String WRITE_BATCH = "write-batch";
 
     /**
      * 构建处理链
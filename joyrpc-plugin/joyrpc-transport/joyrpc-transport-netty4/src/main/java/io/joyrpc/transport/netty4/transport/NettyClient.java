@@ -29,6 +29,7 @@ import io.joyrpc.util.thread.ThreadPool;
 import io.joyrpc.transport.AbstractClient;
 import io.joyrpc.transport.channel.Channel;
 import io.joyrpc.transport.channel.ChannelManager.Connector;
+import io.joyrpc.transport.channel.WriteBatch;
 import io.joyrpc.transport.event.TransportEvent;
 import io.joyrpc.transport.heartbeat.HeartbeatStrategy.HeartbeatMode;
 import io.joyrpc.transport.netty4.channel.NettyClientChannel;
@@ -140,6 +141,10 @@ public class NettyClient extends AbstractClient {
                     protected void initChannel(final SocketChannel ch) {
                         //及时发送 与 缓存发送
                         channels[0] = new NettyClientChannel(name, ch, workerPool, publisher, url.getPositiveInt(Constants.PAYLOAD), ioGroup);
+                        //批量合并刷盘
+                        channels[0].setAttribute(WriteBatch.WRITE_BATCH, WriteBatch.create(url));
+                        //消息体在业务线程池中解码
+                        channels[0].setAttribute(Channel.DECODE_OFFLOAD, url.getBoolean(Constants.DECODE_OFFLOAD_OPTION));
                         //添加连接事件监听
                         ch.pipeline().addLast("connection", new ConnectionHandler(channels[0]));
                         //添加编解码和处理链
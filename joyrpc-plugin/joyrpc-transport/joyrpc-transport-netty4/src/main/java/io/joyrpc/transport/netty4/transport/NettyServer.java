@@ -28,6 +28,7 @@ import io.joyrpc.transport.AbstractServer;
 import io.joyrpc.transport.ChannelTransport;
 import io.joyrpc.transport.TransportServer;
 import io.joyrpc.transport.channel.Channel;
+import io.joyrpc.transport.channel.WriteBatch;
 import io.joyrpc.transport.netty4.channel.NettyChannel;
 import io.joyrpc.transport.netty4.channel.NettyServerChannel;
 import io.joyrpc.transport.netty4.codec.NettyDeductionContext;
@@ -172,6 +173,10 @@ public class NettyServer extends AbstractServer {
      */
     protected void configure(final String name, final SocketChannel ch, final SslContext sslContext) throws Exception {
         Channel channel = new NettyChannel(name, ch, workerPool, publisher, payloadSize, true);
+        //批量合并刷盘
+        channel.setAttribute(WriteBatch.WRITE_BATCH, WriteBatch.create(url));
+        //消息体在业务线程池中解码
+        channel.setAttribute(Channel.DECODE_OFFLOAD, url.getBoolean(Constants.DECODE_OFFLOAD_OPTION));
         ChannelTransport transport = function.apply(channel, url);
         channel.setAttribute(Channel.CHANNEL_TRANSPORT, transport);
         if (sslContext != null) {
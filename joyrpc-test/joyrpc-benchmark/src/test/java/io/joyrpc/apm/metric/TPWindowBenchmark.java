@@ -0,0 +1,65 @@
+package io.joyrpc.apm.metric;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import io.joyrpc.apm.metric.hdr.HdrTPWindow;
+import io.joyrpc.apm.metric.mc.McTPWindow;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 性能窗口记录请求耗时的性能，对比毫秒直方图与微秒HDR直方图
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(8)
+@Fork(1)
+public class TPWindowBenchmark {
+
+    @Param({"mc", "hdr"})
+    protected String type;
+
+    protected TPWindow window;
+
+    @Setup
+    public void setup() {
+        window = "hdr".equals(type) ? new HdrTPWindow() : new McTPWindow();
+    }
+
+    @Benchmark
+    public void success() {
+        //耗时在0到20毫秒之间
+        long nanos = ThreadLocalRandom.current().nextLong(20_000_000L);
+        window.success((int) (nanos / 1_000_000L), nanos);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public TPMetric snapshot() {
+        window.snapshot();
+        return window.getSnapshot();
+    }
+}
@@ -0,0 +1,43 @@
+package io.joyrpc.benchmark;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+/**
+ * 压测服务接口
+ */
+public interface EchoService {
+
+    /**
+     * 简单字符串调用
+     *
+     * @param name 名称
+     * @return 结果
+     */
+    String hello(String name);
+
+    /**
+     * 对象回显
+     *
+     * @param order 订单
+     * @return 订单
+     */
+    Order echo(Order order);
+}
@@ -0,0 +1,102 @@
+package io.joyrpc.benchmark;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import io.joyrpc.config.ConsumerConfig;
+import io.joyrpc.config.ProviderConfig;
+import io.joyrpc.config.RegistryConfig;
+import io.joyrpc.config.ServerConfig;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 本机回环的端到端调用性能，经过NettyServer和NettyClient，吞吐量和延迟分布分别统计
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Threads(16)
+@Fork(1)
+public class LoopbackRpcBenchmark {
+
+    protected static final String ALIAS = "benchmark";
+
+    @Param({"hessian", "protostuff"})
+    protected String serialization;
+
+    @Param({"22600"})
+    protected int port;
+
+    protected ProviderConfig<EchoService> providerConfig;
+
+    protected ConsumerConfig<EchoService> consumerConfig;
+
+    protected EchoService service;
+
+    protected Order order;
+
+    @Setup
+    public void setup() throws Exception {
+        RegistryConfig registryConfig = new RegistryConfig();
+        registryConfig.setRegistry("broadcast");
+
+        ServerConfig serverConfig = new ServerConfig();
+        serverConfig.setPort(port);
+        providerConfig = new ProviderConfig<>();
+        providerConfig.setServerConfig(serverConfig);
+        providerConfig.setRegistry(registryConfig);
+        providerConfig.setInterfaceClazz(EchoService.class.getName());
+        providerConfig.setRef(new EchoServiceImpl());
+        providerConfig.setAlias(ALIAS);
+        providerConfig.exportAndOpen().get();
+
+        consumerConfig = new ConsumerConfig<>();
+        consumerConfig.setRegistry(registryConfig);
+        consumerConfig.setInterfaceClazz(EchoService.class.getName());
+        consumerConfig.setAlias(ALIAS);
+        //不走本地调用，确保经过网络传输
+        consumerConfig.setInjvm(false);
+        consumerConfig.setUrl("joy://127.0.0.1:" + port);
+        consumerConfig.setSerialization(serialization);
+        consumerConfig.setTimeout(5000);
+        service = consumerConfig.refer().get();
+        order = Order.of(10);
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        consumerConfig.unrefer().get();
+        providerConfig.unexport().get();
+    }
+
+    @Benchmark
+    public String hello() {
+        return service.hello("joyrpc");
+    }
+
+    @Benchmark
+    public Order echo() {
+        return service.echo(order);
+    }
+}
@@ -0,0 +1,111 @@
+package io.joyrpc.benchmark;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 压测用的业务对象，包含常见的字段类型
+ */
+public class Order implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    protected long id;
+    protected String customer;
+    protected int quantity;
+    protected double amount;
+    protected boolean paid;
+    protected List<String> items;
+
+    public Order() {
+    }
+
+    /**
+     * 构造指定条目数量的订单
+     *
+     * @param items 条目数量
+     * @return 订单
+     */
+    public static Order of(final int items) {
+        Order order = new Order();
+        order.id = 1234567890L;
+        order.customer = "joyrpc-benchmark-customer";
+        order.quantity = items;
+        order.amount = 99.99d * items;
+        order.paid = true;
+        order.items = new ArrayList<>(items);
+        for (int i = 0; i < items; i++) {
+            order.items.add("item-" + i + "-sku-0123456789");
+        }
+        return order;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public void setId(long id) {
+        this.id = id;
+    }
+
+    public String getCustomer() {
+        return customer;
+    }
+
+    public void setCustomer(String customer) {
+        this.customer = customer;
+    }
+
+    public int getQuantity() {
+        return quantity;
+    }
+
+    public void setQuantity(int quantity) {
+        this.quantity = quantity;
+    }
+
+    public double getAmount() {
+        return amount;
+    }
+
+    public void setAmount(double amount) {
+        this.amount = amount;
+    }
+
+    public boolean isPaid() {
+        return paid;
+    }
+
+    public void setPaid(boolean paid) {
+        this.paid = paid;
+    }
+
+    public List<String> getItems() {
+        return items;
+    }
+
+    public void setItems(List<String> items) {
+        this.items = items;
+    }
+}
@@ -0,0 +1,86 @@
+package io.joyrpc.cluster.distribution.loadbalance;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import io.joyrpc.benchmark.EchoService;
+import io.joyrpc.cluster.Candidate;
+import io.joyrpc.cluster.Node;
+import io.joyrpc.cluster.Shard;
+import io.joyrpc.cluster.Shard.ShardState;
+import io.joyrpc.cluster.distribution.LoadBalance;
+import io.joyrpc.extension.URL;
+import io.joyrpc.protocol.message.Invocation;
+import io.joyrpc.protocol.message.RequestMessage;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static io.joyrpc.Plugin.LOADBALANCE;
+
+/**
+ * 负载均衡选择节点的性能，adaptive依赖集群的指标面板，不在此列
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+@Fork(1)
+public class LoadBalanceBenchmark {
+
+    @Param({"randomWeight", "aliasRandomWeight", "roundRobin", "weightRoundRobin", "consistentHash", "rendezvous"})
+    protected String loadBalance;
+
+    @Param({"10", "100", "1000"})
+    protected int nodes;
+
+    protected LoadBalance target;
+
+    protected Candidate candidate;
+
+    protected RequestMessage<Invocation> request;
+
+    @Setup
+    public void setup() throws Exception {
+        String name = "benchmark";
+        URL url = URL.valueOf("joyrpc://" + EchoService.class.getName() + "?alias=benchmark");
+        List<Node> list = new ArrayList<>(nodes);
+        for (int i = 0; i < nodes; i++) {
+            //权重在1到100之间分布
+            list.add(new Node(name, url, new Shard.DefaultShard("shard" + i, "region", "dc", "joyrpc",
+                    URL.valueOf("joyrpc://10.0." + (i / 250) + "." + (i % 250) + ":22000"), i % 100 + 1, ShardState.CONNECTED)));
+        }
+        candidate = new Candidate(null, null, list, nodes);
+        target = LOADBALANCE.get(loadBalance);
+        target.setUrl(url);
+        target.setup();
+        request = RequestMessage.build(new Invocation(EchoService.class, null,
+                EchoService.class.getMethod("hello", String.class), new Object[]{"joyrpc"}));
+    }
+
+    @Benchmark
+    public Node select() {
+        return target.select(candidate, request);
+    }
+}
@@ -0,0 +1,102 @@
+package io.joyrpc.codec.compression;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import io.joyrpc.transport.netty4.buffer.NettyChannelBuffer;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static io.joyrpc.Plugin.COMPRESSION;
+
+/**
+ * 各个压缩插件通过AdaptiveCompressOutputStream压缩以及解压缩的性能
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CompressionBenchmark {
+
+    @Param({"lz4", "lz4f", "snappy", "snappyf", "zlib", "gzip", "lzma"})
+    protected String compression;
+
+    @Param({"4096", "65536"})
+    protected int size;
+
+    protected Compression target;
+
+    protected byte[] data;
+
+    protected byte[] compressed;
+
+    protected byte[] scratch = new byte[8192];
+
+    @Setup
+    public void setup() throws IOException {
+        target = COMPRESSION.get(compression);
+        //类似JSON的文本，具有一定的可压缩性
+        StringBuilder builder = new StringBuilder(size + 64);
+        Random random = new Random(0);
+        while (builder.length() < size) {
+            builder.append("{\"id\":").append(random.nextInt(100000))
+                    .append(",\"name\":\"item-").append(random.nextInt(1000))
+                    .append("\",\"price\":").append(random.nextDouble()).append("},");
+        }
+        data = builder.substring(0, size).getBytes(StandardCharsets.UTF_8);
+        compressed = target.compress(data);
+    }
+
+    @Benchmark
+    public boolean compress() throws IOException {
+        ByteBuf buf = PooledByteBufAllocator.DEFAULT.buffer(size);
+        try {
+            AdaptiveCompressOutputStream os = new AdaptiveCompressOutputStream(new NettyChannelBuffer(buf), target, 2048);
+            os.write(data);
+            os.finish();
+            os.flush();
+            return os.isCompressed();
+        } finally {
+            buf.release();
+        }
+    }
+
+    @Benchmark
+    public int decompress() throws IOException {
+        int total = 0;
+        try (InputStream is = target.decompress(new ByteArrayInputStream(compressed))) {
+            int n;
+            while ((n = is.read(scratch)) > 0) {
+                total += n;
+            }
+        }
+        return total;
+    }
+}
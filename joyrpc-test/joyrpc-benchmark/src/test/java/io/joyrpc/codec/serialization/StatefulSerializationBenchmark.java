@@ -0,0 +1,113 @@
+package io.joyrpc.codec.serialization;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import io.joyrpc.benchmark.Order;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.TimeUnit;
+
+import static io.joyrpc.Plugin.SERIALIZATION;
+
+/**
+ * 有状态序列化和普通序列化的性能及字节数对比，有状态的序列化只在连接上的第一条消息传输类定义
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StatefulSerializationBenchmark {
+
+    @Param({"hessian"})
+    protected String serialization;
+
+    @Param({"false", "true"})
+    protected boolean stateful;
+
+    @Param({"1", "10"})
+    protected int items;
+
+    protected StatefulSerializer serializer;
+
+    protected StatefulSerializer.State writeState;
+
+    protected StatefulSerializer.State readState;
+
+    protected Order order;
+
+    protected byte[] encoded;
+
+    protected ByteArrayOutputStream bos = new ByteArrayOutputStream(4096);
+
+    @Setup
+    public void setup() {
+        serializer = (StatefulSerializer) SERIALIZATION.get(serialization).getSerializer();
+        writeState = serializer.createWriteState();
+        readState = serializer.createReadState();
+        order = Order.of(items);
+        //第一条消息携带类定义，解码后两端状态同步
+        byte[] first = serialize();
+        deserialize(first);
+        encoded = serialize();
+        System.out.println(String.format("%s stateful=%b items=%d, first message %d bytes, subsequent message %d bytes",
+                serialization, stateful, items, first.length, encoded.length));
+    }
+
+    /**
+     * 序列化订单
+     *
+     * @return 字节数组
+     */
+    protected byte[] serialize() {
+        bos.reset();
+        if (stateful) {
+            serializer.serialize(bos, order, writeState);
+        } else {
+            serializer.serialize(bos, order);
+        }
+        return bos.toByteArray();
+    }
+
+    /**
+     * 反序列化订单
+     *
+     * @param data 字节数组
+     * @return 订单
+     */
+    protected Order deserialize(final byte[] data) {
+        ByteArrayInputStream bis = new ByteArrayInputStream(data);
+        return stateful ? serializer.deserialize(bis, Order.class, readState) : serializer.deserialize(bis, Order.class);
+    }
+
+    @Benchmark
+    public int encode() {
+        return serialize().length;
+    }
+
+    @Benchmark
+    public Order decode() {
+        return deserialize(encoded);
+    }
+}
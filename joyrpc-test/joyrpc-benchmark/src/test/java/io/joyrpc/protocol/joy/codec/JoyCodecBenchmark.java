@@ -0,0 +1,149 @@
+package io.joyrpc.protocol.joy.codec;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import io.joyrpc.benchmark.EchoService;
+import io.joyrpc.benchmark.Order;
+import io.joyrpc.codec.serialization.Serialization;
+import io.joyrpc.protocol.message.Invocation;
+import io.joyrpc.protocol.message.RequestMessage;
+import io.joyrpc.transport.codec.Codec;
+import io.joyrpc.transport.codec.DefaultDecodeContext;
+import io.joyrpc.transport.codec.DefaultEncodeContext;
+import io.joyrpc.transport.netty4.buffer.NettyChannelBuffer;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+import static io.joyrpc.Plugin.CLIENT_PROTOCOL;
+import static io.joyrpc.Plugin.SERIALIZATION;
+import static io.joyrpc.Plugin.SERIALIZATION_SELECTOR;
+
+/**
+ * JoyCodec请求消息的编解码性能，覆盖各个序列化插件。<br/>
+ * json的多个实现共用同一个类型编号，编解码器按照编号只能选中优先级最高的实现，
+ * 所以按照"json@供应商"指定实现，并在每个分叉的进程里面禁用其它供应商
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JoyCodecBenchmark {
+
+    @Param({"hessian", "kryo", "protostuff", "fst", "json@fastjson", "json@jackson", "java"})
+    protected String serialization;
+
+    @Param({"1", "100"})
+    protected int items;
+
+    protected Codec codec;
+
+    protected byte type;
+
+    protected int magicLength;
+
+    protected Method method;
+
+    protected Order order;
+
+    protected ByteBuf encoded;
+
+    protected DefaultEncodeContext encodeContext = new DefaultEncodeContext(null);
+
+    protected DefaultDecodeContext decodeContext = new DefaultDecodeContext(null);
+
+    @Setup
+    public void setup() throws Exception {
+        //必须在加载序列化插件之前禁用
+        disable(serialization);
+        Serialization target = SERIALIZATION.get(serialization);
+        type = target.getTypeId();
+        if (SERIALIZATION_SELECTOR.select(type) != target) {
+            throw new IllegalStateException("serialization " + serialization + " is not selected by type " + type);
+        }
+        codec = CLIENT_PROTOCOL.get("joy").getCodec();
+        byte[] magicCode = CLIENT_PROTOCOL.get("joy").getMagicCode();
+        magicLength = magicCode == null ? 0 : magicCode.length;
+        method = EchoService.class.getMethod("echo", Order.class);
+        order = Order.of(items);
+        ByteBuf buf = Unpooled.buffer();
+        codec.encode(encodeContext, new NettyChannelBuffer(buf), request());
+        encoded = Unpooled.unreleasableBuffer(buf);
+    }
+
+    /**
+     * 禁用同名的其它供应商，确保编解码器按照类型编号选中指定的实现
+     *
+     * @param name 插件名称，格式为"名称@供应商"
+     */
+    protected void disable(final String name) {
+        int pos = name.indexOf('@');
+        if (pos < 0) {
+            return;
+        }
+        String provider = name.substring(pos + 1);
+        String other = "fastjson".equals(provider) ? "jackson" : "fastjson";
+        String disable = "serialization:" + name.substring(0, pos) + "@" + other;
+        String value = System.getProperty("plugin.disable");
+        System.setProperty("plugin.disable", value == null || value.isEmpty() ? disable : value + "," + disable);
+    }
+
+    @TearDown
+    public void tearDown() {
+        encoded = null;
+    }
+
+    /**
+     * 构造请求，编码过程会修改调用信息，每次都需要新建
+     *
+     * @return 请求
+     */
+    protected RequestMessage<Invocation> request() {
+        RequestMessage<Invocation> request = RequestMessage.build(new Invocation(EchoService.class, null, method, new Object[]{order}));
+        request.getHeader().setSerialization(type);
+        return request;
+    }
+
+    @Benchmark
+    public int encode() {
+        ByteBuf buf = PooledByteBufAllocator.DEFAULT.buffer();
+        try {
+            codec.encode(encodeContext, new NettyChannelBuffer(buf), request());
+            return buf.readableBytes();
+        } finally {
+            buf.release();
+        }
+    }
+
+    @Benchmark
+    public Object decode() {
+        ByteBuf buf = encoded.duplicate();
+        //长度字段帧解码器会去掉魔术位
+        buf.skipBytes(magicLength);
+        return codec.decode(decodeContext, new NettyChannelBuffer(buf));
+    }
+}
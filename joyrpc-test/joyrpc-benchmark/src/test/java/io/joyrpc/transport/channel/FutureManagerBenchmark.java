@@ -0,0 +1,88 @@
+package io.joyrpc.transport.channel;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import io.joyrpc.util.IdGenerator.IntToLongIdGenerator;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * FutureManager与LongFutureManager的创建及完成性能对比，在途请求数通过inflight参数预先填充
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(8)
+@Fork(1)
+public class FutureManagerBenchmark {
+
+    @Param({"1000", "20000"})
+    protected int inflight;
+
+    protected FutureManager<Long, Object> mapManager;
+
+    protected LongFutureManager<Object> longManager;
+
+    protected IntToLongIdGenerator idGenerator;
+
+    protected Object message = new Object();
+
+    @Setup
+    public void setup() {
+        idGenerator = new IntToLongIdGenerator();
+        mapManager = new FutureManager<>(null, idGenerator, null);
+        longManager = new LongFutureManager<>(null, idGenerator, null);
+        //填充在途请求，超时时间足够长
+        for (int i = 0; i < inflight; i++) {
+            mapManager.create(idGenerator.get(), 3600000L, null);
+            longManager.create(idGenerator.getAsLong(), 3600000L, null);
+        }
+    }
+
+    @Benchmark
+    public boolean concurrentHashMap() {
+        Long id = idGenerator.get();
+        mapManager.create(id, 3600000L, null);
+        return mapManager.complete(id, message);
+    }
+
+    @Benchmark
+    public boolean openAddressing() {
+        long id = idGenerator.getAsLong();
+        longManager.create(id, 3600000L, null);
+        return longManager.complete(id, message);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(FutureManagerBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build();
+        new Runner(opt).run();
+    }
+}
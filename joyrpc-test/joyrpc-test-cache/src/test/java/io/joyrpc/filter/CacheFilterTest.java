@@ -0,0 +1,284 @@
+package io.joyrpc.filter;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import io.joyrpc.Invoker;
+import io.joyrpc.Result;
+import io.joyrpc.cache.Cache;
+import io.joyrpc.cache.CacheConfig;
+import io.joyrpc.context.RequestContext;
+import io.joyrpc.exception.RpcException;
+import io.joyrpc.filter.consumer.CacheFilter;
+import io.joyrpc.invoker.option.AbstractMethodOption;
+import io.joyrpc.invoker.option.CacheOption;
+import io.joyrpc.protocol.message.Invocation;
+import io.joyrpc.protocol.message.RequestMessage;
+import io.joyrpc.util.Futures;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static io.joyrpc.Plugin.CACHE;
+
+/**
+ * 缓存过滤器测试
+ */
+public class CacheFilterTest {
+
+    /**
+     * 构建缓存策略
+     *
+     * @param expireAfterWrite    缓存过期时间
+     * @param refreshAhead        提前刷新时间
+     * @param exceptionExpireTime 异常缓存时间
+     * @return 缓存策略
+     */
+    protected CacheOption buildPolicy(final int expireAfterWrite, final long refreshAhead, final long exceptionExpireTime) {
+        CacheConfig<Object, Object> config = CacheConfig.builder().expireAfterWrite(expireAfterWrite).build();
+        Cache<Object, Object> cache = CACHE.get("caffeine").build("test", config);
+        return new CacheOption(cache, invocation -> "key", expireAfterWrite, refreshAhead, exceptionExpireTime);
+    }
+
+    /**
+     * 构建请求
+     *
+     * @param policy 缓存策略
+     * @return 请求
+     */
+    protected RequestMessage<Invocation> buildRequest(final CacheOption policy) {
+        RequestMessage<Invocation> request = RequestMessage.build(new Invocation("io.joyrpc.HelloService", "", "hello"));
+        request.setContext(new RequestContext());
+        request.setOption(new MockMethodOption(policy));
+        return request;
+    }
+
+    /**
+     * 获取调用异常
+     *
+     * @param future 调用结果
+     * @return 异常
+     */
+    protected Throwable getError(final CompletableFuture<Result> future) throws InterruptedException {
+        try {
+            future.get();
+            return null;
+        } catch (ExecutionException e) {
+            return e.getCause();
+        }
+    }
+
+    @Test
+    public void testSingleFlight() throws Exception {
+        CacheOption policy = buildPolicy(10000, -1, -1);
+        CompletableFuture<Result> remote = new CompletableFuture<>();
+        MockInvoker invoker = new MockInvoker(r -> remote);
+        CacheFilter filter = new CacheFilter();
+        List<RequestMessage<Invocation>> requests = new ArrayList<>(100);
+        List<CompletableFuture<Result>> futures = new ArrayList<>(100);
+        for (int i = 0; i < 100; i++) {
+            RequestMessage<Invocation> request = buildRequest(policy);
+            requests.add(request);
+            futures.add(filter.invoke(invoker, request));
+        }
+        //并发未命中只发起一次远程调用
+        Assertions.assertEquals(1, invoker.counter.get());
+        for (CompletableFuture<Result> future : futures) {
+            Assertions.assertFalse(future.isDone());
+        }
+        remote.complete(new Result(requests.get(0).getContext(), "value"));
+        for (int i = 0; i < futures.size(); i++) {
+            Result result = futures.get(i).get();
+            Assertions.assertEquals("value", result.getValue());
+            Assertions.assertSame(requests.get(i).getContext(), result.getContext());
+        }
+        //已经写入缓存
+        Assertions.assertEquals("value", filter.invoke(invoker, buildRequest(policy)).get().getValue());
+        Assertions.assertEquals(1, invoker.counter.get());
+        Assertions.assertTrue(policy.getFlights().isEmpty());
+    }
+
+    @Test
+    public void testRefreshAhead() throws Exception {
+        CacheOption policy = buildPolicy(2000, 1800, -1);
+        MockInvoker invoker = new MockInvoker(null);
+        invoker.function = r -> CompletableFuture.completedFuture(new Result(r.getContext(), "value" + invoker.counter.get()));
+        CacheFilter filter = new CacheFilter();
+        Assertions.assertEquals("value1", filter.invoke(invoker, buildRequest(policy)).get().getValue());
+        //没有到刷新时间
+        Assertions.assertEquals("value1", filter.invoke(invoker, buildRequest(policy)).get().getValue());
+        Assertions.assertEquals(1, invoker.counter.get());
+        Thread.sleep(300);
+        //返回旧值并异步刷新
+        RequestMessage<Invocation> request = buildRequest(policy);
+        Assertions.assertEquals("value1", filter.invoke(invoker, request).get().getValue());
+        Assertions.assertEquals(2, invoker.counter.get());
+        //刷新使用新的请求和上下文
+        RequestMessage<Invocation> refresh = invoker.requests.get(1);
+        Assertions.assertNotSame(request, refresh);
+        Assertions.assertNotSame(request.getHeader(), refresh.getHeader());
+        Assertions.assertNotSame(request.getPayLoad(), refresh.getPayLoad());
+        Assertions.assertNotSame(request.getContext(), refresh.getContext());
+        Assertions.assertEquals("value2", filter.invoke(invoker, buildRequest(policy)).get().getValue());
+    }
+
+    @Test
+    public void testRefreshFailure() throws Exception {
+        CacheOption policy = buildPolicy(2000, 1800, 2000);
+        MockInvoker invoker = new MockInvoker(null);
+        invoker.function = r -> invoker.counter.get() == 1 ?
+                CompletableFuture.completedFuture(new Result(r.getContext(), "value")) :
+                Futures.completeExceptionally(new RpcException("refresh error"));
+        CacheFilter filter = new CacheFilter();
+        Assertions.assertEquals("value", filter.invoke(invoker, buildRequest(policy)).get().getValue());
+        Thread.sleep(300);
+        //刷新失败继续使用旧值，不缓存异常
+        Assertions.assertEquals("value", filter.invoke(invoker, buildRequest(policy)).get().getValue());
+        Assertions.assertEquals(2, invoker.counter.get());
+        Assertions.assertTrue(policy.getFailures().isEmpty());
+        Assertions.assertEquals("value", filter.invoke(invoker, buildRequest(policy)).get().getValue());
+    }
+
+    @Test
+    public void testExceptionExpire() throws Exception {
+        CacheOption policy = buildPolicy(10000, -1, 300);
+        RpcException error = new RpcException("remote error");
+        MockInvoker invoker = new MockInvoker(r -> Futures.completeExceptionally(error));
+        CacheFilter filter = new CacheFilter();
+        Assertions.assertSame(error, getError(filter.invoke(invoker, buildRequest(policy))));
+        //有效期内回放异常，不发起远程调用，每个调用方拿到独立的异常对象
+        Throwable first = getError(filter.invoke(invoker, buildRequest(policy)));
+        Throwable second = getError(filter.invoke(invoker, buildRequest(policy)));
+        Assertions.assertEquals(1, invoker.counter.get());
+        Assertions.assertTrue(first instanceof RpcException);
+        Assertions.assertEquals("remote error", first.getMessage());
+        Assertions.assertNotSame(error, first);
+        Assertions.assertNotSame(first, second);
+        Assertions.assertEquals(first.getClass(), second.getClass());
+        Assertions.assertEquals(first.getMessage(), second.getMessage());
+        //过期后重新调用
+        Thread.sleep(500);
+        getError(filter.invoke(invoker, buildRequest(policy)));
+        Assertions.assertEquals(2, invoker.counter.get());
+    }
+
+    @Test
+    public void testBusinessExceptionExpire() throws Exception {
+        CacheOption policy = buildPolicy(10000, -1, 300);
+        IllegalStateException error = new IllegalStateException("business error");
+        MockInvoker invoker = new MockInvoker(r -> CompletableFuture.completedFuture(new Result(r.getContext(), error)));
+        CacheFilter filter = new CacheFilter();
+        Assertions.assertSame(error, filter.invoke(invoker, buildRequest(policy)).get().getException());
+        RequestMessage<Invocation> request = buildRequest(policy);
+        Result first = filter.invoke(invoker, request).get();
+        Result second = filter.invoke(invoker, buildRequest(policy)).get();
+        Assertions.assertEquals(1, invoker.counter.get());
+        Assertions.assertSame(request.getContext(), first.getContext());
+        Assertions.assertTrue(first.getException() instanceof IllegalStateException);
+        Assertions.assertEquals("business error", first.getException().getMessage());
+        Assertions.assertNotSame(error, first.getException());
+        Assertions.assertNotSame(first.getException(), second.getException());
+        Thread.sleep(500);
+        filter.invoke(invoker, buildRequest(policy)).get();
+        Assertions.assertEquals(2, invoker.counter.get());
+    }
+
+    @Test
+    public void testSingleFlightFailure() throws Exception {
+        CacheOption policy = buildPolicy(10000, -1, -1);
+        CompletableFuture<Result> remote = new CompletableFuture<>();
+        MockInvoker invoker = new MockInvoker(r -> remote);
+        CacheFilter filter = new CacheFilter();
+        List<CompletableFuture<Result>> futures = new ArrayList<>(3);
+        for (int i = 0; i < 3; i++) {
+            futures.add(filter.invoke(invoker, buildRequest(policy)));
+        }
+        RpcException error = new RpcException("remote error");
+        remote.completeExceptionally(error);
+        //发起调用的请求拿到原始异常，等待的请求各自拿到复制的异常
+        Assertions.assertSame(error, getError(futures.get(0)));
+        Throwable first = getError(futures.get(1));
+        Throwable second = getError(futures.get(2));
+        Assertions.assertTrue(first instanceof RpcException);
+        Assertions.assertEquals("remote error", first.getMessage());
+        Assertions.assertNotSame(error, first);
+        Assertions.assertNotSame(first, second);
+        Assertions.assertEquals(1, invoker.counter.get());
+    }
+
+    @Test
+    public void testSingleFlightBusinessFailure() throws Exception {
+        CacheOption policy = buildPolicy(10000, -1, -1);
+        CompletableFuture<Result> remote = new CompletableFuture<>();
+        MockInvoker invoker = new MockInvoker(r -> remote);
+        CacheFilter filter = new CacheFilter();
+        RequestMessage<Invocation> leader = buildRequest(policy);
+        RequestMessage<Invocation> waiter = buildRequest(policy);
+        CompletableFuture<Result> leaderFuture = filter.invoke(invoker, leader);
+        CompletableFuture<Result> waiterFuture = filter.invoke(invoker, waiter);
+        IllegalStateException error = new IllegalStateException("business error");
+        remote.complete(new Result(leader.getContext(), error));
+        Assertions.assertSame(error, leaderFuture.get().getException());
+        Result result = waiterFuture.get();
+        Assertions.assertSame(waiter.getContext(), result.getContext());
+        Assertions.assertTrue(result.getException() instanceof IllegalStateException);
+        Assertions.assertEquals("business error", result.getException().getMessage());
+        Assertions.assertNotSame(error, result.getException());
+    }
+
+    /**
+     * 模拟调用器，记录调用次数和请求
+     */
+    protected static class MockInvoker implements Invoker {
+
+        protected AtomicInteger counter = new AtomicInteger();
+
+        protected List<RequestMessage<Invocation>> requests = new ArrayList<>();
+
+        protected Function<RequestMessage<Invocation>, CompletableFuture<Result>> function;
+
+        public MockInvoker(Function<RequestMessage<Invocation>, CompletableFuture<Result>> function) {
+            this.function = function;
+        }
+
+        @Override
+        public CompletableFuture<Result> invoke(final RequestMessage<Invocation> request) {
+            counter.incrementAndGet();
+            requests.add(request);
+            return function.apply(request);
+        }
+    }
+
+    /**
+     * 模拟方法选项
+     */
+    protected static class MockMethodOption extends AbstractMethodOption {
+
+        public MockMethodOption(final CacheOption cachePolicy) {
+            super(null, null, null, 0, null, cachePolicy, null, null, null, false, false, null);
+        }
+    }
+}
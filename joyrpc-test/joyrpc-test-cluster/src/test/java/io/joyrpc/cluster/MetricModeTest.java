@@ -0,0 +1,139 @@
+package io.joyrpc.cluster;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import io.joyrpc.apm.metric.Dashboard;
+import io.joyrpc.apm.metric.TPSnapshot;
+import io.joyrpc.apm.metric.TPWindow;
+import io.joyrpc.apm.metric.mc.McDashboard;
+import io.joyrpc.apm.metric.mc.McDashboardFactory;
+import io.joyrpc.cluster.discovery.naming.fix.FixRegistar;
+import io.joyrpc.cluster.event.MetricEvent;
+import io.joyrpc.extension.URL;
+import io.joyrpc.protocol.message.Invocation;
+import io.joyrpc.protocol.message.RequestMessage;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class MetricModeTest {
+
+    protected Cluster create(final String mode, final List<MetricHandler> handlers) {
+        URL url = URL.valueOf("joy://topic1?metric.mode=" + mode);
+        FixRegistar registar = new FixRegistar(URL.valueOf("joy://test?address=127.0.0.1"));
+        return new Cluster("test", url, registar, null, null, null, null,
+                new McDashboardFactory(), handlers, null);
+    }
+
+    @Test
+    public void testSnapshotHandler() {
+        MetricHandler legacy = event -> {
+        };
+        Assertions.assertFalse(legacy.isSnapshot());
+        Assertions.assertTrue(new SnapshotHandler().isSnapshot());
+    }
+
+    @Test
+    public void testDirectMode() {
+        SnapshotHandler handler = new SnapshotHandler();
+        Cluster cluster = create("direct", Collections.singletonList(handler));
+        Assertions.assertNull(cluster.metricPublisher);
+        Assertions.assertEquals(1, cluster.metricHandlers.size());
+    }
+
+    @Test
+    public void testFallbackToEventMode() {
+        //没有覆盖onSnapshot的处理器，直接记录模式下收不到任何指标，退回到事件模式
+        MetricHandler legacy = event -> {
+        };
+        Cluster cluster = create("direct", Collections.singletonList(legacy));
+        Assertions.assertNull(cluster.metricHandlers);
+        Assertions.assertNotNull(cluster.metricPublisher);
+    }
+
+    @Test
+    public void testEventMode() {
+        Cluster cluster = create("event", Collections.singletonList(new SnapshotHandler()));
+        Assertions.assertNull(cluster.metricHandlers);
+        Assertions.assertNotNull(cluster.metricPublisher);
+    }
+
+    @Test
+    public void testRecord() {
+        URL url = URL.valueOf("joy://topic1");
+        McDashboard dashboard = new McDashboard(url, Dashboard.DashboardType.Cluster);
+        RequestMessage<Invocation> request = RequestMessage.build(new Invocation("io.joyrpc.Test", "test", "hello"));
+        for (int i = 0; i < 3; i++) {
+            dashboard.record(this, url, "test", url, request, null, null, 1, 1000, 1010, 0);
+        }
+        //事件模式和直接模式统计到同一个窗口
+        dashboard.handle(new MetricEvent(this, null, url, "test", url, request, null, null, 1, 1000, 1030));
+        //让窗口过期，触发快照
+        dashboard.getMetric().setLastSnapshotTime(0);
+        dashboard.getMethod("hello").setLastSnapshotTime(0);
+        dashboard.snapshot();
+        TPSnapshot snapshot = dashboard.getMetric().getSnapshot().getSnapshot();
+        Assertions.assertEquals(4, snapshot.getRequests());
+        Assertions.assertEquals(4, snapshot.getSuccesses());
+        Assertions.assertEquals(30, snapshot.getMax());
+        Assertions.assertEquals(4, dashboard.getMethod("hello").getSnapshot().getSnapshot().getRequests());
+    }
+
+    @Test
+    public void testDefaultRecord() {
+        AtomicInteger counter = new AtomicInteger();
+        URL url = URL.valueOf("joy://topic1");
+        //没有覆盖record的仪表盘，默认构造指标事件进行处理
+        Dashboard dashboard = new Dashboard() {
+            @Override
+            public TPWindow getMetric() {
+                return null;
+            }
+
+            @Override
+            public TPWindow getMethod(final String methodName) {
+                return null;
+            }
+
+            @Override
+            public void handle(final MetricEvent event) {
+                Assertions.assertEquals(20, event.getEndTime() - event.getStartTime());
+                counter.incrementAndGet();
+            }
+        };
+        dashboard.record(this, url, "test", url, null, null, null, 1, 1000, 1020, 0);
+        Assertions.assertEquals(1, counter.get());
+    }
+
+    protected static class SnapshotHandler implements MetricHandler {
+
+        @Override
+        public void handle(final MetricEvent event) {
+        }
+
+        @Override
+        public void onSnapshot(final Cluster cluster, final Dashboard dashboard) {
+        }
+    }
+}
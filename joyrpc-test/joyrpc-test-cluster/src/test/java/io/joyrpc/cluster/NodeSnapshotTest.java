@@ -0,0 +1,112 @@
+package io.joyrpc.cluster;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import io.joyrpc.cluster.Shard.ShardState;
+import io.joyrpc.extension.URL;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 节点快照测试
+ */
+public class NodeSnapshotTest {
+
+    protected static final URL CLUSTER_URL = URL.valueOf("joyrpc://127.0.0.1/io.joyrpc.DemoService?warmupDuration=0");
+
+    protected List<Node> nodes(final String cluster, final int size) {
+        List<Node> result = new ArrayList<>();
+        for (int i = 1; i <= size; i++) {
+            result.add(new Node(cluster, CLUSTER_URL, new Shard.DefaultShard(cluster + i, "huabei", "lf", "joyrpc",
+                    URL.valueOf("joyrpc://192.168.1." + i), 100, ShardState.INITIAL)));
+        }
+        return result;
+    }
+
+    @Test
+    public void testMembers() {
+        List<Node> nodes = nodes("snapshot-members", 5);
+        NodeSnapshot snapshot = new NodeSnapshot(nodes);
+        Assertions.assertTrue(snapshot.matches(nodes));
+        Assertions.assertTrue(snapshot.matches(new ArrayList<>(nodes)));
+        Assertions.assertFalse(snapshot.matches(null));
+        Assertions.assertFalse(snapshot.matches(nodes.subList(0, 4)));
+        //顺序变化
+        List<Node> reversed = new ArrayList<>(nodes);
+        Collections.reverse(reversed);
+        Assertions.assertFalse(snapshot.matches(reversed));
+        //数量相同，成员不同
+        List<Node> replaced = new ArrayList<>(nodes);
+        replaced.set(2, nodes("snapshot-other", 1).get(0));
+        Assertions.assertFalse(snapshot.matches(replaced));
+        //原地修改
+        nodes.remove(0);
+        Assertions.assertFalse(snapshot.matches(nodes));
+    }
+
+    @Test
+    public void testWeight() {
+        List<Node> nodes = nodes("snapshot-weight", 3);
+        List<Node> others = nodes("snapshot-weight-other", 3);
+        NodeSnapshot members = new NodeSnapshot(nodes);
+        NodeSnapshot weights = new NodeSnapshot(nodes, true);
+        //其它集群的权重变化不影响
+        others.get(0).setWeight(50);
+        Assertions.assertTrue(weights.matches(nodes));
+        //权重没有变化不影响
+        nodes.get(0).setWeight(100);
+        Assertions.assertTrue(weights.matches(nodes));
+        nodes.get(1).setWeight(50);
+        Assertions.assertFalse(weights.matches(nodes));
+        Assertions.assertTrue(members.matches(nodes));
+        Assertions.assertTrue(new NodeSnapshot(nodes, true).matches(nodes));
+    }
+
+    @Test
+    public void testMixedClusters() {
+        List<Node> nodes = nodes("snapshot-mixed-a", 2);
+        List<Node> others = nodes("snapshot-mixed-b", 2);
+        List<Node> mixed = new ArrayList<>(nodes);
+        mixed.addAll(others);
+        NodeSnapshot snapshot = new NodeSnapshot(mixed, true);
+        Assertions.assertTrue(snapshot.matches(mixed));
+        others.get(1).setWeight(10);
+        Assertions.assertFalse(snapshot.matches(mixed));
+    }
+
+    @Test
+    public void testMark() {
+        List<Node> nodes = nodes("snapshot-mark", 4);
+        NodeSnapshot snapshot = new NodeSnapshot(nodes);
+        //子集按成员位置标记
+        List<Node> subset = new ArrayList<>(nodes);
+        subset.remove(1);
+        Collections.reverse(subset);
+        Assertions.assertArrayEquals(new boolean[]{true, false, true, true}, snapshot.mark(subset));
+        //存在不属于快照的节点
+        subset.add(nodes("snapshot-mark-other", 1).get(0));
+        Assertions.assertNull(snapshot.mark(subset));
+    }
+}
@@ -0,0 +1,129 @@
+package io.joyrpc.cluster.candidate.aperture;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import io.joyrpc.cluster.Candidate;
+import io.joyrpc.cluster.Cluster;
+import io.joyrpc.cluster.Node;
+import io.joyrpc.cluster.Region;
+import io.joyrpc.cluster.Shard;
+import io.joyrpc.cluster.Shard.ShardState;
+import io.joyrpc.cluster.candidate.Candidature;
+import io.joyrpc.extension.URL;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+public class ApertureCandidatureTest {
+
+    @Test
+    public void testBalance() {
+        String name = "test";
+        URL url = URL.valueOf("joyrpc://127.0.0.1/xxx.xxx.xxx.xxx");
+        List<Node> nodes = new LinkedList<>();
+        for (int i = 1; i <= 20; i++) {
+            nodes.add(new Node(name, url, new Shard.DefaultShard("shard" + i, "huabei", "lf", "joyrpc",
+                    URL.valueOf("joyrpc://192.168.1." + i), 100, ShardState.INITIAL)));
+        }
+        ApertureCandidature candidature = new ApertureCandidature();
+        Map<String, Integer> counts = new HashMap<>();
+        int peers = 7;
+        for (int i = 0; i < peers; i++) {
+            //节点顺序打乱，结果不受影响
+            List<Node> shuffled = new ArrayList<>(nodes);
+            Collections.shuffle(shuffled);
+            URL consumer = url.add("aperture.peers", peers).add("aperture.peerIndex", i);
+            Candidature.Result result = candidature.candidate(consumer, Candidate.builder().
+                    region(new Region.DefaultRegion("huabei", "lf")).nodes(shuffled).size(0).build());
+            Assertions.assertEquals(5, result.getCandidates().size());
+            Assertions.assertEquals(15, result.getBackups().size());
+            Assertions.assertEquals(result.getCandidates(), candidature.candidate(consumer, Candidate.builder().
+                    region(new Region.DefaultRegion("huabei", "lf")).nodes(nodes).size(0).build()).getCandidates());
+            result.getCandidates().forEach(n -> counts.merge(n.getName(), 1, Integer::sum));
+        }
+        //7个消费者各连5个，20个服务节点的连接数为1或2
+        Assertions.assertEquals(20, counts.size());
+        Assertions.assertTrue(counts.values().stream().allMatch(v -> v == 1 || v == 2));
+    }
+
+    @Test
+    public void testSmallCluster() {
+        String name = "test";
+        URL url = URL.valueOf("joyrpc://127.0.0.1/xxx.xxx.xxx.xxx");
+        List<Node> nodes = new LinkedList<>();
+        for (int i = 1; i <= 3; i++) {
+            nodes.add(new Node(name, url, new Shard.DefaultShard("shard" + i, "huabei", "lf", "joyrpc",
+                    URL.valueOf("joyrpc://192.168.1." + i), 100, ShardState.INITIAL)));
+        }
+        Candidature.Result result = new ApertureCandidature().candidate(url, Candidate.builder().
+                region(new Region.DefaultRegion("huabei", "lf")).nodes(nodes).size(0).build());
+        Assertions.assertEquals(3, result.getCandidates().size());
+        Assertions.assertEquals(0, result.getBackups().size());
+    }
+
+    @Test
+    public void testResize() {
+        String name = "test";
+        URL url = URL.valueOf("joyrpc://127.0.0.1/xxx.xxx.xxx.xxx?aperture.min=2&aperture.max=20");
+        List<Node> nodes = new LinkedList<>();
+        for (int i = 1; i <= 20; i++) {
+            nodes.add(new Node(name, url, new Shard.DefaultShard("shard" + i, "huabei", "lf", "joyrpc",
+                    URL.valueOf("joyrpc://192.168.1." + i), 100, ShardState.INITIAL)));
+        }
+        MockApertureCandidature candidature = new MockApertureCandidature();
+        Candidate candidate = Candidate.builder().region(new Region.DefaultRegion("huabei", "lf")).nodes(nodes).size(0).build();
+        //没有选举过
+        Assertions.assertFalse(candidature.isChanged(url, candidate));
+        //没有指标，按最小值
+        Assertions.assertEquals(2, candidature.candidate(url, candidate).getCandidates().size());
+        Assertions.assertFalse(candidature.isChanged(url, candidate));
+        //单节点负载1.5，在水位之内
+        candidature.concurrency = 3;
+        Assertions.assertFalse(candidature.isChanged(url, candidate));
+        //单节点负载5，超过高水位，按中间水位1.25扩容到8
+        candidature.concurrency = 10;
+        Assertions.assertTrue(candidature.isChanged(url, candidate));
+        Assertions.assertEquals(8, candidature.candidate(url, candidate).getCandidates().size());
+        Assertions.assertFalse(candidature.isChanged(url, candidate));
+        //负载下降，缩容到最小值
+        candidature.concurrency = 1;
+        Assertions.assertTrue(candidature.isChanged(url, candidate));
+        Assertions.assertEquals(2, candidature.candidate(url, candidate).getCandidates().size());
+        Assertions.assertFalse(candidature.isChanged(url, candidate));
+        //节点减少，孔径保持不变
+        Assertions.assertFalse(candidature.isChanged(url, Candidate.builder().region(new Region.DefaultRegion("huabei", "lf"))
+                .nodes(nodes.subList(0, 10)).size(0).build()));
+    }
+
+    /**
+     * 可以指定并发的孔径选举
+     */
+    protected static class MockApertureCandidature extends ApertureCandidature {
+
+        protected double concurrency = -1;
+
+        @Override
+        protected double getConcurrency(final Cluster cluster) {
+            return concurrency;
+        }
+    }
+}
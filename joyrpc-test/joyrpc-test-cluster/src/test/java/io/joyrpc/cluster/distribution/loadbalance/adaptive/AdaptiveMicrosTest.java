@@ -0,0 +1,97 @@
+package io.joyrpc.cluster.distribution.loadbalance.adaptive;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import io.joyrpc.apm.metric.Clock;
+import io.joyrpc.apm.metric.TPWindow;
+import io.joyrpc.apm.metric.hdr.HdrTPWindow;
+import io.joyrpc.cluster.Node;
+import io.joyrpc.cluster.Shard;
+import io.joyrpc.cluster.Shard.ShardState;
+import io.joyrpc.cluster.distribution.loadbalance.adaptive.judge.TpLimitJudge;
+import io.joyrpc.extension.URL;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+public class AdaptiveMicrosTest {
+
+    protected AdaptivePolicy policy(final int fair, final int poor, final int disable) {
+        AdaptiveConfig config = new AdaptiveConfig();
+        config.setTpScore(new RankScore<>(fair, poor, disable));
+        return new AdaptivePolicy(config, Collections.emptyList());
+    }
+
+    protected TPWindow window(final long micros) {
+        HdrTPWindow window = new HdrTPWindow(1000, Clock.MILLI);
+        for (int i = 0; i < 100; i++) {
+            window.success((int) (micros / 1000), TimeUnit.MICROSECONDS.toNanos(micros));
+        }
+        window.setLastSnapshotTime(0);
+        window.snapshot();
+        return window;
+    }
+
+    protected Rank score(final AdaptivePolicy policy, final long micros) {
+        URL url = URL.valueOf("joyrpc://127.0.0.1/xxx.xxx.xxx.xxx");
+        Node node = new Node("test", url, new Shard.DefaultShard("shard1", "huabei", "lf", "joyrpc",
+                URL.valueOf("joyrpc://192.168.1.1"), 100, ShardState.INITIAL));
+        TPWindow window = window(micros);
+        NodeMetric metric = new NodeMetric(node, null, window, window, NodeMetric.TP90_MICROS_FUNCTION);
+        return new TpLimitJudge().score(metric, policy);
+    }
+
+    @Test
+    public void testTpMicrosScore() {
+        AdaptivePolicy policy = policy(4, 8, 12);
+        Assertions.assertEquals(4000L, policy.getTpMicrosScore().getFair());
+        Assertions.assertEquals(8000L, policy.getTpMicrosScore().getPoor());
+        Assertions.assertEquals(12000L, policy.getTpMicrosScore().getDisable());
+        Assertions.assertNull(new AdaptivePolicy(new AdaptiveConfig(), Collections.emptyList()).getTpMicrosScore());
+    }
+
+    @Test
+    public void testNodeFunction() {
+        //节点函数返回微秒，亚毫秒的耗时不再被截断为0
+        TPWindow window = window(600);
+        long tp90 = NodeMetric.TP90_MICROS_FUNCTION.apply(window.getSnapshot().getSnapshot());
+        Assertions.assertTrue(tp90 >= 580 && tp90 <= 620, "tp90=" + tp90);
+        Assertions.assertEquals(0, window.getSnapshot().getSnapshot().getTp90());
+        long avg = AdaptiveLoadBalance.TPAVG_MICROS_FUNCTION.apply(window.getSnapshot().getSnapshot());
+        Assertions.assertEquals(600, avg);
+        //原有的TP函数仍然返回毫秒
+        TPWindow slow = window(2000);
+        int slowTp90 = NodeMetric.TP90_FUNCTION.apply(slow.getSnapshot().getSnapshot());
+        Assertions.assertTrue(slowTp90 >= 2 && slowTp90 <= 3, "tp90=" + slowTp90);
+        Assertions.assertEquals(2, (int) AdaptiveLoadBalance.TPAVG_FUNCTION.apply(slow.getSnapshot().getSnapshot()));
+    }
+
+    @Test
+    public void testTpJudge() {
+        AdaptivePolicy policy = policy(1, 2, 3);
+        Assertions.assertEquals(Rank.Good, score(policy, 600));
+        Assertions.assertEquals(Rank.Fair, score(policy, 1500));
+        Assertions.assertEquals(Rank.Poor, score(policy, 2500));
+        Assertions.assertEquals(Rank.Disabled, score(policy, 3500));
+    }
+}
@@ -0,0 +1,146 @@
+package io.joyrpc.cluster.distribution.loadbalance.alias;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import io.joyrpc.cluster.Candidate;
+import io.joyrpc.cluster.Cluster;
+import io.joyrpc.cluster.Node;
+import io.joyrpc.cluster.Region;
+import io.joyrpc.cluster.Shard;
+import io.joyrpc.cluster.Shard.ShardState;
+import io.joyrpc.cluster.discovery.naming.fix.FixRegistar;
+import io.joyrpc.extension.URL;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 别名表加权随机负载均衡测试
+ */
+public class AliasRandomWeightLoadBalanceTest {
+
+    protected static final URL CLUSTER_URL = URL.valueOf("joyrpc://127.0.0.1/io.joyrpc.DemoService?warmupDuration=0");
+
+    protected List<Node> nodes(final int... weights) {
+        List<Node> result = new ArrayList<>();
+        for (int i = 0; i < weights.length; i++) {
+            result.add(new Node("alias", CLUSTER_URL, new Shard.DefaultShard("shard" + i, "huabei", "lf", "joyrpc",
+                    URL.valueOf("joyrpc://192.168.1." + (i + 1)), weights[i], ShardState.INITIAL)));
+        }
+        return result;
+    }
+
+    protected Map<Node, Integer> count(final AliasRandomWeightLoadBalance balance, final List<Node> nodes, final int times) {
+        Candidate candidate = Candidate.builder().region(new Region.DefaultRegion("huabei", "lf")).nodes(nodes).size(0).build();
+        Map<Node, Integer> counts = new HashMap<>();
+        for (int i = 0; i < times; i++) {
+            counts.merge(balance.select(candidate, null), 1, Integer::sum);
+        }
+        return counts;
+    }
+
+    @Test
+    public void testDistribution() {
+        List<Node> nodes = nodes(100, 200, 300, 400, 0);
+        int times = 200000;
+        Map<Node, Integer> counts = count(new AliasRandomWeightLoadBalance(), nodes, times);
+        //权重为0的节点不会被选中
+        Assertions.assertNull(counts.get(nodes.get(4)));
+        for (int i = 0; i < 4; i++) {
+            double expected = (i + 1) / 10.0;
+            double actual = counts.getOrDefault(nodes.get(i), 0) / (double) times;
+            Assertions.assertEquals(expected, actual, 0.01, "node " + i);
+        }
+    }
+
+    @Test
+    public void testZeroWeights() {
+        List<Node> nodes = nodes(0, 0, 0);
+        int times = 30000;
+        Map<Node, Integer> counts = count(new AliasRandomWeightLoadBalance(), nodes, times);
+        //权重都为0退化为随机
+        for (Node node : nodes) {
+            Assertions.assertEquals(1 / 3.0, counts.getOrDefault(node, 0) / (double) times, 0.02);
+        }
+    }
+
+    @Test
+    public void testMembershipChanged() {
+        AliasRandomWeightLoadBalance balance = new AliasRandomWeightLoadBalance();
+        List<Node> nodes = nodes(100, 100, 100, 100);
+        count(balance, nodes, 100);
+        AliasRandomWeightLoadBalance.Index index = balance.index;
+        //成员相同的新列表复用别名表
+        count(balance, new ArrayList<>(nodes), 100);
+        Assertions.assertSame(index, balance.index);
+        //下线节点后重建，不会再选中
+        List<Node> removed = new ArrayList<>(nodes);
+        Node first = removed.remove(0);
+        Map<Node, Integer> counts = count(balance, removed, 3000);
+        Assertions.assertNotSame(index, balance.index);
+        Assertions.assertNull(counts.get(first));
+        Assertions.assertEquals(3, counts.size());
+    }
+
+    @Test
+    public void testSubset() {
+        AliasRandomWeightLoadBalance balance = new AliasRandomWeightLoadBalance();
+        List<Node> nodes = nodes(100, 200, 300, 400);
+        Cluster cluster = new Cluster("alias", CLUSTER_URL, new FixRegistar(URL.valueOf("joy://test?address=127.0.0.1"))) {
+            @Override
+            public List<Node> getNodes() {
+                return nodes;
+            }
+        };
+        Region region = new Region.DefaultRegion("huabei", "lf");
+        //重试排除不同的节点，两个候选列表交替选择
+        List<Node> first = new ArrayList<>(nodes);
+        first.remove(3);
+        List<Node> second = new ArrayList<>(nodes);
+        second.remove(0);
+        Candidate[] candidates = new Candidate[]{
+                Candidate.builder().cluster(cluster).region(region).nodes(first).size(0).build(),
+                Candidate.builder().cluster(cluster).region(region).nodes(second).size(0).build()};
+        balance.select(candidates[0], null);
+        AliasRandomWeightLoadBalance.Index index = balance.index;
+        List<Map<Node, Integer>> counts = new ArrayList<>();
+        counts.add(new HashMap<>());
+        counts.add(new HashMap<>());
+        int times = 100000;
+        for (int i = 0; i < times * 2; i++) {
+            counts.get(i % 2).merge(balance.select(candidates[i % 2], null), 1, Integer::sum);
+        }
+        //按全量节点构建的别名表不会重建
+        Assertions.assertSame(index, balance.index);
+        Assertions.assertEquals(4, index.snapshot.size());
+        //只选择候选节点，按候选节点的权重分配
+        Assertions.assertNull(counts.get(0).get(nodes.get(3)));
+        Assertions.assertNull(counts.get(1).get(nodes.get(0)));
+        for (int i = 0; i < 3; i++) {
+            Assertions.assertEquals((i + 1) / 6.0, counts.get(0).getOrDefault(nodes.get(i), 0) / (double) times, 0.01);
+            Assertions.assertEquals((i + 2) / 9.0, counts.get(1).getOrDefault(nodes.get(i + 1), 0) / (double) times, 0.01);
+        }
+    }
+}
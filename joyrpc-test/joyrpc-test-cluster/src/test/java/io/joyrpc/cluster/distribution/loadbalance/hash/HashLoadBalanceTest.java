@@ -0,0 +1,226 @@
+package io.joyrpc.cluster.distribution.loadbalance.hash;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import io.joyrpc.cluster.Candidate;
+import io.joyrpc.cluster.Node;
+import io.joyrpc.cluster.Region;
+import io.joyrpc.cluster.Shard;
+import io.joyrpc.cluster.Shard.ShardState;
+import io.joyrpc.exception.InitializationException;
+import io.joyrpc.extension.URL;
+import io.joyrpc.protocol.message.Invocation;
+import io.joyrpc.protocol.message.RequestMessage;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * 哈希负载均衡测试
+ */
+public class HashLoadBalanceTest {
+
+    protected static final URL CLUSTER_URL = URL.valueOf("joyrpc://127.0.0.1/io.joyrpc.DemoService?warmupDuration=0");
+
+    protected static final int KEYS = 50000;
+
+    protected Node node(final int i, final int weight) {
+        return new Node("hash", CLUSTER_URL, new Shard.DefaultShard("shard" + i, "huabei", "lf", "joyrpc",
+                URL.valueOf("joyrpc://192.168.1." + i), weight, ShardState.INITIAL));
+    }
+
+    protected List<Node> nodes(final int from, final int to) {
+        List<Node> result = new ArrayList<>();
+        for (int i = from; i <= to; i++) {
+            result.add(node(i, 100));
+        }
+        return result;
+    }
+
+    protected <T extends AbstractHashLoadBalance> T create(final T balance, final URL url) {
+        balance.setUrl(url);
+        balance.setup();
+        return balance;
+    }
+
+    protected Node[] owners(final AbstractHashLoadBalance balance, final List<Node> nodes) {
+        Node[] result = new Node[KEYS];
+        for (int i = 0; i < KEYS; i++) {
+            result[i] = balance.select(nodes, AbstractHashLoadBalance.hash("key-" + i));
+        }
+        return result;
+    }
+
+    /**
+     * 下线一个节点并上线一个新节点，只有原本属于下线节点或者被新节点接管的键才会迁移
+     *
+     * @param balance 负载均衡
+     */
+    protected void assertRemap(final AbstractHashLoadBalance balance) {
+        List<Node> nodes = nodes(1, 10);
+        Node[] before = owners(balance, nodes);
+        List<Node> changed = new ArrayList<>(nodes);
+        Node removed = changed.remove(3);
+        Node added = node(11, 100);
+        changed.add(added);
+        Node[] after = owners(balance, changed);
+        int moved = 0;
+        for (int i = 0; i < KEYS; i++) {
+            if (before[i] != after[i]) {
+                moved++;
+                Assertions.assertTrue(before[i] == removed || after[i] == added, "key-" + i);
+            }
+            Assertions.assertNotSame(removed, after[i]);
+        }
+        //理论上迁移约2/10的键
+        Assertions.assertTrue(moved > KEYS / 10 && moved < KEYS * 3 / 10, "moved " + moved);
+        //负载大致均匀
+        Map<Node, Integer> counts = new HashMap<>();
+        for (Node owner : after) {
+            counts.merge(owner, 1, Integer::sum);
+        }
+        Assertions.assertEquals(10, counts.size());
+        counts.values().forEach(c -> Assertions.assertTrue(c > KEYS / 20 && c < KEYS / 5, "count " + c));
+    }
+
+    @Test
+    public void testConsistentHashRemap() {
+        assertRemap(create(new ConsistentHashLoadBalance(), CLUSTER_URL));
+    }
+
+    @Test
+    public void testRendezvousRemap() {
+        assertRemap(create(new RendezvousLoadBalance(), CLUSTER_URL));
+    }
+
+    @Test
+    public void testRendezvousWeight() {
+        RendezvousLoadBalance balance = create(new RendezvousLoadBalance(), CLUSTER_URL);
+        List<Node> nodes = new ArrayList<>();
+        nodes.add(node(1, 100));
+        nodes.add(node(2, 300));
+        Node[] owners = owners(balance, nodes);
+        int first = 0;
+        for (Node owner : owners) {
+            if (owner == nodes.get(0)) {
+                first++;
+            }
+        }
+        Assertions.assertEquals(0.25, first / (double) KEYS, 0.02);
+    }
+
+    @Test
+    public void testRingReuse() {
+        ConsistentHashLoadBalance balance = create(new ConsistentHashLoadBalance(), CLUSTER_URL);
+        List<Node> nodes = nodes(1, 5);
+        balance.select(nodes, 1L);
+        ConsistentHashLoadBalance.Ring ring = balance.ring;
+        //成员相同的新列表复用哈希环
+        balance.select(new ArrayList<>(nodes), 1L);
+        Assertions.assertSame(ring, balance.ring);
+        List<Node> changed = new ArrayList<>(nodes);
+        changed.remove(0);
+        balance.select(changed, 1L);
+        Assertions.assertNotSame(ring, balance.ring);
+        Assertions.assertEquals(4 * 160, balance.ring.points.length);
+    }
+
+    /**
+     * 重试排除不同的节点，两个候选列表交替选择，按全量节点构建的索引不会重建，选择结果和按候选节点构建的索引相同
+     *
+     * @param balance  负载均衡
+     * @param expected 只按候选节点选择的负载均衡
+     * @param index    获取索引
+     */
+    protected void assertSubset(final AbstractHashLoadBalance balance, final AbstractHashLoadBalance expected,
+                                final Supplier<Object> index) {
+        List<Node> members = nodes(1, 10);
+        List<Node> first = new ArrayList<>(members);
+        Node removed1 = first.remove(3);
+        List<Node> second = new ArrayList<>(members);
+        Node removed2 = second.remove(6);
+        Node[] owners1 = owners(expected, first);
+        Node[] owners2 = owners(expected, second);
+        balance.select(members, members, 1L);
+        Object origin = index.get();
+        long hash;
+        for (int i = 0; i < KEYS; i++) {
+            hash = AbstractHashLoadBalance.hash("key-" + i);
+            Node node1 = balance.select(members, first, hash);
+            Node node2 = balance.select(members, second, hash);
+            Assertions.assertNotSame(removed1, node1);
+            Assertions.assertNotSame(removed2, node2);
+            Assertions.assertSame(owners1[i], node1, "key-" + i);
+            Assertions.assertSame(owners2[i], node2, "key-" + i);
+        }
+        Assertions.assertSame(origin, index.get());
+    }
+
+    @Test
+    public void testConsistentHashSubset() {
+        ConsistentHashLoadBalance balance = create(new ConsistentHashLoadBalance(), CLUSTER_URL);
+        assertSubset(balance, create(new ConsistentHashLoadBalance(), CLUSTER_URL), () -> balance.ring);
+        Assertions.assertEquals(10 * 160, balance.ring.points.length);
+    }
+
+    @Test
+    public void testRendezvousSubset() {
+        RendezvousLoadBalance balance = create(new RendezvousLoadBalance(), CLUSTER_URL);
+        assertSubset(balance, create(new RendezvousLoadBalance(), CLUSTER_URL), () -> balance.table);
+        Assertions.assertEquals(10, balance.table.seeds.length);
+    }
+
+    @Test
+    public void testExpression() throws Exception {
+        ConsistentHashLoadBalance balance = create(new ConsistentHashLoadBalance(),
+                CLUSTER_URL.add("hash.expression", "args[1]"));
+        List<Node> nodes = nodes(1, 10);
+        Candidate candidate = Candidate.builder().region(new Region.DefaultRegion("huabei", "lf")).nodes(nodes).size(0).build();
+        Node expected = balance.select(nodes, AbstractHashLoadBalance.hash("42"));
+        for (int i = 0; i < 10; i++) {
+            //第一个参数不同，按表达式取第二个参数作为键
+            Invocation invocation = new Invocation(DemoService.class, DemoService.class.getMethod("hello", String.class, int.class),
+                    new Object[]{"name-" + i, 42});
+            Assertions.assertSame(expected, balance.select(candidate, RequestMessage.build(invocation)));
+        }
+    }
+
+    @Test
+    public void testIllegalExpression() {
+        Assertions.assertThrows(InitializationException.class, () -> create(new ConsistentHashLoadBalance(),
+                CLUSTER_URL.add("hash.expression", "args[")));
+        Assertions.assertThrows(InitializationException.class, () -> create(new RendezvousLoadBalance(),
+                CLUSTER_URL.add("hash.expression", "args[0]").add("hash.expression.engine", "none")));
+    }
+
+    /**
+     * 测试接口
+     */
+    public interface DemoService {
+
+        String hello(String name, int id);
+    }
+}
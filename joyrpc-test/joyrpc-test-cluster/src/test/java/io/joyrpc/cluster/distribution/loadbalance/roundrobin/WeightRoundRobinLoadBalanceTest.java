@@ -0,0 +1,169 @@
+package io.joyrpc.cluster.distribution.loadbalance.roundrobin;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import io.joyrpc.cluster.Candidate;
+import io.joyrpc.cluster.Cluster;
+import io.joyrpc.cluster.Node;
+import io.joyrpc.cluster.Region;
+import io.joyrpc.cluster.Shard;
+import io.joyrpc.cluster.Shard.ShardState;
+import io.joyrpc.cluster.discovery.naming.fix.FixRegistar;
+import io.joyrpc.extension.URL;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 平滑加权轮询负载均衡测试
+ */
+public class WeightRoundRobinLoadBalanceTest {
+
+    protected static final URL CLUSTER_URL = URL.valueOf("joyrpc://127.0.0.1/io.joyrpc.DemoService?warmupDuration=0");
+
+    protected List<WeightNode> nodes(final String cluster, final int... weights) {
+        List<WeightNode> result = new ArrayList<>();
+        for (int i = 0; i < weights.length; i++) {
+            result.add(new WeightNode(cluster, new Shard.DefaultShard("shard" + i, "huabei", "lf", "joyrpc",
+                    URL.valueOf("joyrpc://192.168.1." + (i + 1)), weights[i], ShardState.INITIAL)));
+        }
+        return result;
+    }
+
+    protected List<Node> select(final WeightRoundRobinLoadBalance balance, final List<? extends Node> nodes, final int times) {
+        Candidate candidate = Candidate.builder().region(new Region.DefaultRegion("huabei", "lf"))
+                .nodes(new ArrayList<>(nodes)).size(0).build();
+        List<Node> result = new ArrayList<>(times);
+        for (int i = 0; i < times; i++) {
+            result.add(balance.select(candidate, null));
+        }
+        return result;
+    }
+
+    protected Map<Node, Integer> count(final List<Node> selected) {
+        Map<Node, Integer> counts = new HashMap<>();
+        selected.forEach(n -> counts.merge(n, 1, Integer::sum));
+        return counts;
+    }
+
+    @Test
+    public void testDistribution() {
+        List<WeightNode> nodes = nodes("wrr-distribution", 100, 200, 300, 400, 0);
+        //总权重约分后为10，整数个周期内的次数严格按权重分配
+        Map<Node, Integer> counts = count(select(new WeightRoundRobinLoadBalance(), nodes, 1000));
+        Assertions.assertEquals(100, counts.get(nodes.get(0)));
+        Assertions.assertEquals(200, counts.get(nodes.get(1)));
+        Assertions.assertEquals(300, counts.get(nodes.get(2)));
+        Assertions.assertEquals(400, counts.get(nodes.get(3)));
+        Assertions.assertNull(counts.get(nodes.get(4)));
+    }
+
+    @Test
+    public void testSmooth() {
+        List<WeightNode> nodes = nodes("wrr-smooth", 1, 1, 5);
+        List<Node> selected = select(new WeightRoundRobinLoadBalance(), nodes, 7 * 10);
+        //平滑轮询，任意一个周期内按权重分配，低权重节点不会连续被选中
+        for (int i = 0; i + 7 <= selected.size(); i++) {
+            Map<Node, Integer> counts = count(selected.subList(i, i + 7));
+            Assertions.assertEquals(1, counts.get(nodes.get(0)));
+            Assertions.assertEquals(1, counts.get(nodes.get(1)));
+            Assertions.assertEquals(5, counts.get(nodes.get(2)));
+        }
+    }
+
+    @Test
+    public void testWeightChanged() {
+        WeightRoundRobinLoadBalance balance = new WeightRoundRobinLoadBalance();
+        List<WeightNode> nodes = nodes("wrr-weight", 100, 100);
+        List<WeightNode> others = nodes("wrr-weight-other", 100, 100);
+        Map<Node, Integer> counts = count(select(balance, nodes, 100));
+        Assertions.assertEquals(50, counts.get(nodes.get(0)));
+        WeightRoundRobinLoadBalance.Sequence sequence = balance.sequence;
+        //其它集群的权重变化不会重建
+        others.get(0).weight(300);
+        select(balance, nodes, 10);
+        Assertions.assertSame(sequence, balance.sequence);
+        //本集群的权重变化后重建
+        nodes.get(0).weight(300);
+        counts = count(select(balance, nodes, 400));
+        Assertions.assertNotSame(sequence, balance.sequence);
+        Assertions.assertEquals(300, counts.get(nodes.get(0)));
+        Assertions.assertEquals(100, counts.get(nodes.get(1)));
+    }
+
+    @Test
+    public void testSubset() {
+        WeightRoundRobinLoadBalance balance = new WeightRoundRobinLoadBalance();
+        List<Node> nodes = new ArrayList<>(nodes("wrr-subset", 100, 200, 300, 400));
+        Cluster cluster = new Cluster("wrr-subset", CLUSTER_URL, new FixRegistar(URL.valueOf("joy://test?address=127.0.0.1"))) {
+            @Override
+            public List<Node> getNodes() {
+                return nodes;
+            }
+        };
+        Region region = new Region.DefaultRegion("huabei", "lf");
+        //重试排除不同的节点，两个候选列表交替选择
+        List<Node> first = new ArrayList<>(nodes);
+        first.remove(3);
+        List<Node> second = new ArrayList<>(nodes);
+        second.remove(0);
+        Candidate[] candidates = new Candidate[]{
+                Candidate.builder().cluster(cluster).region(region).nodes(first).size(0).build(),
+                Candidate.builder().cluster(cluster).region(region).nodes(second).size(0).build()};
+        balance.select(candidates[0], null);
+        WeightRoundRobinLoadBalance.Sequence sequence = balance.sequence;
+        List<Map<Node, Integer>> counts = new ArrayList<>();
+        counts.add(new HashMap<>());
+        counts.add(new HashMap<>());
+        int times = 100000;
+        for (int i = 0; i < times * 2; i++) {
+            counts.get(i % 2).merge(balance.select(candidates[i % 2], null), 1, Integer::sum);
+        }
+        //按全量节点生成的序列不会重新生成
+        Assertions.assertSame(sequence, balance.sequence);
+        Assertions.assertEquals(4, sequence.snapshot.size());
+        //只选择候选节点，按候选节点的权重分配
+        Assertions.assertNull(counts.get(0).get(nodes.get(3)));
+        Assertions.assertNull(counts.get(1).get(nodes.get(0)));
+        for (int i = 0; i < 3; i++) {
+            Assertions.assertEquals((i + 1) / 6.0, counts.get(0).getOrDefault(nodes.get(i), 0) / (double) times, 0.01);
+            Assertions.assertEquals((i + 2) / 9.0, counts.get(1).getOrDefault(nodes.get(i + 1), 0) / (double) times, 0.01);
+        }
+    }
+
+    /**
+     * 可以修改权重的节点
+     */
+    protected static class WeightNode extends Node {
+
+        public WeightNode(final String clusterName, final Shard shard) {
+            super(clusterName, CLUSTER_URL, shard);
+        }
+
+        public void weight(final int weight) {
+            setWeight(weight);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package io.joyrpc.cluster.distribution.router;
+
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class BudgetTest {
+
+    @Test
+    public void testAcquire() {
+        Budget budget = new Budget(10, 2);
+        Assertions.assertTrue(budget.acquire());
+        Assertions.assertTrue(budget.acquire());
+        Assertions.assertFalse(budget.acquire());
+        //10%的比例，补充10次才有一个令牌
+        for (int i = 0; i < 9; i++) {
+            budget.deposit();
+        }
+        Assertions.assertFalse(budget.acquire());
+        budget.deposit();
+        Assertions.assertTrue(budget.acquire());
+        Assertions.assertEquals(3, budget.getAcquires());
+        Assertions.assertEquals(2, budget.getRejects());
+    }
+
+    @Test
+    public void testCapacity() {
+        Budget budget = new Budget(100, 3);
+        for (int i = 0; i < 10; i++) {
+            budget.deposit();
+        }
+        Assertions.assertEquals(3, budget.getTokens());
+        Budget none = new Budget(0, 1);
+        Assertions.assertTrue(none.acquire());
+        none.deposit();
+        Assertions.assertFalse(none.acquire());
+    }
+
+    @Test
+    public void testRefund() {
+        Budget budget = new Budget(10, 2);
+        Assertions.assertTrue(budget.acquire());
+        budget.refund();
+        Assertions.assertEquals(2, budget.getTokens());
+        Assertions.assertEquals(0, budget.getAcquires());
+        //归还不会超过最大令牌数
+        budget.refund();
+        Assertions.assertEquals(2, budget.getTokens());
+    }
+}
@@ -0,0 +1,79 @@
+package io.joyrpc.cluster.distribution.router.failover;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import io.joyrpc.extension.URL;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class RetryBudgetTest {
+
+    @Test
+    public void testDisabledByDefault() {
+        RetryBudget budget = new RetryBudget(URL.valueOf("joyrpc://127.0.0.1:22000/io.joyrpc.Hello"));
+        Assertions.assertFalse(budget.isEnabled());
+        for (int i = 0; i < 100; i++) {
+            Assertions.assertTrue(budget.acquire("hello"));
+        }
+        Assertions.assertEquals(0, budget.getBudget().getAcquires());
+    }
+
+    @Test
+    public void testClusterBudget() {
+        RetryBudget budget = new RetryBudget(URL.valueOf("joyrpc://127.0.0.1:22000/io.joyrpc.Hello?retry.budget=50&retry.burst=2"));
+        Assertions.assertTrue(budget.isEnabled());
+        Assertions.assertNull(budget.getMethods());
+        Assertions.assertTrue(budget.acquire("hello"));
+        Assertions.assertTrue(budget.acquire("world"));
+        Assertions.assertFalse(budget.acquire("hello"));
+        //50%的比例，成功2次补充一个令牌
+        budget.deposit("hello");
+        Assertions.assertFalse(budget.acquire("world"));
+        budget.deposit("world");
+        Assertions.assertTrue(budget.acquire("world"));
+    }
+
+    @Test
+    public void testClusterRejectKeepsMethodToken() {
+        RetryBudget budget = new RetryBudget(URL.valueOf("joyrpc://127.0.0.1:22000/io.joyrpc.Hello?retry.budget=100&retry.burst=2&retry.methodBudget=true"));
+        Assertions.assertTrue(budget.acquire("hello"));
+        Assertions.assertTrue(budget.acquire("hello"));
+        //集群预算耗尽，方法world的令牌不能被消耗
+        Assertions.assertFalse(budget.acquire("world"));
+        Assertions.assertEquals(2, budget.getMethods().get("world").getTokens());
+        Assertions.assertEquals(0, budget.getMethods().get("world").getAcquires());
+        Assertions.assertEquals(1, budget.getBudget().getRejects());
+        //补充集群令牌后，world可以正常重试
+        budget.deposit("world");
+        Assertions.assertTrue(budget.acquire("world"));
+    }
+
+    @Test
+    public void testMethodRejectKeepsClusterToken() {
+        RetryBudget budget = new RetryBudget(URL.valueOf("joyrpc://127.0.0.1:22000/io.joyrpc.Hello?retry.budget=100&retry.burst=1&retry.methodBudget=true"));
+        Assertions.assertTrue(budget.acquire("hello"));
+        budget.deposit("world");
+        //方法预算耗尽，不消耗集群令牌
+        Assertions.assertFalse(budget.acquire("hello"));
+        Assertions.assertEquals(1, budget.getBudget().getTokens());
+        Assertions.assertTrue(budget.acquire("world"));
+    }
+}
@@ -0,0 +1,158 @@
+package io.joyrpc.cluster.distribution.router.forking;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import io.joyrpc.Result;
+import io.joyrpc.cluster.Candidate;
+import io.joyrpc.cluster.Node;
+import io.joyrpc.cluster.Shard;
+import io.joyrpc.cluster.Shard.ShardState;
+import io.joyrpc.context.RequestContext;
+import io.joyrpc.extension.URL;
+import io.joyrpc.invoker.option.ConsumerMethodOption;
+import io.joyrpc.protocol.message.Invocation;
+import io.joyrpc.protocol.message.RequestMessage;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+
+public class ForkingRouterTest {
+
+    /**
+     * 构造节点
+     *
+     * @param count 数量
+     * @return 节点
+     */
+    protected List<Node> nodes(final int count) {
+        URL url = URL.valueOf("joyrpc://127.0.0.1/xxx.xxx.xxx.xxx");
+        List<Node> nodes = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++) {
+            nodes.add(new Node("test", url, new Shard.DefaultShard("shard" + i, "huabei", "lf", "joyrpc",
+                    URL.valueOf("joyrpc://192.168.1." + i), 100, ShardState.INITIAL)));
+        }
+        return nodes;
+    }
+
+    /**
+     * 构造方法选项
+     *
+     * @param forks 并行数量
+     * @return 方法选项
+     */
+    protected ConsumerMethodOption option(final int forks) {
+        return (ConsumerMethodOption) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class[]{ConsumerMethodOption.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getForks":
+                            return forks;
+                        case "getTimeout":
+                            return 1000;
+                        case "isAsync":
+                        case "isTrace":
+                            return false;
+                        default:
+                            return null;
+                    }
+                });
+    }
+
+    /**
+     * 构造请求
+     *
+     * @param forks 并行数量
+     * @return 请求
+     */
+    protected RequestMessage<Invocation> request(final int forks) {
+        Map<String, Object> attachments = new HashMap<>();
+        attachments.put("key", "value");
+        Invocation invocation = new Invocation(attachments);
+        invocation.setArgs(new Object[]{"hello"});
+        RequestMessage<Invocation> request = RequestMessage.build(invocation);
+        request.setContext(new RequestContext());
+        request.setOption(option(forks));
+        request.getHeader().setMsgId(1);
+        return request;
+    }
+
+    @Test
+    public void testForkRequest() {
+        List<Node> nodes = nodes(3);
+        List<RequestMessage<Invocation>> requests = new ArrayList<>();
+        List<CompletableFuture<Result>> futures = new ArrayList<>();
+        ForkingRouter router = new ForkingRouter();
+        router.setOperation((node, last, req) -> {
+            requests.add(req);
+            CompletableFuture<Result> future = new CompletableFuture<>();
+            futures.add(future);
+            return future;
+        });
+        RequestMessage<Invocation> request = request(3);
+        CompletableFuture<Result> result = router.route(request, new Candidate(null, null, nodes, nodes.size()));
+        Assertions.assertEquals(3, requests.size());
+        Set<Object> headers = Collections.newSetFromMap(new IdentityHashMap<>());
+        Set<Object> attachments = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (RequestMessage<Invocation> req : requests) {
+            //每个分支独立的消息头和调用对象，共享参数和上下文
+            Assertions.assertNotSame(request, req);
+            headers.add(req.getHeader());
+            attachments.add(req.getPayLoad().getAttachments());
+            Assertions.assertSame(request.getPayLoad().getArgs(), req.getPayLoad().getArgs());
+            Assertions.assertSame(request.getContext(), req.getContext());
+            Assertions.assertSame(request.getOption(), req.getOption());
+            Assertions.assertEquals("value", req.getPayLoad().getAttachment("key"));
+        }
+        Assertions.assertEquals(3, headers.size());
+        Assertions.assertEquals(3, attachments.size());
+        //并发修改各自的消息ID，互不影响
+        requests.get(0).getHeader().setMsgId(100);
+        requests.get(1).getHeader().setMsgId(200);
+        requests.get(0).getPayLoad().addAttachment("node", "1");
+        Assertions.assertEquals(200, requests.get(1).getHeader().getMsgId());
+        Assertions.assertEquals(1, request.getHeader().getMsgId());
+        Assertions.assertNull(requests.get(1).getPayLoad().getAttachment("node"));
+        Assertions.assertNull(request.getPayLoad().getAttachment("node"));
+        //第一个返回的结果胜出，其它分支被取消
+        Result winner = new Result(request.getContext(), "world");
+        futures.get(1).complete(winner);
+        Assertions.assertSame(winner, result.join());
+        Assertions.assertTrue(futures.get(0).isCancelled());
+        Assertions.assertTrue(futures.get(2).isCancelled());
+    }
+
+    @Test
+    public void testSingleNoFork() {
+        List<Node> nodes = nodes(1);
+        List<RequestMessage<Invocation>> requests = new ArrayList<>();
+        ForkingRouter router = new ForkingRouter();
+        router.setOperation((node, last, req) -> {
+            requests.add(req);
+            return CompletableFuture.completedFuture(new Result(req.getContext(), "world"));
+        });
+        RequestMessage<Invocation> request = request(1);
+        router.route(request, new Candidate(null, null, nodes, nodes.size())).join();
+        //只有一个分支，不需要复制请求
+        Assertions.assertSame(request, requests.get(0));
+    }
+}
@@ -0,0 +1,194 @@
+package io.joyrpc.cluster.distribution.router.hedging;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import io.joyrpc.Result;
+import io.joyrpc.cluster.Candidate;
+import io.joyrpc.cluster.Node;
+import io.joyrpc.cluster.Shard;
+import io.joyrpc.cluster.Shard.ShardState;
+import io.joyrpc.context.RequestContext;
+import io.joyrpc.extension.URL;
+import io.joyrpc.invoker.option.ConsumerMethodOption;
+import io.joyrpc.protocol.message.Invocation;
+import io.joyrpc.protocol.message.RequestMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.*;
+
+public class HedgingRouterTest {
+
+    protected List<Node> nodes;
+
+    protected ExecutorService executor;
+
+    protected HedgingRouter router;
+
+    protected BlockingQueue<Attempt> attempts;
+
+    @BeforeEach
+    public void setup() {
+        URL url = URL.valueOf("joyrpc://127.0.0.1/xxx.xxx.xxx.xxx");
+        nodes = new ArrayList<>();
+        for (int i = 1; i <= 3; i++) {
+            nodes.add(new Node("test", url, new Shard.DefaultShard("shard" + i, "huabei", "lf", "joyrpc",
+                    URL.valueOf("joyrpc://192.168.1." + i), 100, ShardState.INITIAL)));
+        }
+        executor = Executors.newSingleThreadExecutor(r -> new Thread(r, "hedging-invoker"));
+        attempts = new LinkedBlockingQueue<>();
+        router = new HedgingRouter();
+        router.setUrl(url.add("hedging.delay", 200).add("hedging.budget", 100).add("hedging.burst", 10));
+        //按照顺序选择第一个节点
+        router.setLoadBalance((candidate, request) -> candidate.getNodes().isEmpty() ? null : candidate.getNodes().get(0));
+        router.setOperation((node, last, request) -> {
+            Attempt attempt = new Attempt(node, request);
+            attempts.add(attempt);
+            return attempt.future;
+        });
+        router.setExecutor(executor);
+        router.setup();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * 构造请求
+     *
+     * @param forks 最大调用次数
+     * @return 请求
+     */
+    protected RequestMessage<Invocation> request(final int forks) {
+        RequestMessage<Invocation> request = RequestMessage.build(new Invocation(new HashMap<>()));
+        request.setContext(new RequestContext());
+        request.setTimeout(5000);
+        request.getHeader().setTimeout(5000);
+        request.setOption((ConsumerMethodOption) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class[]{ConsumerMethodOption.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getForks":
+                            return forks;
+                        case "getTimeout":
+                            return 5000;
+                        case "isAsync":
+                        case "isTrace":
+                            return false;
+                        default:
+                            return null;
+                    }
+                }));
+        return request;
+    }
+
+    @Test
+    public void testDelay() throws InterruptedException {
+        RequestMessage<Invocation> request = request(2);
+        long start = System.currentTimeMillis();
+        router.route(request, new Candidate(null, null, nodes, nodes.size()));
+        Attempt first = attempts.poll();
+        Assertions.assertNotNull(first);
+        Assertions.assertSame(nodes.get(0), first.node);
+        Assertions.assertEquals(Thread.currentThread().getName(), first.thread);
+        //在延迟之前不会发起对冲
+        Assertions.assertNull(attempts.poll(100, TimeUnit.MILLISECONDS));
+        Attempt second = attempts.poll(5, TimeUnit.SECONDS);
+        Assertions.assertNotNull(second);
+        Assertions.assertTrue(second.time - start >= 200, "elapsed " + (second.time - start));
+        Assertions.assertSame(nodes.get(1), second.node);
+        //对冲请求在调用线程池中发起，不占用定时器线程
+        Assertions.assertEquals("hedging-invoker", second.thread);
+        //每次调用使用独立的请求，共享上下文
+        Assertions.assertNotSame(first.request, second.request);
+        Assertions.assertNotSame(first.request.getHeader(), second.request.getHeader());
+        Assertions.assertNotSame(request, first.request);
+        Assertions.assertSame(request.getContext(), second.request.getContext());
+        //达到最大调用次数，不再对冲
+        Assertions.assertNull(attempts.poll(500, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void testFirstResponseWins() throws Exception {
+        RequestMessage<Invocation> request = request(3);
+        CompletableFuture<Result> result = router.route(request, new Candidate(null, null, nodes, nodes.size()));
+        Attempt first = attempts.poll();
+        Attempt second = attempts.poll(5, TimeUnit.SECONDS);
+        Assertions.assertNotNull(second);
+        //对冲的请求先返回，放弃第一个请求
+        Result winner = new Result(request.getContext(), "second");
+        second.future.complete(winner);
+        Assertions.assertSame(winner, result.get(1, TimeUnit.SECONDS));
+        Assertions.assertTrue(first.future.isCancelled());
+        //已经有结果，不再发起第三次调用
+        Assertions.assertNull(attempts.poll(500, TimeUnit.MILLISECONDS));
+        //失败者晚到的结果被忽略
+        first.future.complete(new Result(request.getContext(), "first"));
+        Assertions.assertSame(winner, result.get());
+    }
+
+    @Test
+    public void testNoHedgeAfterResponse() throws Exception {
+        RequestMessage<Invocation> request = request(2);
+        CompletableFuture<Result> result = router.route(request, new Candidate(null, null, nodes, nodes.size()));
+        Attempt first = attempts.poll();
+        first.future.complete(new Result(request.getContext(), "first"));
+        Assertions.assertEquals("first", result.get(1, TimeUnit.SECONDS).getValue());
+        //在延迟之前已经返回，不发起对冲
+        Assertions.assertNull(attempts.poll(500, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void testAllFailed() throws Exception {
+        RequestMessage<Invocation> request = request(2);
+        CompletableFuture<Result> result = router.route(request, new Candidate(null, null, nodes, nodes.size()));
+        Attempt first = attempts.poll();
+        Attempt second = attempts.poll(5, TimeUnit.SECONDS);
+        Assertions.assertNotNull(second);
+        first.future.completeExceptionally(new TimeoutException("first"));
+        Assertions.assertFalse(result.isDone());
+        second.future.completeExceptionally(new TimeoutException("second"));
+        Assertions.assertTrue(result.get(1, TimeUnit.SECONDS).isException());
+    }
+
+    /**
+     * 一次调用
+     */
+    protected static class Attempt {
+        protected final Node node;
+        protected final RequestMessage<Invocation> request;
+        protected final String thread = Thread.currentThread().getName();
+        protected final long time = System.currentTimeMillis();
+        protected final CompletableFuture<Result> future = new CompletableFuture<>();
+
+        public Attempt(final Node node, final RequestMessage<Invocation> request) {
+            this.node = node;
+            this.request = request;
+        }
+    }
+}
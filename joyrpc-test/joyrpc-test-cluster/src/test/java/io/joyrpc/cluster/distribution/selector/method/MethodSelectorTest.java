@@ -0,0 +1,143 @@
+package io.joyrpc.cluster.distribution.selector.method;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import io.joyrpc.cluster.Candidate;
+import io.joyrpc.cluster.Node;
+import io.joyrpc.cluster.Region;
+import io.joyrpc.cluster.Shard;
+import io.joyrpc.cluster.Shard.ShardState;
+import io.joyrpc.cluster.distribution.selector.method.predicate.RouteRules;
+import io.joyrpc.extension.URL;
+import io.joyrpc.invoker.option.ConsumerMethodOption;
+import io.joyrpc.protocol.message.Invocation;
+import io.joyrpc.protocol.message.RequestMessage;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * 方法条件路由选择器测试
+ */
+public class MethodSelectorTest {
+
+    protected static final URL CLUSTER_URL = URL.valueOf("joyrpc://127.0.0.1/io.joyrpc.DemoService");
+
+    protected MethodSelector selector = new MethodSelector();
+
+    protected Node node(final int i) {
+        return new Node("method", CLUSTER_URL, new Shard.DefaultShard("shard" + i, "huabei", "lf", "joyrpc",
+                URL.valueOf("joyrpc://192.168.1." + i + ":" + (22000 + i % 3)), 100, ShardState.INITIAL));
+    }
+
+    protected List<Node> nodes(final int from, final int to) {
+        List<Node> result = new ArrayList<>();
+        for (int i = from; i <= to; i++) {
+            result.add(node(i));
+        }
+        return result;
+    }
+
+    /**
+     * 构造规则：调用指定方法时只选择满足条件的节点
+     *
+     * @param method 方法名
+     * @param port   端口
+     * @return 规则
+     */
+    protected RouteRules.Rule rule(final String method, final int port) {
+        return new RouteRules.Rule((s, r) -> method.equals(r.getPayLoad().getMethodName()),
+                (s, r) -> s.getUrl().getPort() == port);
+    }
+
+    protected List<Node> select(final List<Node> nodes, final RouteRules rules, final String method) {
+        Invocation invocation = new Invocation(new HashMap<>());
+        invocation.setMethodName(method);
+        RequestMessage<Invocation> request = RequestMessage.build(invocation);
+        request.setOption((ConsumerMethodOption) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class[]{ConsumerMethodOption.class}, (proxy, m, args) ->
+                        "getSelector".equals(m.getName()) ? rules : null));
+        return selector.select(Candidate.builder().region(new Region.DefaultRegion("huabei", "lf"))
+                .nodes(nodes).size(0).build(), request);
+    }
+
+    @Test
+    public void testSelect() {
+        List<Node> nodes = nodes(1, 9);
+        RouteRules rules = new RouteRules(Arrays.asList(rule("hello", 22000), rule("echo", 22001)));
+        List<Node> hello = select(nodes, rules, "hello");
+        Assertions.assertEquals(3, hello.size());
+        Assertions.assertTrue(hello.stream().allMatch(n -> n.getUrl().getPort() == 22000));
+        List<Node> echo = select(nodes, rules, "echo");
+        Assertions.assertEquals(3, echo.size());
+        Assertions.assertTrue(echo.stream().allMatch(n -> n.getUrl().getPort() == 22001));
+        //没有命中规则不过滤
+        Assertions.assertSame(nodes, select(nodes, rules, "other"));
+        //和逐个判断的结果一致
+        for (String method : new String[]{"hello", "echo", "other"}) {
+            List<Node> expected = new ArrayList<>();
+            Invocation invocation = new Invocation(new HashMap<>());
+            invocation.setMethodName(method);
+            RequestMessage<Invocation> request = RequestMessage.build(invocation);
+            nodes.forEach(n -> {
+                if (rules.test(n, request)) {
+                    expected.add(n);
+                }
+            });
+            Assertions.assertEquals(expected, select(nodes, rules, method));
+        }
+    }
+
+    @Test
+    public void testRulesPerMethod() {
+        List<Node> nodes = nodes(1, 9);
+        RouteRules helloRules = new RouteRules(Arrays.asList(rule("hello", 22000)));
+        RouteRules echoRules = new RouteRules(Arrays.asList(rule("echo", 22002)));
+        List<Node> hello = select(nodes, helloRules, "hello");
+        List<Node> echo = select(nodes, echoRules, "echo");
+        //不同方法的规则各自缓存索引，交替调用不会互相覆盖
+        Assertions.assertSame(hello, select(nodes, helloRules, "hello"));
+        Assertions.assertSame(echo, select(nodes, echoRules, "echo"));
+    }
+
+    @Test
+    public void testInvalidate() {
+        List<Node> nodes = nodes(1, 9);
+        RouteRules rules = new RouteRules(Arrays.asList(rule("hello", 22000)));
+        List<Node> hello = select(nodes, rules, "hello");
+        //成员相同的新列表复用索引
+        Assertions.assertSame(hello, select(new ArrayList<>(nodes), rules, "hello"));
+        //成员变化后重建
+        List<Node> changed = new ArrayList<>(nodes);
+        Node removed = changed.remove(2);
+        Node added = node(12);
+        changed.add(added);
+        List<Node> result = select(changed, rules, "hello");
+        Assertions.assertEquals(3, result.size());
+        Assertions.assertFalse(result.contains(removed));
+        Assertions.assertTrue(result.contains(added));
+    }
+}
@@ -0,0 +1,123 @@
+package io.joyrpc.cluster.distribution.selector.tag;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import io.joyrpc.cluster.Candidate;
+import io.joyrpc.cluster.Node;
+import io.joyrpc.cluster.Region;
+import io.joyrpc.cluster.Shard;
+import io.joyrpc.cluster.Shard.ShardState;
+import io.joyrpc.extension.URL;
+import io.joyrpc.protocol.message.Invocation;
+import io.joyrpc.protocol.message.RequestMessage;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * 标签选择器测试
+ */
+public class TagSelectorTest {
+
+    protected static final URL CLUSTER_URL = URL.valueOf("joyrpc://127.0.0.1/io.joyrpc.DemoService");
+
+    protected TagSelector selector;
+
+    @BeforeEach
+    public void setup() {
+        selector = new TagSelector();
+        selector.setUrl(CLUSTER_URL);
+        selector.setup();
+    }
+
+    /**
+     * 创建节点，奇数为gray，偶数为blue
+     *
+     * @param i 序号
+     * @return 节点
+     */
+    protected Node node(final int i) {
+        return new Node("tag", CLUSTER_URL, new Shard.DefaultShard("shard" + i, "huabei", "lf", "joyrpc",
+                URL.valueOf("joyrpc://192.168.1." + i + "?serviceTag=" + (i % 2 == 1 ? "gray" : "blue")), 100, ShardState.INITIAL));
+    }
+
+    protected List<Node> nodes(final int from, final int to) {
+        List<Node> result = new ArrayList<>();
+        for (int i = from; i <= to; i++) {
+            result.add(node(i));
+        }
+        return result;
+    }
+
+    protected List<Node> select(final List<Node> nodes, final String tag) {
+        Invocation invocation = new Invocation(new HashMap<>());
+        if (tag != null) {
+            invocation.addAttachment("serviceTag", tag);
+        }
+        return selector.select(Candidate.builder().region(new Region.DefaultRegion("huabei", "lf"))
+                .nodes(nodes).size(0).build(), RequestMessage.build(invocation));
+    }
+
+    @Test
+    public void testSelect() {
+        List<Node> nodes = nodes(1, 6);
+        Assertions.assertEquals(3, select(nodes, "gray").size());
+        Assertions.assertTrue(select(nodes, "gray").stream().allMatch(n -> "gray".equals(n.getUrl().getString("serviceTag"))));
+        Assertions.assertEquals(3, select(nodes, "blue").size());
+        Assertions.assertTrue(select(nodes, "red").isEmpty());
+        //没有标签不过滤
+        Assertions.assertSame(nodes, select(nodes, null));
+    }
+
+    @Test
+    public void testReuseSameMembers() {
+        List<Node> nodes = nodes(1, 6);
+        List<Node> gray = select(nodes, "gray");
+        //成员相同的新列表复用索引
+        Assertions.assertSame(gray, select(new ArrayList<>(nodes), "gray"));
+        Assertions.assertSame(gray, select(nodes, "gray"));
+    }
+
+    @Test
+    public void testInvalidate() {
+        List<Node> nodes = nodes(1, 6);
+        Assertions.assertEquals(3, select(nodes, "gray").size());
+        //下线节点
+        List<Node> removed = new ArrayList<>(nodes);
+        Node first = removed.remove(0);
+        List<Node> gray = select(removed, "gray");
+        Assertions.assertEquals(2, gray.size());
+        Assertions.assertFalse(gray.contains(first));
+        //同样数量的节点，成员不同
+        List<Node> replaced = new ArrayList<>(removed);
+        Node added = node(7);
+        replaced.add(added);
+        Assertions.assertTrue(select(replaced, "gray").contains(added));
+        Assertions.assertEquals(3, select(replaced, "gray").size());
+        //原地修改的列表
+        replaced.remove(added);
+        Assertions.assertEquals(2, select(replaced, "gray").size());
+    }
+}
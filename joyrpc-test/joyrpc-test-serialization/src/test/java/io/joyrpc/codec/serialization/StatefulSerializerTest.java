@@ -0,0 +1,119 @@
+package io.joyrpc.codec.serialization;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import io.joyrpc.codec.serialization.StatefulSerializer.State;
+import io.joyrpc.codec.serialization.model.Person;
+import io.joyrpc.codec.serialization.model.PhoneNumber;
+import io.joyrpc.codec.serialization.model.PhoneType;
+import io.joyrpc.permission.SerializerWhiteList;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+
+import static io.joyrpc.Plugin.SERIALIZATION;
+
+/**
+ * 有状态的Hessian2序列化测试
+ */
+public class StatefulSerializerTest {
+
+    protected StatefulSerializer serializer;
+
+    protected State writeState;
+
+    protected State readState;
+
+    @BeforeAll
+    public static void beforeClass() {
+        SerializerWhiteList.getGlobalWhitelist().setEnabled(false);
+    }
+
+    @BeforeEach
+    public void setup() {
+        serializer = (StatefulSerializer) SERIALIZATION.get("hessian").getSerializer();
+        writeState = serializer.createWriteState();
+        readState = serializer.createReadState();
+    }
+
+    protected Person person(final int id) {
+        return new Person("person" + id, id, "person" + id + "@joyrpc.io", new PhoneNumber("1234567" + id, PhoneType.HOME));
+    }
+
+    protected byte[] serialize(final Object target, final State state) {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream(256);
+        if (state == null) {
+            serializer.serialize(bos, target);
+        } else {
+            serializer.serialize(bos, target, state);
+        }
+        return bos.toByteArray();
+    }
+
+    protected Person deserialize(final byte[] data, final State state) {
+        ByteArrayInputStream bis = new ByteArrayInputStream(data);
+        return state == null ? serializer.deserialize(bis, Person.class) : serializer.deserialize(bis, Person.class, state);
+    }
+
+    @Test
+    public void testReuseDefinition() {
+        byte[] first = serialize(person(1), writeState);
+        int size = writeState.size();
+        Assertions.assertTrue(size > 0);
+        byte[] second = serialize(person(2), writeState);
+        //类定义只在第一条消息中传输
+        Assertions.assertTrue(second.length < first.length);
+        Assertions.assertEquals(size, writeState.size());
+        Assertions.assertEquals(person(1), deserialize(first, readState));
+        Assertions.assertEquals(size, readState.size());
+        Assertions.assertEquals(person(2), deserialize(second, readState));
+        //有状态和无状态的序列化互不影响
+        Assertions.assertEquals(person(3), deserialize(serialize(person(3), null), null));
+    }
+
+    @Test
+    public void testClear() {
+        byte[] first = serialize(person(1), writeState);
+        Assertions.assertEquals(person(1), deserialize(first, readState));
+        //编码端清空后重新携带类定义，解码端同步清空
+        writeState.clear();
+        readState.clear();
+        Assertions.assertEquals(0, writeState.size());
+        Assertions.assertEquals(0, readState.size());
+        byte[] second = serialize(person(2), writeState);
+        Assertions.assertEquals(first.length, second.length);
+        Assertions.assertEquals(person(2), deserialize(second, readState));
+    }
+
+    @Test
+    public void testOutOfSync() {
+        serialize(person(1), writeState);
+        byte[] second = serialize(person(2), writeState);
+        //解码端没有收到第一条消息，无法解析类定义的引用
+        Assertions.assertThrows(Exception.class, () -> deserialize(second, readState));
+        //解析失败残留的数据不影响线程缓存的输入流后续的读取
+        Assertions.assertEquals(person(3), deserialize(serialize(person(3), null), null));
+    }
+}
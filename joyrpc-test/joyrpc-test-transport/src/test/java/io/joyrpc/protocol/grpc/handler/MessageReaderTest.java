@@ -0,0 +1,128 @@
+package io.joyrpc.protocol.grpc.handler;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import io.joyrpc.exception.CodecException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * grpc消息增量读取测试
+ */
+public class MessageReaderTest {
+
+    /**
+     * 构造带前缀的消息
+     *
+     * @param text 内容
+     * @return 消息
+     */
+    protected static byte[] message(final String text) {
+        byte[] body = text.getBytes(StandardCharsets.UTF_8);
+        byte[] result = new byte[MessageReader.PREFIX_SIZE + body.length];
+        result[1] = (byte) (body.length >>> 24);
+        result[2] = (byte) (body.length >>> 16);
+        result[3] = (byte) (body.length >>> 8);
+        result[4] = (byte) body.length;
+        System.arraycopy(body, 0, result, MessageReader.PREFIX_SIZE, body.length);
+        return result;
+    }
+
+    /**
+     * 解析消息内容
+     *
+     * @param message 消息
+     * @return 内容
+     */
+    protected static String text(final byte[] message) {
+        return new String(message, MessageReader.PREFIX_SIZE, message.length - MessageReader.PREFIX_SIZE, StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void testSplitFrames() {
+        MessageReader reader = new MessageReader(1024);
+        byte[] data = message("hello grpc stream");
+        //逐字节追加，模拟消息跨多个数据帧
+        for (int i = 0; i < data.length - 1; i++) {
+            reader.write(new byte[]{data[i]});
+            Assertions.assertNull(reader.read());
+            Assertions.assertTrue(reader.hasRemaining());
+        }
+        reader.write(new byte[]{data[data.length - 1]});
+        byte[] message = reader.read();
+        Assertions.assertNotNull(message);
+        Assertions.assertEquals("hello grpc stream", text(message));
+        Assertions.assertFalse(reader.hasRemaining());
+        Assertions.assertEquals(1, reader.getMessages());
+    }
+
+    @Test
+    public void testMultipleMessagesPerFrame() throws Exception {
+        MessageReader reader = new MessageReader(1024);
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            String text = "message-" + i;
+            expected.add(text);
+            bos.write(message(text));
+        }
+        byte[] data = bos.toByteArray();
+        //按不对齐的大小切分帧，一帧可能包含多条消息或者半条消息
+        List<String> actual = new ArrayList<>();
+        int frame = 23;
+        for (int offset = 0; offset < data.length; offset += frame) {
+            reader.write(Arrays.copyOfRange(data, offset, Math.min(offset + frame, data.length)));
+            byte[] message;
+            while ((message = reader.read()) != null) {
+                actual.add(text(message));
+            }
+        }
+        Assertions.assertEquals(expected, actual);
+        Assertions.assertFalse(reader.hasRemaining());
+        Assertions.assertEquals(10, reader.getMessages());
+    }
+
+    @Test
+    public void testEmptyMessage() {
+        MessageReader reader = new MessageReader(1024);
+        reader.write(message(""));
+        byte[] message = reader.read();
+        Assertions.assertNotNull(message);
+        Assertions.assertEquals(MessageReader.PREFIX_SIZE, message.length);
+        Assertions.assertNull(reader.read());
+    }
+
+    @Test
+    public void testOversize() {
+        MessageReader reader = new MessageReader(8);
+        reader.write(message("12345678"));
+        Assertions.assertNotNull(reader.read());
+        //只收到前缀就能判断超过长度限制
+        reader.write(Arrays.copyOf(message("123456789"), MessageReader.PREFIX_SIZE));
+        Assertions.assertThrows(CodecException.class, reader::read);
+    }
+}
@@ -0,0 +1,227 @@
+package io.joyrpc.protocol.grpc.handler;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import io.joyrpc.exception.OverloadException;
+import io.joyrpc.protocol.grpc.message.GrpcStreamMessage;
+import io.joyrpc.transport.buffer.ChannelBuffer;
+import io.joyrpc.transport.http2.Http2ResponseMessage;
+import io.joyrpc.transport.netty4.channel.NettyChannel;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * grpc服务端流式应答测试
+ */
+public class ServerStreamObserverTest {
+
+    /**
+     * 按grpc长度前缀格式编码字符串
+     */
+    protected static final ServerStreamObserver.Encoder ENCODER = (buffer, value, compression) -> {
+        byte[] body = ((String) value).getBytes(StandardCharsets.UTF_8);
+        buffer.writeByte(0);
+        buffer.writeInt(body.length);
+        buffer.writeBytes(body);
+        return false;
+    };
+
+    protected EmbeddedChannel embedded;
+
+    protected NettyChannel channel;
+
+    @BeforeEach
+    public void setup() {
+        embedded = new EmbeddedChannel();
+        channel = new NettyChannel("grpc-stream", embedded, null, null, 8 * 1024 * 1024, true);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        GrpcStreamMessage message;
+        while ((message = embedded.readOutbound()) != null) {
+            release(message);
+        }
+        embedded.finishAndReleaseAll();
+    }
+
+    /**
+     * 释放应答缓冲区
+     *
+     * @param message 应答
+     */
+    protected void release(final GrpcStreamMessage message) {
+        ChannelBuffer buffer = message.getMessage().buffer();
+        if (buffer != null && !buffer.isReleased()) {
+            buffer.release();
+        }
+    }
+
+    /**
+     * 读取写出的应答帧
+     *
+     * @return 应答帧
+     */
+    protected List<GrpcStreamMessage> outbound() {
+        List<GrpcStreamMessage> result = new ArrayList<>();
+        GrpcStreamMessage message;
+        while ((message = embedded.readOutbound()) != null) {
+            result.add(message);
+        }
+        return result;
+    }
+
+    @Test
+    public void testNonBlocking() {
+        ServerStreamObserver<String> observer = new ServerStreamObserver<>(channel, 3, 1, ENCODER, null, 2, 3);
+        //没有写出确认，onNext也不会阻塞，超出窗口的应答被缓存
+        for (int i = 0; i < 5; i++) {
+            observer.onNext("item-" + i);
+        }
+        Assertions.assertFalse(observer.isReady());
+        List<GrpcStreamMessage> messages = outbound();
+        Assertions.assertEquals(2, messages.size());
+        //缓存已满，立即拒绝
+        Assertions.assertThrows(OverloadException.class, () -> observer.onNext("item-5"));
+        //写出一条，继续发送缓存的应答
+        messages.get(0).getFuture().complete(null);
+        List<GrpcStreamMessage> next = outbound();
+        Assertions.assertEquals(1, next.size());
+        observer.onNext("item-5");
+        messages.forEach(this::release);
+        next.forEach(this::release);
+    }
+
+    @Test
+    public void testOnReady() {
+        AtomicInteger counter = new AtomicInteger();
+        ServerStreamObserver<String> observer = new ServerStreamObserver<>(channel, 3, 1, ENCODER, null, 2, 4);
+        observer.setOnReadyHandler(counter::incrementAndGet);
+        Assertions.assertTrue(observer.isReady());
+        observer.onNext("item-0");
+        observer.onNext("item-1");
+        observer.onNext("item-2");
+        Assertions.assertFalse(observer.isReady());
+        //发送第3条后在途应答仍然占满窗口
+        List<GrpcStreamMessage> messages = outbound();
+        messages.get(0).getFuture().complete(null);
+        Assertions.assertEquals(0, counter.get());
+        messages.addAll(outbound());
+        Assertions.assertEquals(3, messages.size());
+        messages.get(1).getFuture().complete(null);
+        Assertions.assertEquals(1, counter.get());
+        Assertions.assertTrue(observer.isReady());
+        //没有再次变为不可推送，不重复通知
+        messages.get(2).getFuture().complete(null);
+        Assertions.assertEquals(1, counter.get());
+        messages.forEach(this::release);
+    }
+
+    @Test
+    public void testRoundTrip() {
+        ServerStreamObserver<String> observer = new ServerStreamObserver<>(channel, 5, 1, ENCODER, null, 1, 16);
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            String text = "stream-" + i;
+            expected.add(text);
+            observer.onNext(text);
+        }
+        observer.onCompleted();
+        Assertions.assertTrue(observer.isClosed());
+        Assertions.assertThrows(IllegalStateException.class, () -> observer.onNext("closed"));
+        //逐帧确认写出，每次最多一个数据帧在途，结束帧不占窗口，紧跟在最后一个数据帧之后
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        List<GrpcStreamMessage> frames = new ArrayList<>();
+        List<GrpcStreamMessage> messages;
+        while (!(messages = outbound()).isEmpty()) {
+            Assertions.assertEquals(1, messages.stream().filter(m -> !m.getMessage().isEnd()).count());
+            for (GrpcStreamMessage message : messages) {
+                frames.add(message);
+                ChannelBuffer buffer = message.getMessage().buffer();
+                if (buffer != null) {
+                    byte[] data = new byte[buffer.readableBytes()];
+                    buffer.readBytes(data);
+                    buffer.release();
+                    bos.write(data, 0, data.length);
+                }
+                message.getFuture().complete(null);
+            }
+        }
+        Assertions.assertEquals(11, frames.size());
+        Http2ResponseMessage first = frames.get(0).getMessage();
+        Assertions.assertEquals(5, first.getStreamId());
+        Assertions.assertNotNull(first.headers());
+        for (int i = 1; i < 10; i++) {
+            Assertions.assertNull(frames.get(i).getMessage().headers());
+            Assertions.assertFalse(frames.get(i).getMessage().isEnd());
+        }
+        Http2ResponseMessage last = frames.get(10).getMessage();
+        Assertions.assertTrue(last.isEnd());
+        Assertions.assertNotNull(last.endHeaders());
+        //客户端按任意大小的数据帧拆分消息
+        byte[] data = bos.toByteArray();
+        MessageReader reader = new MessageReader(1024);
+        List<String> actual = new ArrayList<>();
+        for (int offset = 0; offset < data.length; offset += 7) {
+            reader.write(Arrays.copyOfRange(data, offset, Math.min(offset + 7, data.length)));
+            byte[] message;
+            while ((message = reader.read()) != null) {
+                actual.add(new String(message, MessageReader.PREFIX_SIZE, message.length - MessageReader.PREFIX_SIZE, StandardCharsets.UTF_8));
+            }
+        }
+        Assertions.assertEquals(expected, actual);
+    }
+
+    @Test
+    public void testErrorWithoutData() {
+        ServerStreamObserver<String> observer = new ServerStreamObserver<>(channel, 7, 1, ENCODER, null, 2, 2);
+        observer.onError(new IllegalArgumentException("bad request"));
+        observer.onCompleted();
+        List<GrpcStreamMessage> messages = outbound();
+        Assertions.assertEquals(1, messages.size());
+        Http2ResponseMessage message = messages.get(0).getMessage();
+        //Trailers-Only应答
+        Assertions.assertNull(message.headers());
+        Assertions.assertNotNull(message.endHeaders());
+        Assertions.assertTrue(message.isEnd());
+    }
+
+    @Test
+    public void testWriteFailure() {
+        ServerStreamObserver<String> observer = new ServerStreamObserver<>(channel, 9, 1, ENCODER, null, 2, 2);
+        observer.onNext("item-0");
+        List<GrpcStreamMessage> messages = outbound();
+        messages.get(0).getFuture().completeExceptionally(new IllegalStateException("stream reset"));
+        Assertions.assertFalse(observer.isReady());
+        Assertions.assertThrows(RuntimeException.class, () -> observer.onNext("item-1"));
+        messages.forEach(this::release);
+    }
+}
@@ -0,0 +1,163 @@
+package io.joyrpc.protocol.handler;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import io.joyrpc.Invoker;
+import io.joyrpc.context.RequestContext;
+import io.joyrpc.extension.URL;
+import io.joyrpc.protocol.ServerProtocol;
+import io.joyrpc.protocol.message.Message;
+import io.joyrpc.protocol.message.RequestMessage;
+import io.joyrpc.transport.ChannelTransport;
+import io.joyrpc.transport.codec.Codec;
+import io.joyrpc.transport.codec.DefaultDecodeContext;
+import io.joyrpc.transport.codec.DefaultEncodeContext;
+import io.joyrpc.transport.netty4.buffer.NettyChannelBuffer;
+import io.joyrpc.transport.netty4.channel.NettyChannel;
+import io.joyrpc.transport.session.Cancellation;
+import io.joyrpc.transport.session.DefaultSession;
+import io.joyrpc.transport.session.Session;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetSocketAddress;
+
+import static io.joyrpc.Plugin.CLIENT_PROTOCOL;
+
+/**
+ * 消费者构造的取消请求经过编解码后，服务端登记取消
+ */
+public class CancelReceiverTest {
+
+    protected EmbeddedChannel embedded;
+
+    protected NettyChannel channel;
+
+    protected TestSession session;
+
+    @BeforeEach
+    public void setup() {
+        embedded = new EmbeddedChannel();
+        channel = new NettyChannel("test", embedded, null, null, 8 * 1024 * 1024, true);
+        session = new TestSession(1, 60000);
+        channel.addSession(1, session);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        embedded.finishAndReleaseAll();
+    }
+
+    /**
+     * 消费者构造取消请求，经过编码和解码，交给服务端的处理器
+     *
+     * @param msgId   被取消的消息ID
+     * @param timeout 被取消请求的超时时间
+     */
+    protected void send(final long msgId, final int timeout) {
+        io.joyrpc.transport.message.Message cancel = CLIENT_PROTOCOL.get("joy").cancel(URL.valueOf("joy://127.0.0.1:22000"), null, msgId, timeout);
+        Assertions.assertNotNull(cancel);
+        cancel.setSessionId(1);
+        Codec codec = CLIENT_PROTOCOL.get("joy").getCodec();
+        byte[] magicCode = CLIENT_PROTOCOL.get("joy").getMagicCode();
+        ByteBuf buf = Unpooled.buffer();
+        try {
+            codec.encode(new DefaultEncodeContext(channel), new NettyChannelBuffer(buf), cancel);
+            buf.skipBytes(magicCode == null ? 0 : magicCode.length);
+            Object message = codec.decode(new DefaultDecodeContext(channel), new NettyChannelBuffer(buf));
+            Assertions.assertTrue(message instanceof RequestMessage);
+            //取消请求在IO线程中处理
+            Assertions.assertTrue(((RequestMessage) message).isInline());
+            new CancelReceiver().handle(null, (Message) message);
+        } finally {
+            buf.release();
+        }
+    }
+
+    @Test
+    public void testCancelReachesProvider() {
+        send(100, 60000);
+        Assertions.assertTrue(session.getCancellation().isCancelled(100));
+        Assertions.assertFalse(session.getCancellation().isCancelled(101));
+        //排队的请求不再执行
+        Assertions.assertFalse(session.getCancellation().start(100, new RequestContext()));
+    }
+
+    @Test
+    public void testTombstoneExpire() throws InterruptedException {
+        //按照被取消请求的超时时间清理标记
+        send(200, 100);
+        Cancellation cancellation = session.getCancellation();
+        Assertions.assertTrue(cancellation.isCancelled(200));
+        long end = System.currentTimeMillis() + 5000;
+        while (cancellation.size() > 0 && System.currentTimeMillis() < end) {
+            Thread.sleep(20);
+        }
+        Assertions.assertEquals(0, cancellation.size());
+    }
+
+    /**
+     * 服务端会话
+     */
+    protected static class TestSession extends DefaultSession implements Session.ServerSession {
+
+        protected final Cancellation cancellation = new Cancellation();
+
+        public TestSession(final int sessionId, final long timeout) {
+            super(sessionId, timeout);
+        }
+
+        @Override
+        public Invoker getProvider() {
+            return null;
+        }
+
+        @Override
+        public InetSocketAddress getRemoteAddress() {
+            return null;
+        }
+
+        @Override
+        public InetSocketAddress getLocalAddress() {
+            return null;
+        }
+
+        @Override
+        public ChannelTransport getTransport() {
+            return null;
+        }
+
+        @Override
+        public ServerProtocol getProtocol() {
+            return null;
+        }
+
+        @Override
+        public Cancellation getCancellation() {
+            return cancellation;
+        }
+    }
+}
@@ -0,0 +1,313 @@
+package io.joyrpc.protocol.handler;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import io.joyrpc.Invoker;
+import io.joyrpc.exception.RejectException;
+import io.joyrpc.exception.SessionException;
+import io.joyrpc.invoker.option.MethodOption;
+import io.joyrpc.protocol.ServerProtocol;
+import io.joyrpc.protocol.joy.codec.DecodeOffloadTest.EchoService;
+import io.joyrpc.protocol.message.Invocation;
+import io.joyrpc.protocol.message.MessageHeader;
+import io.joyrpc.protocol.message.RequestMessage;
+import io.joyrpc.transport.ChannelTransport;
+import io.joyrpc.transport.channel.Channel;
+import io.joyrpc.transport.channel.ChannelContext;
+import io.joyrpc.transport.codec.Codec;
+import io.joyrpc.transport.codec.DefaultDecodeContext;
+import io.joyrpc.transport.codec.DefaultEncodeContext;
+import io.joyrpc.transport.netty4.buffer.NettyChannelBuffer;
+import io.joyrpc.transport.netty4.channel.NettyChannel;
+import io.joyrpc.transport.session.DefaultSession;
+import io.joyrpc.transport.session.MethodTable;
+import io.joyrpc.transport.session.Session;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.net.InetSocketAddress;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static io.joyrpc.Plugin.CLIENT_PROTOCOL;
+import static io.joyrpc.Plugin.SERIALIZATION;
+import static io.joyrpc.constants.Constants.CONFIG_KEY_INTERFACE;
+import static io.joyrpc.constants.Constants.HEAD_METHOD_ID;
+import static io.joyrpc.constants.Constants.METHOD_TABLE_KEY;
+
+/**
+ * 会话协商的方法ID编解码测试
+ */
+public class MethodIdTest {
+
+    protected Codec codec;
+
+    protected int magicLength;
+
+    protected EmbeddedChannel embedded;
+
+    protected NettyChannel channel;
+
+    protected TestSession provider;
+
+    @BeforeEach
+    public void setup() throws NoSuchMethodException {
+        codec = CLIENT_PROTOCOL.get("joy").getCodec();
+        byte[] magicCode = CLIENT_PROTOCOL.get("joy").getMagicCode();
+        magicLength = magicCode == null ? 0 : magicCode.length;
+        embedded = new EmbeddedChannel();
+        channel = new NettyChannel("test", embedded, null, null, 8 * 1024 * 1024, true) {
+            @Override
+            public InetSocketAddress getLocalAddress() {
+                return new InetSocketAddress("127.0.0.1", 22000);
+            }
+
+            @Override
+            public InetSocketAddress getRemoteAddress() {
+                return new InetSocketAddress("127.0.0.1", 40000);
+            }
+        };
+        provider = new TestSession(1, 60000);
+        provider.put(CONFIG_KEY_INTERFACE, EchoService.class.getName());
+        channel.addSession(1, provider);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        embedded.finishAndReleaseAll();
+    }
+
+    /**
+     * 构造消费者会话
+     *
+     * @param table 协商的方法表
+     * @return 会话
+     */
+    protected DefaultSession consumer(final String table) {
+        DefaultSession session = new DefaultSession(1, 60000);
+        Map<String, String> attrs = new HashMap<>();
+        attrs.put(CONFIG_KEY_INTERFACE, EchoService.class.getName());
+        if (table != null) {
+            attrs.put(METHOD_TABLE_KEY, table);
+        }
+        session.putAll(attrs);
+        return session;
+    }
+
+    protected RequestMessage<Invocation> request(final String serialization) throws NoSuchMethodException {
+        RequestMessage<Invocation> request = RequestMessage.build(new Invocation(EchoService.class, null,
+                EchoService.class.getMethod("echo", String.class), new Object[]{"hello"}));
+        request.getHeader().setSerialization(SERIALIZATION.get(serialization).getTypeId());
+        request.setSessionId(1);
+        return request;
+    }
+
+    /**
+     * 消费者编码，服务端解码
+     *
+     * @param request 请求
+     * @param session 消费者会话
+     * @return 服务端收到的请求
+     */
+    @SuppressWarnings("unchecked")
+    protected RequestMessage<Invocation> transfer(final RequestMessage<Invocation> request, final Session session) {
+        request.setSession(session);
+        ByteBuf buf = Unpooled.buffer();
+        try {
+            codec.encode(new DefaultEncodeContext(null), new NettyChannelBuffer(buf), request);
+            buf.skipBytes(magicLength);
+            Object message = codec.decode(new DefaultDecodeContext(channel), new NettyChannelBuffer(buf));
+            Assertions.assertTrue(message instanceof RequestMessage);
+            return (RequestMessage<Invocation>) message;
+        } finally {
+            buf.release();
+        }
+    }
+
+    /**
+     * 服务端根据会话恢复请求
+     *
+     * @param request 请求
+     * @return 业务请求
+     */
+    protected BizReceiver.BizReq restore(final RequestMessage<Invocation> request) {
+        ChannelContext context = new ChannelContext() {
+            @Override
+            public Channel getChannel() {
+                return channel;
+            }
+
+            @Override
+            public void fireChannelActive() {
+            }
+
+            @Override
+            public void fireChannelInactive() {
+            }
+
+            @Override
+            public void fireExceptionCaught(final Throwable cause) {
+            }
+
+            @Override
+            public void fireChannelRead(final Object msg) {
+            }
+
+            @Override
+            public CompletableFuture<Void> wrote(final Object msg) {
+                return CompletableFuture.completedFuture(null);
+            }
+        };
+        return new BizReceiver.BizReq(context, request, null, null);
+    }
+
+    @Test
+    public void testMethodTable() {
+        MethodTable table = MethodTable.parse("echo,hello,world");
+        Assertions.assertEquals(3, table.size());
+        Assertions.assertEquals(Integer.valueOf(1), table.getId("hello"));
+        Assertions.assertEquals("world", table.getName(2));
+        Assertions.assertNull(table.getId("unknown"));
+        Assertions.assertNull(table.getId(null));
+        Assertions.assertNull(table.getName(3));
+        Assertions.assertNull(table.getName(-1));
+        Assertions.assertEquals("echo,hello,world", table.toString());
+        Assertions.assertEquals(table.toString(), MethodTable.parse(table.toString()).toString());
+        Assertions.assertNull(MethodTable.parse(""));
+        Assertions.assertNull(MethodTable.parse(null));
+    }
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        provider.options.put(1, option(EchoService.class.getMethod("echo", String.class)));
+        RequestMessage<Invocation> request = request("hessian");
+        RequestMessage<Invocation> received = transfer(request, consumer("close,echo"));
+        //用方法ID代替方法名称
+        Assertions.assertEquals((short) 1, (Short) received.getHeader().getAttribute(HEAD_METHOD_ID));
+        Assertions.assertNull(received.getPayLoad().getMethodName());
+        Assertions.assertEquals("hello", received.getPayLoad().getArgs()[0]);
+        //原始请求会被重试共享，不能修改
+        Assertions.assertNull(((MessageHeader) request.getHeader()).getAttribute(HEAD_METHOD_ID));
+        Assertions.assertEquals("echo", request.getPayLoad().getMethodName());
+        //服务端根据会话恢复方法名称，测试环境没有服务提供者
+        BizReceiver.BizReq req = restore(received);
+        Assertions.assertThrows(RejectException.class, req::restore);
+        Assertions.assertEquals("echo", received.getPayLoad().getMethodName());
+        Assertions.assertEquals(EchoService.class.getName(), received.getPayLoad().getClassName());
+    }
+
+    @Test
+    public void testUnknownMethodName() throws Exception {
+        //方法表中没有该方法，传输方法名称
+        RequestMessage<Invocation> received = transfer(request("hessian"), consumer("close,hello"));
+        Assertions.assertNull(((MessageHeader) received.getHeader()).getAttribute(HEAD_METHOD_ID));
+        Assertions.assertEquals("echo", received.getPayLoad().getMethodName());
+        BizReceiver.BizReq req = restore(received);
+        Assertions.assertThrows(RejectException.class, req::restore);
+        Assertions.assertEquals("echo", received.getPayLoad().getMethodName());
+    }
+
+    @Test
+    public void testWithoutTable() throws Exception {
+        //服务端没有返回方法表
+        RequestMessage<Invocation> received = transfer(request("hessian"), consumer(null));
+        Assertions.assertNull(((MessageHeader) received.getHeader()).getAttribute(HEAD_METHOD_ID));
+        Assertions.assertEquals("echo", received.getPayLoad().getMethodName());
+    }
+
+    @Test
+    public void testWithoutAutoType() throws Exception {
+        //非autoType的序列化需要方法名称来确定参数类型
+        RequestMessage<Invocation> received = transfer(request("json@jackson"), consumer("echo"));
+        Assertions.assertNull(((MessageHeader) received.getHeader()).getAttribute(HEAD_METHOD_ID));
+        Assertions.assertEquals("echo", received.getPayLoad().getMethodName());
+    }
+
+    @Test
+    public void testUnknownMethodId() throws Exception {
+        //服务端会话中没有该方法ID，例如服务端重启后会话失效
+        RequestMessage<Invocation> received = transfer(request("hessian"), consumer("echo"));
+        Assertions.assertEquals((short) 0, (Short) received.getHeader().getAttribute(HEAD_METHOD_ID));
+        BizReceiver.BizReq req = restore(received);
+        Assertions.assertThrows(SessionException.class, req::restore);
+    }
+
+    /**
+     * 构造方法选项
+     *
+     * @param method 方法
+     * @return 方法选项
+     */
+    protected static MethodOption option(final Method method) {
+        return (MethodOption) Proxy.newProxyInstance(MethodIdTest.class.getClassLoader(), new Class[]{MethodOption.class},
+                (proxy, m, args) -> "getMethod".equals(m.getName()) ? method : null);
+    }
+
+    /**
+     * 服务端会话
+     */
+    protected static class TestSession extends DefaultSession implements Session.ServerSession {
+
+        protected final Map<Integer, MethodOption> options = new HashMap<>();
+
+        public TestSession(final int sessionId, final long timeout) {
+            super(sessionId, timeout);
+        }
+
+        @Override
+        public Invoker getProvider() {
+            return null;
+        }
+
+        @Override
+        public InetSocketAddress getRemoteAddress() {
+            return null;
+        }
+
+        @Override
+        public InetSocketAddress getLocalAddress() {
+            return null;
+        }
+
+        @Override
+        public ChannelTransport getTransport() {
+            return null;
+        }
+
+        @Override
+        public ServerProtocol getProtocol() {
+            return null;
+        }
+
+        @Override
+        public MethodOption getMethodOption(final int methodId) {
+            return options.get(methodId);
+        }
+    }
+}
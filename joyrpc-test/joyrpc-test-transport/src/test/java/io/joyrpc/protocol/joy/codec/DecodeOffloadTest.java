@@ -0,0 +1,244 @@
+package io.joyrpc.protocol.joy.codec;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import io.joyrpc.protocol.MsgType;
+import io.joyrpc.protocol.message.Invocation;
+import io.joyrpc.protocol.message.MessageHeader;
+import io.joyrpc.protocol.message.RequestMessage;
+import io.joyrpc.protocol.message.ResponseMessage;
+import io.joyrpc.protocol.message.ResponsePayload;
+import io.joyrpc.protocol.message.negotiation.NegotiationRequest;
+import io.joyrpc.transport.channel.Channel;
+import io.joyrpc.transport.channel.ChannelContext;
+import io.joyrpc.transport.channel.ChannelReader;
+import io.joyrpc.transport.codec.Codec;
+import io.joyrpc.transport.codec.DefaultDecodeContext;
+import io.joyrpc.transport.codec.DefaultEncodeContext;
+import io.joyrpc.transport.codec.DeferredMessage;
+import io.joyrpc.transport.message.Message;
+import io.joyrpc.transport.netty4.buffer.NettyChannelBuffer;
+import io.joyrpc.transport.netty4.channel.NettyChannel;
+import io.joyrpc.transport.netty4.handler.ChannelChainReaderAdapter;
+import io.joyrpc.util.thread.DefaultThreadPool;
+import io.joyrpc.util.thread.ThreadPool;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static io.joyrpc.Plugin.CLIENT_PROTOCOL;
+import static io.joyrpc.Plugin.SERIALIZATION;
+
+/**
+ * 消息体卸载到业务线程池解码的测试
+ */
+public class DecodeOffloadTest {
+
+    protected Codec codec;
+
+    protected int magicLength;
+
+    protected byte serialization;
+
+    protected ThreadPool workerPool;
+
+    protected EmbeddedChannel embedded;
+
+    protected NettyChannel channel;
+
+    @BeforeEach
+    public void setup() {
+        codec = CLIENT_PROTOCOL.get("joy").getCodec();
+        byte[] magicCode = CLIENT_PROTOCOL.get("joy").getMagicCode();
+        magicLength = magicCode == null ? 0 : magicCode.length;
+        serialization = SERIALIZATION.get("java").getTypeId();
+        workerPool = new DefaultThreadPool("decode", 1, 1, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(),
+                r -> new Thread(r, "decode-worker"), new ThreadPoolExecutor.AbortPolicy());
+        embedded = new EmbeddedChannel();
+        channel = new NettyChannel("test", embedded, workerPool, null, 8 * 1024 * 1024, false);
+        channel.setAttribute(Channel.DECODE_OFFLOAD, true);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        embedded.finishAndReleaseAll();
+        workerPool.shutdownNow();
+    }
+
+    /**
+     * 编码消息，并且去掉魔术位，模拟长度字段帧解码器的输出
+     *
+     * @param message 消息
+     * @return 缓冲区
+     */
+    protected ByteBuf encode(final Object message) {
+        ByteBuf buf = Unpooled.buffer();
+        codec.encode(new DefaultEncodeContext(null), new NettyChannelBuffer(buf), message);
+        buf.skipBytes(magicLength);
+        return buf;
+    }
+
+    protected RequestMessage<Invocation> request(final String value) throws NoSuchMethodException {
+        RequestMessage<Invocation> request = RequestMessage.build(new Invocation(EchoService.class, null,
+                EchoService.class.getMethod("echo", String.class), new Object[]{value}));
+        request.getHeader().setSerialization(serialization);
+        return request;
+    }
+
+    protected ResponseMessage<ResponsePayload> response(final long msgId, final String value) {
+        MessageHeader header = new MessageHeader(MsgType.BizResp.getType(), msgId);
+        header.setSerialization(serialization);
+        return new ResponseMessage<>(header, new ResponsePayload(value));
+    }
+
+    @Test
+    public void testDeferredRequest() throws Exception {
+        ByteBuf buf = encode(request("hello"));
+        Object result = codec.decode(new DefaultDecodeContext(channel), new NettyChannelBuffer(buf));
+        Assertions.assertTrue(result instanceof DeferredMessage);
+        DeferredMessage deferred = (DeferredMessage) result;
+        Assertions.assertTrue(deferred.isRequest());
+        Assertions.assertEquals(MsgType.BizReq.getType(), deferred.getHeader().getMsgType());
+        //切片持有缓冲区的引用
+        Assertions.assertEquals(2, buf.refCnt());
+        Object message = deferred.decode();
+        Assertions.assertTrue(message instanceof RequestMessage);
+        Invocation invocation = (Invocation) ((RequestMessage) message).getPayLoad();
+        Assertions.assertEquals("hello", invocation.getArgs()[0]);
+        Assertions.assertEquals(1, buf.refCnt());
+        //重复解码报错，不会重复释放
+        Assertions.assertThrows(Exception.class, deferred::decode);
+        Assertions.assertFalse(deferred.release());
+        Assertions.assertEquals(1, buf.refCnt());
+        buf.release();
+    }
+
+    @Test
+    public void testRelease() throws Exception {
+        ByteBuf buf = encode(request("hello"));
+        DeferredMessage deferred = (DeferredMessage) codec.decode(new DefaultDecodeContext(channel), new NettyChannelBuffer(buf));
+        Assertions.assertTrue(deferred.release());
+        Assertions.assertFalse(deferred.release());
+        Assertions.assertEquals(1, buf.refCnt());
+        buf.release();
+    }
+
+    @Test
+    public void testControlMessageInline() {
+        //协商消息修改通道状态，不卸载
+        RequestMessage<NegotiationRequest> negotiation = new RequestMessage<>(
+                new MessageHeader(MsgType.NegotiationReq.getType(), serialization), new NegotiationRequest());
+        ByteBuf buf = encode(negotiation);
+        Object result = codec.decode(new DefaultDecodeContext(channel), new NettyChannelBuffer(buf));
+        Assertions.assertTrue(result instanceof RequestMessage);
+        Assertions.assertTrue(((RequestMessage) result).getPayLoad() instanceof NegotiationRequest);
+        Assertions.assertEquals(1, buf.refCnt());
+        buf.release();
+    }
+
+    @Test
+    public void testInlineWithoutOffload() throws Exception {
+        channel.setAttribute(Channel.DECODE_OFFLOAD, false);
+        ByteBuf buf = encode(request("hello"));
+        Object result = codec.decode(new DefaultDecodeContext(channel), new NettyChannelBuffer(buf));
+        Assertions.assertTrue(result instanceof RequestMessage);
+        buf.release();
+    }
+
+    @Test
+    public void testInlineWithoutChannel() throws Exception {
+        ByteBuf buf = encode(request("hello"));
+        Object result = codec.decode(new DefaultDecodeContext(null), new NettyChannelBuffer(buf));
+        Assertions.assertTrue(result instanceof RequestMessage);
+        buf.release();
+    }
+
+    @Test
+    public void testDecodeOnWorkerPool() throws Exception {
+        BlockingQueue<String> threads = new ArrayBlockingQueue<>(1);
+        BlockingQueue<Object> messages = new ArrayBlockingQueue<>(1);
+        embedded.pipeline().addLast(new ChannelChainReaderAdapter(new ChannelReader[]{new ChannelReader() {
+            @Override
+            public void received(final ChannelContext context, final Object message) {
+                threads.offer(Thread.currentThread().getName());
+                messages.offer(message);
+            }
+        }}, channel));
+        ByteBuf buf = encode(request("hello"));
+        embedded.writeInbound(codec.decode(new DefaultDecodeContext(channel), new NettyChannelBuffer(buf)));
+        Object message = messages.poll(5, TimeUnit.SECONDS);
+        Assertions.assertTrue(message instanceof RequestMessage);
+        Assertions.assertEquals("decode-worker", threads.poll());
+        Assertions.assertEquals(1, buf.refCnt());
+        buf.release();
+    }
+
+    @Test
+    public void testDropTimeoutResponse() throws Exception {
+        BlockingQueue<Object> messages = new ArrayBlockingQueue<>(1);
+        embedded.pipeline().addLast(new ChannelChainReaderAdapter(new ChannelReader[]{new ChannelReader() {
+            @Override
+            public void received(final ChannelContext context, final Object message) {
+                messages.offer(message);
+            }
+        }}, channel));
+        //没有对应的请求，应答直接丢弃不反序列化
+        ByteBuf buf = encode(response(100, "world"));
+        Object result = codec.decode(new DefaultDecodeContext(channel), new NettyChannelBuffer(buf));
+        Assertions.assertTrue(result instanceof DeferredMessage);
+        Assertions.assertFalse(((DeferredMessage) result).isRequest());
+        embedded.writeInbound(result);
+        workerPool.shutdown();
+        Assertions.assertTrue(workerPool.awaitTermination(5, TimeUnit.SECONDS));
+        Assertions.assertNull(messages.poll());
+        Assertions.assertEquals(1, buf.refCnt());
+        buf.release();
+    }
+
+    @Test
+    public void testRejected() throws Exception {
+        embedded.pipeline().addLast(new ChannelChainReaderAdapter(new ChannelReader[0], channel));
+        workerPool.shutdown();
+        ByteBuf buf = encode(request("hello"));
+        embedded.writeInbound(codec.decode(new DefaultDecodeContext(channel), new NettyChannelBuffer(buf)));
+        //线程池拒绝后释放切片
+        Assertions.assertEquals(1, buf.refCnt());
+        buf.release();
+    }
+
+    /**
+     * 测试接口
+     */
+    public interface EchoService {
+
+        String echo(String value);
+    }
+}
@@ -0,0 +1,161 @@
+package io.joyrpc.protocol.joy.codec;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import io.joyrpc.exception.ChannelClosedException;
+import io.joyrpc.extension.URL;
+import io.joyrpc.protocol.message.Invocation;
+import io.joyrpc.protocol.message.RequestMessage;
+import io.joyrpc.transport.buffer.ChannelBuffer;
+import io.joyrpc.transport.channel.Channel;
+import io.joyrpc.transport.codec.Codec;
+import io.joyrpc.transport.message.Message;
+import io.joyrpc.transport.netty4.buffer.NettyChannelBuffer;
+import io.joyrpc.transport.netty4.channel.NettyChannel;
+import io.joyrpc.transport.netty4.handler.MessageEncoder;
+import io.joyrpc.transport.netty4.transport.NettyClient;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import static io.joyrpc.Plugin.CLIENT_PROTOCOL;
+import static io.joyrpc.Plugin.SERIALIZATION;
+
+/**
+ * 客户端请求在调用线程中编码的测试
+ */
+public class EncodeOffloadTest {
+
+    protected Codec codec;
+
+    protected byte serialization;
+
+    protected EmbeddedChannel embedded;
+
+    protected NettyChannel channel;
+
+    @BeforeEach
+    public void setup() {
+        codec = CLIENT_PROTOCOL.get("joy").getCodec();
+        serialization = SERIALIZATION.get("java").getTypeId();
+        embedded = new EmbeddedChannel();
+        channel = new NettyChannel("test", embedded, null, null, 8 * 1024 * 1024, false);
+        embedded.pipeline().addLast(new MessageEncoder(codec, channel));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        embedded.finishAndReleaseAll();
+    }
+
+    protected RequestMessage<Invocation> request(final String value) throws NoSuchMethodException {
+        RequestMessage<Invocation> request = RequestMessage.build(new Invocation(DecodeOffloadTest.EchoService.class, null,
+                DecodeOffloadTest.EchoService.class.getMethod("echo", String.class), new Object[]{value}));
+        request.getHeader().setSerialization(serialization);
+        request.getHeader().setMsgId(1);
+        return request;
+    }
+
+    /**
+     * 构造客户端
+     *
+     * @param encodeOffload 是否在调用线程中编码
+     * @return 客户端
+     */
+    protected OffloadClient client(final boolean encodeOffload) {
+        return new OffloadClient(URL.valueOf("joy://127.0.0.1:22000?encodeOffload=" + encodeOffload), channel, codec);
+    }
+
+    /**
+     * 读取写出的数据
+     *
+     * @return 字节数组
+     */
+    protected byte[] readOutbound() {
+        ByteBuf buf = embedded.readOutbound();
+        try {
+            return ByteBufUtil.getBytes(buf);
+        } finally {
+            buf.release();
+        }
+    }
+
+    @Test
+    public void testSameFrame() throws Exception {
+        //IO线程编码
+        Object message = client(false).encode(request("hello"));
+        Assertions.assertTrue(message instanceof Message);
+        channel.send(message).get();
+        byte[] expect = readOutbound();
+        //调用线程编码，编码器直接透传
+        Object encoded = client(true).encode(request("hello"));
+        Assertions.assertTrue(encoded instanceof NettyChannelBuffer);
+        ByteBuf buf = ((NettyChannelBuffer) encoded).getByteBuf();
+        channel.send(encoded).get();
+        Assertions.assertArrayEquals(expect, readOutbound());
+        Assertions.assertEquals(0, buf.refCnt());
+    }
+
+    @Test
+    public void testEncodeError() throws Exception {
+        RequestMessage<Invocation> request = request("hello");
+        //不存在的序列化类型
+        request.getHeader().setSerialization((byte) 127);
+        Assertions.assertThrows(Exception.class, () -> client(true).encode(request));
+        Assertions.assertNull(embedded.readOutbound());
+    }
+
+    @Test
+    public void testReleaseOnClosed() throws Exception {
+        ChannelBuffer encoded = (ChannelBuffer) client(true).encode(request("hello"));
+        ByteBuf buf = ((NettyChannelBuffer) encoded).getByteBuf();
+        embedded.close();
+        CompletableFuture<Void> future = channel.send(encoded);
+        ExecutionException e = Assertions.assertThrows(ExecutionException.class, future::get);
+        Assertions.assertTrue(e.getCause() instanceof ChannelClosedException);
+        //没有写出的数据需要释放
+        Assertions.assertEquals(0, buf.refCnt());
+    }
+
+    /**
+     * 测试客户端，直接注入通道和编解码
+     */
+    protected static class OffloadClient extends NettyClient {
+
+        public OffloadClient(final URL url, final Channel channel, final Codec codec) {
+            super(url, null);
+            this.channel = channel;
+            this.codec = codec;
+        }
+
+        @Override
+        public Object encode(final Message message) {
+            return super.encode(message);
+        }
+    }
+}
@@ -0,0 +1,263 @@
+package io.joyrpc.protocol.joy.codec;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import io.joyrpc.exception.CodecException;
+import io.joyrpc.permission.SerializerWhiteList;
+import io.joyrpc.protocol.MsgType;
+import io.joyrpc.protocol.message.Invocation;
+import io.joyrpc.protocol.message.MessageHeader;
+import io.joyrpc.protocol.message.RequestMessage;
+import io.joyrpc.protocol.message.ResponseMessage;
+import io.joyrpc.protocol.message.ResponsePayload;
+import io.joyrpc.transport.codec.Codec;
+import io.joyrpc.transport.codec.DefaultDecodeContext;
+import io.joyrpc.transport.codec.DefaultEncodeContext;
+import io.joyrpc.transport.message.Message;
+import io.joyrpc.transport.netty4.buffer.NettyChannelBuffer;
+import io.joyrpc.transport.netty4.channel.NettyChannel;
+import io.joyrpc.transport.session.DefaultSession;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+import static io.joyrpc.Plugin.CLIENT_PROTOCOL;
+import static io.joyrpc.Plugin.SERIALIZATION;
+import static io.joyrpc.constants.Constants.HEAD_SERIALIZATION_RESET;
+import static io.joyrpc.constants.Constants.HEAD_SERIALIZATION_STATE;
+import static io.joyrpc.constants.Constants.STATEFUL_SERIALIZATION_OPTION;
+
+/**
+ * 连接上有状态序列化的编解码测试
+ */
+public class StatefulCodecTest {
+
+    protected Codec codec;
+
+    protected int magicLength;
+
+    protected byte serialization;
+
+    protected EmbeddedChannel clientEmbedded;
+
+    protected EmbeddedChannel serverEmbedded;
+
+    protected NettyChannel client;
+
+    protected NettyChannel server;
+
+    protected DefaultSession clientSession;
+
+    @BeforeAll
+    public static void beforeClass() {
+        SerializerWhiteList.getGlobalWhitelist().setEnabled(false);
+    }
+
+    @BeforeEach
+    public void setup() {
+        codec = CLIENT_PROTOCOL.get("joy").getCodec();
+        byte[] magicCode = CLIENT_PROTOCOL.get("joy").getMagicCode();
+        magicLength = magicCode == null ? 0 : magicCode.length;
+        serialization = SERIALIZATION.get("hessian").getTypeId();
+        clientEmbedded = new EmbeddedChannel();
+        serverEmbedded = new EmbeddedChannel();
+        client = new NettyChannel("client", clientEmbedded, null, null, 8 * 1024 * 1024, false);
+        server = new NettyChannel("server", serverEmbedded, null, null, 8 * 1024 * 1024, true);
+        clientSession = session();
+        client.addSession(1, clientSession);
+        server.addSession(1, session());
+    }
+
+    @AfterEach
+    public void tearDown() {
+        clientEmbedded.finishAndReleaseAll();
+        serverEmbedded.finishAndReleaseAll();
+    }
+
+    protected DefaultSession session() {
+        DefaultSession session = new DefaultSession(1, 60000);
+        session.put(STATEFUL_SERIALIZATION_OPTION.getName(), "true");
+        return session;
+    }
+
+    protected RequestMessage<Invocation> request(final int id) throws NoSuchMethodException {
+        return request(new Item(id, "item" + id));
+    }
+
+    protected RequestMessage<Invocation> request(final Item item) throws NoSuchMethodException {
+        RequestMessage<Invocation> request = RequestMessage.build(new Invocation(ItemService.class, null,
+                ItemService.class.getMethod("update", Item.class), new Object[]{item}));
+        request.getHeader().setSerialization(serialization);
+        request.setSessionId(1);
+        request.setSession(clientSession);
+        return request;
+    }
+
+    protected ResponseMessage<ResponsePayload> response(final int id) {
+        MessageHeader header = new MessageHeader(MsgType.BizResp.getType(), id);
+        header.setSerialization(serialization);
+        header.setSessionId(1);
+        return new ResponseMessage<>(header, new ResponsePayload("ok" + id));
+    }
+
+    /**
+     * 编码
+     *
+     * @param channel 连接通道
+     * @param message 消息
+     * @return 缓冲区
+     */
+    protected ByteBuf encode(final NettyChannel channel, final Object message) {
+        ByteBuf buf = Unpooled.buffer();
+        codec.encode(new DefaultEncodeContext(channel), new NettyChannelBuffer(buf), message);
+        buf.skipBytes(magicLength);
+        return buf;
+    }
+
+    /**
+     * 解码
+     *
+     * @param channel 连接通道
+     * @param buf     缓冲区
+     * @return 消息
+     */
+    protected Message decode(final NettyChannel channel, final ByteBuf buf) {
+        try {
+            return (Message) codec.decode(new DefaultDecodeContext(channel), new NettyChannelBuffer(buf));
+        } finally {
+            buf.release();
+        }
+    }
+
+    protected Integer state(final Message message) {
+        return (Integer) ((MessageHeader) message.getHeader()).getAttribute(HEAD_SERIALIZATION_STATE);
+    }
+
+    protected Item item(final Message message) {
+        return (Item) ((Invocation) message.getPayLoad()).getArgs()[0];
+    }
+
+    @Test
+    public void testReference() throws Exception {
+        ByteBuf first = encode(client, request(1));
+        int firstSize = first.readableBytes();
+        ByteBuf second = encode(client, request(2));
+        //类定义只在连接上的第一条消息中传输
+        Assertions.assertTrue(second.readableBytes() < firstSize);
+        Message m1 = decode(server, first);
+        Message m2 = decode(server, second);
+        Assertions.assertEquals(0, state(m1));
+        Assertions.assertTrue(state(m2) > 0);
+        Assertions.assertEquals(new Item(1, "item1"), item(m1));
+        Assertions.assertEquals(new Item(2, "item2"), item(m2));
+    }
+
+    @Test
+    public void testOutOfSync() throws Exception {
+        Assertions.assertEquals(new Item(1, "item1"), item(decode(server, encode(client, request(1)))));
+        //丢失一条携带新类定义的消息，两端引用表大小不一致
+        encode(client, request(new Item(2, "item2", new Tag("lost")))).release();
+        ByteBuf lost = encode(client, request(4));
+        //只拒绝该消息，不关闭连接
+        Assertions.assertThrows(CodecException.class, () -> decode(server, lost));
+        Assertions.assertTrue(server.isActive());
+        //重置之前对端的消息都被拒绝
+        ByteBuf next = encode(client, request(5));
+        Assertions.assertThrows(CodecException.class, () -> decode(server, next));
+        //服务端的下一条消息通知客户端重置
+        Message response = decode(client, encode(server, response(5)));
+        Assertions.assertEquals((byte) 1, ((MessageHeader) response.getHeader()).getAttribute(HEAD_SERIALIZATION_RESET));
+        Assertions.assertEquals("ok5", ((ResponsePayload) response.getPayLoad()).getResponse());
+        //通知只携带一次
+        Message other = decode(client, encode(server, response(6)));
+        Assertions.assertNull(((MessageHeader) other.getHeader()).getAttribute(HEAD_SERIALIZATION_RESET));
+        //客户端从空的引用表开始，两端恢复同步
+        Message m6 = decode(server, encode(client, request(6)));
+        Assertions.assertEquals(0, state(m6));
+        Assertions.assertEquals(new Item(6, "item6"), item(m6));
+        Message m7 = decode(server, encode(client, request(7)));
+        Assertions.assertTrue(state(m7) > 0);
+        Assertions.assertEquals(new Item(7, "item7"), item(m7));
+    }
+
+    public interface ItemService {
+
+        Item update(Item item);
+    }
+
+    public static class Item implements Serializable {
+
+        protected int id;
+
+        protected String name;
+
+        protected Tag tag;
+
+        public Item() {
+        }
+
+        public Item(int id, String name) {
+            this(id, name, null);
+        }
+
+        public Item(int id, String name, Tag tag) {
+            this.id = id;
+            this.name = name;
+            this.tag = tag;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) {
+                return true;
+            } else if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            Item item = (Item) o;
+            return id == item.id && Objects.equals(name, item.name);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(id, name);
+        }
+    }
+
+    public static class Tag implements Serializable {
+
+        protected String value;
+
+        public Tag() {
+        }
+
+        public Tag(String value) {
+            this.value = value;
+        }
+    }
+}
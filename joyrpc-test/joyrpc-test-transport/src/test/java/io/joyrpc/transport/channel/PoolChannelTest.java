@@ -0,0 +1,195 @@
+package io.joyrpc.transport.channel;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import io.joyrpc.extension.URL;
+import io.joyrpc.transport.TransportClient;
+import io.joyrpc.transport.event.HeartbeatEvent;
+import io.joyrpc.transport.heartbeat.HeartbeatStrategy;
+import io.joyrpc.transport.netty4.channel.NettyChannel;
+import io.joyrpc.transport.session.DefaultSession;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static io.joyrpc.Plugin.EVENT_BUS;
+import static io.joyrpc.constants.Constants.EVENT_PUBLISHER_CLIENT_NAME;
+import static io.joyrpc.constants.Constants.EVENT_PUBLISHER_TRANSPORT_CONF;
+
+/**
+ * 连接池测试
+ */
+public class PoolChannelTest {
+
+    protected static final AtomicInteger COUNTER = new AtomicInteger();
+
+    /**
+     * 创建的物理连接
+     */
+    protected List<NettyChannel> channels = new CopyOnWriteArrayList<>();
+
+    protected AbstractChannelManager.PoolChannel pool;
+
+    @BeforeEach
+    public void setup() throws Exception {
+        String name = "pool-" + COUNTER.incrementAndGet();
+        URL url = URL.valueOf("joy://127.0.0.1:22000?connections=3&connections.threshold=2");
+        TransportClient client = (TransportClient) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class[]{TransportClient.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getName":
+                            return name;
+                        case "getUrl":
+                            return url;
+                        case "getHeartbeatStrategy":
+                            //心跳消息为空，不会真正发送心跳
+                            return (HeartbeatStrategy) () -> () -> null;
+                        case "getPublisher":
+                            return EVENT_BUS.get().getPublisher(EVENT_PUBLISHER_CLIENT_NAME, name, EVENT_PUBLISHER_TRANSPORT_CONF);
+                        default:
+                            return null;
+                    }
+                });
+        pool = new AbstractChannelManager.PoolChannel(client, (n, p) -> {
+            NettyChannel channel = new NettyChannel(n, new EmbeddedChannel(), null, null, 8 * 1024 * 1024, false);
+            channels.add(channel);
+            return CompletableFuture.completedFuture(channel);
+        }, o -> {
+        });
+        pool.open().get(1, TimeUnit.SECONDS);
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        pool.close().get(1, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void testGetChannels() {
+        Assertions.assertEquals(1, pool.getChannels().size());
+        Assertions.assertSame(pool, pool.getChannels().get(0));
+        pool.grow();
+        List<Channel> result = pool.getChannels();
+        Assertions.assertEquals(2, result.size());
+        Assertions.assertSame(pool, result.get(0));
+        Assertions.assertSame(channels.get(1), result.get(1));
+    }
+
+    @Test
+    public void testScale() {
+        //负载达到阈值，扩容
+        NettyChannel primary = channels.get(0);
+        primary.getFutureManager().create(1L, 5000, null, null);
+        primary.getFutureManager().create(2L, 5000, null, null);
+        pool.scale();
+        Assertions.assertEquals(2, pool.getChannels().size());
+        //选择负载最低的连接
+        Assertions.assertSame(channels.get(1), pool.select());
+        //负载降低，缩容
+        primary.getFutureManager().completeExceptionally(1L, new Exception());
+        primary.getFutureManager().completeExceptionally(2L, new Exception());
+        pool.scale();
+        Assertions.assertEquals(1, pool.getChannels().size());
+        Assertions.assertSame(pool, pool.select());
+    }
+
+    @Test
+    public void testReplaySession() {
+        pool.addSession(1, new DefaultSession(1));
+        pool.grow();
+        NettyChannel extra = channels.get(1);
+        Assertions.assertNotNull(extra.getSession(1));
+        //新的会话同步到已经存在的物理连接
+        pool.addSession(2, new DefaultSession(2));
+        Assertions.assertNotNull(extra.getSession(2));
+        pool.removeSession(1);
+        Assertions.assertNull(extra.getSession(1));
+    }
+
+    @Test
+    public void testReplayHandshake() {
+        Map<Integer, List<Channel>> records = new ConcurrentHashMap<>();
+        Function<Integer, Function<Channel, CompletableFuture<Void>>> handshake = id -> ch -> {
+            records.computeIfAbsent(id, o -> new CopyOnWriteArrayList<>()).add(ch);
+            return CompletableFuture.completedFuture(null);
+        };
+        pool.addHandshake(1, handshake.apply(1));
+        //主连接已经握手过，不需要重放
+        Assertions.assertTrue(records.isEmpty());
+        pool.grow();
+        NettyChannel extra = channels.get(1);
+        Assertions.assertEquals(1, records.get(1).size());
+        Assertions.assertSame(extra, records.get(1).get(0));
+        //新的会话在已经存在的物理连接上重放握手
+        pool.addHandshake(2, handshake.apply(2));
+        Assertions.assertEquals(1, records.get(2).size());
+        Assertions.assertSame(extra, records.get(2).get(0));
+        //同一个会话只重放一次
+        pool.addHandshake(2, handshake.apply(2));
+        Assertions.assertEquals(1, records.get(2).size());
+    }
+
+    @Test
+    public void testHandshakeFailure() {
+        pool.grow();
+        Assertions.assertEquals(2, pool.getChannels().size());
+        CompletableFuture<Void> failed = new CompletableFuture<>();
+        failed.completeExceptionally(new Exception("authentication failed"));
+        pool.addHandshake(1, ch -> failed);
+        //握手失败的连接被移出连接池
+        Assertions.assertEquals(1, pool.getChannels().size());
+        Assertions.assertSame(pool, pool.select());
+        //新建连接握手失败，不会加入连接池
+        pool.grow();
+        Assertions.assertEquals(1, pool.getChannels().size());
+        Assertions.assertEquals(3, channels.size());
+    }
+
+    @Test
+    public void testHeartbeatFailure() throws InterruptedException {
+        pool.grow();
+        Assertions.assertEquals(2, pool.getChannels().size());
+        AbstractChannelManager.Connection connection = pool.extras.get(0);
+        //新建的物理连接也有心跳
+        Assertions.assertNotNull(connection.trigger);
+        connection.publisher.offer(new HeartbeatEvent(connection.channel, null, new Exception("heartbeat timeout")));
+        long deadline = System.currentTimeMillis() + 2000;
+        while (pool.getChannels().size() > 1 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        //心跳失败的连接被移出连接池并关闭
+        Assertions.assertEquals(1, pool.getChannels().size());
+        Assertions.assertSame(pool, pool.select());
+        Assertions.assertFalse(channels.get(1).isActive());
+    }
+}
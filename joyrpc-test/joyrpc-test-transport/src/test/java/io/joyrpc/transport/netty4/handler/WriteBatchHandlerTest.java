@@ -0,0 +1,140 @@
+package io.joyrpc.transport.netty4.handler;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import io.joyrpc.transport.channel.WriteBatch;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class WriteBatchHandlerTest {
+
+    /**
+     * 构造测试通道
+     *
+     * @param batch 批量配置
+     * @return 通道
+     */
+    protected EmbeddedChannel create(final WriteBatch batch) {
+        return new EmbeddedChannel(new WriteBatchHandler(batch), new ChannelInboundHandlerAdapter());
+    }
+
+    /**
+     * 已经刷到通道上的消息条数
+     *
+     * @param channel 通道
+     * @return 消息条数
+     */
+    protected int drain(final EmbeddedChannel channel) {
+        int count = 0;
+        ByteBuf buf;
+        while ((buf = channel.readOutbound()) != null) {
+            buf.release();
+            count++;
+        }
+        return count;
+    }
+
+    @Test
+    public void testDeferredFlush() {
+        WriteBatch batch = new WriteBatch(64, 64 * 1024);
+        EmbeddedChannel channel = create(batch);
+        //EmbeddedChannel在底层写操作后会执行待处理任务，所以先写再多次刷盘
+        for (int i = 0; i < 3; i++) {
+            channel.write(Unpooled.wrappedBuffer(new byte[10]));
+        }
+        for (int i = 0; i < 3; i++) {
+            channel.flush();
+        }
+        //合并到本轮事件循环末尾刷盘
+        Assertions.assertEquals(0, drain(channel));
+        Assertions.assertEquals(0, batch.getFlushes());
+        channel.runPendingTasks();
+        Assertions.assertEquals(3, drain(channel));
+        Assertions.assertEquals(1, batch.getFlushes());
+        Assertions.assertEquals(3, batch.getMessages());
+        Assertions.assertEquals(30, batch.getBytes());
+        Assertions.assertEquals(3, batch.getMaxBatch());
+        Assertions.assertEquals(3.0, batch.getAvgBatch());
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    public void testMessageThreshold() {
+        WriteBatch batch = new WriteBatch(2, 64 * 1024);
+        EmbeddedChannel channel = create(batch);
+        channel.write(Unpooled.wrappedBuffer(new byte[10]));
+        channel.write(Unpooled.wrappedBuffer(new byte[10]));
+        //达到条数阈值立即刷盘，不依赖事件循环任务
+        Assertions.assertEquals(0, batch.getFlushes());
+        channel.flush();
+        Assertions.assertEquals(2, drain(channel));
+        Assertions.assertEquals(1, batch.getFlushes());
+        //已经刷盘，调度的任务不再重复刷盘
+        channel.runPendingTasks();
+        Assertions.assertEquals(1, batch.getFlushes());
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    public void testByteThreshold() {
+        WriteBatch batch = new WriteBatch(64, 100);
+        EmbeddedChannel channel = create(batch);
+        channel.write(Unpooled.wrappedBuffer(new byte[60]));
+        channel.write(Unpooled.wrappedBuffer(new byte[60]));
+        Assertions.assertEquals(0, batch.getFlushes());
+        channel.flush();
+        Assertions.assertEquals(2, drain(channel));
+        Assertions.assertEquals(1, batch.getFlushes());
+        Assertions.assertEquals(120, batch.getBytes());
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    public void testFlushOnReadComplete() {
+        WriteBatch batch = new WriteBatch(64, 64 * 1024);
+        EmbeddedChannel channel = create(batch);
+        //读取过程中的应答在读取完成时统一刷盘
+        channel.pipeline().fireChannelRead(Unpooled.EMPTY_BUFFER);
+        channel.writeAndFlush(Unpooled.wrappedBuffer(new byte[10]));
+        channel.writeAndFlush(Unpooled.wrappedBuffer(new byte[10]));
+        channel.runPendingTasks();
+        Assertions.assertEquals(0, drain(channel));
+        channel.pipeline().fireChannelReadComplete();
+        Assertions.assertEquals(2, drain(channel));
+        Assertions.assertEquals(1, batch.getFlushes());
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    public void testFlushOnClose() {
+        WriteBatch batch = new WriteBatch(64, 64 * 1024);
+        EmbeddedChannel channel = create(batch);
+        channel.writeAndFlush(Unpooled.wrappedBuffer(new byte[10]));
+        channel.close();
+        Assertions.assertEquals(1, batch.getFlushes());
+        Assertions.assertEquals(1, batch.getMessages());
+        channel.finishAndReleaseAll();
+    }
+}
@@ -0,0 +1,171 @@
+package io.joyrpc.transport.netty4.http2;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import io.joyrpc.exception.ChannelSendException;
+import io.joyrpc.transport.buffer.ChannelBuffer;
+import io.joyrpc.transport.http2.DefaultHttp2Headers;
+import io.joyrpc.transport.http2.DefaultHttp2RequestMessage;
+import io.joyrpc.transport.http2.Http2Headers;
+import io.joyrpc.transport.http2.Http2RequestMessage;
+import io.joyrpc.transport.netty4.buffer.NettyChannelBuffer;
+import io.joyrpc.transport.netty4.channel.NettyChannel;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http2.Http2Settings;
+import io.netty.util.ReferenceCountUtil;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * HTTP2客户端编解码处理器测试
+ */
+public class Http2ClientCodecHandlerTest {
+
+    protected EmbeddedChannel embedded;
+
+    protected NettyChannel channel;
+
+    @AfterEach
+    public void tearDown() {
+        if (embedded != null) {
+            embedded.finishAndReleaseAll();
+        }
+    }
+
+    /**
+     * 创建通道
+     *
+     * @param failed 分配流ID是否失败
+     */
+    protected void setup(final boolean failed) {
+        embedded = new EmbeddedChannel();
+        channel = new NettyChannel("http2-client", embedded, null, null, 8 * 1024 * 1024, false);
+        Http2ClientCodecHandler handler = Http2ClientCodecHandler.create(channel, null);
+        if (failed) {
+            handler = new Http2ClientCodecHandler(handler.decoder, handler.encoder, new Http2Settings(), channel, null) {
+                @Override
+                protected int getStreamId(final Http2RequestMessage request) {
+                    throw new ChannelSendException("Error occurs while sending message, caused by stream id<0");
+                }
+            };
+        }
+        embedded.pipeline().addLast(handler);
+        //丢弃连接前言和设置帧
+        discard();
+    }
+
+    /**
+     * 丢弃写出的数据
+     */
+    protected void discard() {
+        Object msg;
+        while ((msg = embedded.readOutbound()) != null) {
+            ReferenceCountUtil.release(msg);
+        }
+    }
+
+    /**
+     * 构建请求头
+     *
+     * @return 请求头
+     */
+    protected Http2Headers headers() {
+        Http2Headers headers = new DefaultHttp2Headers();
+        headers.set(":method", "POST");
+        headers.set(":scheme", "http");
+        headers.set(":path", "/io.joyrpc.DemoService/hello");
+        headers.set(":authority", "127.0.0.1:22000");
+        headers.set("content-type", "application/grpc");
+        return headers;
+    }
+
+    /**
+     * 判断是否是同一块内存
+     *
+     * @param source 源缓冲区
+     * @param target 写出的缓冲区
+     * @return 同一块内存标识
+     */
+    protected boolean same(final ByteBuf source, final ByteBuf target) {
+        ByteBuf buf = target;
+        while (buf != null) {
+            if (buf == source) {
+                return true;
+            }
+            buf = buf.unwrap();
+        }
+        return false;
+    }
+
+    @Test
+    public void testZeroCopy() {
+        setup(false);
+        byte[] payload = "hello http2".getBytes(StandardCharsets.UTF_8);
+        ChannelBuffer buffer = channel.buffer();
+        buffer.writeBytes(payload);
+        ByteBuf source = ((NettyChannelBuffer) buffer).getByteBuf();
+        DefaultHttp2RequestMessage request = new DefaultHttp2RequestMessage(0, 1, headers(), buffer, null, true);
+        ChannelFuture future = embedded.writeAndFlush(request);
+        Assertions.assertTrue(future.isSuccess());
+        Assertions.assertTrue(request.getStreamId() > 0);
+        //数据帧直接引用调用方分配的缓冲区，没有复制
+        boolean found = false;
+        Object msg;
+        while ((msg = embedded.readOutbound()) != null) {
+            if (msg instanceof ByteBuf && same(source, (ByteBuf) msg)) {
+                found = true;
+            }
+            ReferenceCountUtil.release(msg);
+        }
+        Assertions.assertTrue(found);
+        //网络层写出后释放
+        Assertions.assertEquals(0, source.refCnt());
+    }
+
+    @Test
+    public void testByteArray() {
+        setup(false);
+        byte[] payload = "hello http2".getBytes(StandardCharsets.UTF_8);
+        DefaultHttp2RequestMessage request = new DefaultHttp2RequestMessage(0, 1, headers(), payload, null, true);
+        ChannelFuture future = embedded.writeAndFlush(request);
+        Assertions.assertTrue(future.isSuccess());
+        Assertions.assertTrue(request.getStreamId() > 0);
+        discard();
+    }
+
+    @Test
+    public void testReleaseOnStreamIdFailure() {
+        setup(true);
+        ChannelBuffer buffer = channel.buffer();
+        buffer.writeBytes("hello http2".getBytes(StandardCharsets.UTF_8));
+        ByteBuf source = ((NettyChannelBuffer) buffer).getByteBuf();
+        ChannelFuture future = embedded.writeAndFlush(new DefaultHttp2RequestMessage(0, 1, headers(), buffer, null, true));
+        Assertions.assertFalse(future.isSuccess());
+        Assertions.assertTrue(future.cause() instanceof ChannelSendException);
+        //分配流ID失败，缓冲区没有交给编码器，需要释放
+        Assertions.assertEquals(0, source.refCnt());
+    }
+}
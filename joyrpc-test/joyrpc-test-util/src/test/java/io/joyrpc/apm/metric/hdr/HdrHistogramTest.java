@@ -0,0 +1,87 @@
+package io.joyrpc.apm.metric.hdr;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import io.joyrpc.apm.metric.TPSnapshot;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class HdrHistogramTest {
+
+    @Test
+    public void testIndex() {
+        int prev = -1;
+        for (long micros = 0; micros < 1000000; micros++) {
+            int index = HdrHistogram.index(micros);
+            //桶是连续递增的
+            Assertions.assertTrue(index == prev || index == prev + 1);
+            //桶能表示的最大值不小于原始值，误差不超过1/32
+            long value = HdrHistogram.value(index);
+            Assertions.assertTrue(value >= micros);
+            Assertions.assertTrue(value - micros <= Math.max(micros >> 5, 1));
+            prev = index;
+        }
+        Assertions.assertEquals(HdrHistogram.LENGTH - 1, HdrHistogram.index(Long.MAX_VALUE));
+    }
+
+    @Test
+    public void testSnapshot() {
+        HdrHistogram histogram = new HdrHistogram();
+        //1~1000微秒各一次
+        for (int i = 1; i <= 1000; i++) {
+            histogram.success(i * 1000L, 1, 0);
+        }
+        histogram.failure();
+        TPSnapshot snapshot = histogram.snapshot();
+        Assertions.assertEquals(1001, snapshot.getRequests());
+        Assertions.assertEquals(1000, snapshot.getSuccesses());
+        Assertions.assertEquals(1, snapshot.getFailures());
+        Assertions.assertEquals(1, snapshot.getMinMicros());
+        Assertions.assertEquals(1000, snapshot.getMaxMicros());
+        Assertions.assertEquals(500, snapshot.getAvgMicros());
+        Assertions.assertTrue(Math.abs(snapshot.getTp50Micros() - 500) <= 500 / 32);
+        Assertions.assertTrue(Math.abs(snapshot.getTp99Micros() - 990) <= 990 / 32);
+        //毫秒指标保持兼容
+        Assertions.assertEquals(0, snapshot.getTp50());
+        Assertions.assertEquals(0, snapshot.getTp99());
+        Assertions.assertEquals(1, snapshot.getMax());
+    }
+
+    @Test
+    public void testMergeAndReset() {
+        HdrHistogram h1 = new HdrHistogram();
+        HdrHistogram h2 = new HdrHistogram();
+        for (int i = 0; i < 100; i++) {
+            h1.success(100000L, 1, 0);
+            h2.success(300000L, 1, 0);
+        }
+        HdrHistogram merged = new HdrHistogram().add(h1).add(h2);
+        TPSnapshot snapshot = merged.snapshot();
+        Assertions.assertEquals(200, snapshot.getSuccesses());
+        Assertions.assertEquals(100, snapshot.getMinMicros());
+        Assertions.assertEquals(300, snapshot.getMaxMicros());
+        Assertions.assertTrue(Math.abs(merged.getValueAtPercentile(90) - 300) <= 300 / 32);
+        merged.reset();
+        Assertions.assertFalse(merged.hasRequest());
+        Assertions.assertEquals(0, merged.getValueAtPercentile(99));
+        Assertions.assertEquals(0, merged.snapshot().getTp99Micros());
+    }
+}
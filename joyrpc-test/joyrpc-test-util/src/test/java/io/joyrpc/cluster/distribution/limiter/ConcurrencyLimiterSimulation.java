@@ -0,0 +1,110 @@
+package io.joyrpc.cluster.distribution.limiter;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import io.joyrpc.cluster.distribution.ConcurrencyLimiter;
+import io.joyrpc.invoker.option.Concurrency;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 并发限制器模拟，本地桩服务的处理能力固定，客户端按照超过处理能力的速率发起请求，
+ * 对比静态并发数和自适应并发数在过载情况下的有效吞吐（在超时时间内完成的请求）。<br/>
+ * 直接运行main方法，参数依次为每种限制器的运行秒数（默认5）和每秒请求数（默认4000，桩服务处理能力的2倍）
+ */
+public class ConcurrencyLimiterSimulation {
+
+    /**
+     * 桩服务的工作线程数
+     */
+    protected static final int WORKERS = 4;
+    /**
+     * 桩服务单个请求的处理时间（毫秒）
+     */
+    protected static final int SERVICE_MILLIS = 2;
+    /**
+     * 请求超时时间（毫秒）
+     */
+    protected static final int TIMEOUT_MILLIS = 50;
+
+    public static void main(String[] args) throws Exception {
+        int seconds = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+        //处理能力 WORKERS * 1000 / SERVICE_MILLIS = 2000 qps，按照2倍的速率发起请求
+        int rate = args.length > 1 ? Integer.parseInt(args[1]) : 4000;
+        run("static(200)", new Concurrency(200), rate, seconds);
+        run("vegas", new Concurrency(200, 0, create(new VegasConcurrencyLimiter())), rate, seconds);
+        run("gradient", new Concurrency(200, 0, create(new GradientConcurrencyLimiter())), rate, seconds);
+    }
+
+    protected static ConcurrencyLimiter create(final ConcurrencyLimiter limiter) {
+        limiter.setup(200, 1000);
+        return limiter;
+    }
+
+    protected static void run(final String name, final Concurrency concurrency, final int rate, final int seconds)
+            throws InterruptedException {
+        ExecutorService provider = Executors.newFixedThreadPool(WORKERS);
+        ScheduledExecutorService client = Executors.newSingleThreadScheduledExecutor();
+        ConcurrencyLimiter limiter = concurrency.getLimiter();
+        LongAdder goodput = new LongAdder();
+        LongAdder timeouts = new LongAdder();
+        LongAdder rejects = new LongAdder();
+        int perTick = Math.max(rate / 1000, 1);
+        long endTime = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        client.scheduleAtFixedRate(() -> {
+            for (int i = 0; i < perTick; i++) {
+                if (!concurrency.tryAcquire()) {
+                    //快速失败
+                    rejects.increment();
+                    continue;
+                }
+                long inflight = concurrency.getActives();
+                long start = System.nanoTime();
+                provider.execute(() -> {
+                    try {
+                        Thread.sleep(SERVICE_MILLIS);
+                    } catch (InterruptedException ignored) {
+                    }
+                    long rtt = System.nanoTime() - start;
+                    boolean timeout = rtt > TimeUnit.MILLISECONDS.toNanos(TIMEOUT_MILLIS);
+                    if (timeout) {
+                        timeouts.increment();
+                    } else {
+                        goodput.increment();
+                    }
+                    if (limiter != null) {
+                        limiter.onSample(rtt, inflight, timeout);
+                    }
+                    concurrency.decrement();
+                });
+            }
+        }, 0, 1, TimeUnit.MILLISECONDS);
+        while (System.nanoTime() < endTime) {
+            Thread.sleep(100);
+        }
+        client.shutdownNow();
+        provider.shutdownNow();
+        provider.awaitTermination(1, TimeUnit.SECONDS);
+        System.out.println(String.format("%-12s goodput=%d/s timeouts=%d/s rejects=%d/s limit=%d",
+                name, goodput.sum() / seconds, timeouts.sum() / seconds, rejects.sum() / seconds, concurrency.getMax()));
+    }
+}
@@ -0,0 +1,141 @@
+package io.joyrpc.cluster.distribution.limiter;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import io.joyrpc.cluster.distribution.ConcurrencyLimiter;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 自适应并发限制器测试，按照固定的耗时序列采样，验证并发数随耗时的增长和收缩
+ */
+public class ConcurrencyLimiterTest {
+
+    protected static final long FAST = TimeUnit.MILLISECONDS.toNanos(1);
+
+    protected static final long SLOW = TimeUnit.MILLISECONDS.toNanos(10);
+
+    protected ConcurrencyLimiter create(final ConcurrencyLimiter limiter) {
+        limiter.setup(20, 200);
+        return limiter;
+    }
+
+    /**
+     * 并发数用满的情况下持续采样
+     *
+     * @param limiter 限制器
+     * @param rtt     耗时
+     * @param count   采样次数
+     * @param dropped 是否丢弃
+     * @return 采样后的并发数
+     */
+    protected int sample(final ConcurrencyLimiter limiter, final long rtt, final int count, final boolean dropped) {
+        for (int i = 0; i < count; i++) {
+            limiter.onSample(rtt, limiter.getLimit(), dropped);
+        }
+        return limiter.getLimit();
+    }
+
+    @Test
+    public void testVegasGrow() {
+        ConcurrencyLimiter limiter = create(new VegasConcurrencyLimiter());
+        //耗时稳定没有排队，并发数增长直到最大值
+        int limit = sample(limiter, FAST, 10, false);
+        Assertions.assertTrue(limit > 20, "limit=" + limit);
+        Assertions.assertEquals(200, sample(limiter, FAST, 200, false));
+    }
+
+    @Test
+    public void testVegasShrink() {
+        ConcurrencyLimiter limiter = create(new VegasConcurrencyLimiter());
+        int grown = sample(limiter, FAST, 20, false);
+        //耗时升高10倍，估算的排队数很大，并发数逐步收缩
+        int shrunk = sample(limiter, SLOW, 20, false);
+        Assertions.assertTrue(shrunk < grown, "grown=" + grown + ",shrunk=" + shrunk);
+        int further = sample(limiter, SLOW, 20, false);
+        Assertions.assertTrue(further < shrunk, "shrunk=" + shrunk + ",further=" + further);
+        //耗时恢复后重新增长
+        int recovered = sample(limiter, FAST, 20, false);
+        Assertions.assertTrue(recovered > further, "further=" + further + ",recovered=" + recovered);
+    }
+
+    @Test
+    public void testVegasDrop() {
+        ConcurrencyLimiter limiter = create(new VegasConcurrencyLimiter());
+        sample(limiter, FAST, 1, false);
+        int limit = sample(limiter, FAST, 10, true);
+        Assertions.assertTrue(limit < 20, "limit=" + limit);
+        //不会低于最小并发数
+        Assertions.assertEquals(1, sample(limiter, FAST, 100, true));
+    }
+
+    @Test
+    public void testVegasIdle() {
+        ConcurrencyLimiter limiter = create(new VegasConcurrencyLimiter());
+        limiter.onSample(FAST, 20, false);
+        //并发数没有用满一半，耗时再高也不调整
+        for (int i = 0; i < 20; i++) {
+            limiter.onSample(SLOW, 5, false);
+        }
+        Assertions.assertEquals(20, limiter.getLimit());
+    }
+
+    @Test
+    public void testGradientGrow() {
+        ConcurrencyLimiter limiter = create(new GradientConcurrencyLimiter());
+        int limit = sample(limiter, FAST, 20, false);
+        Assertions.assertTrue(limit > 20, "limit=" + limit);
+        Assertions.assertEquals(200, sample(limiter, FAST, 500, false));
+    }
+
+    @Test
+    public void testGradientShrink() {
+        ConcurrencyLimiter limiter = create(new GradientConcurrencyLimiter());
+        int grown = sample(limiter, FAST, 100, false);
+        //耗时升高，梯度小于1，并发数收缩
+        int shrunk = sample(limiter, SLOW, 20, false);
+        Assertions.assertTrue(shrunk < grown / 2, "grown=" + grown + ",shrunk=" + shrunk);
+        //耗时恢复后重新增长
+        int recovered = sample(limiter, FAST, 50, false);
+        Assertions.assertTrue(recovered > shrunk, "shrunk=" + shrunk + ",recovered=" + recovered);
+    }
+
+    @Test
+    public void testGradientDrop() {
+        ConcurrencyLimiter limiter = create(new GradientConcurrencyLimiter());
+        int grown = sample(limiter, FAST, 100, false);
+        int dropped = sample(limiter, FAST, 20, true);
+        Assertions.assertTrue(dropped < grown / 2, "grown=" + grown + ",dropped=" + dropped);
+    }
+
+    @Test
+    public void testGradientIdle() {
+        ConcurrencyLimiter limiter = create(new GradientConcurrencyLimiter());
+        limiter.onSample(FAST, 20, false);
+        int limit = limiter.getLimit();
+        for (int i = 0; i < 20; i++) {
+            limiter.onSample(SLOW, 5, false);
+        }
+        Assertions.assertEquals(limit, limiter.getLimit());
+    }
+}
@@ -0,0 +1,123 @@
+package io.joyrpc.invoker;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import io.joyrpc.context.RequestContext;
+import io.joyrpc.invoker.injection.ContextTransmit;
+import io.joyrpc.protocol.message.Invocation;
+import io.joyrpc.protocol.message.RequestMessage;
+import io.joyrpc.util.SystemClock;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+
+/**
+ * 调用链截止时间测试
+ */
+public class DeadlineTest {
+
+    /**
+     * 构造请求
+     *
+     * @param timeout 超时时间
+     * @return 请求
+     */
+    protected RequestMessage<Invocation> request(final int timeout) {
+        RequestMessage<Invocation> request = RequestMessage.build(new Invocation(new HashMap<>()));
+        request.setContext(new RequestContext());
+        request.setTimeout(timeout);
+        request.getHeader().setTimeout(timeout);
+        return request;
+    }
+
+    @Test
+    public void testOf() {
+        Assertions.assertEquals(1300, Deadline.of(1000, 300));
+        //没有超时时间则没有截止时间
+        Assertions.assertEquals(0, Deadline.of(1000, 0));
+    }
+
+    @Test
+    public void testServerReceive() {
+        //服务端按照本机收到请求的时间和请求头中的超时时间计算截止时间
+        RequestMessage<Invocation> request = request(500);
+        long receiveTime = SystemClock.now() - 100;
+        request.setReceiveTime(receiveTime);
+        new ContextTransmit().onServerReceive(request);
+        Assertions.assertEquals(receiveTime + 500, request.getContext().getDeadline());
+        //嵌套调用的上下文继承截止时间
+        Assertions.assertEquals(receiveTime + 500, request.getContext().create().getDeadline());
+
+        request = request(0);
+        request.setReceiveTime(receiveTime);
+        new ContextTransmit().onServerReceive(request);
+        Assertions.assertEquals(0, request.getContext().getDeadline());
+    }
+
+    @Test
+    public void testClip() {
+        long now = SystemClock.now();
+        long clips = Deadline.getClips();
+        long millis = Deadline.getClippedMillis();
+        RequestMessage<Invocation> request = request(1000);
+        request.getContext().setDeadline(now + 300);
+        //剩余的预算小于超时时间，裁剪超时时间
+        Assertions.assertEquals(300, Deadline.clip(request, now));
+        Assertions.assertEquals(300, request.getTimeout());
+        Assertions.assertEquals(300, request.getHeader().getTimeout());
+        Assertions.assertEquals(clips + 1, Deadline.getClips());
+        Assertions.assertEquals(millis + 700, Deadline.getClippedMillis());
+        //剩余的预算大于超时时间，不裁剪
+        request = request(200);
+        request.getContext().setDeadline(now + 300);
+        Assertions.assertEquals(200, Deadline.clip(request, now));
+        Assertions.assertEquals(200, request.getHeader().getTimeout());
+        //没有截止时间
+        request = request(1000);
+        Assertions.assertEquals(1000, Deadline.clip(request, now));
+        Assertions.assertEquals(clips + 1, Deadline.getClips());
+    }
+
+    @Test
+    public void testChain() {
+        //上游请求在服务端排队了400毫秒
+        RequestMessage<Invocation> upstream = request(1000);
+        long receiveTime = SystemClock.now();
+        upstream.setReceiveTime(receiveTime);
+        new ContextTransmit().onServerReceive(upstream);
+        RequestMessage<Invocation> nested = request(1000);
+        nested.setContext(upstream.getContext().create());
+        Assertions.assertEquals(600, Deadline.clip(nested, receiveTime + 400));
+        //下游按照裁剪后的超时时间计算截止时间
+        long downstream = receiveTime + 410;
+        Assertions.assertEquals(downstream + 600, Deadline.of(downstream, nested.getHeader().getTimeout()));
+    }
+
+    @Test
+    public void testExceeded() {
+        RequestContext context = new RequestContext();
+        Assertions.assertFalse(Deadline.isExceeded(context, SystemClock.now()));
+        context.setDeadline(1000);
+        Assertions.assertFalse(Deadline.isExceeded(context, 999));
+        Assertions.assertTrue(Deadline.isExceeded(context, 1000));
+    }
+}
@@ -0,0 +1,150 @@
+package io.joyrpc.invoker.option;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class ConcurrencyTest {
+
+    @Test
+    public void testAcquire() throws Exception {
+        Concurrency concurrency = new Concurrency(2, 2);
+        Assertions.assertTrue(concurrency.acquire(1000).join());
+        Assertions.assertTrue(concurrency.acquire(1000).join());
+        //超过并发数进行排队
+        CompletableFuture<Boolean> f1 = concurrency.acquire(10000);
+        CompletableFuture<Boolean> f2 = concurrency.acquire(10000);
+        Assertions.assertFalse(f1.isDone());
+        Assertions.assertFalse(f2.isDone());
+        Assertions.assertEquals(2, concurrency.getWaiting());
+        //队列已满，快速失败
+        Assertions.assertNull(concurrency.acquire(10000));
+        //释放许可按照顺序交给等待者
+        concurrency.decrement();
+        Assertions.assertTrue(f1.get(2, TimeUnit.SECONDS));
+        Assertions.assertFalse(f2.isDone());
+        concurrency.decrement();
+        Assertions.assertTrue(f2.get(2, TimeUnit.SECONDS));
+        Assertions.assertEquals(2, concurrency.getActives());
+        Assertions.assertEquals(0, concurrency.getWaiting());
+    }
+
+    @Test
+    public void testTimeout() throws Exception {
+        Concurrency concurrency = new Concurrency(1, 10);
+        Assertions.assertTrue(concurrency.acquire(1000).join());
+        CompletableFuture<Boolean> future = concurrency.acquire(50);
+        Assertions.assertFalse(future.get(2, TimeUnit.SECONDS));
+        Assertions.assertEquals(0, concurrency.getWaiting());
+        //超时的等待者从队列中移除
+        Assertions.assertTrue(concurrency.waiters.isEmpty());
+        //超时的等待者不会占用许可
+        concurrency.decrement();
+        Assertions.assertEquals(0, concurrency.getActives());
+        Assertions.assertTrue(concurrency.acquire(1000).join());
+    }
+
+    @Test
+    public void testTimeoutWithoutRelease() throws Exception {
+        Concurrency concurrency = new Concurrency(1, 100);
+        Assertions.assertTrue(concurrency.acquire(1000).join());
+        List<CompletableFuture<Boolean>> futures = new LinkedList<>();
+        for (int i = 0; i < 100; i++) {
+            futures.add(concurrency.acquire(20));
+        }
+        for (CompletableFuture<Boolean> future : futures) {
+            Assertions.assertFalse(future.get(2, TimeUnit.SECONDS));
+        }
+        //一直没有释放许可，超时的等待者也不会堆积在队列中
+        Assertions.assertTrue(concurrency.waiters.isEmpty());
+        Assertions.assertEquals(0, concurrency.getWaiting());
+        Assertions.assertNotNull(concurrency.acquire(20));
+    }
+
+    @Test
+    public void testWakeupExecutor() throws Exception {
+        AtomicReference<Thread> executed = new AtomicReference<>();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Concurrency concurrency = new Concurrency(1, 10, null, executor);
+            Assertions.assertTrue(concurrency.acquire(1000).join());
+            CompletableFuture<Boolean> future = concurrency.acquire(10000);
+            CompletableFuture<Void> next = future.thenRun(() -> executed.set(Thread.currentThread()));
+            concurrency.decrement();
+            next.get(2, TimeUnit.SECONDS);
+            //后续逻辑在线程池中执行，不占用释放许可的线程
+            Assertions.assertNotNull(executed.get());
+            Assertions.assertNotSame(Thread.currentThread(), executed.get());
+            Assertions.assertEquals(1, concurrency.getActives());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testTimeoutExecutor() throws Exception {
+        AtomicReference<Thread> executed = new AtomicReference<>();
+        ExecutorService executor = Executors.newSingleThreadExecutor(r -> new Thread(r, "concurrency-test"));
+        try {
+            Concurrency concurrency = new Concurrency(1, 10, null, executor);
+            Assertions.assertTrue(concurrency.acquire(1000).join());
+            CompletableFuture<Boolean> future = concurrency.acquire(20);
+            CompletableFuture<Void> next = future.thenRun(() -> executed.set(Thread.currentThread()));
+            next.get(2, TimeUnit.SECONDS);
+            Assertions.assertFalse(future.join());
+            //超时通知也在线程池中执行，不占用定时器线程
+            Assertions.assertEquals("concurrency-test", executed.get().getName());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testWakeupInline() throws Exception {
+        AtomicReference<Thread> executed = new AtomicReference<>();
+        //线程池拒绝或者没有线程池，在释放许可的线程上通知，不使用公共线程池
+        Concurrency[] concurrencies = new Concurrency[]{
+                new Concurrency(1, 10, null, r -> {
+                    throw new RejectedExecutionException();
+                }),
+                new Concurrency(1, 10)};
+        for (Concurrency concurrency : concurrencies) {
+            executed.set(null);
+            Assertions.assertTrue(concurrency.acquire(1000).join());
+            CompletableFuture<Boolean> future = concurrency.acquire(10000);
+            future.thenRun(() -> executed.set(Thread.currentThread()));
+            concurrency.decrement();
+            Assertions.assertTrue(future.isDone());
+            Assertions.assertTrue(future.join());
+            Assertions.assertSame(Thread.currentThread(), executed.get());
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package io.joyrpc.transport.channel;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import io.joyrpc.exception.ChannelClosedException;
+import io.joyrpc.util.IdGenerator.IntToLongIdGenerator;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+public class LongFutureManagerTest {
+
+    @Test
+    public void testCreateAndComplete() throws Exception {
+        LongFutureManager<String> manager = new LongFutureManager<>(null, new IntToLongIdGenerator(), null, 2);
+        int count = 10000;
+        for (long i = 0; i < count; i++) {
+            manager.create(i, 10000, null);
+        }
+        Assertions.assertEquals(count, manager.size());
+        //先移除偶数，验证删除后的探测链仍然完整
+        for (long i = 0; i < count; i += 2) {
+            Assertions.assertTrue(manager.complete(i, String.valueOf(i)));
+        }
+        Assertions.assertEquals(count / 2, manager.size());
+        for (long i = 0; i < count; i++) {
+            RequestFuture<Long, String> future = manager.get(i);
+            if (i % 2 == 0) {
+                Assertions.assertNull(future);
+                Assertions.assertFalse(manager.complete(i, "again"));
+            } else {
+                Assertions.assertNotNull(future);
+                Assertions.assertEquals(i, future.getMessageId().longValue());
+            }
+        }
+        for (long i = 1; i < count; i += 2) {
+            RequestFuture<Long, String> future = manager.get(i);
+            Assertions.assertTrue(manager.complete(i, String.valueOf(i)));
+            Assertions.assertEquals(String.valueOf(i), future.get());
+        }
+        Assertions.assertTrue(manager.isEmpty());
+    }
+
+    @Test
+    public void testMessageId() {
+        LongFutureManager<String> manager = new LongFutureManager<>(null, new IntToLongIdGenerator(), null);
+        long id = 100000L;
+        RequestFuture<Long, String> future = manager.create(id, 10000, null);
+        Assertions.assertTrue(future instanceof LongFutureManager.LongRequestFuture);
+        Assertions.assertEquals(id, ((LongFutureManager.LongRequestFuture<String>) future).getId());
+        //装箱后缓存，多次获取是同一个对象
+        Assertions.assertSame(future.getMessageId(), future.getMessageId());
+        Assertions.assertNotNull(future.getTimeout());
+        Assertions.assertTrue(manager.complete(id, "ok"));
+        Assertions.assertTrue(future.getTimeout().isCancelled());
+    }
+
+    @Test
+    public void testLazyFutures() {
+        LongFutureManager<String> manager = new LongFutureManager<>(null, new IntToLongIdGenerator(), null);
+        manager.create(manager.nextId(), 10000, null);
+        //子类不使用父类的存储
+        Assertions.assertNull(manager.futures);
+        FutureManager<Long, String> base = new FutureManager<>(null, new IntToLongIdGenerator(), null);
+        Assertions.assertNull(base.futures);
+        Assertions.assertNull(base.get(1L));
+        Assertions.assertFalse(base.complete(1L, "none"));
+        RequestFuture<Long, String> future = base.create(1L, 10000, null);
+        Assertions.assertNotNull(base.futures);
+        Assertions.assertSame(future, base.get(1L));
+        Assertions.assertTrue(base.complete(1L, "ok"));
+        Assertions.assertTrue(base.isEmpty());
+    }
+
+    @Test
+    public void testTimeout() throws InterruptedException {
+        LongFutureManager<String> manager = new LongFutureManager<>(null, new IntToLongIdGenerator(), null);
+        long id = manager.nextId();
+        RequestFuture<Long, String> future = manager.create(id, 100, null);
+        try {
+            future.get(5, TimeUnit.SECONDS);
+            Assertions.fail("future must be timeout.");
+        } catch (ExecutionException e) {
+            Assertions.assertTrue(e.getCause() instanceof TimeoutException);
+        } catch (TimeoutException e) {
+            Assertions.fail("timer did not fire.");
+        }
+        Assertions.assertTrue(manager.isEmpty());
+        Assertions.assertNull(manager.get(id));
+    }
+
+    @Test
+    public void testClose() {
+        LongFutureManager<String> manager = new LongFutureManager<>(new DecoratorChannel(null) {
+            @Override
+            public java.net.InetSocketAddress getRemoteAddress() {
+                return null;
+            }
+        }, new IntToLongIdGenerator(), null);
+        RequestFuture<Long, String> future = manager.create(manager.nextId(), 10000, null);
+        manager.close();
+        Assertions.assertTrue(future.isCompletedExceptionally());
+        Assertions.assertTrue(manager.isEmpty());
+        try {
+            future.join();
+        } catch (Exception e) {
+            Assertions.assertTrue(e.getCause() instanceof ChannelClosedException);
+        }
+    }
+
+}
@@ -0,0 +1,100 @@
+package io.joyrpc.transport.session;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import io.joyrpc.context.RequestContext;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * 请求取消登记测试
+ */
+public class CancellationTest {
+
+    /**
+     * 等待登记的请求清理完
+     *
+     * @param cancellation 取消登记
+     * @param millis       最长等待时间
+     * @return 清理完成标识
+     * @throws InterruptedException 中断异常
+     */
+    protected boolean awaitEmpty(final Cancellation cancellation, final long millis) throws InterruptedException {
+        long end = System.currentTimeMillis() + millis;
+        while (cancellation.size() > 0 && System.currentTimeMillis() < end) {
+            Thread.sleep(20);
+        }
+        return cancellation.size() == 0;
+    }
+
+    @Test
+    public void testCancelQueued() {
+        Cancellation cancellation = new Cancellation();
+        cancellation.cancel(1, 10000);
+        Assertions.assertTrue(cancellation.isCancelled(1));
+        Assertions.assertFalse(cancellation.isCancelled(2));
+        //排队的请求出队后不再执行，标记同时清理
+        Assertions.assertFalse(cancellation.start(1, new RequestContext()));
+        Assertions.assertEquals(0, cancellation.size());
+    }
+
+    @Test
+    public void testCancelRunning() {
+        Cancellation cancellation = new Cancellation();
+        RequestContext context = new RequestContext();
+        Assertions.assertTrue(cancellation.start(1, context));
+        Assertions.assertFalse(context.isCancelled());
+        cancellation.cancel(1, 10000);
+        //执行中的请求设置取消标识
+        Assertions.assertTrue(context.isCancelled());
+        Assertions.assertFalse(cancellation.isCancelled(1));
+        cancellation.finish(1);
+        Assertions.assertEquals(0, cancellation.size());
+    }
+
+    @Test
+    public void testTombstoneExpire() throws InterruptedException {
+        Cancellation cancellation = new Cancellation();
+        //请求已经执行完，取消标记到期清理
+        cancellation.cancel(1, 100);
+        Assertions.assertEquals(1, cancellation.size());
+        Assertions.assertTrue(awaitEmpty(cancellation, 5000));
+        Assertions.assertFalse(cancellation.isCancelled(1));
+        //过期后相同的消息ID可以正常执行
+        Assertions.assertTrue(cancellation.start(1, new RequestContext()));
+    }
+
+    @Test
+    public void testExpireKeepsRunning() throws InterruptedException {
+        Cancellation cancellation = new Cancellation();
+        cancellation.cancel(1, 100);
+        Assertions.assertTrue(awaitEmpty(cancellation, 5000));
+        //到期清理只删除取消标记，不会删除重新登记的执行中请求
+        RequestContext context = new RequestContext();
+        Assertions.assertTrue(cancellation.start(2, context));
+        cancellation.cancel(3, 100);
+        Assertions.assertFalse(cancellation.start(3, new RequestContext()));
+        Thread.sleep(300);
+        Assertions.assertEquals(1, cancellation.size());
+        cancellation.finish(2);
+        Assertions.assertEquals(0, cancellation.size());
+    }
+}
@@ -0,0 +1,149 @@
+package io.joyrpc.util;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import io.joyrpc.util.Timer.Timeout;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class HashedWheelTimerTest {
+
+    protected List<HashedWheelTimer> timers = new LinkedList<>();
+
+    protected HashedWheelTimer create(final int shards, final int threads, final long maxTasks) {
+        HashedWheelTimer timer = new HashedWheelTimer("test", 1, 64, shards, threads, maxTasks);
+        timers.add(timer);
+        return timer;
+    }
+
+    @AfterEach
+    public void tearDown() {
+        timers.forEach(HashedWheelTimer::close);
+        timers.clear();
+    }
+
+    @Test
+    public void testAccuracy() throws InterruptedException {
+        HashedWheelTimer timer = create(2, 2, 0);
+        int count = 100;
+        CountDownLatch latch = new CountDownLatch(count);
+        long[] late = new long[count];
+        for (int i = 0; i < count; i++) {
+            //覆盖多圈的情况
+            int delay = 10 + i;
+            int index = i;
+            long expected = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delay);
+            timer.delay("test-" + i, delay, () -> {
+                late[index] = System.nanoTime() - expected;
+                latch.countDown();
+            });
+        }
+        Assertions.assertTrue(latch.await(5, TimeUnit.SECONDS));
+        for (long l : late) {
+            //不能提前执行
+            Assertions.assertTrue(l >= 0);
+        }
+    }
+
+    @Test
+    public void testCancel() throws InterruptedException {
+        HashedWheelTimer timer = create(1, 1, 10);
+        AtomicBoolean fired = new AtomicBoolean();
+        Timeout timeout = timer.add("cancel", SystemClock.now() + 50, () -> fired.set(true));
+        Assertions.assertEquals(1, timer.tasks.get());
+        Assertions.assertTrue(timeout.cancel());
+        Assertions.assertTrue(timeout.isCancelled());
+        Assertions.assertFalse(timeout.cancel());
+        //放弃任务同步减少计数
+        Assertions.assertEquals(0, timer.tasks.get());
+        CountDownLatch latch = new CountDownLatch(1);
+        timer.add("other", SystemClock.now() + 100, latch::countDown);
+        Assertions.assertTrue(latch.await(5, TimeUnit.SECONDS));
+        Assertions.assertFalse(fired.get());
+        //任务执行完成后才减少计数，等待工作线程结束
+        timer.close();
+        Assertions.assertTrue(timer.workerPool.awaitTermination(5, TimeUnit.SECONDS));
+        Assertions.assertEquals(0, timer.tasks.get());
+    }
+
+    /**
+     * 等待线程进入指定状态
+     *
+     * @param thread 线程
+     * @param state  状态
+     * @return 是否进入该状态
+     */
+    protected boolean await(final Thread thread, final Thread.State state) throws InterruptedException {
+        long end = System.currentTimeMillis() + 5000;
+        while (thread.getState() != state && System.currentTimeMillis() < end) {
+            Thread.sleep(5);
+        }
+        return thread.getState() == state;
+    }
+
+    @Test
+    public void testIdle() throws InterruptedException {
+        HashedWheelTimer timer = create(1, 1, 0);
+        Thread thread = timer.threads[0];
+        //没有任务时无限期等待，不按跳唤醒
+        Assertions.assertTrue(await(thread, Thread.State.WAITING));
+        Thread.sleep(200);
+        for (int i = 0; i < 2; i++) {
+            //空闲后添加任务会唤醒驱动线程，并且按照当前时间计算到期的跳
+            CountDownLatch latch = new CountDownLatch(1);
+            long expected = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(50);
+            long[] late = new long[1];
+            timer.delay("idle", 50, () -> {
+                late[0] = System.nanoTime() - expected;
+                latch.countDown();
+            });
+            Assertions.assertTrue(latch.await(5, TimeUnit.SECONDS));
+            Assertions.assertTrue(late[0] >= 0);
+            Assertions.assertTrue(late[0] < TimeUnit.MILLISECONDS.toNanos(1000));
+            Assertions.assertTrue(await(thread, Thread.State.WAITING));
+        }
+        //放弃任务后同样回到无限期等待
+        Timeout timeout = timer.delay("cancel", 10000, () -> {
+        });
+        Assertions.assertTrue(await(thread, Thread.State.TIMED_WAITING));
+        timeout.cancel();
+        Assertions.assertTrue(await(thread, Thread.State.WAITING));
+    }
+
+    @Test
+    public void testClose() throws InterruptedException {
+        HashedWheelTimer timer = create(2, 1, 0);
+        timer.close();
+        for (Thread thread : timer.threads) {
+            thread.join(5000);
+            Assertions.assertFalse(thread.isAlive());
+        }
+        Assertions.assertTrue(timer.workerPool.awaitTermination(5, TimeUnit.SECONDS));
+    }
+
+}
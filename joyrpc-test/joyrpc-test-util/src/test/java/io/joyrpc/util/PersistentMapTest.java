@@ -0,0 +1,111 @@
+package io.joyrpc.util;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+public class PersistentMapTest {
+
+    /**
+     * 哈希值冲突的键
+     */
+    protected static class Key {
+        protected final int value;
+
+        public Key(int value) {
+            this.value = value;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key && ((Key) o).value == value;
+        }
+
+        @Override
+        public int hashCode() {
+            return value % 7;
+        }
+    }
+
+    @Test
+    public void testRandom() {
+        Random random = new Random(7);
+        Map<String, Integer> expected = new HashMap<>();
+        PersistentMap<String, Integer> map = PersistentMap.empty();
+        for (int i = 0; i < 20000; i++) {
+            String key = "node-" + random.nextInt(2000);
+            int value = random.nextInt(3);
+            if (random.nextInt(3) == 0) {
+                expected.remove(key);
+                map = map.remove(key);
+            } else {
+                expected.put(key, value);
+                map = map.put(key, value);
+            }
+        }
+        Assertions.assertEquals(expected.size(), map.size());
+        Map<String, Integer> actual = new HashMap<>();
+        map.forEach(actual::put);
+        Assertions.assertEquals(expected, actual);
+        for (Map.Entry<String, Integer> entry : expected.entrySet()) {
+            Assertions.assertEquals(entry.getValue(), map.get(entry.getKey()));
+        }
+    }
+
+    @Test
+    public void testSnapshot() {
+        PersistentMap<String, Integer> v1 = PersistentMap.<String, Integer>empty().put("a", 1).put("b", 2);
+        PersistentMap<String, Integer> v2 = v1.put("a", 3).remove("b");
+        //旧版本不受影响
+        Assertions.assertEquals(2, v1.size());
+        Assertions.assertEquals(1, v1.get("a"));
+        Assertions.assertEquals(2, v1.get("b"));
+        Assertions.assertEquals(1, v2.size());
+        Assertions.assertEquals(3, v2.get("a"));
+        Assertions.assertNull(v2.get("b"));
+        //值不匹配不删除，没有变化返回原对象
+        Assertions.assertSame(v2, v2.remove("a", 1));
+        Assertions.assertSame(v2, v2.remove("c"));
+        Assertions.assertTrue(v2.remove("a", 3).isEmpty());
+    }
+
+    @Test
+    public void testCollision() {
+        PersistentMap<Key, Integer> map = PersistentMap.empty();
+        for (int i = 0; i < 100; i++) {
+            map = map.put(new Key(i), i);
+        }
+        Assertions.assertEquals(100, map.size());
+        for (int i = 0; i < 100; i += 2) {
+            map = map.remove(new Key(i));
+        }
+        Assertions.assertEquals(50, map.size());
+        for (int i = 0; i < 100; i++) {
+            Assertions.assertEquals(i % 2 == 0 ? null : i, map.get(new Key(i)));
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package io.joyrpc.util;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 定时器精度对比，统计任务实际执行时间相对于期望时间的延迟分布
+ */
+public class TimerAccuracyBenchmark {
+
+    public static void main(String[] args) throws InterruptedException {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 5000;
+        run("wheel(200ms)", new Timer("wheel", 200, 300, 4), count);
+        run("hashed(1ms)", new HashedWheelTimer("hashed", 1, 512, 2, 4, 0), count);
+    }
+
+    protected static void run(final String name, final Timer timer, final int count) throws InterruptedException {
+        CountDownLatch latch = new CountDownLatch(count);
+        long[] late = new long[count];
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < count; i++) {
+            //模拟10~100毫秒的请求超时
+            int delay = 10 + random.nextInt(91);
+            int index = i;
+            long expected = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delay);
+            timer.delay(null, delay, () -> {
+                late[index] = System.nanoTime() - expected;
+                latch.countDown();
+            });
+        }
+        latch.await();
+        Arrays.sort(late);
+        System.out.println(String.format("%-14s tasks=%d lateness(ms) p50=%.2f p99=%.2f max=%.2f",
+                name, count, ms(late[count / 2]), ms(late[(int) (count * 0.99)]), ms(late[count - 1])));
+    }
+
+    protected static double ms(final long nanos) {
+        return nanos / 1000000.0;
+    }
+}